@@ -0,0 +1,68 @@
+package com.nexusvoice.application.conversation.assembler;
+
+import com.nexusvoice.domain.conversation.model.ConversationMessage;
+import com.nexusvoice.infrastructure.ai.model.ChatMessage;
+import com.nexusvoice.infrastructure.ai.service.AiChatService;
+import com.nexusvoice.infrastructure.ai.service.impl.DefaultAiChatService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 历史裁剪基准：每轮对话构建AI请求时按token预算从尾部选取历史
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryTrimBenchmark {
+
+    /**
+     * 历史条数（单个对话消息上限为100）
+     */
+    @Param({"10", "100"})
+    public int historySize;
+
+    private final AiChatService aiChatService = new DefaultAiChatService();
+    private List<ConversationMessage> history;
+    private String systemPrompt;
+
+    @Setup
+    public void setup() {
+        systemPrompt = "你是一个有用的AI助手\n\n=== 角色设定 ===\n角色描述：一位耐心的Java技术顾问\n"
+                + "请严格按照以上角色设定进行对话，保持角色的一致性。";
+        history = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            String content = "第" + i + "条消息：虚拟线程适合大量阻塞I/O的场景，它们由JVM调度，创建成本很低，"
+                    + "所以可以为每个请求创建一个新的虚拟线程。";
+            history.add(i % 2 == 0
+                    ? ConversationMessage.createUserMessage(1L, content, i + 1)
+                    : ConversationMessage.createAssistantMessage(1L, content, i + 1));
+        }
+    }
+
+    @Benchmark
+    public List<ChatMessage> addTrimmedHistory() {
+        List<ChatMessage> messages = new ArrayList<>();
+        messages.add(ChatMessage.system(systemPrompt));
+        ConversationAssembler.addTrimmedHistory(messages, history, systemPrompt, aiChatService::estimateTokenCount);
+        return messages;
+    }
+}
@@ -0,0 +1,171 @@
+package com.nexusvoice.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * JMH结果对比：读取基线与本次的JSON结果（-rf json），生成Markdown报告
+ * 用法：BenchmarkComparison [基线JSON] [本次JSON] [阈值百分比] [报告路径]，
+ * 缺省为 src/jmh/baseline/baseline.json、target/jmh-result.json、10、target/jmh-report.md。
+ * 某项变差超过阈值且超出两次结果的误差范围，或每次操作分配量（-prof gc）增长超过阈值时判定为退化，进程以1退出。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public final class BenchmarkComparison {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+    /**
+     * 分配量的绝对容差（字节/次），避免极小分配的比例抖动
+     */
+    private static final double ALLOC_SLACK_BYTES = 64;
+
+    private BenchmarkComparison() {}
+
+    public static void main(String[] args) throws IOException {
+        Path baselinePath = Path.of(args.length > 0 ? args[0] : "src/jmh/baseline/baseline.json");
+        Path currentPath = Path.of(args.length > 1 ? args[1] : "target/jmh-result.json");
+        double threshold = (args.length > 2 ? Double.parseDouble(args[2]) : 10) / 100.0;
+        Path reportPath = Path.of(args.length > 3 ? args[3] : "target/jmh-report.md");
+
+        for (Path path : new Path[]{baselinePath, currentPath}) {
+            if (!Files.isRegularFile(path)) {
+                System.err.println("找不到JMH结果文件：" + path.toAbsolutePath());
+                System.exit(2);
+            }
+        }
+        Map<String, Result> baseline = load(baselinePath);
+        Map<String, Result> current = load(currentPath);
+
+        StringBuilder report = new StringBuilder();
+        report.append("# JMH 基准对比\n\n")
+                .append("- 基线：`").append(baselinePath).append("`\n")
+                .append("- 本次：`").append(currentPath).append("`\n")
+                .append("- 阈值：").append(format(threshold * 100)).append("%\n\n")
+                .append("| 基准 | 模式 | 基线 | 本次 | 变化 | 分配/次 基线 | 分配/次 本次 | 结论 |\n")
+                .append("|---|---|---|---|---|---|---|---|\n");
+
+        int regressions = 0;
+        for (String key : new TreeSet<>(union(baseline, current))) {
+            Result base = baseline.get(key);
+            Result now = current.get(key);
+            if (base == null || now == null) {
+                Result only = base != null ? base : now;
+                report.append(row(key, only.mode, base, now, "—", base == null ? "新增" : "已移除"));
+                continue;
+            }
+            // 吞吐量越高越好，其余模式（平均时间、采样、单次）越低越好
+            boolean higherIsBetter = "thrpt".equals(now.mode);
+            double change = (now.score - base.score) / base.score;
+            double worse = higherIsBetter ? -change : change;
+            boolean beyondNoise = Math.abs(now.score - base.score) > base.error + now.error;
+            boolean timeRegressed = worse > threshold && beyondNoise;
+            boolean allocRegressed = !Double.isNaN(base.alloc) && !Double.isNaN(now.alloc)
+                    && now.alloc - base.alloc > Math.max(base.alloc * threshold, ALLOC_SLACK_BYTES);
+
+            String verdict;
+            if (timeRegressed || allocRegressed) {
+                regressions++;
+                verdict = "**退化**" + (allocRegressed && !timeRegressed ? "（分配）" : "");
+            } else if (-worse > threshold && beyondNoise) {
+                verdict = "改善";
+            } else {
+                verdict = "持平";
+            }
+            report.append(row(key, now.mode, base, now, (change >= 0 ? "+" : "") + format(change * 100) + "%", verdict));
+        }
+        report.append("\n").append(regressions == 0 ? "未发现退化。" : "发现 " + regressions + " 项退化。").append("\n");
+
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        Files.writeString(reportPath, report, StandardCharsets.UTF_8);
+        System.out.println(report);
+        System.out.println("报告已写入：" + reportPath.toAbsolutePath());
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    private static String row(String key, String mode, Result base, Result now, String change, String verdict) {
+        return "| " + key + " | " + mode
+                + " | " + (base != null ? base.display() : "—")
+                + " | " + (now != null ? now.display() : "—")
+                + " | " + change
+                + " | " + (base != null ? base.allocDisplay() : "—")
+                + " | " + (now != null ? now.allocDisplay() : "—")
+                + " | " + verdict + " |\n";
+    }
+
+    private static Set<String> union(Map<String, Result> a, Map<String, Result> b) {
+        Set<String> keys = new HashSet<>(a.keySet());
+        keys.addAll(b.keySet());
+        return keys;
+    }
+
+    /**
+     * 以“基准名 + 参数”为键读取结果
+     */
+    private static Map<String, Result> load(Path path) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (JsonNode node : MAPPER.readTree(path.toFile())) {
+            String name = node.path("benchmark").asText();
+            name = name.startsWith("com.nexusvoice.") ? name.substring("com.nexusvoice.".length()) : name;
+            StringBuilder key = new StringBuilder(name);
+            JsonNode params = node.path("params");
+            if (params.isObject()) {
+                key.append(' ');
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    key.append(field.getKey()).append('=').append(field.getValue().asText());
+                    if (fields.hasNext()) {
+                        key.append(',');
+                    }
+                }
+            }
+            JsonNode primary = node.path("primaryMetric");
+            double alloc = Double.NaN;
+            Iterator<Map.Entry<String, JsonNode>> secondary = node.path("secondaryMetrics").fields();
+            while (secondary.hasNext()) {
+                Map.Entry<String, JsonNode> metric = secondary.next();
+                // 旧版JMH的键带有“·”前缀
+                if (metric.getKey().endsWith(ALLOC_METRIC)) {
+                    alloc = metric.getValue().path("score").asDouble();
+                }
+            }
+            double error = primary.path("scoreError").asDouble(0);
+            results.put(key.toString(), new Result(
+                    node.path("mode").asText(),
+                    primary.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error,
+                    primary.path("scoreUnit").asText(),
+                    alloc));
+        }
+        return results;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private record Result(String mode, double score, double error, String unit, double alloc) {
+
+        String display() {
+            return format(score) + " ± " + format(error) + " " + unit;
+        }
+
+        String allocDisplay() {
+            return Double.isNaN(alloc) ? "—" : format(alloc) + " B";
+        }
+    }
+}
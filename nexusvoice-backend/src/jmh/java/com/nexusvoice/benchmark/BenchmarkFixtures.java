@@ -0,0 +1,68 @@
+package com.nexusvoice.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试共用样本：一段典型的带Markdown的中文助手回复，以及按流式token切分后的增量序列
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * 一段约600字的助手回复（含标题、列表、加粗、代码与链接）
+     */
+    public static final String ASSISTANT_REPLY = """
+            ## 关于Java虚拟线程的建议
+
+            虚拟线程适合**大量阻塞I/O**的场景，比如调用外部HTTP接口、访问数据库或者等待消息队列。它们由JVM调度，创建成本很低，所以你可以为每个请求创建一个新的虚拟线程，而不必维护线程池。
+
+            需要注意以下几点：
+            1. 不要池化虚拟线程，直接使用 `Executors.newVirtualThreadPerTaskExecutor()` 即可；
+            2. 在 `synchronized` 块中执行阻塞操作会导致载体线程被固定，建议改用 `ReentrantLock`；
+            3. ThreadLocal 在虚拟线程中依然可用，但如果每个任务都缓存大对象，内存占用会迅速上升！
+
+            > 如果你的服务主要是CPU密集型计算，虚拟线程不会带来明显收益，普通的平台线程池更合适。
+
+            下面是一个简单的示例：
+
+            ```java
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                executor.submit(() -> fetch(url));
+            }
+            ```
+
+            更多细节可以参考 [JEP 444](https://openjdk.org/jeps/444)。总的来说，先用JFR确认瓶颈在哪里，再决定是否迁移，这样改造的风险最小。你还有其他想了解的吗？
+            """;
+
+    /**
+     * 将文本按1~4个字符随机切分，模拟LLM流式输出的增量（固定种子，结果可复现）
+     */
+    public static List<String> toDeltas(String text, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> deltas = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int n = Math.min(text.length() - i, 1 + random.nextInt(4));
+            deltas.add(text.substring(i, i + n));
+            i += n;
+        }
+        return deltas;
+    }
+
+    /**
+     * 将样本重复到不少于指定长度
+     */
+    public static String repeat(String text, int minLength) {
+        StringBuilder sb = new StringBuilder(minLength + text.length());
+        while (sb.length() < minLength) {
+            sb.append(text);
+        }
+        return sb.toString();
+    }
+}
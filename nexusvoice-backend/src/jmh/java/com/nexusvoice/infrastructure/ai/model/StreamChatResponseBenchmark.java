@@ -0,0 +1,86 @@
+package com.nexusvoice.infrastructure.ai.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexusvoice.infrastructure.config.JacksonConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket消息序列化基准：使用与应用相同配置的ObjectMapper
+ * CONTENT为每个token发送一次，END与TTS_SEGMENT为每轮/每段一次。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamChatResponseBenchmark {
+
+    private ObjectMapper objectMapper;
+    private StreamChatResponse content;
+    private StreamChatResponse ttsSegment;
+    private StreamChatResponse end;
+
+    @Setup
+    public void setup() {
+        objectMapper = new JacksonConfig().objectMapper(new Jackson2ObjectMapperBuilder());
+
+        content = StreamChatResponse.content("虚拟线程", 128);
+        content.setId("stream_1727580000000");
+        content.setModel("gpt-4o-mini");
+
+        ttsSegment = StreamChatResponse.ttsSegment("tts_1727580000000", 3,
+                "需要注意以下几点：不要池化虚拟线程，直接使用虚拟线程执行器即可。",
+                "https://cdn.example.com/tts/2025/09/29/segment_3.mp3", "gpt-4o-mini");
+
+        end = StreamChatResponse.end("stop");
+        end.setConversationId(1839201938475638784L);
+        end.setMessageId(1839201938475638999L);
+        end.setModel("gpt-4o-mini");
+        end.setResponseTimeMs(3820L);
+        end.setTtsGroupId("tts_1727580000000");
+        end.setTtsChunked(true);
+        end.setTimeToFirstAudioMs(940L);
+        Map<String, Long> timings = new LinkedHashMap<>();
+        timings.put("conversationLoad", 3L);
+        timings.put("historyLoad", 5L);
+        timings.put("promptBuild", 1L);
+        timings.put("ttft", 610L);
+        timings.put("generation", 3100L);
+        timings.put("persistence", 12L);
+        timings.put("db", 18L);
+        end.setTimings(timings);
+    }
+
+    @Benchmark
+    public String contentFrame() throws Exception {
+        return objectMapper.writeValueAsString(content);
+    }
+
+    @Benchmark
+    public String ttsSegmentFrame() throws Exception {
+        return objectMapper.writeValueAsString(ttsSegment);
+    }
+
+    @Benchmark
+    public String endFrame() throws Exception {
+        return objectMapper.writeValueAsString(end);
+    }
+}
@@ -0,0 +1,100 @@
+package com.nexusvoice.infrastructure.repository;
+
+import com.nexusvoice.domain.conversation.model.Conversation;
+import com.nexusvoice.domain.conversation.model.ConversationMessage;
+import com.nexusvoice.infrastructure.database.entity.ConversationEntity;
+import com.nexusvoice.infrastructure.database.entity.ConversationMessageEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 仓储实体与领域对象互转基准
+ * 每轮对话加载一次会话与完整历史（按默认上限100条消息计），并写回若干条消息。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityConversionBenchmark {
+
+    private static final int HISTORY_SIZE = 100;
+
+    private ConversationRepositoryImpl conversationRepository;
+    private ConversationMessageRepositoryImpl messageRepository;
+    private ConversationEntity conversationEntity;
+    private List<ConversationMessageEntity> historyEntities;
+    private ConversationMessage message;
+
+    @Setup
+    public void setup() {
+        conversationRepository = new ConversationRepositoryImpl(null);
+        messageRepository = new ConversationMessageRepositoryImpl(null);
+        LocalDateTime now = LocalDateTime.now();
+
+        conversationEntity = new ConversationEntity();
+        conversationEntity.setId(1839201938475638784L);
+        conversationEntity.setTitle("关于Java虚拟线程的建议");
+        conversationEntity.setUserId(1234567890123L);
+        conversationEntity.setRoleId(42L);
+        conversationEntity.setModelName("gpt-4o-mini");
+        conversationEntity.setStatus("ACTIVE");
+        conversationEntity.setSystemPrompt("你是一个有用的AI助手");
+        conversationEntity.setLastActiveAt(now);
+        conversationEntity.setCreatedAt(now);
+        conversationEntity.setUpdatedAt(now);
+
+        historyEntities = new ArrayList<>(HISTORY_SIZE);
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            ConversationMessageEntity entity = new ConversationMessageEntity();
+            entity.setId(1839201938475639000L + i);
+            entity.setConversationId(conversationEntity.getId());
+            entity.setRole(i % 2 == 0 ? "USER" : "ASSISTANT");
+            entity.setContent("第" + i + "条消息：虚拟线程适合大量阻塞I/O的场景，它们由JVM调度，创建成本很低。");
+            entity.setSequence(i + 1);
+            entity.setTokenCount(32);
+            entity.setStatus("SENT");
+            entity.setSentAt(now);
+            entity.setCreatedAt(now);
+            entity.setUpdatedAt(now);
+            historyEntities.add(entity);
+        }
+
+        message = messageRepository.convertToDomain(historyEntities.get(HISTORY_SIZE - 1));
+    }
+
+    @Benchmark
+    public Conversation conversationToDomain() {
+        return conversationRepository.convertToDomain(conversationEntity);
+    }
+
+    @Benchmark
+    public ConversationMessageEntity messageToEntity() {
+        return messageRepository.convertToEntity(message);
+    }
+
+    @Benchmark
+    public void historyToDomain(Blackhole bh) {
+        for (ConversationMessageEntity entity : historyEntities) {
+            bh.consume(messageRepository.convertToDomain(entity));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.nexusvoice.interfaces.websocket;
+
+import com.nexusvoice.application.tts.service.TtsLatencyTracker;
+import com.nexusvoice.application.tts.service.TtsPriority;
+import com.nexusvoice.benchmark.BenchmarkFixtures;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分段TTS切分基准：把流式增量逐个交给 SegmentAggregator，覆盖默认的自适应切分与固定阈值切分两条路径
+ * TTS按不可用处理，分段直接以纯文本下发，结果为处理一整轮回复的耗时（切分与分段下发）。
+ * 时间线由基准驱动，每个增量前进固定时长，自适应切分据此估算生成速率。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SegmentCutBenchmark {
+
+    /**
+     * 切分策略：adaptive 为线上默认（websocket.tts.segment.adaptive=true），fixed 为固定阈值
+     */
+    @Param({"adaptive", "fixed"})
+    public String cutter;
+
+    /**
+     * 相邻增量之间的模拟间隔（约每秒40个增量）
+     */
+    private static final long DELTA_INTERVAL_MS = 25;
+
+    private static final SegmentAggregator.Synthesizer UNAVAILABLE = new SegmentAggregator.Synthesizer() {
+        @Override
+        public boolean isAvailable() {
+            return false;
+        }
+
+        @Override
+        public String synthesize(String voiceType, String text, TtsPriority priority) {
+            return null;
+        }
+    };
+
+    private List<String> deltas;
+    private SegmentAggregator.Settings settings;
+    private TtsLatencyTracker latencyTracker;
+    private Timer firstAudioTimer;
+
+    @Setup
+    public void setup() {
+        deltas = BenchmarkFixtures.toDeltas(BenchmarkFixtures.repeat(BenchmarkFixtures.ASSISTANT_REPLY, 2000), 42);
+        // 与 ChatStreamHandler 的默认分段参数一致
+        settings = new SegmentAggregator.Settings(300, 160, 220, 1500, 5000, true,
+                "adaptive".equals(cutter) ? new SegmentAggregator.AdaptivePolicy(12, 200) : null, 4);
+        latencyTracker = new TtsLatencyTracker();
+        firstAudioTimer = Timer.builder("benchmark.first_audio").register(new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void cutWholeReply(Blackhole bh) {
+        ManualTimeline timeline = new ManualTimeline();
+        SegmentAggregator aggregator = new SegmentAggregator("bench", "bench-voice", "bench-model", settings,
+                new TtsPriority(1L, 0, 0, () -> true), timeline.now(),
+                bh::consume, bh::consume, UNAVAILABLE, latencyTracker, Runnable::run, timeline, firstAudioTimer);
+        for (String delta : deltas) {
+            timeline.advance(DELTA_INTERVAL_MS);
+            aggregator.onDelta(delta);
+        }
+        bh.consume(aggregator.finish());
+    }
+
+    /**
+     * 由基准推进的时间线；TTS不可用时不会产生延迟任务
+     */
+    private static final class ManualTimeline implements SegmentAggregator.Timeline {
+        private long now;
+
+        void advance(long millis) {
+            now += millis;
+        }
+
+        @Override
+        public long now() {
+            return now;
+        }
+
+        @Override
+        public Executor delayed(long delayMs) {
+            return Runnable::run;
+        }
+
+        @Override
+        public void sleep(long millis) {
+            now += millis;
+        }
+    }
+}
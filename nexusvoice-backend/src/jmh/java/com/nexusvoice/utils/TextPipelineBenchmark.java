@@ -0,0 +1,61 @@
+package com.nexusvoice.utils;
+
+import com.nexusvoice.benchmark.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TTS前的文本处理基准：Markdown清洗与按句切分
+ * 分段TTS每段都会清洗一次，长文本TTS按句切分后并发合成。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextPipelineBenchmark {
+
+    /**
+     * 文本长度：220为单个分段的上限，2000为一整轮较长回复
+     */
+    @Param({"220", "2000"})
+    public int length;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        text = BenchmarkFixtures.repeat(BenchmarkFixtures.ASSISTANT_REPLY, length).substring(0, length);
+    }
+
+    @Benchmark
+    public String cleanForTTS() {
+        return MarkdownTextUtils.cleanForTTS(text);
+    }
+
+    @Benchmark
+    public List<String> splitBySentence() {
+        return TextChunker.splitBySentence(text, 300);
+    }
+
+    @Benchmark
+    public List<String> cleanThenSplit() {
+        return TextChunker.splitBySentence(MarkdownTextUtils.cleanForTTS(text), 300);
+    }
+}
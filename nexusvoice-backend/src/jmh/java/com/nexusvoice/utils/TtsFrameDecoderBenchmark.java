@@ -0,0 +1,97 @@
+package com.nexusvoice.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TTS响应帧解码基准：一段音频的全部帧解码并汇总
+ * {@code treeAndBase64} 为原实现（对象树 + Base64字符串解码 + ByteArrayOutputStream），
+ * {@code streamingIntoPool} 为流式解析直接解码到池化缓冲区；配合 -prof gc 比较每次操作的分配量。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TtsFrameDecoderBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 每帧音频字节数
+     */
+    @Param({"4096"})
+    public int frameBytes;
+
+    /**
+     * 一段音频的帧数
+     */
+    @Param({"24"})
+    public int frames;
+
+    private char[][] frameChars;
+    private String[] frameStrings;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(7);
+        frameChars = new char[frames][];
+        frameStrings = new String[frames];
+        for (int i = 0; i < frames; i++) {
+            byte[] audio = new byte[frameBytes];
+            for (int j = 0; j < audio.length; j++) {
+                audio[j] = (byte) random.nextInt(256);
+            }
+            int sequence = i == frames - 1 ? -(i + 1) : i + 1;
+            String frame = "{\"reqid\":\"bench-0001\",\"operation\":\"query\",\"sequence\":" + sequence
+                    + ",\"data\":\"" + Base64.getEncoder().encodeToString(audio)
+                    + "\",\"addition\":{\"duration\":\"120\"}}";
+            frameStrings[i] = frame;
+            frameChars[i] = frame.toCharArray();
+        }
+    }
+
+    @Benchmark
+    public byte[] treeAndBase64() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (String frame : frameStrings) {
+            JsonNode node = MAPPER.readTree(frame);
+            JsonNode data = node.get("data");
+            if (data != null && !data.asText().isEmpty()) {
+                out.write(Base64.getDecoder().decode(data.asText()));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public int streamingIntoPool() throws IOException {
+        try (AudioChunkBuffer buffer = new AudioChunkBuffer()) {
+            for (char[] frame : frameChars) {
+                TtsFrameDecoder.decode(frame, 0, frame.length, buffer::appendBase64);
+            }
+            return buffer.size();
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package com.nexusvoice.interfaces.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nexusvoice.application.tts.service.TtsLatencyTracker;
+import com.nexusvoice.application.tts.service.TtsPriority;
+import com.nexusvoice.infrastructure.ai.model.StreamChatResponse;
+import com.nexusvoice.loadtest.LatencyHistogram;
+import com.nexusvoice.loadtest.LoadTestOptions;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 流式时序离线回放：读取 StreamTraceRecorder 录制的token时序与TTS耗时，
+ * 按原始节奏（或加速）驱动线上同一套 SegmentAggregator 分段与TTS流程，
+ * 对每组分段参数输出首段音频延迟（TTFA）与播放间隙统计。
+ * TTS耗时从录制样本中按字数最近邻采样，没有样本时使用先验模型；
+ * TTS调度以全局与单轮并发上限近似，不经过 TtsScheduler 的截止时间排序。
+ * 参数：--traces、--speed、--parallel、--tts-max-concurrency、--tts-max-per-user、--seed、--limit、
+ * --gap-threshold-ms、--configs、--report
+ * --configs 形如 "name=a,adaptive=false;name=b,first-floor-chars=20"，未指定的键取线上默认值。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public final class TraceReplay {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String VOICE = "replay";
+    private static final int NEAREST_SAMPLES = 8;
+    private static final long TURN_TIMEOUT_MS = 300_000;
+
+    private final Path tracesPath;
+    private final double speed;
+    private final int parallel;
+    private final int ttsMaxConcurrency;
+    private final int ttsMaxPerTurn;
+    private final long seed;
+    private final int limit;
+    private final long gapThresholdMs;
+    private final List<ReplayConfig> configs;
+    private final Path reportPath;
+
+    private final List<Turn> turns = new ArrayList<>();
+    private final List<TtsSample> ttsSamples = new ArrayList<>();
+
+    private TraceReplay(LoadTestOptions options) {
+        this.tracesPath = Path.of(options.get("traces", "./data/traces"));
+        this.speed = options.getDouble("speed", 1.0);
+        this.parallel = options.getInt("parallel", 8);
+        this.ttsMaxConcurrency = options.getInt("tts-max-concurrency", 16);
+        this.ttsMaxPerTurn = options.getInt("tts-max-per-user", 4);
+        this.seed = options.getLong("seed", 42);
+        this.limit = options.getInt("limit", Integer.MAX_VALUE);
+        this.gapThresholdMs = options.getLong("gap-threshold-ms", 200);
+        this.configs = ReplayConfig.parseAll(options.get("configs", "name=adaptive;name=fixed,adaptive=false"));
+        this.reportPath = Path.of(options.get("report", "target/trace-replay.json"));
+        if (speed <= 0) {
+            throw new IllegalArgumentException("speed 必须大于0");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new TraceReplay(new LoadTestOptions(args)).run();
+    }
+
+    private void run() throws Exception {
+        load();
+        if (turns.isEmpty()) {
+            System.err.println("未找到可回放的流式录制：" + tracesPath.toAbsolutePath());
+            return;
+        }
+        ttsSamples.sort(Comparator.comparingInt(TtsSample::chars));
+        System.out.printf("回放开始：%d 轮生成，%d 条TTS样本，%.1f倍速，并发 %d，配置 %d 组%n",
+                turns.size(), ttsSamples.size(), speed, parallel, configs.size());
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("turns", turns.size());
+        root.put("ttsSamples", ttsSamples.size());
+        root.put("speed", speed);
+        root.put("parallel", parallel);
+        root.put("ttsMaxConcurrency", ttsMaxConcurrency);
+        root.put("ttsMaxPerUser", ttsMaxPerTurn);
+        root.put("gapThresholdMs", gapThresholdMs);
+        ArrayNode results = root.putArray("configs");
+        for (ReplayConfig config : configs) {
+            ConfigResult result = replay(config);
+            System.out.print(result.summary());
+            result.writeTo(results.addObject());
+        }
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), root);
+        System.out.println("报告已写入：" + reportPath.toAbsolutePath());
+    }
+
+    private void load() throws IOException {
+        List<Path> files;
+        if (Files.isDirectory(tracesPath)) {
+            try (Stream<Path> stream = Files.list(tracesPath)) {
+                files = stream.filter(p -> p.getFileName().toString().endsWith(".jsonl")).sorted().toList();
+            }
+        } else {
+            files = List.of(tracesPath);
+        }
+        for (Path file : files) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = MAPPER.readTree(line);
+                String type = node.path("type").asText();
+                if ("stream".equals(type) && turns.size() < limit) {
+                    JsonNode tokens = node.path("tokens");
+                    long[] offsets = new long[tokens.size()];
+                    String[] deltas = new String[tokens.size()];
+                    for (int i = 0; i < tokens.size(); i++) {
+                        offsets[i] = tokens.get(i).get(0).asLong();
+                        deltas[i] = tokens.get(i).get(1).asText();
+                    }
+                    if (offsets.length > 0) {
+                        turns.add(new Turn(node.path("model").asText("default"), offsets, deltas));
+                    }
+                } else if ("tts".equals(type)) {
+                    ttsSamples.add(new TtsSample(node.path("chars").asInt(), node.path("latencyMs").asLong(),
+                            node.path("ok").asBoolean(true)));
+                }
+            }
+        }
+    }
+
+    private ConfigResult replay(ReplayConfig config) throws Exception {
+        ConfigResult result = new ConfigResult(config, gapThresholdMs);
+        ScaledTimeline timeline = new ScaledTimeline(speed);
+        TtsLatencyTracker tracker = new TtsLatencyTracker();
+        Timer firstAudioTimer = Timer.builder("replay.first_audio").register(new SimpleMeterRegistry());
+        Semaphore ttsGlobal = new Semaphore(ttsMaxConcurrency);
+        Semaphore turnSlots = new Semaphore(parallel);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(turns.size());
+            for (int i = 0; i < turns.size(); i++) {
+                int turnIndex = i;
+                turnSlots.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        replayTurn(turnIndex, config, timeline, tracker, firstAudioTimer, ttsGlobal, executor, result);
+                    } finally {
+                        turnSlots.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    result.failedTurns.incrementAndGet();
+                    System.err.println("回放失败：" + e.getCause());
+                }
+            }
+        }
+        return result;
+    }
+
+    private void replayTurn(int turnIndex, ReplayConfig config, ScaledTimeline timeline, TtsLatencyTracker tracker,
+                            Timer firstAudioTimer, Semaphore ttsGlobal, Executor executor, ConfigResult result) throws Exception {
+        Turn turn = turns.get(turnIndex);
+        Random random = new Random(seed + turnIndex);
+        Semaphore ttsPerTurn = new Semaphore(ttsMaxPerTurn);
+        AtomicInteger scheduled = new AtomicInteger();
+        AtomicInteger synthesized = new AtomicInteger();
+        TurnFrames frames = new TurnFrames();
+
+        SegmentAggregator.Synthesizer synthesizer = new SegmentAggregator.Synthesizer() {
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public String synthesize(String voiceType, String text, TtsPriority priority) throws Exception {
+                try {
+                    ttsGlobal.acquire();
+                    try {
+                        ttsPerTurn.acquire();
+                        try {
+                            TtsSample sample = sampleTts(text.length(), random);
+                            timeline.sleep(sample.latencyMs());
+                            // 与TTSService一致：只有纯合成耗时（排队由上面的信号量模拟）计入延迟模型
+                            if (sample.ok()) {
+                                tracker.record(voiceType, text.length(), sample.latencyMs());
+                            }
+                            return sample.ok() ? "replay://" + priority.segmentIndex() : null;
+                        } finally {
+                            ttsPerTurn.release();
+                        }
+                    } finally {
+                        ttsGlobal.release();
+                    }
+                } finally {
+                    synthesized.incrementAndGet();
+                }
+            }
+        };
+
+        long turnStart = timeline.now();
+        SegmentAggregator aggregator = new SegmentAggregator("replay-" + turnIndex, VOICE, turn.model(), config.settings(),
+                new TtsPriority((long) turnIndex, 0, 0, () -> true), turnStart,
+                text -> scheduled.incrementAndGet(),
+                response -> frames.accept(response, timeline.now()),
+                synthesizer, tracker, executor, timeline, firstAudioTimer);
+        for (int i = 0; i < turn.offsets().length; i++) {
+            long wait = turnStart + turn.offsets()[i] - timeline.now();
+            if (wait > 0) {
+                timeline.sleep(wait);
+            }
+            aggregator.onDelta(turn.deltas()[i]);
+        }
+        aggregator.finish().get(TURN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        // 首段可能先以纯文本发出，等待迟到的音频补发
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TURN_TIMEOUT_MS);
+        while (synthesized.get() < scheduled.get() && System.nanoTime() < deadline) {
+            Thread.sleep(2);
+        }
+        result.add(frames, aggregator.getTimeToFirstAudioMs(), turnStart, config.settings().playbackCharsPerSec());
+    }
+
+    /**
+     * 按字数取最近的若干条录制样本随机选一条；无样本时按先验模型加对数正态抖动
+     */
+    private TtsSample sampleTts(int chars, Random random) {
+        if (ttsSamples.isEmpty()) {
+            double jitter = Math.exp(0.2 * random.nextGaussian());
+            return new TtsSample(chars, Math.round((800 + 8.0 * chars) * jitter), true);
+        }
+        int lo = 0;
+        int hi = ttsSamples.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ttsSamples.get(mid).chars() < chars) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int from = Math.max(0, Math.min(lo - NEAREST_SAMPLES / 2, ttsSamples.size() - NEAREST_SAMPLES));
+        int to = Math.min(ttsSamples.size(), from + NEAREST_SAMPLES);
+        return ttsSamples.get(from + random.nextInt(to - from));
+    }
+
+    private record Turn(String model, long[] offsets, String[] deltas) {
+    }
+
+    private record TtsSample(int chars, long latencyMs, boolean ok) {
+    }
+
+    /**
+     * 按倍速缩放的时间线：对分段器呈现的是录制时的时间刻度，实际等待时间除以倍速
+     */
+    private static final class ScaledTimeline implements SegmentAggregator.Timeline {
+
+        private final double speed;
+        private final long originNanos = System.nanoTime();
+
+        ScaledTimeline(double speed) {
+            this.speed = speed;
+        }
+
+        @Override
+        public long now() {
+            return (long) ((System.nanoTime() - originNanos) * speed / 1_000_000);
+        }
+
+        @Override
+        public Executor delayed(long delayMs) {
+            return CompletableFuture.delayedExecutor(scaledNanos(delayMs), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void sleep(long millis) throws InterruptedException {
+            Thread.sleep(Duration.ofNanos(scaledNanos(millis)));
+        }
+
+        private long scaledNanos(long millis) {
+            return Math.max(0, (long) (millis * 1_000_000 / speed));
+        }
+    }
+
+    /**
+     * 单轮下发的分段帧：记录每段文本长度、首次带音频的时间与是否以纯文本先行下发
+     */
+    private static final class TurnFrames {
+
+        private final Map<Integer, Integer> segmentChars = new HashMap<>();
+        private final Map<Integer, Long> audioAt = new HashMap<>();
+        private final Map<Integer, Boolean> textOnly = new HashMap<>();
+
+        synchronized void accept(StreamChatResponse response, long at) {
+            if (response.getType() == StreamChatResponse.StreamMessageType.TTS_SEGMENT) {
+                int index = response.getIndex();
+                segmentChars.put(index, response.getDelta() != null ? response.getDelta().length() : 0);
+                textOnly.put(index, response.getAudioUrl() == null);
+                if (response.getAudioUrl() != null) {
+                    audioAt.putIfAbsent(index, at);
+                }
+            } else if (response.getType() == StreamChatResponse.StreamMessageType.TTS_SEGMENT_UPDATE) {
+                audioAt.putIfAbsent(response.getIndex(), at);
+            }
+        }
+    }
+
+    /**
+     * 一组分段参数
+     */
+    private record ReplayConfig(String name, SegmentAggregator.Settings settings) {
+
+        static List<ReplayConfig> parseAll(String spec) {
+            List<ReplayConfig> configs = new ArrayList<>();
+            for (String part : spec.split(";")) {
+                if (!part.isBlank()) {
+                    configs.add(parse(part.trim(), configs.size()));
+                }
+            }
+            return configs;
+        }
+
+        private static ReplayConfig parse(String spec, int ordinal) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String pair : spec.split(",")) {
+                int eq = pair.indexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("配置项格式应为 key=value：" + pair);
+                }
+                values.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+            }
+            String name = values.getOrDefault("name", "config-" + ordinal);
+            boolean adaptive = Boolean.parseBoolean(values.getOrDefault("adaptive", "true"));
+            SegmentAggregator.Settings settings = new SegmentAggregator.Settings(
+                    intValue(values, "first-min-chars", 300),
+                    intValue(values, "min-chars", 160),
+                    intValue(values, "max-chars", 220),
+                    intValue(values, "first-gate-ms", 1500),
+                    intValue(values, "heartbeat-ms", 5000),
+                    Boolean.parseBoolean(values.getOrDefault("late-update", "true")),
+                    adaptive ? new SegmentAggregator.AdaptivePolicy(intValue(values, "first-floor-chars", 12),
+                            intValue(values, "growth-percent", 200)) : null,
+                    intValue(values, "playback-chars-per-sec", 4));
+            return new ReplayConfig(name, settings);
+        }
+
+        private static int intValue(Map<String, String> values, String key, int defaultValue) {
+            String value = values.get(key);
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        }
+    }
+
+    /**
+     * 单组参数的回放统计；播放间隙按客户端顺序播放模拟，分段时长 = 字数 / 播放语速
+     */
+    private static final class ConfigResult {
+
+        private final ReplayConfig config;
+        private final long gapThresholdMs;
+        private final LatencyHistogram ttfa = new LatencyHistogram("TTFA");
+        private final LatencyHistogram gaps = new LatencyHistogram("GAP");
+        private final AtomicInteger failedTurns = new AtomicInteger();
+        private int turns;
+        private int turnsWithoutAudio;
+        private int turnsWithGap;
+        private int gapsOverThreshold;
+        private int segments;
+        private int segmentsWithoutAudio;
+        private int textOnlyFirstSegments;
+        private long firstSegmentChars;
+
+        ConfigResult(ReplayConfig config, long gapThresholdMs) {
+            this.config = config;
+            this.gapThresholdMs = gapThresholdMs;
+        }
+
+        synchronized void add(TurnFrames frames, Long timeToFirstAudioMs, long turnStart, int playbackCharsPerSec) {
+            turns++;
+            if (timeToFirstAudioMs != null) {
+                ttfa.record(timeToFirstAudioMs);
+            } else {
+                turnsWithoutAudio++;
+            }
+            synchronized (frames) {
+                int count = frames.segmentChars.size();
+                segments += count;
+                firstSegmentChars += frames.segmentChars.getOrDefault(0, 0);
+                if (Boolean.TRUE.equals(frames.textOnly.get(0))) {
+                    textOnlyFirstSegments++;
+                }
+                long cursor = -1;
+                boolean hadGap = false;
+                for (int i = 0; i < count; i++) {
+                    Long at = frames.audioAt.get(i);
+                    if (at == null) {
+                        segmentsWithoutAudio++;
+                        continue;
+                    }
+                    long start = cursor < 0 ? at : Math.max(cursor, at);
+                    if (cursor >= 0) {
+                        long gap = start - cursor;
+                        gaps.record(gap);
+                        if (gap > gapThresholdMs) {
+                            gapsOverThreshold++;
+                            hadGap = true;
+                        }
+                    }
+                    cursor = start + frames.segmentChars.get(i) * 1000L / playbackCharsPerSec;
+                }
+                if (hadGap) {
+                    turnsWithGap++;
+                }
+            }
+        }
+
+        synchronized String summary() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "== %s ==%n", config.name()));
+            sb.append(String.format(Locale.ROOT,
+                    "轮次 %d（失败 %d，无音频 %d），每轮平均 %.1f 段，首段平均 %.0f 字，首段纯文本先行 %.1f%%，缺音频分段 %.1f%%%n",
+                    turns, failedTurns.get(), turnsWithoutAudio, ratio(segments, turns), ratio(firstSegmentChars, turns),
+                    percent(textOnlyFirstSegments, turns), percent(segmentsWithoutAudio, segments)));
+            sb.append(String.format(Locale.ROOT, "播放间隙超过 %dms：%d 次，涉及 %.1f%% 的轮次%n",
+                    gapThresholdMs, gapsOverThreshold, percent(turnsWithGap, turns)));
+            sb.append(ttfa.summary()).append('\n');
+            sb.append(gaps.summary()).append('\n');
+            return sb.toString();
+        }
+
+        synchronized void writeTo(ObjectNode node) {
+            SegmentAggregator.Settings s = config.settings();
+            node.put("name", config.name());
+            ObjectNode settings = node.putObject("settings");
+            settings.put("firstMinChars", s.firstMinChars());
+            settings.put("minChars", s.minChars());
+            settings.put("maxChars", s.maxChars());
+            settings.put("firstGateMs", s.firstGateMs());
+            settings.put("lateUpdate", s.lateUpdate());
+            settings.put("adaptive", s.adaptive() != null);
+            if (s.adaptive() != null) {
+                settings.put("firstFloorChars", s.adaptive().firstFloorChars());
+                settings.put("growthPercent", s.adaptive().growthPercent());
+            }
+            settings.put("playbackCharsPerSec", s.playbackCharsPerSec());
+            node.put("turns", turns);
+            node.put("failedTurns", failedTurns.get());
+            node.put("turnsWithoutAudio", turnsWithoutAudio);
+            node.put("segmentsPerTurn", ratio(segments, turns));
+            node.put("firstSegmentCharsMean", ratio(firstSegmentChars, turns));
+            node.put("textOnlyFirstSegmentPercent", percent(textOnlyFirstSegments, turns));
+            node.put("segmentsWithoutAudioPercent", percent(segmentsWithoutAudio, segments));
+            node.put("gapsOverThreshold", gapsOverThreshold);
+            node.put("turnsWithGapPercent", percent(turnsWithGap, turns));
+            ttfa.writeTo(node.putObject("ttfa"));
+            gaps.writeTo(node.putObject("gap"));
+        }
+
+        private static double ratio(long value, long total) {
+            return total == 0 ? 0 : (double) value / total;
+        }
+
+        private static double percent(long value, long total) {
+            return ratio(value, total) * 100;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.nexusvoice.loadtest;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 延迟直方图：保存全部样本（毫秒）以计算精确分位数，并按对数分桶输出文本分布图
+ * 线程安全，样本量在单机压测的量级内。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public final class LatencyHistogram {
+
+    private static final long[] BUCKET_BOUNDS = {50, 100, 200, 400, 800, 1600, 3200, 6400, 12800, 25600};
+    private static final int BAR_WIDTH = 40;
+
+    private final String name;
+    private long[] samples = new long[256];
+    private int count;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long millis) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = millis;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    private synchronized long[] sorted() {
+        long[] copy = Arrays.copyOf(samples, count);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    public String summary() {
+        long[] sorted = sorted();
+        if (sorted.length == 0) {
+            return String.format(Locale.ROOT, "%-6s 无样本", name);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-6s n=%d  mean=%.0fms  p50=%dms  p90=%dms  p99=%dms  max=%dms%n",
+                name, sorted.length, Arrays.stream(sorted).average().orElse(0),
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), sorted[sorted.length - 1]));
+        long[] buckets = new long[BUCKET_BOUNDS.length + 1];
+        for (long sample : sorted) {
+            int i = 0;
+            while (i < BUCKET_BOUNDS.length && sample >= BUCKET_BOUNDS[i]) {
+                i++;
+            }
+            buckets[i]++;
+        }
+        long peak = Arrays.stream(buckets).max().orElse(1);
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] == 0) {
+                continue;
+            }
+            String label = i < BUCKET_BOUNDS.length ? "<" + BUCKET_BOUNDS[i] + "ms" : ">=" + BUCKET_BOUNDS[i - 1] + "ms";
+            int width = (int) Math.max(1, buckets[i] * BAR_WIDTH / peak);
+            sb.append(String.format(Locale.ROOT, "  %9s | %-" + BAR_WIDTH + "s %d%n", label, "#".repeat(width), buckets[i]));
+        }
+        return sb.toString();
+    }
+
+    public void writeTo(ObjectNode node) {
+        long[] sorted = sorted();
+        node.put("count", sorted.length);
+        if (sorted.length == 0) {
+            return;
+        }
+        node.put("meanMs", Arrays.stream(sorted).average().orElse(0));
+        node.put("p50Ms", percentile(sorted, 50));
+        node.put("p90Ms", percentile(sorted, 90));
+        node.put("p99Ms", percentile(sorted, 99));
+        node.put("maxMs", sorted[sorted.length - 1]);
+    }
+}
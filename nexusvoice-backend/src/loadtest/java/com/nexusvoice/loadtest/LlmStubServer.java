@@ -0,0 +1,176 @@
+package com.nexusvoice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * OpenAI兼容的聊天补全桩服务（POST /v1/chat/completions）
+ * 流式请求按SSE逐token返回：首token延迟服从对数正态分布，之后按固定速率输出；非流式请求等待同样的总时长后整体返回。
+ * 参数：--llm.port、--llm.ttft-median-ms、--llm.ttft-sigma、--llm.tokens-per-sec、--llm.reply-chars、--llm.error-rate
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+final class LlmStubServer {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int port;
+    private final double ttftMedianMs;
+    private final double ttftSigma;
+    private final double tokensPerSec;
+    private final int replyChars;
+    private final double errorRate;
+    private HttpServer server;
+
+    LlmStubServer(LoadTestOptions options) {
+        this.port = options.getInt("llm.port", 18080);
+        this.ttftMedianMs = options.getDouble("llm.ttft-median-ms", 400);
+        this.ttftSigma = options.getDouble("llm.ttft-sigma", 0.4);
+        this.tokensPerSec = options.getDouble("llm.tokens-per-sec", 40);
+        this.replyChars = options.getInt("llm.reply-chars", 400);
+        this.errorRate = options.getDouble("llm.error-rate", 0);
+    }
+
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+        System.out.printf("LLM桩服务已启动：http://localhost:%d/v1（首token中位数 %.0fms，%.0f tokens/s）%n",
+                port, ttftMedianMs, tokensPerSec);
+    }
+
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/chat/completions")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            String model = request.path("model").asText("stub-model");
+            SplittableRandom random = new SplittableRandom();
+            if (random.nextDouble() < errorRate) {
+                byte[] body = "{\"error\":{\"message\":\"stub injected error\",\"type\":\"server_error\"}}"
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(500, body.length);
+                exchange.getResponseBody().write(body);
+                return;
+            }
+            String reply = StubCorpus.reply(replyChars, random);
+            List<String> tokens = StubCorpus.tokens(reply, random);
+            long ttftMs = Math.max(0, StubCorpus.logNormal(ttftMedianMs, ttftSigma, random));
+            if (request.path("stream").asBoolean(false)) {
+                stream(exchange, model, tokens, ttftMs);
+            } else {
+                complete(exchange, model, reply, tokens.size(), ttftMs);
+            }
+        }
+    }
+
+    private void stream(HttpExchange exchange, String model, List<String> tokens, long ttftMs) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        String id = "chatcmpl-" + UUID.randomUUID();
+        long created = System.currentTimeMillis() / 1000;
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(0.001, tokensPerSec));
+        OutputStream out = exchange.getResponseBody();
+
+        sleepMillis(ttftMs);
+        long next = System.nanoTime();
+        for (int i = 0; i < tokens.size(); i++) {
+            ObjectNode delta = MAPPER.createObjectNode();
+            if (i == 0) {
+                delta.put("role", "assistant");
+            }
+            delta.put("content", tokens.get(i));
+            writeEvent(out, chunk(id, created, model, delta, null, null));
+            next += intervalNanos;
+            LockSupport.parkNanos(next - System.nanoTime());
+        }
+        ObjectNode usage = MAPPER.createObjectNode()
+                .put("prompt_tokens", 200)
+                .put("completion_tokens", tokens.size())
+                .put("total_tokens", 200 + tokens.size());
+        writeEvent(out, chunk(id, created, model, MAPPER.createObjectNode(), "stop", usage));
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void complete(HttpExchange exchange, String model, String reply, int tokenCount, long ttftMs) throws IOException {
+        sleepMillis(ttftMs + (long) (tokenCount * 1000 / Math.max(0.001, tokensPerSec)));
+        ObjectNode root = MAPPER.createObjectNode()
+                .put("id", "chatcmpl-" + UUID.randomUUID())
+                .put("object", "chat.completion")
+                .put("created", System.currentTimeMillis() / 1000)
+                .put("model", model);
+        ObjectNode choice = root.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", reply);
+        choice.put("finish_reason", "stop");
+        root.putObject("usage")
+                .put("prompt_tokens", 200)
+                .put("completion_tokens", tokenCount)
+                .put("total_tokens", 200 + tokenCount);
+        byte[] body = MAPPER.writeValueAsBytes(root);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static ObjectNode chunk(String id, long created, String model, ObjectNode delta,
+                                    String finishReason, ObjectNode usage) {
+        ObjectNode root = MAPPER.createObjectNode()
+                .put("id", id)
+                .put("object", "chat.completion.chunk")
+                .put("created", created)
+                .put("model", model);
+        ArrayNode choices = root.putArray("choices");
+        ObjectNode choice = choices.addObject();
+        choice.put("index", 0);
+        choice.set("delta", delta);
+        if (finishReason != null) {
+            choice.put("finish_reason", finishReason);
+        } else {
+            choice.putNull("finish_reason");
+        }
+        if (usage != null) {
+            root.set("usage", usage);
+        }
+        return root;
+    }
+
+    private static void writeEvent(OutputStream out, ObjectNode data) throws IOException {
+        out.write(("data: " + MAPPER.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sleepMillis(long millis) {
+        if (millis > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+}
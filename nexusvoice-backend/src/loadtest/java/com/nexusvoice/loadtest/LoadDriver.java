@@ -0,0 +1,306 @@
+package com.nexusvoice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 端到端压测驱动：N个并发用户各自登录（不存在则先注册）、建立 /ws/chat/stream 连接并连续发送多轮对话，
+ * 在客户端侧记录首字延迟（TTFT）、首段音频延迟（TTFA）与整轮耗时（E2E）的分布。
+ * 参数：--base-url、--sessions、--turns、--ramp-up-seconds、--think-ms、--audio、--web-search、
+ * --user-prefix、--password、--message、--turn-timeout-seconds、--report
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public final class LoadDriver {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+    private final int sessions;
+    private final int turns;
+    private final long rampUpMillis;
+    private final long thinkMillis;
+    private final boolean audio;
+    private final boolean webSearch;
+    private final String userPrefix;
+    private final String password;
+    private final String message;
+    private final long turnTimeoutSeconds;
+    private final Path reportPath;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final LatencyHistogram ttft = new LatencyHistogram("TTFT");
+    private final LatencyHistogram ttfa = new LatencyHistogram("TTFA");
+    private final LatencyHistogram e2e = new LatencyHistogram("E2E");
+    private final AtomicInteger completedTurns = new AtomicInteger();
+    private final AtomicInteger errorTurns = new AtomicInteger();
+    private final AtomicInteger timeoutTurns = new AtomicInteger();
+    private final AtomicInteger failedSessions = new AtomicInteger();
+
+    private LoadDriver(LoadTestOptions options) {
+        this.baseUrl = options.get("base-url", "http://localhost:8081");
+        this.sessions = options.getInt("sessions", 20);
+        this.turns = options.getInt("turns", 5);
+        this.rampUpMillis = TimeUnit.SECONDS.toMillis(options.getLong("ramp-up-seconds", 10));
+        this.thinkMillis = options.getLong("think-ms", 1000);
+        this.audio = options.getBoolean("audio", true);
+        this.webSearch = options.getBoolean("web-search", false);
+        this.userPrefix = options.get("user-prefix", "loadtest");
+        this.password = options.get("password", "loadtest123");
+        this.message = options.get("message", "请用三四句话介绍一下Java虚拟线程适合的场景。");
+        this.turnTimeoutSeconds = options.getLong("turn-timeout-seconds", 120);
+        this.reportPath = Path.of(options.get("report", "target/loadtest-report.json"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadDriver(new LoadTestOptions(args)).run();
+    }
+
+    private void run() throws Exception {
+        System.out.printf("压测开始：%s，并发会话 %d，每会话 %d 轮，爬坡 %ds，语音 %s%n",
+                baseUrl, sessions, turns, TimeUnit.MILLISECONDS.toSeconds(rampUpMillis), audio ? "开启" : "关闭");
+        long start = System.currentTimeMillis();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(sessions);
+            for (int i = 0; i < sessions; i++) {
+                int sessionIndex = i;
+                long delay = sessions > 1 ? rampUpMillis * i / (sessions - 1) : 0;
+                futures.add(executor.submit(() -> {
+                    Thread.sleep(delay);
+                    runSession(sessionIndex);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    failedSessions.incrementAndGet();
+                    System.err.println("会话执行失败：" + e.getCause());
+                }
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        report(elapsed);
+    }
+
+    private void runSession(int index) throws Exception {
+        String token = authenticate(userPrefix + "-" + index + "@nexusvoice.local");
+        TurnListener listener = new TurnListener();
+        URI wsUri = URI.create(baseUrl.replaceFirst("^http", "ws") + "/ws/chat/stream?token="
+                + URLEncoder.encode(token, StandardCharsets.UTF_8));
+        WebSocket ws = http.newWebSocketBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .buildAsync(wsUri, listener)
+                .get(15, TimeUnit.SECONDS);
+        try {
+            String conversationId = null;
+            for (int turn = 0; turn < turns; turn++) {
+                ObjectNode request = MAPPER.createObjectNode()
+                        .put("message", message)
+                        .put("enableAudio", audio)
+                        .put("enableWebSearch", webSearch);
+                if (conversationId != null) {
+                    request.put("conversationId", conversationId);
+                }
+                CompletableFuture<TurnResult> result = listener.begin();
+                ws.sendText(MAPPER.writeValueAsString(request), true).join();
+                TurnResult turnResult;
+                try {
+                    turnResult = result.get(turnTimeoutSeconds, TimeUnit.SECONDS);
+                } catch (TimeoutException e) {
+                    timeoutTurns.incrementAndGet();
+                    break;
+                }
+                if (turnResult.error() != null) {
+                    errorTurns.incrementAndGet();
+                    System.err.printf("会话%d第%d轮出错：%s%n", index, turn + 1, turnResult.error());
+                } else {
+                    completedTurns.incrementAndGet();
+                    conversationId = turnResult.conversationId();
+                }
+                if (thinkMillis > 0 && turn < turns - 1) {
+                    Thread.sleep(thinkMillis);
+                }
+            }
+        } finally {
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "done").exceptionally(ex -> null);
+        }
+    }
+
+    /**
+     * 登录压测账号，首次运行时自动注册
+     */
+    private String authenticate(String email) throws IOException, InterruptedException {
+        JsonNode login = postJson("/api/auth/login", MAPPER.createObjectNode()
+                .put("username", email)
+                .put("password", password));
+        String token = login.path("data").path("accessToken").asText(null);
+        if (token != null) {
+            return token;
+        }
+        JsonNode register = postJson("/api/auth/register", MAPPER.createObjectNode()
+                .put("email", email)
+                .put("password", password)
+                .put("confirmPassword", password)
+                .put("nickname", "压测用户"));
+        token = register.path("data").path("accessToken").asText(null);
+        if (token == null) {
+            throw new IllegalStateException("压测账号注册失败：" + email + "，响应：" + register);
+        }
+        return token;
+    }
+
+    private JsonNode postJson(String path, ObjectNode body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        return MAPPER.readTree(response.body().isEmpty() ? "{}" : response.body());
+    }
+
+    private void report(long elapsedMillis) throws IOException {
+        double seconds = elapsedMillis / 1000.0;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%n压测结束：耗时 %.1fs，完成 %d 轮（%.2f 轮/s），出错 %d 轮，超时 %d 轮，失败会话 %d%n",
+                seconds, completedTurns.get(), completedTurns.get() / Math.max(seconds, 0.001),
+                errorTurns.get(), timeoutTurns.get(), failedSessions.get()));
+        for (LatencyHistogram histogram : List.of(ttft, ttfa, e2e)) {
+            sb.append(histogram.summary()).append('\n');
+        }
+        System.out.print(sb);
+
+        ObjectNode root = MAPPER.createObjectNode()
+                .put("baseUrl", baseUrl)
+                .put("sessions", sessions)
+                .put("turnsPerSession", turns)
+                .put("audio", audio)
+                .put("webSearch", webSearch)
+                .put("elapsedMs", elapsedMillis)
+                .put("completedTurns", completedTurns.get())
+                .put("errorTurns", errorTurns.get())
+                .put("timeoutTurns", timeoutTurns.get())
+                .put("failedSessions", failedSessions.get());
+        ttft.writeTo(root.putObject("ttft"));
+        ttfa.writeTo(root.putObject("ttfa"));
+        e2e.writeTo(root.putObject("e2e"));
+        Files.createDirectories(reportPath.toAbsolutePath().getParent());
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportPath.toFile(), root);
+        System.out.println("报告已写入：" + reportPath.toAbsolutePath());
+    }
+
+    private record TurnResult(String conversationId, String error) {}
+
+    /**
+     * 单个连接上的消息监听：同一时刻只有一轮在进行，按帧类型打点
+     */
+    private final class TurnListener implements WebSocket.Listener {
+
+        private final StringBuilder buffer = new StringBuilder();
+        private volatile CompletableFuture<TurnResult> current;
+        private long turnStart;
+        private boolean textSeen;
+        private boolean audioSeen;
+
+        synchronized CompletableFuture<TurnResult> begin() {
+            current = new CompletableFuture<>();
+            turnStart = System.nanoTime();
+            textSeen = false;
+            audioSeen = false;
+            return current;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            buffer.append(data);
+            if (last) {
+                String text = buffer.toString();
+                buffer.setLength(0);
+                try {
+                    onFrame(MAPPER.readTree(text));
+                } catch (IOException e) {
+                    System.err.println("无法解析服务端消息：" + e.getMessage());
+                }
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        private synchronized void onFrame(JsonNode frame) {
+            CompletableFuture<TurnResult> turn = current;
+            if (turn == null || turn.isDone()) {
+                return;
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - turnStart);
+            String type = frame.path("type").asText("");
+            switch (type) {
+                case "CONTENT", "TTS_SEGMENT", "TTS_SEGMENT_UPDATE" -> {
+                    if (!textSeen && !frame.path("delta").asText("").isEmpty()) {
+                        textSeen = true;
+                        ttft.record(elapsedMs);
+                    }
+                    if (!audioSeen && !frame.path("audioUrl").asText("").isEmpty()) {
+                        audioSeen = true;
+                        ttfa.record(elapsedMs);
+                    }
+                }
+                case "END" -> {
+                    e2e.record(elapsedMs);
+                    // Long按字符串序列化（见JacksonConfig）
+                    turn.complete(new TurnResult(frame.path("conversationId").asText(null), null));
+                }
+                case "ERROR" -> turn.complete(new TurnResult(null, frame.path("errorMessage").asText("未知错误")));
+                default -> {
+                    // START、HEARTBEAT、IMAGE_JOB、QUEUED 不计入指标（排队时间计入端到端耗时）
+                }
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            CompletableFuture<TurnResult> turn = current;
+            if (turn != null) {
+                turn.complete(new TurnResult(null, "连接已关闭：" + statusCode + " " + reason));
+            }
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            CompletableFuture<TurnResult> turn = current;
+            if (turn != null) {
+                turn.complete(new TurnResult(null, "连接异常：" + error.getMessage()));
+            }
+        }
+    }
+}
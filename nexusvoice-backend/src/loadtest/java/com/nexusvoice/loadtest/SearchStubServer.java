@@ -0,0 +1,87 @@
+package com.nexusvoice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tavily兼容的搜索桩服务（POST /search），返回 answer 与 results
+ * 参数：--search.port、--search.latency-ms、--search.latency-sigma、--search.results
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+final class SearchStubServer {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final int port;
+    private final double latencyMs;
+    private final double latencySigma;
+    private final int results;
+    private HttpServer server;
+
+    SearchStubServer(LoadTestOptions options) {
+        this.port = options.getInt("search.port", 18082);
+        this.latencyMs = options.getDouble("search.latency-ms", 600);
+        this.latencySigma = options.getDouble("search.latency-sigma", 0.3);
+        this.results = options.getInt("search.results", 5);
+    }
+
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/search", this::handle);
+        server.start();
+        System.out.printf("搜索桩服务已启动：http://localhost:%d（延迟中位数 %.0fms）%n", port, latencyMs);
+    }
+
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            String query = request.path("query").asText("");
+            int max = Math.min(results, request.path("max_results").asInt(results));
+            SplittableRandom random = new SplittableRandom();
+            long latency = Math.max(0, StubCorpus.logNormal(latencyMs, latencySigma, random));
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(latency));
+
+            ObjectNode root = MAPPER.createObjectNode()
+                    .put("query", query)
+                    .put("answer", StubCorpus.reply(80, random))
+                    .put("response_time", latency / 1000.0);
+            root.putArray("images");
+            ArrayNode items = root.putArray("results");
+            for (int i = 0; i < max; i++) {
+                items.addObject()
+                        .put("title", query + " - 结果" + (i + 1))
+                        .put("url", "https://stub.nexusvoice.local/search/" + i)
+                        .put("content", StubCorpus.reply(200, random))
+                        .put("score", 0.9 - i * 0.1);
+            }
+            byte[] body = MAPPER.writeValueAsBytes(root);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+}
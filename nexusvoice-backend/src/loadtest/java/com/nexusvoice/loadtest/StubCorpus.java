@@ -0,0 +1,99 @@
+package com.nexusvoice.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 桩服务使用的文本语料与静音音频
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+final class StubCorpus {
+
+    private StubCorpus() {}
+
+    private static final String[] SENTENCES = {
+            "虚拟线程适合大量阻塞I/O的场景，比如调用外部接口或者访问数据库。",
+            "它们由JVM调度，创建成本很低，所以可以为每个请求创建一个新的虚拟线程。",
+            "需要注意的是，不要池化虚拟线程，直接使用按任务创建的执行器即可。",
+            "在同步块中执行阻塞操作会导致载体线程被固定，建议改用可重入锁。",
+            "如果服务主要是CPU密集型计算，虚拟线程不会带来明显收益！",
+            "先用JFR确认瓶颈在哪里，再决定是否迁移，这样改造的风险最小。",
+            "**小结**：I/O密集用虚拟线程，CPU密集用平台线程池。",
+            "你还有其他想了解的吗？",
+            "关于缓存，可以先在进程内使用Caffeine，命中率不够时再考虑分布式缓存。",
+            "数据库连接池的大小应当与数据库能承受的并发相匹配，而不是越大越好。",
+            "流式输出时，首个token的延迟往往比总时长更影响体验。",
+            "语音合成可以按句切分并发进行，首段尽量短，以便尽早开始播放。"
+    };
+
+    /**
+     * MPEG-1 Layer III、128kbps、44.1kHz、无填充的帧头；帧长417字节，全零主数据解码为静音
+     */
+    private static final byte[] SILENT_MP3_FRAME = new byte[417];
+    static final int MP3_FRAME_MS = 26;
+
+    static {
+        SILENT_MP3_FRAME[0] = (byte) 0xFF;
+        SILENT_MP3_FRAME[1] = (byte) 0xFB;
+        SILENT_MP3_FRAME[2] = (byte) 0x90;
+        SILENT_MP3_FRAME[3] = (byte) 0x64;
+    }
+
+    /**
+     * 按语料随机拼出不少于 minChars 的回复
+     */
+    static String reply(int minChars, SplittableRandom random) {
+        StringBuilder sb = new StringBuilder(minChars + 64);
+        while (sb.length() < minChars) {
+            sb.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按1~3个字符切分为token，模拟中文流式输出的粒度
+     */
+    static List<String> tokens(String text, SplittableRandom random) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int n = Math.min(text.length() - i, 1 + random.nextInt(3));
+            tokens.add(text.substring(i, i + n));
+            i += n;
+        }
+        return tokens;
+    }
+
+    /**
+     * 指定时长的静音MP3
+     */
+    static byte[] silentMp3(long durationMs) {
+        int frames = (int) Math.max(1, durationMs / MP3_FRAME_MS);
+        byte[] audio = new byte[frames * SILENT_MP3_FRAME.length];
+        for (int i = 0; i < frames; i++) {
+            System.arraycopy(SILENT_MP3_FRAME, 0, audio, i * SILENT_MP3_FRAME.length, SILENT_MP3_FRAME.length);
+        }
+        return audio;
+    }
+
+    static int mp3FrameSize() {
+        return SILENT_MP3_FRAME.length;
+    }
+
+    /**
+     * 对数正态分布采样：中位数为 median，sigma 控制长尾
+     */
+    static long logNormal(double median, double sigma, SplittableRandom random) {
+        if (sigma <= 0) {
+            return Math.round(median);
+        }
+        // Box-Muller
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        double z = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        return Math.round(median * Math.exp(sigma * z));
+    }
+}
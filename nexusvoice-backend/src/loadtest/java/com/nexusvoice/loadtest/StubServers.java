@@ -0,0 +1,34 @@
+package com.nexusvoice.loadtest;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 同时启动LLM、TTS、搜索三个桩服务，配合 loadtest 配置文件把后端的上游全部指向本机
+ * 参数见各桩服务类注释，Ctrl+C 退出。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public final class StubServers {
+
+    private StubServers() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = new LoadTestOptions(args);
+        LlmStubServer llm = new LlmStubServer(options);
+        TtsStubServer tts = new TtsStubServer(options);
+        SearchStubServer search = new SearchStubServer(options);
+        llm.start();
+        tts.start();
+        search.start();
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            llm.stop();
+            tts.stop();
+            search.stop();
+            stopped.countDown();
+        }));
+        stopped.await();
+    }
+}
@@ -0,0 +1,266 @@
+package com.nexusvoice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 七牛TTS协议的WebSocket桩服务（/v1/voice/tts）
+ * 每个连接接收一个合成请求，按文本长度生成静音MP3，分块以 {"sequence":N,"data":base64} 帧返回，负序号表示结束。
+ * 首块延迟服从对数正态分布，后续块按实时率（合成耗时/音频时长）节流。
+ * 参数：--tts.port、--tts.first-chunk-ms、--tts.first-chunk-sigma、--tts.realtime-factor、--tts.audio-ms-per-char、--tts.error-rate
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+final class TtsStubServer {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String WS_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    /**
+     * 每块包含的MP3帧数（约260ms音频）
+     */
+    private static final int FRAMES_PER_CHUNK = 10;
+
+    private final int port;
+    private final double firstChunkMs;
+    private final double firstChunkSigma;
+    private final double realtimeFactor;
+    private final int audioMsPerChar;
+    private final double errorRate;
+    private volatile ServerSocket serverSocket;
+
+    TtsStubServer(LoadTestOptions options) {
+        this.port = options.getInt("tts.port", 18081);
+        this.firstChunkMs = options.getDouble("tts.first-chunk-ms", 250);
+        this.firstChunkSigma = options.getDouble("tts.first-chunk-sigma", 0.3);
+        this.realtimeFactor = options.getDouble("tts.realtime-factor", 0.3);
+        this.audioMsPerChar = options.getInt("tts.audio-ms-per-char", 250);
+        this.errorRate = options.getDouble("tts.error-rate", 0);
+    }
+
+    void start() throws IOException {
+        serverSocket = new ServerSocket(port, 1024);
+        Thread.ofVirtual().name("tts-stub-accept").start(this::acceptLoop);
+        System.out.printf("TTS桩服务已启动：ws://localhost:%d/v1/voice/tts（首块中位数 %.0fms，实时率 %.2f）%n",
+                port, firstChunkMs, realtimeFactor);
+    }
+
+    void stop() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("TTS桩服务接受连接失败：" + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            if (!handshake(in, out)) {
+                return;
+            }
+            DataInputStream data = new DataInputStream(in);
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            while (true) {
+                int b0 = data.readUnsignedByte();
+                int b1 = data.readUnsignedByte();
+                boolean fin = (b0 & 0x80) != 0;
+                int opcode = b0 & 0x0F;
+                long length = b1 & 0x7F;
+                if (length == 126) {
+                    length = data.readUnsignedShort();
+                } else if (length == 127) {
+                    length = data.readLong();
+                }
+                byte[] mask = new byte[4];
+                if ((b1 & 0x80) != 0) {
+                    data.readFully(mask);
+                }
+                byte[] payload = new byte[(int) length];
+                data.readFully(payload);
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i & 3];
+                }
+                switch (opcode) {
+                    case 0x0, 0x1 -> {
+                        message.write(payload);
+                        if (fin) {
+                            synthesize(out, message.toString(StandardCharsets.UTF_8));
+                            message.reset();
+                        }
+                    }
+                    case 0x8 -> {
+                        writeFrame(out, 0x8, Arrays.copyOf(payload, Math.min(payload.length, 2)));
+                        return;
+                    }
+                    case 0x9 -> writeFrame(out, 0xA, payload);
+                    default -> {
+                        // 忽略二进制帧与pong
+                    }
+                }
+            }
+        } catch (EOFException ignored) {
+            // 客户端直接断开
+        } catch (IOException e) {
+            System.err.println("TTS桩服务连接异常：" + e.getMessage());
+        }
+    }
+
+    private void synthesize(OutputStream out, String requestJson) throws IOException {
+        JsonNode request = MAPPER.readTree(requestJson);
+        String text = request.path("request").path("text").asText("");
+        String reqId = UUID.randomUUID().toString();
+        SplittableRandom random = new SplittableRandom();
+
+        sleepMillis(Math.max(0, StubCorpus.logNormal(firstChunkMs, firstChunkSigma, random)));
+        if (random.nextDouble() < errorRate) {
+            // 模拟上游异常：直接关闭连接
+            writeFrame(out, 0x8, new byte[]{0x03, (byte) 0xF3});
+            return;
+        }
+
+        long audioMs = (long) Math.max(1, text.codePointCount(0, text.length())) * audioMsPerChar;
+        byte[] audio = StubCorpus.silentMp3(audioMs);
+        int chunkBytes = StubCorpus.mp3FrameSize() * FRAMES_PER_CHUNK;
+        long chunkNanos = (long) (TimeUnit.MILLISECONDS.toNanos(StubCorpus.MP3_FRAME_MS * FRAMES_PER_CHUNK) * realtimeFactor);
+        int chunks = (audio.length + chunkBytes - 1) / chunkBytes;
+        long next = System.nanoTime();
+        for (int i = 0; i < chunks; i++) {
+            int from = i * chunkBytes;
+            int to = Math.min(audio.length, from + chunkBytes);
+            boolean last = i == chunks - 1;
+            ObjectNode frame = MAPPER.createObjectNode()
+                    .put("reqid", reqId)
+                    .put("operation", "query")
+                    .put("sequence", last ? -(i + 1) : i + 1)
+                    .put("data", Base64.getEncoder().encodeToString(Arrays.copyOfRange(audio, from, to)));
+            if (last) {
+                frame.putObject("addition").put("duration", String.valueOf(audioMs));
+            }
+            writeFrame(out, 0x1, MAPPER.writeValueAsBytes(frame));
+            if (!last) {
+                next += chunkNanos;
+                LockSupport.parkNanos(next - System.nanoTime());
+            }
+        }
+    }
+
+    private static boolean handshake(InputStream in, OutputStream out) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String requestLine = readLine(in);
+        if (requestLine == null) {
+            return false;
+        }
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        String key = headers.get("sec-websocket-key");
+        if (key == null) {
+            out.write("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return false;
+        }
+        String response = "HTTP/1.1 101 Switching Protocols\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return true;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int len = sb.length();
+                return len > 0 && sb.charAt(len - 1) == '\r' ? sb.substring(0, len - 1) : sb.toString();
+            }
+            sb.append((char) c);
+        }
+        return sb.isEmpty() ? null : sb.toString();
+    }
+
+    private static String acceptKey(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + WS_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 服务端帧不加掩码
+     */
+    private static void writeFrame(OutputStream out, int opcode, byte[] payload) throws IOException {
+        byte[] header;
+        if (payload.length < 126) {
+            header = new byte[]{(byte) (0x80 | opcode), (byte) payload.length};
+        } else if (payload.length <= 0xFFFF) {
+            header = new byte[]{(byte) (0x80 | opcode), 126, (byte) (payload.length >>> 8), (byte) payload.length};
+        } else {
+            header = new byte[10];
+            header[0] = (byte) (0x80 | opcode);
+            header[1] = 127;
+            long len = payload.length;
+            for (int i = 9; i >= 2; i--) {
+                header[i] = (byte) len;
+                len >>>= 8;
+            }
+        }
+        out.write(header);
+        out.write(payload);
+        out.flush();
+    }
+
+    private static void sleepMillis(long millis) {
+        if (millis > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+    }
+}
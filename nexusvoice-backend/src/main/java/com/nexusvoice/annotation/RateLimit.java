@@ -0,0 +1,40 @@
+package com.nexusvoice.annotation;
+
+import com.nexusvoice.infrastructure.ratelimit.QuotaType;
+
+import java.lang.annotation.*;
+
+/**
+ * 用户级限流注解
+ * 按当前登录用户消耗指定预算的令牌，并在执行前检查每日用量配额；未登录请求不受限制
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimit {
+
+    /**
+     * 预算名称，对应 nexusvoice.rate-limit.budgets 下的配置
+     *
+     * @return 预算名称
+     */
+    String value();
+
+    /**
+     * 执行前需要仍有余量的每日配额
+     *
+     * @return 配额类型
+     */
+    QuotaType[] quotas() default {};
+
+    /**
+     * 本次请求消耗的令牌数，SpEL表达式，可以按参数名引用方法参数（如 {@code #requestDTO.batchSize}）；
+     * 为空时消耗一个令牌，结果为null或小于1时按1计
+     *
+     * @return 成本表达式
+     */
+    String cost() default "";
+}
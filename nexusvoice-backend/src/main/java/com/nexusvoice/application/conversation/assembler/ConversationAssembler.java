@@ -6,8 +6,11 @@ import com.nexusvoice.application.conversation.dto.RoleInfoDto;
 import com.nexusvoice.domain.conversation.model.Conversation;
 import com.nexusvoice.domain.conversation.model.ConversationMessage;
 import com.nexusvoice.domain.role.model.Role;
+import com.nexusvoice.infrastructure.ai.model.ChatMessage;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -117,4 +120,43 @@ public class ConversationAssembler {
                 .map(message -> toConversationMessageWithRoleDto(message, conversationRole))
                 .collect(Collectors.toList());
     }
+
+    /**
+     * 按简单token预算从尾部选择历史消息，正序追加为AI请求消息（HTTP与WS共用）
+     * 预算约2500 tokens（含系统提示词，不含输出），最多20条；空内容与系统消息跳过
+     *
+     * @param target         追加目标
+     * @param history        对话历史（按时间正序）
+     * @param systemPrompt   系统提示词，可为空
+     * @param tokenEstimator token估算
+     */
+    public static void addTrimmedHistory(List<ChatMessage> target, List<ConversationMessage> history,
+                                         String systemPrompt, ToIntFunction<String> tokenEstimator) {
+        if (history == null || history.isEmpty()) return;
+        int budget = 2500;
+        int used = 0;
+        if (systemPrompt != null && !systemPrompt.isEmpty()) {
+            used += tokenEstimator.applyAsInt(systemPrompt);
+        }
+
+        // 从尾到头累加，再正序加入
+        List<ConversationMessage> buffer = new ArrayList<>();
+        for (int i = history.size() - 1; i >= 0 && buffer.size() < 20; i--) {
+            ConversationMessage msg = history.get(i);
+            String content = msg.getContent();
+            if (content == null || content.isEmpty()) continue;
+            int t = tokenEstimator.applyAsInt(content);
+            if (used + t > budget) break;
+            used += t;
+            buffer.add(msg);
+        }
+        for (int i = buffer.size() - 1; i >= 0; i--) {
+            ConversationMessage msg = buffer.get(i);
+            switch (msg.getRole()) {
+                case USER -> target.add(ChatMessage.user(msg.getContent()));
+                case ASSISTANT -> target.add(ChatMessage.assistant(msg.getContent()));
+                default -> {}
+            }
+        }
+    }
 }
@@ -71,6 +71,9 @@ public class ChatResponseDto {
     @Schema(description = "分段列表（顺序播放）")
     private java.util.List<TTSResponseDTO.Segment> ttsSegments;
 
+    @Schema(description = "各阶段服务端耗时（毫秒，按配置返回）")
+    private java.util.Map<String, Long> timings;
+
     @Data
     @Builder
     @Schema(description = "令牌使用统计")
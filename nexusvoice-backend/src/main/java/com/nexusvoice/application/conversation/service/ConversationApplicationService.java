@@ -11,6 +11,7 @@ import com.nexusvoice.application.role.service.RoleApplicationService;
 import com.nexusvoice.application.tts.dto.TTSRequestDTO;
 import com.nexusvoice.application.tts.dto.TTSResponseDTO;
 import com.nexusvoice.application.tts.service.TTSService;
+import com.nexusvoice.application.tts.service.TtsPriority;
 import com.nexusvoice.domain.conversation.model.Conversation;
 import com.nexusvoice.domain.conversation.model.ConversationMessage;
 import com.nexusvoice.domain.conversation.repository.ConversationRepository;
@@ -23,15 +24,23 @@ import com.nexusvoice.infrastructure.ai.model.ChatMessage;
 import com.nexusvoice.infrastructure.ai.model.ChatRequest;
 import com.nexusvoice.infrastructure.ai.model.ChatResponse;
 import com.nexusvoice.infrastructure.ai.service.AiChatService;
+import com.nexusvoice.infrastructure.database.DbTimeRecorder;
+import com.nexusvoice.infrastructure.metrics.TurnTiming;
+import com.nexusvoice.infrastructure.ratelimit.QuotaType;
+import com.nexusvoice.infrastructure.ratelimit.UserRateLimiter;
 import com.nexusvoice.utils.SecurityUtils;
 import com.nexusvoice.utils.JwtUtils;
 import com.nexusvoice.utils.MarkdownTextUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -51,19 +60,31 @@ public class ConversationApplicationService {
     private final AiChatService aiChatService;
     private final TTSService ttsService;
     private final RoleApplicationService roleApplicationService;
+    private final MeterRegistry meterRegistry;
+    private final UserRateLimiter userRateLimiter;
+    private final boolean exposeTiming;
+    private final Timer turnDbTimer;
 
     public ConversationApplicationService(ConversationRepository conversationRepository,
                                         ConversationMessageRepository messageRepository,
                                         ConversationDomainService conversationDomainService,
                                         AiChatService aiChatService,
                                         TTSService ttsService,
-                                        RoleApplicationService roleApplicationService) {
+                                        RoleApplicationService roleApplicationService,
+                                        MeterRegistry meterRegistry,
+                                        UserRateLimiter userRateLimiter,
+                                        @Value("${nexusvoice.chat.expose-timing:false}") boolean exposeTiming) {
         this.conversationRepository = conversationRepository;
         this.messageRepository = messageRepository;
         this.conversationDomainService = conversationDomainService;
         this.aiChatService = aiChatService;
         this.ttsService = ttsService;
         this.roleApplicationService = roleApplicationService;
+        this.meterRegistry = meterRegistry;
+        this.userRateLimiter = userRateLimiter;
+        this.exposeTiming = exposeTiming;
+        this.turnDbTimer = Timer.builder("nexusvoice.chat.turn.db")
+                .description("单轮对话的数据库累计耗时").tag("channel", "http").register(meterRegistry);
     }
 
     /**
@@ -71,21 +92,25 @@ public class ConversationApplicationService {
      */
     @Transactional
     public ChatResponseDto chat(ChatRequestDto requestDto, Long userId) {
+        DbTimeRecorder.Scope dbScope = DbTimeRecorder.begin();
+        TurnTiming timing = new TurnTiming();
         try {
             // 1. 获取或创建对话
-            Conversation conversation = getOrCreateConversation(requestDto, userId);
+            Conversation conversation = timing.time(TurnTiming.CONVERSATION_LOAD, () -> getOrCreateConversation(requestDto, userId));
 
             // 2. 验证权限
-            conversationDomainService.validateConversationAccess(conversation.getId(), userId);
-
             // 3. 检查限制
-            conversationDomainService.checkMessageCountLimit(conversation.getId(), 100); // 最大100条消息
-            conversationDomainService.checkTokenLimit(conversation.getId(), 50000); // 最大5万令牌
+            timing.run(TurnTiming.ACCESS_CHECK, () -> {
+                conversationDomainService.validateConversationAccess(conversation.getId(), userId);
+                conversationDomainService.checkMessageCountLimit(conversation.getId(), 100); // 最大100条消息
+                conversationDomainService.checkTokenLimit(conversation.getId(), 50000); // 最大5万令牌
+            });
 
             // 4. 查询角色信息（如果指定了角色ID）
             Role role = null;
             Long effectiveRoleId = requestDto.getRoleId() != null ? requestDto.getRoleId() : conversation.getRoleId();
             if (effectiveRoleId != null) {
+                long roleStart = System.currentTimeMillis();
                 try {
                     // 尝试获取角色信息，如果角色不存在或无权访问，不报错，继续正常聊天
                     role = roleApplicationService.getRoleForChat(effectiveRoleId, userId);
@@ -95,6 +120,7 @@ public class ConversationApplicationService {
                             effectiveRoleId, userId, e.getMessage());
                     // 不抛出异常，继续正常聊天流程
                 }
+                timing.markSince(TurnTiming.ROLE_LOAD, roleStart);
             }
 
             // 5. 保存用户消息
@@ -103,20 +129,29 @@ public class ConversationApplicationService {
                     requestDto.getMessage(), 
                     null
             );
-            userMessage = conversationDomainService.addMessageToConversation(conversation.getId(), userMessage);
+            ConversationMessage pendingUserMessage = userMessage;
+            userMessage = timing.time(TurnTiming.PERSISTENCE,
+                    () -> conversationDomainService.addMessageToConversation(conversation.getId(), pendingUserMessage));
 
-            // 6. 构建AI请求
-            ChatRequest aiRequest = buildAiRequest(conversation, requestDto, role);
+            // 6. 构建AI请求（历史在此加载）
+            Role chatRole = role;
+            ChatRequest aiRequest = timing.time(TurnTiming.PROMPT_BUILD, () -> buildAiRequest(conversation, requestDto, chatRole));
+            timing.identify(userId, conversation.getId(), aiRequest.getModel());
 
             // 7. 调用AI服务
-            ChatResponse aiResponse = aiChatService.chat(aiRequest);
+            ChatResponse aiResponse = timing.time(TurnTiming.GENERATION, () -> aiChatService.chat(aiRequest));
 
             if (aiResponse.getSuccess()) {
                 // 8. 根据enableAudio参数决定是否调用TTS服务生成音频
                 String audioUrl = null;
                 TTSResponseDTO ttsResponse = null;
                 boolean shouldGenerateAudio = requestDto.getEnableAudio() != null && requestDto.getEnableAudio();
+                if (shouldGenerateAudio && !userRateLimiter.hasQuota(userId, SecurityUtils.isAdmin(), QuotaType.TTS_CHARS)) {
+                    log.info("用户当日语音合成配额已用尽，本轮仅返回文本，用户ID：{}", userId);
+                    shouldGenerateAudio = false;
+                }
                 if (shouldGenerateAudio) {
+                    long ttsStart = System.currentTimeMillis();
                     try {
                         // 清理Markdown格式，使文本适合语音合成
                         String cleanedText = MarkdownTextUtils.cleanForTTS(aiResponse.getContent());
@@ -133,7 +168,7 @@ public class ConversationApplicationService {
                         
                         log.info("使用TTS语音类型：{}，对话ID：{}，{}", selectedVoiceType, conversation.getId(), 
                                 MarkdownTextUtils.getCleaningStats(aiResponse.getContent(), cleanedText));
-                        ttsResponse = ttsService.textToSpeech(ttsRequest);
+                        ttsResponse = ttsService.textToSpeech(ttsRequest, TtsPriority.of(userId));
                         audioUrl = ttsResponse.getAudioData(); // TTSService返回的是音频URL（分段时为首段）
                         
                         log.info("TTS转换成功，对话ID：{}，音频URL：{}", conversation.getId(), audioUrl);
@@ -141,11 +176,13 @@ public class ConversationApplicationService {
                         log.error("TTS转换失败，对话ID：{}，错误：{}", conversation.getId(), e.getMessage(), e);
                         // TTS失败不影响正常聊天流程，继续保存文本消息
                     }
+                    timing.markSince(TurnTiming.TTS, ttsStart);
                 } else {
                     log.debug("跳过TTS音频生成，enableAudio=false，对话ID：{}", conversation.getId());
                 }
 
                 // 9. 保存AI回复（包含音频URL）
+                long persistStart = System.currentTimeMillis();
                 ConversationMessage aiMessage = ConversationMessage.createAssistantMessage(
                         conversation.getId(),
                         aiResponse.getContent(),
@@ -161,6 +198,8 @@ public class ConversationApplicationService {
                     conversation.updateTitle(generatedTitle);
                     conversationRepository.save(conversation);
                 }
+                timing.markSince(TurnTiming.PERSISTENCE, persistStart);
+                timing.add(TurnTiming.DB, dbScope.elapsedMs());
 
                 // 11. 构建响应
                 ChatResponseDto.TokenUsageDto usageDto = null;
@@ -172,6 +211,7 @@ public class ConversationApplicationService {
                             .build();
                 }
 
+                ChatResponseDto response;
                 if (ttsResponse != null) {
                     // 保障单段TTS也返回统一的分段结构
                     if (ttsResponse.getSegments() == null || ttsResponse.getSegments().isEmpty()) {
@@ -185,7 +225,7 @@ public class ConversationApplicationService {
                         ttsResponse.setSegments(segs);
                         ttsResponse.setChunked(false);
                     }
-                    return ChatResponseDto.successWithTts(
+                    response = ChatResponseDto.successWithTts(
                             conversation.getId(),
                             aiMessage.getId(),
                             aiResponse.getContent(),
@@ -195,7 +235,7 @@ public class ConversationApplicationService {
                             ttsResponse
                     );
                 } else {
-                    return ChatResponseDto.success(
+                    response = ChatResponseDto.success(
                             conversation.getId(),
                             aiMessage.getId(),
                             aiResponse.getContent(),
@@ -205,6 +245,11 @@ public class ConversationApplicationService {
                             audioUrl
                     );
                 }
+                timing.markSuccess();
+                if (exposeTiming) {
+                    response.setTimings(timing.snapshot());
+                }
+                return response;
             } else {
                 log.error("AI聊天失败，对话ID：{}，错误：{}", conversation.getId(), aiResponse.getErrorMessage());
                 return ChatResponseDto.error("AI聊天失败：" + aiResponse.getErrorMessage());
@@ -216,6 +261,10 @@ public class ConversationApplicationService {
         } catch (Exception e) {
             log.error("聊天系统异常，用户ID：{}", userId, e);
             return ChatResponseDto.error("系统繁忙，请稍后重试");
+        } finally {
+            dbScope.close();
+            turnDbTimer.record(dbScope.elapsedNanos(), TimeUnit.NANOSECONDS);
+            timing.finish(meterRegistry, "http");
         }
     }
 
@@ -347,7 +396,7 @@ public class ConversationApplicationService {
                             ttsReq.setSpeedRatio(1.0);
                             log.info("创建会话时为角色开场白生成TTS音频，使用语音类型：{}，角色ID：{}，{}", selectedVoiceType, role.getId(),
                                     MarkdownTextUtils.getCleaningStats(role.getGreetingMessage().trim(), cleanedGreeting));
-                            TTSResponseDTO ttsRes = ttsService.textToSpeech(ttsReq);
+                            TTSResponseDTO ttsRes = ttsService.textToSpeech(ttsReq, TtsPriority.of(userId));
                             if (ttsRes != null && ttsRes.getAudioData() != null && !ttsRes.getAudioData().trim().isEmpty()) {
                                 greetingAudioUrl = ttsRes.getAudioData();
                             }
@@ -426,7 +475,7 @@ public class ConversationApplicationService {
         }
         
         // 添加历史消息（动态截断，避免超额 token）
-        addTrimmedHistory(messages, history, systemPrompt);
+        ConversationAssembler.addTrimmedHistory(messages, history, systemPrompt, aiChatService::estimateTokenCount);
         
         // 构建请求
         return ChatRequest.builder()
@@ -481,36 +530,4 @@ public class ConversationApplicationService {
         
         return systemPromptBuilder.toString();
     }
-
-    /**
-     * 根据简单 token 预算从尾部选择历史消息，避免重复添加当前用户消息
-     */
-    private void addTrimmedHistory(List<ChatMessage> target, List<ConversationMessage> history, String systemPrompt) {
-        if (history == null || history.isEmpty()) return;
-        // 预估预算（粗略）：限制在 ~2500 tokens 的上下文（不含输出）
-        int budget = 2500;
-        int used = 0;
-        if (systemPrompt != null) used += aiChatService.estimateTokenCount(systemPrompt);
-
-        // 从尾到头累加，再正序加入，最多 20 条
-        List<ConversationMessage> buffer = new ArrayList<>();
-        for (int i = history.size() - 1; i >= 0 && buffer.size() < 20; i--) {
-            ConversationMessage msg = history.get(i);
-            String content = msg.getContent();
-            if (content == null || content.isEmpty()) continue;
-            int t = aiChatService.estimateTokenCount(content);
-            if (used + t > budget) break;
-            used += t;
-            buffer.add(msg);
-        }
-        // 反转为时间顺序
-        for (int i = buffer.size() - 1; i >= 0; i--) {
-            ConversationMessage msg = buffer.get(i);
-            switch (msg.getRole()) {
-                case USER -> target.add(ChatMessage.user(msg.getContent()));
-                case ASSISTANT -> target.add(ChatMessage.assistant(msg.getContent()));
-                default -> {}
-            }
-        }
-    }
 }
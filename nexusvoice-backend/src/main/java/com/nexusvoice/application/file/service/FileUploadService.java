@@ -1,17 +1,27 @@
 package com.nexusvoice.application.file.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.nexusvoice.enums.FileTypeEnum;
 import com.nexusvoice.infrastructure.config.QiniuConfig;
-import com.qiniu.common.Zone;
-import com.qiniu.http.Response;
-import com.qiniu.storage.Configuration;
-import com.qiniu.storage.UploadManager;
-import com.qiniu.util.Auth;
+import com.nexusvoice.infrastructure.jfr.UploadEvent;
+import com.nexusvoice.infrastructure.storage.BlobStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.UUID;
 
 /**
@@ -23,16 +33,28 @@ import java.util.UUID;
 @Service
 public class FileUploadService {
     
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
     private final QiniuConfig qiniuConfig;
-    private final UploadManager uploadManager;
-    private final Auth auth;
+    private final BlobStore blobStore;
+    private final boolean dedupEnabled;
+    /**
+     * 已确认存在的内容寻址对象键 -> 访问URL，命中时跳过存储端存在性查询
+     */
+    private final Cache<String, String> knownKeys;
+    private final Counter dedupHitCounter;
+    private final Counter dedupMissCounter;
     
-    public FileUploadService(QiniuConfig qiniuConfig) {
+    public FileUploadService(QiniuConfig qiniuConfig, BlobStore blobStore, MeterRegistry meterRegistry,
+                             @Value("${nexusvoice.storage.dedup.enabled:true}") boolean dedupEnabled,
+                             @Value("${nexusvoice.storage.dedup.index-size:10000}") long indexSize) {
+        // 目录规则仍沿用七牛云配置中的按类型目录，实际写入由 nexusvoice.storage.type 选择的存储完成
         this.qiniuConfig = qiniuConfig;
-        // 复用上传客户端，减少初始化开销
-        Configuration cfg = new Configuration(Zone.autoZone());
-        this.uploadManager = new UploadManager(cfg);
-        this.auth = Auth.create(qiniuConfig.getAccessKey(), qiniuConfig.getSecretKey());
+        this.blobStore = blobStore;
+        this.dedupEnabled = dedupEnabled;
+        this.knownKeys = Caffeine.newBuilder().maximumSize(Math.max(1, indexSize)).build();
+        this.dedupHitCounter = Counter.builder("nexusvoice.upload.dedup").tag("result", "hit").register(meterRegistry);
+        this.dedupMissCounter = Counter.builder("nexusvoice.upload.dedup").tag("result", "miss").register(meterRegistry);
     }
     
     /**
@@ -66,33 +88,157 @@ public class FileUploadService {
         
         log.info("开始上传文件，文件名：{}，文件类型：{}", file.getOriginalFilename(), fileType.getDescription());
         
-        // 创建上传token
-        String upToken = auth.uploadToken(qiniuConfig.getBucket());
-        
         String originalFilename = file.getOriginalFilename();
         // 构造文件目录和文件名
         assert originalFilename != null;
         String suffix = originalFilename.substring(originalFilename.lastIndexOf("."));
         String directory = getDirectoryByFileType(fileType);
-        String fileKey = directory + UUID.randomUUID() + suffix;
+        
+        if (!dedupEnabled) {
+            String fileKey = directory + UUID.randomUUID() + suffix;
+            log.info("文件将上传到目录：{}，文件key：{}", directory, fileKey);
+            try (InputStream inputStream = file.getInputStream()) {
+                return store(fileKey, inputStream, file.getContentType());
+            }
+        }
+        
+        // 内容寻址：先流式计算SHA-256，相同内容直接复用已有对象
+        String hash;
+        try (InputStream inputStream = file.getInputStream()) {
+            hash = sha256(inputStream);
+        }
+        String fileKey = directory + hash + suffix;
+        String existingUrl = findExisting(fileKey);
+        if (existingUrl != null) {
+            return existingUrl;
+        }
         
         log.info("文件将上传到目录：{}，文件key：{}", directory, fileKey);
         
         // 上传文件
-        Response response = uploadManager.put(file.getInputStream(), fileKey, upToken, null, null);
-        
-        if (!response.isOK()) {
-            log.error("文件上传失败，响应：{}", response.toString());
-            throw new RuntimeException("文件上传失败：" + response.toString());
+        try (InputStream inputStream = file.getInputStream()) {
+            return storeContentAddressed(fileKey, inputStream, file.getContentType());
+        }
+    }
+
+    /**
+     * 流式上传（不预先读入内存）
+     * 存储按固定大小分块读取输入流写入，内存占用与文件大小无关，适合从上游HTTP响应直接转存。
+     * 启用去重时输入流只能读取一次，边计算SHA-256边写入临时文件，确认不存在后再从临时文件上传
+     * @param inputStream 输入流（由调用方负责关闭）
+     * @param suffix 文件后缀，如 .png
+     * @param contentType MIME类型，可为空
+     * @param fileType 文件类型
+     * @return 文件访问URL
+     * @throws IOException IO异常
+     */
+    public String upload(InputStream inputStream, String suffix, String contentType, FileTypeEnum fileType) throws IOException {
+        String directory = getDirectoryByFileType(fileType);
+        if (!dedupEnabled) {
+            String fileKey = directory + UUID.randomUUID() + suffix;
+            log.info("开始流式上传文件，文件类型：{}，文件key：{}", fileType.getDescription(), fileKey);
+            return store(fileKey, inputStream, contentType);
+        }
+
+        Path spool = Files.createTempFile("nv-upload-", suffix);
+        try {
+            String hash;
+            try (OutputStream out = Files.newOutputStream(spool)) {
+                hash = sha256(inputStream, out);
+            }
+            String fileKey = directory + hash + suffix;
+            String existingUrl = findExisting(fileKey);
+            if (existingUrl != null) {
+                return existingUrl;
+            }
+
+            log.info("开始流式上传文件，文件类型：{}，文件key：{}", fileType.getDescription(), fileKey);
+            try (InputStream spooled = Files.newInputStream(spool)) {
+                return storeContentAddressed(fileKey, spooled, contentType);
+            }
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    /**
+     * 写入存储并返回访问URL
+     */
+    private String store(String fileKey, InputStream inputStream, String contentType) throws IOException {
+        UploadEvent event = new UploadEvent();
+        event.begin();
+        boolean success = false;
+        String fileUrl;
+        try {
+            fileUrl = blobStore.put(fileKey, inputStream, contentType);
+            success = true;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.fileKey = fileKey;
+                event.contentType = contentType;
+                event.success = success;
+                event.commit();
+            }
         }
-        
-        String fileUrl = qiniuConfig.getDomain() + "/" + fileKey;
         log.info("文件上传成功，访问URL：{}", fileUrl);
         
         // 返回文件url
         return fileUrl;
     }
     
+    /**
+     * 写入内容寻址对象，并记入本地索引
+     */
+    private String storeContentAddressed(String fileKey, InputStream inputStream, String contentType) throws IOException {
+        dedupMissCounter.increment();
+        String fileUrl = store(fileKey, inputStream, contentType);
+        knownKeys.put(fileKey, fileUrl);
+        return fileUrl;
+    }
+    
+    /**
+     * 查找相同内容的已有对象：先查本地索引，再查询存储端
+     */
+    private String findExisting(String fileKey) {
+        String url = knownKeys.getIfPresent(fileKey);
+        if (url == null && blobStore.exists(fileKey)) {
+            url = blobStore.urlFor(fileKey);
+            knownKeys.put(fileKey, url);
+        }
+        if (url != null) {
+            dedupHitCounter.increment();
+            log.info("文件内容已存在，跳过上传，文件key：{}", fileKey);
+        }
+        return url;
+    }
+    
+    /**
+     * 流式计算SHA-256（十六进制），可选同时把读到的数据写入输出流
+     */
+    private static String sha256(InputStream inputStream, OutputStream copyTo) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        // 不关闭包装流，输入流的生命周期由调用方管理
+        DigestInputStream in = new DigestInputStream(inputStream, digest);
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            if (copyTo != null) {
+                copyTo.write(buffer, 0, n);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    private static String sha256(InputStream inputStream) throws IOException {
+        return sha256(inputStream, null);
+    }
+    
     /**
      * 根据文件类型获取上传目录
      * @param fileType 文件类型
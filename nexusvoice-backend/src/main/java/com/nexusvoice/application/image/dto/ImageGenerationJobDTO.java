@@ -0,0 +1,47 @@
+package com.nexusvoice.application.image.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图像生成任务DTO
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Data
+@Schema(description = "异步图像生成任务")
+public class ImageGenerationJobDTO {
+
+    @Schema(description = "任务ID", example = "1839201928374650880")
+    private String jobId;
+
+    @Schema(description = "任务状态", allowableValues = {"QUEUED", "RUNNING", "SUCCEEDED", "FAILED"})
+    private String status;
+
+    @Schema(description = "是否命中已有任务（相同请求去重）", example = "false")
+    private Boolean deduplicated;
+
+    @Schema(description = "已执行次数（含重试）", example = "1")
+    private Integer attempts;
+
+    @Schema(description = "使用的模型", example = "Qwen/Qwen-Image")
+    private String model;
+
+    @Schema(description = "生成结果（仅成功时返回）")
+    private ImageGenerationResponseDTO result;
+
+    @Schema(description = "失败原因（仅失败时返回）")
+    private String errorMessage;
+
+    @Schema(description = "提交时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "结束时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime finishedAt;
+}
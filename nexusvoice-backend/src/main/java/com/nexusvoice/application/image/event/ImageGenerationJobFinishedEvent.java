@@ -0,0 +1,13 @@
+package com.nexusvoice.application.image.event;
+
+import com.nexusvoice.application.image.dto.ImageGenerationJobDTO;
+
+/**
+ * 图像生成任务结束事件（成功或失败）
+ * 由任务工作线程同步发布，WebSocket处理器据此向用户在线会话推送结果
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public record ImageGenerationJobFinishedEvent(Long userId, ImageGenerationJobDTO job) {
+}
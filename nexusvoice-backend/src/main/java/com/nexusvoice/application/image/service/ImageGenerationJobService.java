@@ -0,0 +1,385 @@
+package com.nexusvoice.application.image.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexusvoice.application.image.dto.ImageGenerationJobDTO;
+import com.nexusvoice.application.image.dto.ImageGenerationRequestDTO;
+import com.nexusvoice.application.image.dto.ImageGenerationResponseDTO;
+import com.nexusvoice.application.image.event.ImageGenerationJobFinishedEvent;
+import com.nexusvoice.domain.image.constant.ImageJobStatus;
+import com.nexusvoice.domain.image.model.ImageGenerationJob;
+import com.nexusvoice.domain.image.repository.ImageGenerationJobRepository;
+import com.nexusvoice.enums.ErrorCodeEnum;
+import com.nexusvoice.exception.BizException;
+import com.nexusvoice.exception.UpstreamRejectedException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 异步图像生成任务服务
+ * - 提交即返回任务ID，生成、下载、上传CDN在虚拟线程中执行，不占用HTTP线程；信号量限制全局并发与排队数
+ * - 任务状态持久化，服务重启后自动恢复未结束的任务
+ * - 按请求哈希去重：进行中的相同请求直接复用；指定了种子的请求在去重窗口内复用成功结果
+ * - 单用户进行中任务数上限；上游连接失败、超时、5xx、熔断拒绝等可恢复错误按指数退避重试
+ * - 任务结束时发布 {@link ImageGenerationJobFinishedEvent}，由WebSocket推送给在线用户
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Service
+public class ImageGenerationJobService {
+
+    private static final int ERROR_MESSAGE_MAX_LENGTH = 1000;
+
+    /**
+     * 提交锁分段数：同一用户的提交串行化，锁数量固定，不随用户数增长
+     */
+    private static final int SUBMIT_LOCK_STRIPES = 64;
+
+    private final ImageGenerationService imageGenerationService;
+    private final ImageGenerationJobRepository imageGenerationJobRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    private final int maxActivePerUser;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long dedupWindowSeconds;
+    private final boolean recoverOnStartup;
+
+    /** 每个任务一个虚拟线程 */
+    private final ExecutorService workers;
+    /** 同时执行的任务数上限 */
+    private final Semaphore runningSlots;
+    /** 执行中与排队中的任务总数上限 */
+    private final Semaphore pendingSlots;
+    private final ReentrantLock[] submitLocks = new ReentrantLock[SUBMIT_LOCK_STRIPES];
+
+    public ImageGenerationJobService(ImageGenerationService imageGenerationService,
+                                     ImageGenerationJobRepository imageGenerationJobRepository,
+                                     ApplicationEventPublisher eventPublisher,
+                                     ObjectMapper objectMapper,
+                                     @Value("${nexusvoice.image.jobs.workers:4}") int workerCount,
+                                     @Value("${nexusvoice.image.jobs.queue-capacity:100}") int queueCapacity,
+                                     @Value("${nexusvoice.image.jobs.max-active-per-user:3}") int maxActivePerUser,
+                                     @Value("${nexusvoice.image.jobs.max-attempts:3}") int maxAttempts,
+                                     @Value("${nexusvoice.image.jobs.retry-backoff-ms:2000}") long retryBackoffMs,
+                                     @Value("${nexusvoice.image.jobs.dedup-window-seconds:600}") long dedupWindowSeconds,
+                                     @Value("${nexusvoice.image.jobs.recover-on-startup:true}") boolean recoverOnStartup) {
+        this.imageGenerationService = imageGenerationService;
+        this.imageGenerationJobRepository = imageGenerationJobRepository;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.maxActivePerUser = Math.max(1, maxActivePerUser);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = Math.max(0, retryBackoffMs);
+        this.dedupWindowSeconds = Math.max(0, dedupWindowSeconds);
+        this.recoverOnStartup = recoverOnStartup;
+
+        int size = Math.max(1, workerCount);
+        // 虚拟线程不应池化：每个任务新建虚拟线程，并发上限由信号量控制，排队的任务在信号量上等待
+        this.workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("nv-image-", 0).factory());
+        this.runningSlots = new Semaphore(size, true);
+        this.pendingSlots = new Semaphore(size + Math.max(1, queueCapacity));
+        for (int i = 0; i < submitLocks.length; i++) {
+            submitLocks[i] = new ReentrantLock();
+        }
+        log.info("图像生成任务池已初始化，工作线程={}，队列容量={}，单用户上限={}，最大尝试次数={}",
+                size, queueCapacity, this.maxActivePerUser, this.maxAttempts);
+    }
+
+    /**
+     * 提交图像生成任务
+     *
+     * @param userId     用户ID
+     * @param requestDTO 图像生成请求
+     * @return 任务信息（可能是去重命中的已有任务）
+     */
+    public ImageGenerationJobDTO submit(Long userId, ImageGenerationRequestDTO requestDTO) {
+        imageGenerationService.validateRequest(requestDTO);
+        if (requestDTO.getBatchSize() == null || requestDTO.getBatchSize() < 1) {
+            requestDTO.setBatchSize(1);
+        }
+
+        String requestParams = toJson(requestDTO);
+        String requestHash = sha256(requestParams);
+
+        ReentrantLock lock = submitLocks[Math.floorMod(userId.hashCode(), SUBMIT_LOCK_STRIPES)];
+        lock.lock();
+        try {
+            Optional<ImageGenerationJob> reusable = findReusable(userId, requestHash, requestDTO.getSeed() != null);
+            if (reusable.isPresent()) {
+                log.info("图像生成任务去重命中，用户ID：{}，任务ID：{}，状态：{}",
+                        userId, reusable.get().getId(), reusable.get().getStatus());
+                return toDTO(reusable.get(), true);
+            }
+
+            if (imageGenerationJobRepository.countActiveByUserId(userId) >= maxActivePerUser) {
+                throw BizException.of(ErrorCodeEnum.IMAGE_JOB_LIMIT_EXCEEDED,
+                        "进行中的图像生成任务已达上限（" + maxActivePerUser + "），请等待已有任务完成");
+            }
+            if (pendingSlots.availablePermits() == 0) {
+                throw BizException.of(ErrorCodeEnum.IMAGE_JOB_QUEUE_FULL, "图像生成任务较多，请稍后再试");
+            }
+
+            ImageGenerationJob job = imageGenerationJobRepository.save(
+                    ImageGenerationJob.queued(userId, requestHash, requestDTO.getModel(), requestParams));
+            enqueue(job);
+            log.info("图像生成任务已提交，用户ID：{}，任务ID：{}，模型：{}", userId, job.getId(), job.getModelName());
+            return toDTO(job, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 查询任务状态
+     */
+    public ImageGenerationJobDTO getJob(Long userId, Long jobId) {
+        ImageGenerationJob job = imageGenerationJobRepository.findByIdAndUserId(jobId, userId)
+                .orElseThrow(() -> BizException.of(ErrorCodeEnum.IMAGE_JOB_NOT_FOUND));
+        return toDTO(job, false);
+    }
+
+    /**
+     * 查询用户最近的任务
+     */
+    public List<ImageGenerationJobDTO> listRecentJobs(Long userId, Integer limit) {
+        int size = (limit == null || limit < 1) ? 20 : Math.min(limit, 100);
+        return imageGenerationJobRepository.findRecentByUserId(userId, size).stream()
+                .map(job -> toDTO(job, false))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 服务启动后恢复未结束的任务（上次进程退出时排队中或执行中的任务）
+     * 假设单实例部署；多实例部署时应关闭该开关，避免同一任务被重复执行
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverUnfinishedJobs() {
+        if (!recoverOnStartup) {
+            return;
+        }
+        try {
+            int capacity = pendingSlots.availablePermits();
+            List<ImageGenerationJob> unfinished = imageGenerationJobRepository.findUnfinished(capacity);
+            for (ImageGenerationJob job : unfinished) {
+                job.setStatus(ImageJobStatus.QUEUED);
+                imageGenerationJobRepository.save(job);
+                enqueue(job);
+            }
+            if (!unfinished.isEmpty()) {
+                log.info("已恢复{}个未完成的图像生成任务", unfinished.size());
+            }
+        } catch (Exception e) {
+            log.warn("恢复未完成的图像生成任务失败：{}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 未执行完的任务保持持久化状态，下次启动时恢复
+        workers.shutdownNow();
+    }
+
+    private Optional<ImageGenerationJob> findReusable(Long userId, String requestHash, boolean deterministic) {
+        if (dedupWindowSeconds == 0) {
+            return Optional.empty();
+        }
+        LocalDateTime since = LocalDateTime.now().minusSeconds(dedupWindowSeconds);
+        return imageGenerationJobRepository.findLatestByUserIdAndHash(userId, requestHash, since)
+                .filter(job -> !job.isFinished() || (deterministic && job.getStatus() == ImageJobStatus.SUCCEEDED));
+    }
+
+    private void enqueue(ImageGenerationJob job) {
+        Long jobId = job.getId();
+        if (!pendingSlots.tryAcquire()) {
+            rejectQueueFull(job);
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    runningSlots.acquire();
+                    try {
+                        runJob(jobId);
+                    } finally {
+                        runningSlots.release();
+                    }
+                } catch (InterruptedException e) {
+                    // 服务关闭：任务保持持久化状态，重启后恢复
+                    Thread.currentThread().interrupt();
+                } finally {
+                    pendingSlots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingSlots.release();
+            rejectQueueFull(job);
+        }
+    }
+
+    private void rejectQueueFull(ImageGenerationJob job) {
+        job.markFailed("图像生成任务队列已满");
+        imageGenerationJobRepository.save(job);
+        throw BizException.of(ErrorCodeEnum.IMAGE_JOB_QUEUE_FULL, "图像生成任务较多，请稍后再试");
+    }
+
+    /**
+     * 工作线程执行任务：可恢复错误按指数退避重试，结束后发布事件
+     */
+    private void runJob(Long jobId) {
+        ImageGenerationJob job = imageGenerationJobRepository.findById(jobId).orElse(null);
+        if (job == null || job.isFinished()) {
+            return;
+        }
+
+        ImageGenerationRequestDTO requestDTO;
+        try {
+            requestDTO = objectMapper.readValue(job.getRequestParams(), ImageGenerationRequestDTO.class);
+        } catch (JsonProcessingException e) {
+            finish(job, null, "任务参数解析失败");
+            return;
+        }
+
+        while (true) {
+            job.markRunning();
+            imageGenerationJobRepository.save(job);
+            try {
+                ImageGenerationResponseDTO response = imageGenerationService.generateImage(requestDTO);
+                finish(job, response, null);
+                return;
+            } catch (Exception e) {
+                boolean retryable = isRetryable(e);
+                if (!retryable || job.getAttempts() >= maxAttempts) {
+                    log.warn("图像生成任务失败，任务ID：{}，第{}次，可重试：{}，错误：{}",
+                            jobId, job.getAttempts(), retryable, e.getMessage());
+                    finish(job, null, e.getMessage());
+                    return;
+                }
+                long delay = backoffDelay(job.getAttempts());
+                log.info("图像生成任务第{}次执行失败，{}ms后重试，任务ID：{}，错误：{}",
+                        job.getAttempts(), delay, jobId, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    // 服务关闭：保持RUNNING状态，重启后恢复
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void finish(ImageGenerationJob job, ImageGenerationResponseDTO response, String errorMessage) {
+        if (response != null) {
+            job.markSucceeded(toJson(response));
+        } else {
+            String message = errorMessage != null ? errorMessage : "图像生成失败";
+            job.markFailed(message.length() > ERROR_MESSAGE_MAX_LENGTH
+                    ? message.substring(0, ERROR_MESSAGE_MAX_LENGTH) : message);
+        }
+        imageGenerationJobRepository.save(job);
+        log.info("图像生成任务结束，任务ID：{}，状态：{}，尝试次数：{}", job.getId(), job.getStatus(), job.getAttempts());
+        try {
+            eventPublisher.publishEvent(new ImageGenerationJobFinishedEvent(job.getUserId(), toDTO(job, false)));
+        } catch (Exception e) {
+            log.warn("发布图像生成任务结束事件失败，任务ID：{}，错误：{}", job.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 退避时间：base * 2^(n-1)，附加至多25%的随机抖动，避免同时失败的任务同时重试
+     */
+    private long backoffDelay(int attempt) {
+        long base = retryBackoffMs * (1L << Math.min(attempt - 1, 6));
+        return base + (base > 0 ? ThreadLocalRandom.current().nextLong(base / 4 + 1) : 0);
+    }
+
+    /**
+     * 是否为可恢复错误：熔断/并发拒绝、连接失败、超时、上游5xx、下载或上传IO异常
+     * 参数错误、密钥无效、服务未启用等重试无意义
+     */
+    static boolean isRetryable(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof UpstreamRejectedException
+                    || t instanceof ResourceAccessException
+                    || t instanceof HttpServerErrorException
+                    || t instanceof IOException) {
+                return true;
+            }
+            if (t instanceof BizException be) {
+                Integer code = be.getCode();
+                if (ErrorCodeEnum.IMAGE_CONNECTION_FAILED.getCode().equals(code)
+                        || ErrorCodeEnum.IMAGE_TIMEOUT.getCode().equals(code)
+                        || ErrorCodeEnum.FILE_UPLOAD_FAILED.getCode().equals(code)) {
+                    return true;
+                }
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private ImageGenerationJobDTO toDTO(ImageGenerationJob job, boolean deduplicated) {
+        ImageGenerationJobDTO dto = new ImageGenerationJobDTO();
+        dto.setJobId(String.valueOf(job.getId()));
+        dto.setStatus(job.getStatus() != null ? job.getStatus().name() : null);
+        dto.setDeduplicated(deduplicated);
+        dto.setAttempts(job.getAttempts());
+        dto.setModel(job.getModelName());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        if (job.getResultPayload() != null) {
+            try {
+                dto.setResult(objectMapper.readValue(job.getResultPayload(), ImageGenerationResponseDTO.class));
+            } catch (JsonProcessingException e) {
+                log.warn("解析图像生成任务结果失败，任务ID：{}", job.getId());
+            }
+        }
+        return dto;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw BizException.of(ErrorCodeEnum.INTERNAL_SERVER_ERROR, "序列化图像生成任务失败", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+}
@@ -182,9 +182,9 @@ public class ImageGenerationService {
     }
 
     /**
-     * 验证请求参数
+     * 验证请求参数（异步任务提交时也会预先校验，避免无效请求进入队列）
      */
-    private void validateRequest(ImageGenerationRequestDTO requestDTO) {
+    void validateRequest(ImageGenerationRequestDTO requestDTO) {
         if (requestDTO == null) {
             throw BizException.of(ErrorCodeEnum.PARAM_ERROR, "图像生成请求不能为空");
         }
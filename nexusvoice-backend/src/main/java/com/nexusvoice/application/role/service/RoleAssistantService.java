@@ -9,6 +9,7 @@ import com.nexusvoice.application.role.dto.RoleCreateRequest;
 import com.nexusvoice.application.role.dto.RoleDTO;
 import com.nexusvoice.application.role.dto.RoleAssistantConfirmRequest;
 import com.nexusvoice.application.role.dto.RoleResearchApplyRequest;
+import com.nexusvoice.application.tts.service.TtsPriority;
 import com.nexusvoice.domain.conversation.model.ConversationMessage;
 import com.nexusvoice.domain.conversation.repository.ConversationMessageRepository;
 import com.nexusvoice.domain.conversation.repository.ConversationRepository;
@@ -22,6 +23,8 @@ import com.nexusvoice.infrastructure.ai.service.AiChatService;
 import com.nexusvoice.domain.tool.model.SearchResult;
 import com.nexusvoice.domain.tool.repository.SearchRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,6 +34,11 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -51,6 +59,8 @@ public class RoleAssistantService {
     private final com.nexusvoice.application.tts.service.TTSService ttsService;
     private final SearchRepository searchRepository;
     private final ObjectMapper objectMapper;
+    private final ExecutorService virtualThreadExecutor;
+    private final long researchDeadlineMs;
 
     public RoleAssistantService(ConversationRepository conversationRepository,
                                 ConversationMessageRepository messageRepository,
@@ -59,7 +69,9 @@ public class RoleAssistantService {
                                 RoleApplicationService roleApplicationService,
                                 com.nexusvoice.application.tts.service.TTSService ttsService,
                                 SearchRepository searchRepository,
-                                ObjectMapper objectMapper) {
+                                ObjectMapper objectMapper,
+                                @Qualifier("virtualThreadExecutor") ExecutorService virtualThreadExecutor,
+                                @Value("${nexusvoice.search.research.deadline-ms:8000}") long researchDeadlineMs) {
         this.conversationRepository = conversationRepository;
         this.messageRepository = messageRepository;
         this.conversationDomainService = conversationDomainService;
@@ -68,6 +80,8 @@ public class RoleAssistantService {
         this.ttsService = ttsService;
         this.searchRepository = searchRepository;
         this.objectMapper = objectMapper;
+        this.virtualThreadExecutor = virtualThreadExecutor;
+        this.researchDeadlineMs = researchDeadlineMs;
     }
 
     /**
@@ -212,7 +226,8 @@ public class RoleAssistantService {
                 ttsReq.setVoiceType(resolvedVoiceType);
                 ttsReq.setEncoding("mp3");
                 ttsReq.setSpeedRatio(1.0);
-                com.nexusvoice.application.tts.dto.TTSResponseDTO ttsResp = ttsService.textToSpeech(ttsReq);
+                com.nexusvoice.application.tts.dto.TTSResponseDTO ttsResp = ttsService.textToSpeech(ttsReq,
+                        TtsPriority.of(userId));
                 String audioUrl = ttsResp != null ? ttsResp.getAudioData() : null;
                 if (audioUrl != null && !audioUrl.isEmpty()) {
                     com.nexusvoice.application.role.dto.RoleUpdateRequest upd = new com.nexusvoice.application.role.dto.RoleUpdateRequest();
@@ -342,6 +357,49 @@ public class RoleAssistantService {
         return Optional.empty();
     }
 
+    /**
+     * 并行检索全部查询词，总截止时间内未返回的查询被取消（中断检索线程，连同其HTTP请求一起放弃）；结果按查询词顺序合并
+     */
+    private List<SearchResult.SearchItem> researchInParallel(List<String> queries, int limit) {
+        int perQuery = Math.min(4, limit);
+        List<Callable<SearchResult>> tasks = queries.stream()
+                .<Callable<SearchResult>>map(q -> () -> searchRepository.searchWeb(q, perQuery, "zh-CN"))
+                .collect(Collectors.toList());
+        List<Future<SearchResult>> futures;
+        try {
+            // 超时返回时尚未完成的任务已被 cancel(true)
+            futures = virtualThreadExecutor.invokeAll(tasks, researchDeadlineMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+
+        List<SearchResult.SearchItem> items = new ArrayList<>();
+        int timedOut = 0;
+        for (Future<SearchResult> f : futures) {
+            if (f.isCancelled()) {
+                timedOut++;
+                continue;
+            }
+            if (items.size() >= limit) {
+                continue;
+            }
+            try {
+                SearchResult r = f.get();
+                if (r != null && r.getItems() != null) items.addAll(r.getItems());
+            } catch (ExecutionException e) {
+                log.warn("深研检索部分失败：{}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (timedOut > 0) {
+            log.info("深研检索超过总截止时间{}ms，放弃{}个查询，使用已返回的结果", researchDeadlineMs, timedOut);
+        }
+        return items;
+    }
+
     private RoleBriefDto deepResearchEnhance(RoleBriefDto draft, int limit, Long userId, Long conversationId) {
         return deepResearchEnhance(draft, limit, userId, conversationId, null);
     }
@@ -350,12 +408,7 @@ public class RoleAssistantService {
         // 生成若干查询词（保守、泛化，避免指向具体版权内容）
         List<String> queries = (overrideQueries != null && !overrideQueries.isEmpty()) ? overrideQueries : buildResearchQueries(draft);
 
-        List<SearchResult.SearchItem> items = new ArrayList<>();
-        for (String q : queries) {
-            SearchResult r = searchRepository.searchWeb(q, Math.min(4, limit), "zh-CN");
-            if (r.getItems() != null) items.addAll(r.getItems());
-            if (items.size() >= limit) break;
-        }
+        List<SearchResult.SearchItem> items = researchInParallel(queries, limit);
 
         // 组装来源摘要
         StringBuilder src = new StringBuilder();
@@ -32,4 +32,7 @@ public class TTSRequestDTO {
     @DecimalMin(value = "0.5", message = "语速比例不能小于0.5")
     @DecimalMax(value = "2.0", message = "语速比例不能大于2.0")
     private Double speedRatio;
+
+    @Schema(description = "是否合并为单个音频文件（仅mp3/pcm），长文本分段合成后按顺序拼接", example = "false")
+    private Boolean merged;
 }
@@ -7,25 +7,45 @@ import com.nexusvoice.domain.config.model.SystemConfig;
 import com.nexusvoice.domain.config.repository.SystemConfigRepository;
 import com.nexusvoice.enums.FileTypeEnum;
 import com.nexusvoice.exception.TTSException;
+import com.nexusvoice.exception.UpstreamRejectedException;
 import com.nexusvoice.infrastructure.config.QiniuConfig;
+import com.nexusvoice.infrastructure.jfr.TtsSegmentSynthEvent;
+import com.nexusvoice.infrastructure.ratelimit.UsageQuotaService;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuard;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuardRegistry;
+import com.nexusvoice.infrastructure.trace.StreamTraceRecorder;
+import com.nexusvoice.infrastructure.tts.QiniuTtsClient;
+import com.nexusvoice.utils.Mp3FrameUtils;
+import com.nexusvoice.utils.AudioChunkBuffer;
 import com.nexusvoice.utils.TTSToolUtils;
 import com.nexusvoice.utils.TextChunker;
 import jakarta.annotation.Resource;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * TTS应用服务
@@ -37,8 +57,7 @@ import java.util.concurrent.Semaphore;
 @Service
 public class TTSService {
 
-    @Value("${nexusvoice.tts.token}")
-    private String qiniuToken;
+    private static final int ID3V1_LENGTH = 128;
 
     @Resource
     private FileUploadService fileUploadService;
@@ -49,6 +68,35 @@ public class TTSService {
     @Resource
     private SystemConfigRepository systemConfigRepository;
 
+    @Resource
+    private UpstreamGuardRegistry upstreamGuardRegistry;
+
+    @Resource
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+
+    @Resource
+    private TtsScheduler ttsScheduler;
+
+    @Resource
+    private QiniuTtsClient qiniuTtsClient;
+
+    @Resource
+    private UsageQuotaService usageQuotaService;
+
+    @Resource
+    private TtsLatencyTracker ttsLatencyTracker;
+
+    @Resource
+    private StreamTraceRecorder streamTraceRecorder;
+
+    /**
+     * TTS上游当前是否可用（熔断打开时返回false，调用方应直接降级为纯文本）
+     */
+    public boolean isAvailable() {
+        return !upstreamGuardRegistry.guard(UpstreamGuardRegistry.TTS).isOpen();
+    }
+
     /**
      * 文本转语音
      * 
@@ -57,6 +105,19 @@ public class TTSService {
      * @throws TTSException TTS处理异常
      */
     public TTSResponseDTO textToSpeech(TTSRequestDTO requestDTO) throws TTSException {
+        return textToSpeech(requestDTO, TtsPriority.of(null));
+    }
+
+    /**
+     * 文本转语音（指定调度优先级）
+     * 每次上游合成都经过全局TTS调度器；长文本切分后的子分段序号在priority的基础上顺延。
+     *
+     * @param requestDTO TTS请求DTO
+     * @param priority   调度优先级
+     * @return TTS响应DTO
+     * @throws TTSException TTS处理异常（被调度器丢弃时同样以此抛出）
+     */
+    public TTSResponseDTO textToSpeech(TTSRequestDTO requestDTO, TtsPriority priority) throws TTSException {
         // 参数校验
         if (requestDTO == null || requestDTO.getText() == null || requestDTO.getText().trim().isEmpty()) {
             throw new TTSException("文本内容不能为空");
@@ -71,28 +132,32 @@ public class TTSService {
             // 读取系统配置（数据库）
             boolean chunkEnabled = getBooleanConfig("tts.chunk.enabled", true);
             int maxChunkChars = getIntConfig("tts.chunk.max_chars", 300, 50, 2000);
-            int maxConcurrency = getIntConfig("tts.chunk.max_concurrency", 4, 1, 16);
-
-            // 创建TTS工具实例
-            TTSToolUtils ttsToolUtils = TTSToolUtils.createWithDefaults(
-                qiniuToken,
-                voiceType,
-                encoding,
-                speedRatio
-            );
 
             String text = requestDTO.getText().trim();
 
+            // 合并为单个音频文件
+            if (Boolean.TRUE.equals(requestDTO.getMerged())) {
+                return processMerged(requestDTO, priority, text, voiceType, encoding, speedRatio);
+            }
+            // 计入用户当日语音合成字数（合并输出在streamMergedAudio中计入）
+            usageQuotaService.recordTtsChars(priority.userId(), text.length());
+
             // 是否走分段并发
             if (chunkEnabled && text.length() > maxChunkChars) {
-                return processInChunks(text, voiceType, encoding, speedRatio, ttsToolUtils, maxChunkChars, maxConcurrency);
+                return processInChunks(text, voiceType, encoding, speedRatio, maxChunkChars, priority);
             } else {
                 // 单段处理（保持原有逻辑）
-                MultipartFile audioFile = ttsToolUtils.textToAudioFile(text, voiceType, encoding, speedRatio);
-                if (audioFile == null || audioFile.isEmpty()) {
-                    throw new TTSException("音频生成失败，返回文件为空");
+                TTSToolUtils.ChunkBufferMultipartFile audioFile = toAudioFile(await(ttsScheduler.submitAsync(priority,
+                        () -> synthesizeAsync(text, voiceType, encoding, speedRatio))), encoding);
+                String audioUrl;
+                try {
+                    if (audioFile.isEmpty()) {
+                        throw new TTSException("音频生成失败，返回文件为空");
+                    }
+                    audioUrl = fileUploadService.upload(audioFile, FileTypeEnum.AUDIO);
+                } finally {
+                    audioFile.release();
                 }
-                String audioUrl = fileUploadService.upload(audioFile, FileTypeEnum.AUDIO);
 
                 TTSResponseDTO responseDTO = new TTSResponseDTO();
                 responseDTO.setAudioData(audioUrl);
@@ -128,60 +193,49 @@ public class TTSService {
                                            String voiceType,
                                            String encoding,
                                            Double speedRatio,
-                                           TTSToolUtils ttsToolUtils,
                                            int maxChunkChars,
-                                           int maxConcurrency) throws IOException, TTSException, InterruptedException, ExecutionException {
+                                           TtsPriority priority) throws TTSException {
         List<String> chunks = TextChunker.splitBySentence(text, maxChunkChars);
         if (chunks.isEmpty()) {
             throw new TTSException("文本切分失败");
         }
 
         String groupId = UUID.randomUUID().toString();
+        // 调度器返回的原始Future：只有取消它们才会让出TTS名额、停止上游合成
+        List<CompletableFuture<AudioChunkBuffer>> syntheses = new ArrayList<>(chunks.size());
+        List<CompletableFuture<SegmentResult>> futures = new ArrayList<>(chunks.size());
+        AtomicBoolean aborted = new AtomicBoolean();
+        for (int i = 0; i < chunks.size(); i++) {
+            final int index = i;
+            final String segText = chunks.get(i);
+            // 合成受全局调度器约束；上传不占用TTS名额
+            CompletableFuture<AudioChunkBuffer> synthesis = ttsScheduler.submitAsync(priority.forSegment(i),
+                    () -> synthesizeAsync(segText, voiceType, encoding, speedRatio));
+            syntheses.add(synthesis);
+            futures.add(synthesis.thenApplyAsync(audio -> {
+                TTSToolUtils.ChunkBufferMultipartFile file = toAudioFile(audio, encoding);
+                if (aborted.get()) {
+                    // 其他分段已失败：已合成的音频不再上传，直接归还缓冲区
+                    file.release();
+                    throw new CancellationException("其他分段合成失败");
+                }
+                return uploadSegment(index, segText, file);
+            }, virtualThreadExecutor));
+        }
+
         List<SegmentResult> results = new ArrayList<>(chunks.size());
-        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        boolean completed = false;
         try {
-            Semaphore gate = new Semaphore(maxConcurrency);
-            List<CompletableFuture<SegmentResult>> futures = new ArrayList<>();
-
-            for (int i = 0; i < chunks.size(); i++) {
-                final int index = i;
-                final String segText = chunks.get(i);
-                CompletableFuture<SegmentResult> cf = CompletableFuture.supplyAsync(() -> {
-                    boolean acquired = false;
-                    try {
-                        try {
-                            gate.acquire();
-                            acquired = true;
-                        } catch (InterruptedException ie) {
-                            Thread.currentThread().interrupt();
-                            throw new RuntimeException(ie);
-                        }
-                        MultipartFile audio = ttsToolUtils.textToAudioFile(segText, voiceType, encoding, speedRatio);
-                        if (audio == null || audio.isEmpty()) {
-                            throw new TTSException("分段音频生成失败");
-                        }
-                        String url = fileUploadService.upload(audio, FileTypeEnum.AUDIO);
-                        return new SegmentResult(index, segText, url, (int) audio.getSize());
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    } finally {
-                        if (acquired) {
-                            gate.release();
-                        }
-                    }
-                }, executor);
-                futures.add(cf);
-            }
-
-            // 等待全部完成
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-
-            // 收集结果
             for (CompletableFuture<SegmentResult> f : futures) {
-                results.add(f.get());
+                results.add(await(f));
             }
+            completed = true;
         } finally {
-            executor.shutdown();
+            if (!completed) {
+                // 任一分段失败时不再合成其余分段；已合成未上传的分段由上面的检查归还缓冲区
+                aborted.set(true);
+                syntheses.forEach(f -> f.cancel(true));
+            }
         }
         results.sort(Comparator.comparingInt(a -> a.index));
 
@@ -211,6 +265,343 @@ public class TTSService {
         return dto;
     }
 
+    /**
+     * 合并输出前的参数校验，供流式接口在提交响应头之前调用
+     */
+    public void validateMergedRequest(TTSRequestDTO requestDTO) throws TTSException {
+        if (requestDTO == null || requestDTO.getText() == null || requestDTO.getText().trim().isEmpty()) {
+            throw new TTSException("文本内容不能为空");
+        }
+        String encoding = requestDTO.getEncoding() != null ? requestDTO.getEncoding() : "mp3";
+        if (!"mp3".equals(encoding) && !"pcm".equals(encoding)) {
+            // WAV每段都带RIFF头且头中记录了数据长度，无法在总长未知时边合成边输出
+            throw new TTSException("合并输出仅支持mp3或pcm编码");
+        }
+    }
+
+    /**
+     * 合并音频的Content-Type
+     */
+    public static String mergedContentType(String encoding) {
+        return "pcm".equals(encoding) ? "audio/L16" : "audio/mpeg";
+    }
+
+    /**
+     * 合并流式输出
+     * 长文本按句切分后并发合成，上游每返回一个音频分片即进入对应分段的队列；写出线程按段序消费：
+     * 当前分段的分片到达即写出并flush（首段首字节约一个TTS往返即可送达），后续分段在排到之前先在队列中缓冲。
+     * MP3去除段间ID3与VBR头帧后逐帧拼接，PCM直接拼接。
+     * 任一分段失败时取消其余分段并抛出异常（已写出的部分无法撤回，由调用方中断连接）。
+     *
+     * @param requestDTO TTS请求DTO
+     * @param out        输出流
+     * @return 写出的总字节数
+     * @throws TTSException TTS处理异常
+     * @throws IOException  写出失败（如客户端断开）
+     */
+    public long streamMergedAudio(TTSRequestDTO requestDTO, TtsPriority priority, OutputStream out)
+            throws TTSException, IOException {
+        validateMergedRequest(requestDTO);
+        String voiceType = requestDTO.getVoiceType() != null ? requestDTO.getVoiceType() : "qiniu_zh_female_wwxkjx";
+        String encoding = requestDTO.getEncoding() != null ? requestDTO.getEncoding() : "mp3";
+        Double speedRatio = requestDTO.getSpeedRatio() != null ? requestDTO.getSpeedRatio() : 1.0;
+        int maxChunkChars = getIntConfig("tts.chunk.max_chars", 300, 50, 2000);
+
+        String text = requestDTO.getText().trim();
+        usageQuotaService.recordTtsChars(priority.userId(), text.length());
+        List<String> chunks = text.length() > maxChunkChars
+                ? TextChunker.splitBySentence(text, maxChunkChars)
+                : List.of(text);
+        if (chunks.isEmpty()) {
+            throw new TTSException("文本切分失败");
+        }
+
+        // 经全局调度器执行，分段序号靠前的先合成
+        List<SegmentStream> segments = new ArrayList<>(chunks.size());
+        List<CompletableFuture<?>> futures = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            String segText = chunks.get(i);
+            SegmentStream segment = new SegmentStream();
+            segments.add(segment);
+            CompletableFuture<Void> future = ttsScheduler.submitAsync(priority.forSegment(i),
+                    () -> synthesizeStreamAsync(segText, voiceType, encoding, speedRatio, segment.chunks::add));
+            future.whenComplete((r, ex) -> {
+                if (ex != null) {
+                    segment.error = ex instanceof Exception e ? e : new TTSException(ex.getMessage(), ex);
+                }
+                segment.chunks.add(SegmentStream.END);
+            });
+            futures.add(future);
+        }
+
+        long written = 0;
+        boolean mp3 = "mp3".equals(encoding);
+        try {
+            for (int i = 0; i < segments.size(); i++) {
+                written += copySegment(segments.get(i), out, mp3, i == 0);
+            }
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+        return written;
+    }
+
+    /**
+     * 将单个分段的分片按到达顺序写出
+     * MP3时跳过段头元数据（元数据可能跨分片，先攒够足以判断长度的字节再写出），
+     * 并始终留住末尾128字节直到分段结束，以便去除段尾ID3v1标签。
+     */
+    private static long copySegment(SegmentStream segment, OutputStream out, boolean mp3, boolean firstPart)
+            throws TTSException, IOException {
+        long written = 0;
+        int skip = -1;
+        byte[] head = new byte[0];
+        byte[] tail = new byte[0];
+        while (true) {
+            byte[] chunk = takeChunk(segment);
+            boolean end = chunk == SegmentStream.END;
+            if (!mp3) {
+                if (end) {
+                    break;
+                }
+                out.write(chunk);
+                out.flush();
+                written += chunk.length;
+                continue;
+            }
+            if (skip < 0) {
+                if (!end) {
+                    byte[] grown = Arrays.copyOf(head, head.length + chunk.length);
+                    System.arraycopy(chunk, 0, grown, head.length, chunk.length);
+                    head = grown;
+                }
+                // 分段已结束仍无法判断时按已有数据处理
+                skip = end ? Mp3FrameUtils.headSkip(head, firstPart) : Mp3FrameUtils.headSkipIfKnown(head, firstPart);
+                if (skip < 0) {
+                    continue;
+                }
+                chunk = head;
+            } else if (end) {
+                break;
+            }
+            int offset = Math.min(skip, chunk.length);
+            skip -= offset;
+            byte[] pending = new byte[tail.length + chunk.length - offset];
+            System.arraycopy(tail, 0, pending, 0, tail.length);
+            System.arraycopy(chunk, offset, pending, tail.length, chunk.length - offset);
+            int flushable = pending.length - ID3V1_LENGTH;
+            if (flushable > 0) {
+                out.write(pending, 0, flushable);
+                out.flush();
+                written += flushable;
+                tail = Arrays.copyOfRange(pending, flushable, pending.length);
+            } else {
+                tail = pending;
+            }
+            if (end) {
+                break;
+            }
+        }
+        if (segment.error != null) {
+            if (segment.error instanceof TTSException te) {
+                throw te;
+            }
+            throw new TTSException("分段音频生成失败: " + segment.error.getMessage(), segment.error);
+        }
+        if (tail.length > 0) {
+            int end = Mp3FrameUtils.contentEnd(tail, 0);
+            out.write(tail, 0, end);
+            out.flush();
+            written += end;
+        }
+        return written;
+    }
+
+    private static byte[] takeChunk(SegmentStream segment) throws TTSException {
+        try {
+            return segment.chunks.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TTSException("TTS合并输出被中断", e);
+        }
+    }
+
+    private TTSResponseDTO processMerged(TTSRequestDTO requestDTO, TtsPriority priority, String text, String voiceType,
+                                         String encoding, Double speedRatio) throws TTSException, IOException {
+        // 先落盘再一次性上传，避免长音频整体驻留内存
+        Path temp = Files.createTempFile("nv-tts-", "." + encoding);
+        try {
+            long size;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                size = streamMergedAudio(requestDTO, priority, out);
+            }
+            String audioUrl;
+            try (InputStream in = Files.newInputStream(temp)) {
+                audioUrl = fileUploadService.upload(in, "." + encoding, mergedContentType(encoding), FileTypeEnum.AUDIO);
+            }
+
+            TTSResponseDTO responseDTO = new TTSResponseDTO();
+            responseDTO.setAudioData(audioUrl);
+            responseDTO.setAudioFormat(encoding);
+            responseDTO.setAudioSize((int) size);
+            responseDTO.setText(text);
+            responseDTO.setVoiceType(voiceType);
+            responseDTO.setSpeedRatio(speedRatio);
+            responseDTO.setChunked(false);
+            TTSResponseDTO.Segment seg = new TTSResponseDTO.Segment();
+            seg.setIndex(0);
+            seg.setText(text);
+            seg.setUrl(audioUrl);
+            seg.setSize((int) size);
+            responseDTO.setSegments(List.of(seg));
+            return responseDTO;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private SegmentResult uploadSegment(int index, String text, TTSToolUtils.ChunkBufferMultipartFile audio) {
+        try {
+            if (audio.isEmpty()) {
+                throw new CompletionException(new TTSException("分段音频生成失败"));
+            }
+            String url = fileUploadService.upload(audio, FileTypeEnum.AUDIO);
+            return new SegmentResult(index, text, url, (int) audio.getSize());
+        } catch (IOException e) {
+            throw new CompletionException(new TTSException("音频文件上传失败: " + e.getMessage(), e));
+        } finally {
+            audio.release();
+        }
+    }
+
+    /**
+     * 等待调度结果，将异步异常还原为TTSException
+     */
+    private static <T> T await(CompletableFuture<T> future) throws TTSException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new TTSException("TTS处理被中断", e);
+        } catch (CancellationException e) {
+            throw new TTSException("TTS任务已取消: " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof TTSException te) {
+                throw te;
+            }
+            if (cause instanceof CancellationException) {
+                throw new TTSException("TTS任务已取消: " + cause.getMessage(), cause);
+            }
+            throw new TTSException("TTS处理失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 在上游弹性保护下异步合成单段音频；被熔断或限流拒绝时立即失败
+     */
+    private CompletableFuture<AudioChunkBuffer> synthesizeAsync(String text, String voiceType, String encoding, Double speedRatio) {
+        TtsSegmentSynthEvent event = beginSynthEvent(text, voiceType, encoding, false);
+        long start = System.nanoTime();
+        CompletableFuture<AudioChunkBuffer> future = guarded(() -> qiniuTtsClient.synthesize(text, voiceType, encoding, speedRatio));
+        future.whenComplete((audio, ex) -> {
+            commitSynthEvent(event, audio != null ? audio.size() : 0, ex == null);
+            recordSynthLatency(voiceType, text.length(), start, ex == null);
+        });
+        return future;
+    }
+
+    /**
+     * 在上游弹性保护下流式合成单段音频，分片到达即回调
+     */
+    private CompletableFuture<Void> synthesizeStreamAsync(String text, String voiceType, String encoding,
+                                                          Double speedRatio, Consumer<byte[]> onChunk) {
+        TtsSegmentSynthEvent event = beginSynthEvent(text, voiceType, encoding, true);
+        AtomicLong bytes = new AtomicLong();
+        long start = System.nanoTime();
+        CompletableFuture<Void> future = guarded(() -> qiniuTtsClient.stream(text, voiceType, encoding, speedRatio, chunk -> {
+            bytes.addAndGet(chunk.length);
+            onChunk.accept(chunk);
+        }));
+        future.whenComplete((v, ex) -> {
+            commitSynthEvent(event, bytes.get(), ex == null);
+            recordSynthLatency(voiceType, text.length(), start, ex == null);
+        });
+        return future;
+    }
+
+    /**
+     * 记录纯合成耗时（从获得调度名额发起上游调用到音频全部到达，不含排队与上传），
+     * 供分段模型预测，同时写入时序录制（开启时）
+     */
+    private void recordSynthLatency(String voiceType, int chars, long startNanos, boolean success) {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (success) {
+            ttsLatencyTracker.record(voiceType, chars, elapsedMs);
+        }
+        streamTraceRecorder.recordTts(voiceType, chars, elapsedMs, success);
+    }
+
+    private static TtsSegmentSynthEvent beginSynthEvent(String text, String voiceType, String encoding, boolean streaming) {
+        TtsSegmentSynthEvent event = new TtsSegmentSynthEvent();
+        if (event.isEnabled()) {
+            event.voiceType = voiceType;
+            event.encoding = encoding;
+            event.chars = text.length();
+            event.streaming = streaming;
+            event.begin();
+        }
+        return event;
+    }
+
+    private static void commitSynthEvent(TtsSegmentSynthEvent event, long bytes, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = bytes;
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    /**
+     * 按调用结果记录上游许可；返回原始Future，取消它即可中止上游连接
+     */
+    private <T> CompletableFuture<T> guarded(Supplier<CompletableFuture<T>> call) {
+        UpstreamGuard.Permit permit;
+        try {
+            permit = upstreamGuardRegistry.guard(UpstreamGuardRegistry.TTS).acquire();
+        } catch (UpstreamRejectedException e) {
+            return CompletableFuture.failedFuture(new TTSException("TTS服务暂不可用：" + e.getMessage(), e));
+        }
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            permit.failure(e);
+            return CompletableFuture.failedFuture(new TTSException("TTS处理失败：" + e.getMessage(), e));
+        }
+        future.whenComplete((r, ex) -> {
+            if (ex == null) {
+                permit.success();
+            } else if (ex instanceof CancellationException) {
+                permit.cancel();
+            } else {
+                permit.failure(ex);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 以合成缓冲区直接作为上传文件，上传时流式读取；上传后须调用 release 归还缓冲区
+     */
+    private static TTSToolUtils.ChunkBufferMultipartFile toAudioFile(AudioChunkBuffer audio, String encoding) {
+        String fileName = "tts_audio_" + System.currentTimeMillis() + "." + encoding;
+        return new TTSToolUtils.ChunkBufferMultipartFile("audio", fileName, "audio/" + encoding, audio);
+    }
+
     private boolean getBooleanConfig(String key, boolean defaultVal) {
         return systemConfigRepository.findByKey(key)
                 .filter(SystemConfig::isActive)
@@ -239,6 +630,15 @@ public class TTSService {
                 .orElse(defaultVal);
     }
 
+    /**
+     * 流式合并中单个分段的分片队列；合成结束（无论成功与否）时放入END标记
+     */
+    private static class SegmentStream {
+        static final byte[] END = new byte[0];
+        final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+        volatile Exception error;
+    }
+
     private static class SegmentResult {
         final int index;
         final String text;
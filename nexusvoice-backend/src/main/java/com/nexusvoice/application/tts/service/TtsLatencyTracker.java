@@ -0,0 +1,84 @@
+package com.nexusvoice.application.tts.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TTS延迟跟踪器
+ * 按音色维护单段合成耗时的滚动模型：耗时 ≈ 固定开销 + 每字耗时 × 字数。
+ * 采用指数衰减的在线最小二乘拟合，近期样本权重更高；样本不足或字数过于集中时退回先验每字耗时。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Component
+public class TtsLatencyTracker {
+
+    /**
+     * 每个新样本到来时旧样本权重的衰减系数
+     */
+    private static final double DECAY = 0.9;
+    private static final double PRIOR_BASE_MS = 800;
+    private static final double PRIOR_PER_CHAR_MS = 8;
+
+    private final Map<String, Model> models = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次合成耗时
+     *
+     * @param voiceType 音色
+     * @param chars     合成文本字数
+     * @param elapsedMs 耗时（毫秒）
+     */
+    public void record(String voiceType, int chars, long elapsedMs) {
+        if (voiceType == null || chars <= 0 || elapsedMs < 0) {
+            return;
+        }
+        models.computeIfAbsent(voiceType, k -> new Model()).add(chars, elapsedMs);
+    }
+
+    /**
+     * 预测合成指定字数所需耗时（毫秒）
+     */
+    public double predictMs(String voiceType, int chars) {
+        Model model = voiceType != null ? models.get(voiceType) : null;
+        if (model == null) {
+            return PRIOR_BASE_MS + PRIOR_PER_CHAR_MS * chars;
+        }
+        return model.predict(chars);
+    }
+
+    private static final class Model {
+        private double w;
+        private double sx;
+        private double sy;
+        private double sxx;
+        private double sxy;
+
+        synchronized void add(double x, double y) {
+            w = w * DECAY + 1;
+            sx = sx * DECAY + x;
+            sy = sy * DECAY + y;
+            sxx = sxx * DECAY + x * x;
+            sxy = sxy * DECAY + x * y;
+        }
+
+        synchronized double predict(double x) {
+            double meanX = sx / w;
+            double meanY = sy / w;
+            double varX = sxx / w - meanX * meanX;
+            double slope = PRIOR_PER_CHAR_MS;
+            if (w >= 3 && varX > 1) {
+                slope = (sxy / w - meanX * meanY) / varX;
+                // 拟合出的负斜率没有物理意义，说明样本噪声过大
+                if (slope < 0) {
+                    slope = PRIOR_PER_CHAR_MS;
+                }
+            }
+            double base = Math.max(0, meanY - slope * meanX);
+            return base + slope * x;
+        }
+    }
+}
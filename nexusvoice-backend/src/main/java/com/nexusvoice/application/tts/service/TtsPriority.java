@@ -0,0 +1,31 @@
+package com.nexusvoice.application.tts.service;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * TTS合成任务的调度优先级
+ * 分段序号越小越优先（新回复的首段优先于旧回复的后续分段），同序号时播放截止时间越早越优先。
+ *
+ * @param userId       所属用户，用于跨用户公平分配；匿名调用为null
+ * @param segmentIndex 分段序号
+ * @param deadlineAt   预计需要开始播放的时间点（epoch毫秒），0表示无截止时间
+ * @param stillNeeded  调度前检查结果是否仍被需要（如WebSocket会话仍打开），返回false时直接丢弃
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public record TtsPriority(Long userId, int segmentIndex, long deadlineAt, BooleanSupplier stillNeeded) {
+
+    /**
+     * 无截止时间的请求（如HTTP接口）
+     */
+    public static TtsPriority of(Long userId) {
+        return new TtsPriority(userId, 0, 0, () -> true);
+    }
+
+    /**
+     * 同一请求内的第offset个子分段：序号顺延，其余不变
+     */
+    public TtsPriority forSegment(int offset) {
+        return offset == 0 ? this : new TtsPriority(userId, segmentIndex + offset, deadlineAt, stillNeeded);
+    }
+}
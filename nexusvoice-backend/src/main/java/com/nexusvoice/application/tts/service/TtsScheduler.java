@@ -0,0 +1,346 @@
+package com.nexusvoice.application.tts.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 进程级TTS调度器
+ * 所有上游TTS合成都经由此处排队，受全局并发预算约束；有空闲名额时按以下顺序挑选下一个任务：
+ * 分段序号 → 该用户正在执行的任务数（跨用户公平）→ 播放截止时间 → 提交顺序。
+ * 调度前若结果已不再需要（会话关闭）或已超过截止时间太久（客户端早已播放过该位置），直接丢弃而不占用上游。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Component
+public class TtsScheduler {
+
+    private final ExecutorService executor;
+    private final int maxConcurrency;
+    private final int maxPerUser;
+    private final long dropLateMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Task<?>> pending = new ArrayList<>();
+    private final Map<Long, Integer> runningByUser = new HashMap<>();
+    private int running;
+    private long sequence;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter droppedCounter;
+    private final Timer queueWaitTimer;
+    private final Timer segmentSuccessTimer;
+    private final Timer segmentFailureTimer;
+
+    public TtsScheduler(@Qualifier("virtualThreadExecutor") ExecutorService executor,
+                        MeterRegistry meterRegistry,
+                        @Value("${nexusvoice.tts.scheduler.max-concurrency:16}") int maxConcurrency,
+                        @Value("${nexusvoice.tts.scheduler.max-per-user:4}") int maxPerUser,
+                        @Value("${nexusvoice.tts.scheduler.drop-late-ms:15000}") long dropLateMs) {
+        this.executor = executor;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxPerUser = Math.max(1, Math.min(maxPerUser, this.maxConcurrency));
+        this.dropLateMs = Math.max(0, dropLateMs);
+        this.meterRegistry = meterRegistry;
+        this.droppedCounter = Counter.builder("nexusvoice.tts.scheduler.dropped").register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("nexusvoice.tts.scheduler.queue.wait")
+                .description("TTS任务排队等待时长").register(meterRegistry);
+        this.segmentSuccessTimer = Timer.builder("nexusvoice.tts.segment.latency")
+                .description("单段TTS合成耗时（不含排队）").tag("outcome", "success").register(meterRegistry);
+        this.segmentFailureTimer = Timer.builder("nexusvoice.tts.segment.latency")
+                .description("单段TTS合成耗时（不含排队）").tag("outcome", "failure").register(meterRegistry);
+        log.info("TTS调度器初始化完成，全局并发={}，单用户并发={}，超时丢弃={}ms",
+                this.maxConcurrency, this.maxPerUser, this.dropLateMs);
+    }
+
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder("nexusvoice.tts.scheduler.pending", this, TtsScheduler::pendingCount).register(meterRegistry);
+        Gauge.builder("nexusvoice.tts.scheduler.running", this, TtsScheduler::runningCount).register(meterRegistry);
+    }
+
+    /**
+     * 提交合成任务
+     * 取消返回的Future会将任务移出队列，或中断正在执行的任务。
+     *
+     * @param priority 调度优先级
+     * @param work     合成调用
+     * @return 任务结果；被丢弃时以 CancellationException 完成
+     */
+    public <T> CompletableFuture<T> submit(TtsPriority priority, Callable<T> work) {
+        return enqueue(priority, work, null);
+    }
+
+    /**
+     * 提交异步合成任务
+     * 名额在返回的阶段完成时释放，执行期间不占用线程；取消返回的Future会同时取消该阶段。
+     *
+     * @param priority 调度优先级
+     * @param work     发起合成调用，返回其完成阶段
+     * @return 任务结果；被丢弃时以 CancellationException 完成
+     */
+    public <T> CompletableFuture<T> submitAsync(TtsPriority priority, Supplier<? extends CompletionStage<T>> work) {
+        return enqueue(priority, null, work);
+    }
+
+    private <T> CompletableFuture<T> enqueue(TtsPriority priority, Callable<T> work,
+                                             Supplier<? extends CompletionStage<T>> asyncWork) {
+        Task<T> task;
+        lock.lock();
+        try {
+            task = new Task<>(priority, work, asyncWork, sequence++);
+            pending.add(task);
+        } finally {
+            lock.unlock();
+        }
+        task.future.whenComplete((r, ex) -> {
+            if (task.future.isCancelled()) {
+                onCancelled(task);
+            }
+        });
+        dispatch();
+        return task.future;
+    }
+
+    private void dispatch() {
+        List<Task<?>> toStart = new ArrayList<>();
+        List<Task<?>> toDrop = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            while (running < maxConcurrency) {
+                Task<?> next = pickNext();
+                if (next == null) {
+                    break;
+                }
+                pending.remove(next);
+                if (shouldDrop(next, now)) {
+                    toDrop.add(next);
+                    continue;
+                }
+                next.started = true;
+                next.startedAt = System.nanoTime();
+                running++;
+                runningByUser.merge(next.userKey(), 1, Integer::sum);
+                toStart.add(next);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Task<?> task : toDrop) {
+            droppedCounter.increment();
+            log.debug("丢弃过期TTS任务，用户ID：{}，分段：{}", task.priority.userId(), task.priority.segmentIndex());
+            task.future.completeExceptionally(new CancellationException("TTS任务已过期，不再合成"));
+        }
+        for (Task<?> task : toStart) {
+            queueWaitTimer.record(task.startedAt - task.enqueuedAt, TimeUnit.NANOSECONDS);
+            start(task);
+        }
+    }
+
+    /**
+     * 在持有锁时调用：从未达到单用户并发上限的任务中选出优先级最高者
+     */
+    private Task<?> pickNext() {
+        Comparator<Task<?>> order = Comparator
+                .<Task<?>>comparingInt(t -> t.priority.segmentIndex())
+                .thenComparingInt(t -> runningByUser.getOrDefault(t.userKey(), 0))
+                .thenComparingLong(t -> t.priority.deadlineAt() > 0 ? t.priority.deadlineAt() : Long.MAX_VALUE)
+                .thenComparingLong(t -> t.seq);
+        Task<?> best = null;
+        for (Task<?> t : pending) {
+            if (runningByUser.getOrDefault(t.userKey(), 0) >= maxPerUser) {
+                continue;
+            }
+            if (best == null || order.compare(t, best) < 0) {
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    private boolean shouldDrop(Task<?> task, long now) {
+        if (task.future.isDone()) {
+            return true;
+        }
+        long deadline = task.priority.deadlineAt();
+        if (deadline > 0 && now > deadline + dropLateMs) {
+            return true;
+        }
+        try {
+            return !task.priority.stillNeeded().getAsBoolean();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private <T> void start(Task<T> task) {
+        if (task.asyncWork != null) {
+            startAsync(task);
+            return;
+        }
+        try {
+            task.running = executor.submit(() -> {
+                try {
+                    if (!task.future.isDone()) {
+                        task.future.complete(task.work.call());
+                    }
+                } catch (Throwable e) {
+                    task.future.completeExceptionally(e);
+                } finally {
+                    release(task);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 执行器已关闭（应用停止中）
+            task.future.completeExceptionally(e);
+            release(task);
+        }
+    }
+
+    private <T> void startAsync(Task<T> task) {
+        try {
+            // 发起调用本身可能短暂阻塞（如等待上游许可），放到执行器上，避免拖慢调度
+            executor.execute(() -> {
+                if (task.future.isDone()) {
+                    release(task);
+                    return;
+                }
+                CompletableFuture<T> inner;
+                try {
+                    inner = task.asyncWork.get().toCompletableFuture();
+                } catch (Throwable e) {
+                    task.future.completeExceptionally(e);
+                    release(task);
+                    return;
+                }
+                task.inner = inner;
+                inner.whenComplete((r, ex) -> {
+                    if (ex != null) {
+                        task.future.completeExceptionally(ex);
+                    } else {
+                        task.future.complete(r);
+                    }
+                    release(task);
+                });
+                if (task.future.isCancelled()) {
+                    inner.cancel(true);
+                }
+            });
+        } catch (RuntimeException e) {
+            task.future.completeExceptionally(e);
+            release(task);
+        }
+    }
+
+    private void release(Task<?> task) {
+        boolean releasedNow = false;
+        lock.lock();
+        try {
+            if (!task.released) {
+                task.released = true;
+                releasedNow = true;
+                running--;
+                runningByUser.computeIfPresent(task.userKey(), (k, v) -> v > 1 ? v - 1 : null);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (releasedNow && !task.future.isCancelled()) {
+            Timer timer = task.future.isCompletedExceptionally() ? segmentFailureTimer : segmentSuccessTimer;
+            timer.record(System.nanoTime() - task.startedAt, TimeUnit.NANOSECONDS);
+        }
+        dispatch();
+    }
+
+    private void onCancelled(Task<?> task) {
+        boolean started;
+        lock.lock();
+        try {
+            started = task.started;
+            if (!started) {
+                pending.remove(task);
+            }
+        } finally {
+            lock.unlock();
+        }
+        Future<?> f = task.running;
+        if (started && f != null) {
+            f.cancel(true);
+            // 若任务尚未开始执行，finally不会运行；release幂等，这里补一次释放
+            release(task);
+        }
+        CompletableFuture<?> inner = task.inner;
+        if (started && inner != null) {
+            inner.cancel(true);
+        }
+    }
+
+    private double pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double runningCount() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Task<T> {
+        private static final Long ANONYMOUS = -1L;
+
+        final TtsPriority priority;
+        final Callable<T> work;
+        final Supplier<? extends CompletionStage<T>> asyncWork;
+        final long seq;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        boolean started;
+        long startedAt;
+        boolean released;
+        volatile Future<?> running;
+        volatile CompletableFuture<T> inner;
+
+        Task(TtsPriority priority, Callable<T> work, Supplier<? extends CompletionStage<T>> asyncWork, long seq) {
+            this.priority = priority;
+            this.work = work;
+            this.asyncWork = asyncWork;
+            this.seq = seq;
+        }
+
+        Long userKey() {
+            return priority.userId() != null ? priority.userId() : ANONYMOUS;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.nexusvoice.domain.image.constant;
+
+/**
+ * 图像生成任务状态枚举
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public enum ImageJobStatus {
+    /**
+     * 排队中 - 已受理，等待工作线程
+     */
+    QUEUED,
+
+    /**
+     * 执行中 - 正在生成或等待重试
+     */
+    RUNNING,
+
+    /**
+     * 成功 - 图像已生成并上传CDN
+     */
+    SUCCEEDED,
+
+    /**
+     * 失败 - 重试耗尽或不可重试的错误
+     */
+    FAILED;
+
+    /**
+     * 是否为终态
+     */
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
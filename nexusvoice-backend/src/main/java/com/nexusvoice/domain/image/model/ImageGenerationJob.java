@@ -0,0 +1,123 @@
+package com.nexusvoice.domain.image.model;
+
+import com.nexusvoice.domain.common.BaseEntity;
+import com.nexusvoice.domain.image.constant.ImageJobStatus;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图像生成任务
+ * 记录一次异步图像生成的请求参数、执行状态与结果
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class ImageGenerationJob extends BaseEntity {
+
+    /**
+     * 提交任务的用户ID
+     */
+    private Long userId;
+
+    /**
+     * 请求参数哈希（SHA-256），用于去重
+     */
+    private String requestHash;
+
+    /**
+     * 图像生成模型
+     */
+    private String modelName;
+
+    /**
+     * 请求参数（JSON格式）
+     */
+    private String requestParams;
+
+    /**
+     * 任务状态
+     */
+    private ImageJobStatus status;
+
+    /**
+     * 已执行次数（含重试）
+     */
+    private Integer attempts;
+
+    /**
+     * 生成结果（JSON格式）
+     */
+    private String resultPayload;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    /**
+     * 开始执行时间
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishedAt;
+
+    /**
+     * 创建排队中的任务
+     */
+    public static ImageGenerationJob queued(Long userId, String requestHash, String modelName, String requestParams) {
+        ImageGenerationJob job = new ImageGenerationJob();
+        job.setUserId(userId);
+        job.setRequestHash(requestHash);
+        job.setModelName(modelName);
+        job.setRequestParams(requestParams);
+        job.setStatus(ImageJobStatus.QUEUED);
+        job.setAttempts(0);
+        return job;
+    }
+
+    /**
+     * 开始一次执行
+     */
+    public void markRunning() {
+        this.status = ImageJobStatus.RUNNING;
+        this.attempts = (attempts == null ? 0 : attempts) + 1;
+        if (this.startedAt == null) {
+            this.startedAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * 标记成功
+     */
+    public void markSucceeded(String resultPayload) {
+        this.status = ImageJobStatus.SUCCEEDED;
+        this.resultPayload = resultPayload;
+        this.errorMessage = null;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 标记失败
+     */
+    public void markFailed(String errorMessage) {
+        this.status = ImageJobStatus.FAILED;
+        this.errorMessage = errorMessage;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 是否已结束
+     */
+    public boolean isFinished() {
+        return status != null && status.isFinished();
+    }
+}
@@ -0,0 +1,57 @@
+package com.nexusvoice.domain.image.model;
+
+import com.nexusvoice.domain.common.BaseEntity;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 图像生成结果缓存条目
+ * 指定种子的请求结果是确定的，按规范化请求保存已转存CDN的图像地址
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class ImageResultCache extends BaseEntity {
+
+    /**
+     * 规范化请求的SHA-256
+     */
+    private String cacheKey;
+
+    /**
+     * 图像生成模型
+     */
+    private String modelName;
+
+    /**
+     * 随机种子
+     */
+    private Long seed;
+
+    /**
+     * CDN图像地址列表
+     */
+    private List<String> imageUrls;
+
+    /**
+     * 图像尺寸
+     */
+    private String imageSize;
+
+    /**
+     * 命中次数
+     */
+    private Integer hitCount;
+
+    /**
+     * 最后命中时间
+     */
+    private LocalDateTime lastHitAt;
+}
@@ -0,0 +1,51 @@
+package com.nexusvoice.domain.image.repository;
+
+import com.nexusvoice.domain.image.model.ImageGenerationJob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 图像生成任务仓储接口
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public interface ImageGenerationJobRepository {
+
+    /**
+     * 保存任务（新增或更新）
+     */
+    ImageGenerationJob save(ImageGenerationJob job);
+
+    /**
+     * 根据ID查找任务
+     */
+    Optional<ImageGenerationJob> findById(Long jobId);
+
+    /**
+     * 根据ID和用户ID查找任务
+     */
+    Optional<ImageGenerationJob> findByIdAndUserId(Long jobId, Long userId);
+
+    /**
+     * 查找用户在指定时间之后提交的、相同请求哈希的最近一个任务
+     */
+    Optional<ImageGenerationJob> findLatestByUserIdAndHash(Long userId, String requestHash, LocalDateTime since);
+
+    /**
+     * 统计用户未结束（排队中或执行中）的任务数
+     */
+    long countActiveByUserId(Long userId);
+
+    /**
+     * 查询用户最近的任务
+     */
+    List<ImageGenerationJob> findRecentByUserId(Long userId, Integer limit);
+
+    /**
+     * 查询所有未结束的任务（用于服务重启后恢复）
+     */
+    List<ImageGenerationJob> findUnfinished(Integer limit);
+}
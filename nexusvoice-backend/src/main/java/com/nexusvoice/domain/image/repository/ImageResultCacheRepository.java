@@ -0,0 +1,30 @@
+package com.nexusvoice.domain.image.repository;
+
+import com.nexusvoice.domain.image.model.ImageResultCache;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 图像生成结果缓存仓储接口
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public interface ImageResultCacheRepository {
+
+    /**
+     * 根据缓存键查找在指定时间之后写入的缓存条目
+     */
+    Optional<ImageResultCache> findByCacheKey(String cacheKey, LocalDateTime notBefore);
+
+    /**
+     * 保存缓存条目；缓存键已存在（包括已过期的旧条目）时刷新结果与写入时间
+     */
+    void saveOrRefresh(ImageResultCache entry);
+
+    /**
+     * 累加命中次数
+     */
+    void recordHits(String cacheKey, int hits);
+}
@@ -0,0 +1,41 @@
+package com.nexusvoice.domain.user.model;
+
+import com.nexusvoice.domain.common.BaseEntity;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 用户每日用量
+ * 按自然日累计大模型令牌数与语音合成字数，用于每日配额检查
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class UserDailyUsage extends BaseEntity {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 统计日期
+     */
+    private LocalDate usageDate;
+
+    /**
+     * 大模型令牌数
+     */
+    private Long llmTokens;
+
+    /**
+     * 语音合成字数
+     */
+    private Long ttsChars;
+}
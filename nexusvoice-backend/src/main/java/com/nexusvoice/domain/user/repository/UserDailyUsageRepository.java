@@ -0,0 +1,25 @@
+package com.nexusvoice.domain.user.repository;
+
+import com.nexusvoice.domain.user.model.UserDailyUsage;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * 用户每日用量仓储接口
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public interface UserDailyUsageRepository {
+
+    /**
+     * 查找用户指定日期的用量
+     */
+    Optional<UserDailyUsage> findByUserIdAndDate(Long userId, LocalDate usageDate);
+
+    /**
+     * 累加用户指定日期的用量（记录不存在时创建）
+     */
+    void addUsage(Long userId, LocalDate usageDate, long llmTokens, long ttsChars);
+}
@@ -43,6 +43,7 @@ public enum ErrorCodeEnum {
     USER_PHONE_EXISTS(1007, "手机号已被注册"),
     USER_BANNED(1008, "用户已被封禁"),
     USER_STATUS_ABNORMAL(1009, "用户状态异常"),
+    USER_QUOTA_EXCEEDED(1011, "今日用量已达上限"),
     
     // 参数相关 10xx
     PARAM_ERROR(1010, "参数错误"),
@@ -95,11 +96,14 @@ public enum ErrorCodeEnum {
     WEBSOCKET_CONNECTION_FAILED(1601, "WebSocket连接失败"),
     WEBSOCKET_MESSAGE_SEND_FAILED(1602, "WebSocket消息发送失败"),
     WEBSOCKET_AUTHENTICATION_FAILED(1603, "WebSocket认证失败"),
+    WEBSOCKET_STREAM_OVERLOADED(1604, "当前对话请求过多，请稍后重试"),
     
     // 第三方服务相关 17xx
     THIRD_PARTY_SERVICE_ERROR(1701, "第三方服务错误"),
     THIRD_PARTY_API_LIMIT_EXCEEDED(1702, "第三方API调用次数超限"),
     THIRD_PARTY_AUTHENTICATION_FAILED(1703, "第三方服务认证失败"),
+    UPSTREAM_CIRCUIT_OPEN(1704, "第三方服务暂时不可用，已熔断"),
+    UPSTREAM_OVERLOADED(1705, "第三方服务繁忙，请稍后重试"),
     
     // 配置相关 18xx
     CONFIG_NOT_FOUND(1801, "配置不存在"),
@@ -139,6 +143,9 @@ public enum ErrorCodeEnum {
     IMAGE_GUIDANCE_SCALE_INVALID(2111, "图像引导比例无效"),
     IMAGE_CFG_INVALID(2112, "图像CFG参数无效"),
     IMAGE_API_KEY_INVALID(2113, "图像生成API密钥无效"),
+    IMAGE_JOB_NOT_FOUND(2114, "图像生成任务不存在"),
+    IMAGE_JOB_LIMIT_EXCEEDED(2115, "进行中的图像生成任务过多"),
+    IMAGE_JOB_QUEUE_FULL(2116, "图像生成任务队列已满"),
     
     // 通用业务错误
     BUSINESS_ERROR(9999, "业务处理失败");
@@ -9,7 +9,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
@@ -49,6 +51,17 @@ public class GlobalExceptionHandler {
         return Result.error(e.getCode(), e.getMessage());
     }
     
+    /**
+     * 限流异常处理：返回429并通过Retry-After告知客户端等待秒数
+     */
+    @ExceptionHandler(RateLimitedException.class)
+    public ResponseEntity<Result<Void>> handleRateLimitedException(RateLimitedException e) {
+        log.warn("请求被限流: {} - {}", e.getCode(), e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Result.error(e.getCode(), e.getMessage()));
+    }
+    
     /**
      * 参数验证异常处理 - @Valid
      */
@@ -0,0 +1,29 @@
+package com.nexusvoice.exception;
+
+import com.nexusvoice.enums.ErrorCodeEnum;
+
+/**
+ * 用户请求被限流（请求频率超出预算或当日用量已达上限）
+ * HTTP接口返回429并带Retry-After响应头，WebSocket返回带retryAfterSeconds的ERROR消息
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public class RateLimitedException extends BizException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 建议的重试等待秒数
+     */
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(ErrorCodeEnum errorCode, String message, long retryAfterSeconds) {
+        super(errorCode, message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,36 @@
+package com.nexusvoice.exception;
+
+import com.nexusvoice.enums.ErrorCodeEnum;
+
+/**
+ * 上游服务调用被弹性保护拒绝（熔断打开或并发已满）
+ * 调用方可据此走快速降级逻辑，而不是等待上游超时
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public class UpstreamRejectedException extends BizException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 被拒绝的上游名称
+     */
+    private final String upstream;
+
+    public UpstreamRejectedException(ErrorCodeEnum errorCode, String upstream) {
+        super(errorCode, errorCode.getMessage() + "：" + upstream);
+        this.upstream = upstream;
+    }
+
+    public String getUpstream() {
+        return upstream;
+    }
+
+    /**
+     * 是否因熔断被拒绝
+     */
+    public boolean isCircuitOpen() {
+        return ErrorCodeEnum.UPSTREAM_CIRCUIT_OPEN.getCode().equals(getCode());
+    }
+}
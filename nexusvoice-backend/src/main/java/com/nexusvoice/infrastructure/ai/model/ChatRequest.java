@@ -80,6 +80,16 @@ public class ChatRequest {
      */
     private Boolean enableWebSearch;
 
+    /**
+     * 调用方预取的联网搜索摘要（为空表示未取到或超时）
+     */
+    private String searchContext;
+
+    /**
+     * 是否已由调用方完成搜索预取；为true时服务实现不再同步搜索
+     */
+    private Boolean searchPrefetched;
+
     /**
      * 创建默认配置的请求
      */
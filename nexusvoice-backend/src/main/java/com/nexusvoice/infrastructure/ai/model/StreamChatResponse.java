@@ -5,6 +5,9 @@ import lombok.Builder;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 流式聊天响应模型
  *
@@ -57,6 +60,21 @@ public class StreamChatResponse {
      */
     private String errorMessage;
 
+    /**
+     * 建议的重试等待秒数（仅因限流返回的ERROR消息）
+     */
+    private Long retryAfterSeconds;
+
+    /**
+     * 排队位置，从1开始（仅QUEUED消息）
+     */
+    private Integer queuePosition;
+
+    /**
+     * 预计排队等待时间（毫秒，仅QUEUED消息）
+     */
+    private Long estimatedWaitMs;
+
     /**
      * 对话ID（仅在END时返回）
      */
@@ -87,6 +105,31 @@ public class StreamChatResponse {
      */
     private Long responseTimeMs;
 
+    /**
+     * 首个音频分段送出距请求开始的时间（毫秒，仅分段TTS的END消息返回）
+     */
+    private Long timeToFirstAudioMs;
+
+    /**
+     * 本轮各阶段服务端耗时（毫秒，仅在END时按配置返回）
+     */
+    private Map<String, Long> timings;
+
+    /**
+     * 异步任务ID（仅IMAGE_JOB消息）
+     */
+    private String jobId;
+
+    /**
+     * 异步任务状态（仅IMAGE_JOB消息）
+     */
+    private String jobStatus;
+
+    /**
+     * 生成的图像地址（仅IMAGE_JOB消息且任务成功时存在）
+     */
+    private List<String> imageUrls;
+
     /**
      * 流消息类型
      */
@@ -124,7 +167,17 @@ public class StreamChatResponse {
         /**
          * 分段TTS补发（音频迟到时对已有文本段进行音频更新）
          */
-        TTS_SEGMENT_UPDATE
+        TTS_SEGMENT_UPDATE,
+
+        /**
+         * 异步图像生成任务结束通知
+         */
+        IMAGE_JOB,
+
+        /**
+         * 请求正在排队等待生成名额（携带排队位置与预计等待时间）
+         */
+        QUEUED
     }
 
     /**
@@ -174,6 +227,27 @@ public class StreamChatResponse {
                 .build();
     }
 
+    /**
+     * 创建限流错误响应，客户端应在retryAfterSeconds秒后重试
+     */
+    public static StreamChatResponse error(String errorMessage, long retryAfterSeconds) {
+        StreamChatResponse response = error(errorMessage);
+        response.setRetryAfterSeconds(retryAfterSeconds);
+        return response;
+    }
+
+    /**
+     * 创建排队通知
+     */
+    public static StreamChatResponse queued(int position, long estimatedWaitMs) {
+        return StreamChatResponse.builder()
+                .type(StreamMessageType.QUEUED)
+                .isEnd(false)
+                .queuePosition(position)
+                .estimatedWaitMs(estimatedWaitMs)
+                .build();
+    }
+
     /**
      * 创建心跳响应
      */
@@ -216,4 +290,20 @@ public class StreamChatResponse {
                 .build();
         return resp;
     }
+
+    /**
+     * 创建图像生成任务结束通知
+     */
+    public static StreamChatResponse imageJob(String jobId, String jobStatus, List<String> imageUrls,
+                                              String model, String errorMessage) {
+        return StreamChatResponse.builder()
+                .type(StreamMessageType.IMAGE_JOB)
+                .isEnd(false)
+                .jobId(jobId)
+                .jobStatus(jobStatus)
+                .imageUrls(imageUrls)
+                .model(model)
+                .errorMessage(errorMessage)
+                .build();
+    }
 }
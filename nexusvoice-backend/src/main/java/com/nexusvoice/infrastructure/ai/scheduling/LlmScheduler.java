@@ -0,0 +1,376 @@
+package com.nexusvoice.infrastructure.ai.scheduling;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nexusvoice.domain.user.constant.UserType;
+import com.nexusvoice.domain.user.model.User;
+import com.nexusvoice.domain.user.repository.UserRepository;
+import com.nexusvoice.enums.ErrorCodeEnum;
+import com.nexusvoice.exception.BizException;
+import com.nexusvoice.infrastructure.config.LlmSchedulerConfig;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuard;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuardRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 进程级大模型调用调度器（按用户加权公平排队）
+ * 每个用户是一条流，权重取自其层级（用户类型）；排队的调用按起始时间公平排队（SFQ）的虚拟完成时间挑选，
+ * 同时有调用排队时，各用户获得的名额与权重成正比，单个用户连续发起大量调用只会拉长自己的队列。
+ * 名额分为层级预留与共享两部分：预留名额只供该层级使用，免费层级的高负载不会占满优先层级的容量；
+ * 等待超过饥饿阈值的调用优先于公平顺序放行，超过最长等待时间的调用以上游繁忙失败。
+ * 同时放行的调用数还不超过大模型上游保护器当前的自适应并发上限，上游变慢时调用在这里按公平顺序排队，
+ * 而不是在保护器里按到达顺序等待并超时。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Component
+public class LlmScheduler {
+
+    private static final Long ANONYMOUS = -1L;
+
+    private final LlmSchedulerConfig config;
+    private final UserRepository userRepository;
+    private final UpstreamGuard llmGuard;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService ticker =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("nv-llm-scheduler").factory());
+    private final Cache<Long, String> tierCache;
+    private final int maxConcurrency;
+    private final int sharedCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Task> pending = new ArrayList<>();
+    private final Map<Long, Flow> flows = new HashMap<>();
+    private final Map<String, Integer> reservedInUse = new HashMap<>();
+    private int sharedInUse;
+    private int running;
+    private double virtualTime;
+    private long sequence;
+
+    public LlmScheduler(LlmSchedulerConfig config,
+                        UserRepository userRepository,
+                        UpstreamGuardRegistry upstreamGuardRegistry,
+                        MeterRegistry meterRegistry) {
+        this.config = config;
+        this.userRepository = userRepository;
+        this.llmGuard = upstreamGuardRegistry.guard(UpstreamGuardRegistry.LLM);
+        this.meterRegistry = meterRegistry;
+        this.maxConcurrency = Math.max(1, config.getMaxConcurrency());
+        int totalReserved = config.getTiers().values().stream().mapToInt(t -> Math.max(0, t.getReserved())).sum();
+        this.sharedCapacity = Math.max(0, maxConcurrency - totalReserved);
+        if (sharedCapacity == 0) {
+            log.warn("大模型调度的预留名额合计（{}）不小于并发上限（{}），没有预留名额的层级将无法获得调度", totalReserved, maxConcurrency);
+        }
+        this.tierCache = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(1, config.getTierCacheSeconds())))
+                .build();
+    }
+
+    /**
+     * 构造完成后再注册指标、启动定期任务，避免它们看到未初始化完的对象
+     */
+    @PostConstruct
+    public void start() {
+        Gauge.builder("nexusvoice.llm.scheduler.pending", this, LlmScheduler::pendingCount)
+                .description("排队等待的大模型调用数").register(meterRegistry);
+        Gauge.builder("nexusvoice.llm.scheduler.running", this, LlmScheduler::runningCount)
+                .description("进行中的大模型调用数").register(meterRegistry);
+
+        long interval = Math.max(100, Math.min(1000, config.getStarvationMs() / 2));
+        ticker.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("大模型调度器初始化完成，启用={}，并发上限={}，共享名额={}，层级={}",
+                config.isEnabled(), maxConcurrency, sharedCapacity, config.getTiers());
+    }
+
+    /**
+     * 申请一个调用名额
+     * 有可用名额时返回已完成的Future；否则排队，获得名额时在归还名额或定期任务的线程上完成Future，
+     * 后续工作需要由调用方切换到自己的执行器。等待超时以BizException（UPSTREAM_OVERLOADED）完成。
+     *
+     * @param userId 用户ID，匿名调用为null（共用一条流，按默认层级处理）
+     * @return 调用名额，调用结束后须调用 {@link Slot#release()}
+     */
+    public CompletableFuture<Slot> acquire(Long userId) {
+        if (!config.isEnabled()) {
+            return CompletableFuture.completedFuture(new Slot(null, null));
+        }
+        String tier = resolveTier(userId);
+        int weight = Math.max(1, config.tierFor(tier).getWeight());
+        Long userKey = userId != null ? userId : ANONYMOUS;
+        Task task;
+        List<Task> granted;
+        lock.lock();
+        try {
+            Flow flow = flows.computeIfAbsent(userKey, k -> new Flow());
+            double start = Math.max(virtualTime, flow.lastFinish);
+            task = new Task(userKey, tier, start, start + 1.0 / weight, sequence++);
+            flow.lastFinish = task.finish;
+            flow.pending++;
+            pending.add(task);
+            granted = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        start(granted);
+        return task.future;
+    }
+
+    /**
+     * 在持有锁时调用：在名额允许的范围内放行排队中的调用
+     */
+    private List<Task> dispatch() {
+        List<Task> granted = new ArrayList<>();
+        long now = System.nanoTime();
+        int limit = dispatchLimit();
+        while (running < limit) {
+            Task next = pickNext(now);
+            if (next == null) {
+                break;
+            }
+            pending.remove(next);
+            next.usesReserved = reservedInUse.getOrDefault(next.tier, 0) < reservedFor(next.tier);
+            if (next.usesReserved) {
+                reservedInUse.merge(next.tier, 1, Integer::sum);
+            } else {
+                sharedInUse++;
+            }
+            running++;
+            virtualTime = Math.max(virtualTime, next.start);
+            Flow flow = flows.get(next.userKey);
+            if (flow != null) {
+                flow.pending--;
+            }
+            granted.add(next);
+        }
+        return granted;
+    }
+
+    /**
+     * 在持有锁时调用：在有可用名额的层级中，先选等待超过饥饿阈值的最早调用，否则选虚拟完成时间最小者
+     */
+    private Task pickNext(long now) {
+        long starvationNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getStarvationMs()));
+        Task starved = null;
+        Task best = null;
+        for (Task t : pending) {
+            if (!hasCapacity(t.tier)) {
+                continue;
+            }
+            if (now - t.enqueuedAt >= starvationNanos) {
+                if (starved == null || t.seq < starved.seq) {
+                    starved = t;
+                }
+            } else if (best == null || t.finish < best.finish || (t.finish == best.finish && t.seq < best.seq)) {
+                best = t;
+            }
+        }
+        return starved != null ? starved : best;
+    }
+
+    /**
+     * 本次可放行的并发上限：调度器上限与大模型上游保护器当前自适应上限中的较小者
+     * 自适应上限回升后，由下一次归还名额或定期任务放行排队中的调用。
+     */
+    private int dispatchLimit() {
+        return llmGuard.isEnabled() ? Math.min(maxConcurrency, Math.max(1, llmGuard.getLimit())) : maxConcurrency;
+    }
+
+    private boolean hasCapacity(String tier) {
+        return reservedInUse.getOrDefault(tier, 0) < reservedFor(tier) || sharedInUse < sharedCapacity;
+    }
+
+    private int reservedFor(String tier) {
+        LlmSchedulerConfig.Tier t = config.getTiers().get(tier);
+        return t != null ? Math.max(0, t.getReserved()) : 0;
+    }
+
+    private void start(List<Task> granted) {
+        for (Task task : granted) {
+            long waitNanos = System.nanoTime() - task.enqueuedAt;
+            Timer.builder("nexusvoice.llm.scheduler.queue.wait")
+                    .description("大模型调用排队等待时长")
+                    .tag("tier", task.tier)
+                    .register(meterRegistry)
+                    .record(waitNanos, TimeUnit.NANOSECONDS);
+            Slot slot = new Slot(this, task);
+            // 调用方已取消（或Future已完成）时名额无人使用，立即归还
+            if (!task.future.complete(slot)) {
+                slot.release();
+            }
+        }
+    }
+
+    private void release(Task task) {
+        List<Task> granted;
+        lock.lock();
+        try {
+            running--;
+            if (task.usesReserved) {
+                reservedInUse.computeIfPresent(task.tier, (k, v) -> v > 1 ? v - 1 : null);
+            } else {
+                sharedInUse--;
+            }
+            granted = dispatch();
+        } finally {
+            lock.unlock();
+        }
+        start(granted);
+    }
+
+    /**
+     * 定期任务：放行饥饿阈值到期后可以调度的调用，移出等待超时的调用，清理已无排队且无剩余份额的流
+     */
+    private void tick() {
+        List<Task> expired = new ArrayList<>();
+        List<Task> granted;
+        long now = System.nanoTime();
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getMaxWaitMs()));
+        lock.lock();
+        try {
+            Iterator<Task> it = pending.iterator();
+            while (it.hasNext()) {
+                Task t = it.next();
+                if (now - t.enqueuedAt > maxWaitNanos) {
+                    it.remove();
+                    Flow flow = flows.get(t.userKey);
+                    if (flow != null) {
+                        flow.pending--;
+                    }
+                    expired.add(t);
+                }
+            }
+            granted = dispatch();
+            flows.values().removeIf(f -> f.pending == 0 && f.lastFinish <= virtualTime);
+        } finally {
+            lock.unlock();
+        }
+        for (Task t : expired) {
+            Counter.builder("nexusvoice.llm.scheduler.rejected")
+                    .description("排队超时的大模型调用数")
+                    .tag("tier", t.tier)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("大模型调用排队超时，用户ID：{}，层级：{}", t.userKey, t.tier);
+            t.future.completeExceptionally(BizException.of(ErrorCodeEnum.UPSTREAM_OVERLOADED, "AI服务繁忙，请稍后重试"));
+        }
+        start(granted);
+    }
+
+    /**
+     * 解析用户层级；查询失败时按默认层级处理且不缓存
+     */
+    private String resolveTier(Long userId) {
+        if (userId == null) {
+            return config.getDefaultTier();
+        }
+        String cached = tierCache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            String tier = userRepository.findById(userId)
+                    .map(User::getUserType)
+                    .map(UserType::getCode)
+                    .filter(code -> config.getTiers().containsKey(code))
+                    .orElse(config.getDefaultTier());
+            tierCache.put(userId, tier);
+            return tier;
+        } catch (Exception e) {
+            log.warn("读取用户层级失败，按默认层级调度，用户ID：{}，错误：{}", userId, e.getMessage());
+            return config.getDefaultTier();
+        }
+    }
+
+    private double pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double runningCount() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * 调用名额；release幂等，可以在完成与各个错误分支中重复调用
+     */
+    public static final class Slot {
+        private final LlmScheduler owner;
+        private final Task task;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot(LlmScheduler owner, Task task) {
+            this.owner = owner;
+            this.task = task;
+        }
+
+        public void release() {
+            if (owner != null && released.compareAndSet(false, true)) {
+                owner.release(task);
+            }
+        }
+    }
+
+    /**
+     * 单个用户的调度状态：最近一次排队调用的虚拟完成时间与排队中的调用数
+     */
+    private static final class Flow {
+        double lastFinish;
+        int pending;
+    }
+
+    private static final class Task {
+        final Long userKey;
+        final String tier;
+        final double start;
+        final double finish;
+        final long seq;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Slot> future = new CompletableFuture<>();
+        boolean usesReserved;
+
+        Task(Long userKey, String tier, double start, double finish, long seq) {
+            this.userKey = userKey;
+            this.tier = tier;
+            this.start = start;
+            this.finish = finish;
+            this.seq = seq;
+        }
+    }
+}
@@ -7,6 +7,11 @@ import com.nexusvoice.infrastructure.ai.model.ChatResponse;
 import com.nexusvoice.infrastructure.ai.model.StreamChatResponse;
 import com.nexusvoice.infrastructure.ai.service.AiChatService;
 import com.nexusvoice.infrastructure.ai.tool.SimpleWebSearchTool;
+import com.nexusvoice.infrastructure.ai.tool.WebSearchPrefetcher;
+import com.nexusvoice.infrastructure.ratelimit.UsageQuotaService;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuard;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuardRegistry;
+import com.nexusvoice.infrastructure.trace.StreamTraceRecorder;
 import com.nexusvoice.enums.ErrorCodeEnum;
 import com.nexusvoice.exception.BizException;
 import dev.langchain4j.data.message.AiMessage;
@@ -17,11 +22,14 @@ import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import dev.langchain4j.model.output.Response;
 import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.service.AiServices;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -39,11 +47,17 @@ import java.util.function.Consumer;
 @Slf4j
 @Primary
 @Service
+@Profile("!" + SyntheticAiChatService.PROFILE)
 public class OpenAiChatServiceImpl implements AiChatService {
 
     private final ChatLanguageModel chatLanguageModel;
     private final OpenAiStreamingChatModel streamingChatModel;
     private final SimpleWebSearchTool searchTool;
+    private final UpstreamGuard llmGuard;
+    private final MeterRegistry meterRegistry;
+    private final StreamTraceRecorder streamTraceRecorder;
+    private final UsageQuotaService usageQuotaService;
+    private final AtomicInteger inFlightStreams = new AtomicInteger();
     
     // MCP工具调用配置
     @Value("${nexusvoice.ai.tools.enabled:true}")
@@ -63,10 +77,20 @@ public class OpenAiChatServiceImpl implements AiChatService {
     @Autowired
     public OpenAiChatServiceImpl(@Autowired ChatLanguageModel chatLanguageModel,
                                @Autowired OpenAiStreamingChatModel streamingChatModel,
-                               @Autowired SimpleWebSearchTool searchTool) {
+                               @Autowired SimpleWebSearchTool searchTool,
+                               @Autowired UpstreamGuardRegistry upstreamGuardRegistry,
+                               @Autowired MeterRegistry meterRegistry,
+                               @Autowired StreamTraceRecorder streamTraceRecorder,
+                               @Autowired UsageQuotaService usageQuotaService) {
         this.chatLanguageModel = chatLanguageModel;
         this.streamingChatModel = streamingChatModel;
         this.searchTool = searchTool;
+        this.llmGuard = upstreamGuardRegistry.guard(UpstreamGuardRegistry.LLM);
+        this.meterRegistry = meterRegistry;
+        this.streamTraceRecorder = streamTraceRecorder;
+        this.usageQuotaService = usageQuotaService;
+        Gauge.builder("nexusvoice.chat.streams.inflight", inFlightStreams, AtomicInteger::get)
+                .description("进行中的流式生成数").register(meterRegistry);
         
         log.info("OpenAI聊天服务初始化完成");
         log.info("- ChatLanguageModel: {}", chatLanguageModel != null ? "已加载" : "未加载");
@@ -105,11 +129,11 @@ public class OpenAiChatServiceImpl implements AiChatService {
             if (needsSearch && toolsEnabled && searchToolEnabled && searchTool != null) {
                 // 使用带工具调用的AI助手
                 log.info("使用带联网搜索的AI助手处理请求");
-                responseText = getOrCreateToolEnabledAssistant().chat(buildFullMessage(request));
+                responseText = llmGuard.execute(() -> getOrCreateToolEnabledAssistant().chat(buildFullMessage(request)));
             } else {
                 // 使用基础AI模型
                 log.info("使用基础AI模型处理请求（不启用联网搜索）");
-                responseText = handleBasicChat(request);
+                responseText = llmGuard.execute(() -> handleBasicChat(request));
             }
 
             long responseTime = System.currentTimeMillis() - startTime;
@@ -122,6 +146,7 @@ public class OpenAiChatServiceImpl implements AiChatService {
                     .completionTokens(estimateTokenCount(responseText))
                     .totalTokens(estimateTokenCount(buildFullMessage(request) + responseText))
                     .build();
+            usageQuotaService.recordLlmTokens(request.getUserId(), usage.getTotalTokens());
 
             return ChatResponse.success(
                     responseText,
@@ -154,7 +179,16 @@ public class OpenAiChatServiceImpl implements AiChatService {
             String latestUser = extractLastUserMessage(request.getMessages());
             boolean canUseSearch = enableWebSearch && shouldSearch(latestUser) && toolsEnabled && searchToolEnabled && (searchTool != null);
             List<dev.langchain4j.data.message.ChatMessage> finalMessages = messages;
-            if (canUseSearch) {
+            if (Boolean.TRUE.equals(request.getSearchPrefetched())) {
+                // 调用方已并行预取搜索结果（可能因超时为空），不再同步阻塞搜索
+                String searchSummary = request.getSearchContext();
+                if (searchSummary != null && !searchSummary.isEmpty()) {
+                    List<dev.langchain4j.data.message.ChatMessage> augmented = new ArrayList<>(messages);
+                    augmented.add(0, dev.langchain4j.data.message.SystemMessage.from("以下是搜索到的参考资料（仅供回答参考）：\n\n" + searchSummary));
+                    finalMessages = augmented;
+                    log.info("已注入预取的联网搜索结果，summary长度={}", searchSummary.length());
+                }
+            } else if (canUseSearch) {
                 try {
                     // 取最后一条用户消息作为查询
                     String query = null;
@@ -180,13 +214,21 @@ public class OpenAiChatServiceImpl implements AiChatService {
                 }
             }
 
+            // 申请上游许可：熔断打开或并发已满时快速失败，不再等待上游超时
+            UpstreamGuard.Permit permit = llmGuard.acquire();
+
             // 创建流式响应处理器
+            StreamTimer streamTimer = new StreamTimer(meterRegistry, inFlightStreams, request.getModel());
+            StreamTraceRecorder.TokenTrace trace = streamTraceRecorder.startStream(request.getModel());
             AtomicInteger index = new AtomicInteger(0);
             AtomicReference<String> responseId = new AtomicReference<>("stream_" + System.currentTimeMillis());
 
             StreamingResponseHandler<AiMessage> handler = new StreamingResponseHandler<AiMessage>() {
                 @Override
                 public void onNext(String token) {
+                    permit.firstResponse();
+                    streamTimer.onToken();
+                    trace.onToken(token);
                     try {
                         StreamChatResponse response = StreamChatResponse.content(
                                 token,
@@ -203,6 +245,15 @@ public class OpenAiChatServiceImpl implements AiChatService {
 
                 @Override
                 public void onComplete(Response<AiMessage> response) {
+                    permit.success();
+                    streamTimer.complete(response != null && response.tokenUsage() != null
+                            ? response.tokenUsage().outputTokenCount() : null, "success");
+                    trace.finish("success");
+                    // 上游未返回用量时按输入估算值加已输出的片段数计入
+                    usageQuotaService.recordLlmTokens(request.getUserId(),
+                            response != null && response.tokenUsage() != null && response.tokenUsage().totalTokenCount() != null
+                                    ? response.tokenUsage().totalTokenCount()
+                                    : estimateTokenCount(buildFullMessage(request)) + index.get());
                     try {
                         // 发送结束信号
                         StreamChatResponse endResponse = StreamChatResponse.end(
@@ -218,18 +269,34 @@ public class OpenAiChatServiceImpl implements AiChatService {
 
                 @Override
                 public void onError(Throwable throwable) {
+                    permit.failure(throwable);
+                    streamTimer.complete(null, "failure");
+                    trace.finish("failure");
                     log.error("流式聊天请求失败，用户ID：{}，对话ID：{}",
                             request.getUserId(), request.getConversationId(), throwable);
                     onError.accept(throwable);
                 }
             };
 
-            // 发送开始信号
-            StreamChatResponse startResponse = StreamChatResponse.start(responseId.get(), request.getModel());
-            onNext.accept(startResponse);
-
-            // 开始流式请求
-            streamingChatModel.generate(finalMessages, handler);
+            // 发送开始信号并开始流式请求；任一步抛出都须归还许可
+            boolean started = false;
+            try {
+                StreamChatResponse startResponse = StreamChatResponse.start(responseId.get(), request.getModel());
+                onNext.accept(startResponse);
+                streamTimer.start();
+                started = true;
+                streamingChatModel.generate(finalMessages, handler);
+            } catch (RuntimeException e) {
+                if (started) {
+                    permit.failure(e);
+                    streamTimer.complete(null, "failure");
+                } else {
+                    // 尚未请求上游，不计入上游统计
+                    permit.cancel();
+                }
+                trace.finish("failure");
+                throw e;
+            }
 
         } catch (Exception e) {
             log.error("启动流式聊天请求失败，用户ID：{}，对话ID：{}",
@@ -274,21 +341,7 @@ public class OpenAiChatServiceImpl implements AiChatService {
      * 简单启发式：仅当问题明显具有时效性/检索需求时触发联网
      */
     private boolean shouldSearch(String query) {
-        if (query == null) return false;
-        String q = query.trim();
-        if (q.isEmpty()) return false;
-        String lower = q.toLowerCase();
-        // 中文/英文常见时效性关键词
-        String[] hints = new String[]{
-                "最新","今天","刚刚","现在","新闻","价格","涨跌","发布","更新","政策","实时","比赛","比分","天气","汇率","热点",
-                "today","latest","breaking","price","stock","score","who won","release","update","news","trend","weather","rate"
-        };
-        for (String h : hints) {
-            if (lower.contains(h)) return true;
-        }
-        // 含年份/日期的强时效场景（简单检测）
-        if (lower.matches(".*\\b20\\d{2}\\b.*")) return true;
-        return false;
+        return WebSearchPrefetcher.isTimeSensitive(query);
     }
 
     private String extractLastUserMessage(List<com.nexusvoice.infrastructure.ai.model.ChatMessage> msgs) {
@@ -0,0 +1,84 @@
+package com.nexusvoice.infrastructure.ai.service.impl;
+
+import com.nexusvoice.infrastructure.jfr.UpstreamFirstTokenEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单次流式生成的计时：首token延迟、总时长与生成速率，按模型打标签；首token同时产生JFR事件
+ * 各 AiChatService 实现共用，保证真实模型与合成模型的指标口径一致。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+final class StreamTimer {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlightStreams;
+    private final String model;
+    private final UpstreamFirstTokenEvent firstTokenEvent = new UpstreamFirstTokenEvent();
+    private final AtomicLong firstTokenAt = new AtomicLong();
+    private final AtomicInteger tokens = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+    private volatile long startedAt;
+
+    StreamTimer(MeterRegistry meterRegistry, AtomicInteger inFlightStreams, String model) {
+        this.meterRegistry = meterRegistry;
+        this.inFlightStreams = inFlightStreams;
+        this.model = model != null ? model : "default";
+    }
+
+    void start() {
+        firstTokenEvent.begin();
+        startedAt = System.nanoTime();
+        inFlightStreams.incrementAndGet();
+    }
+
+    void onToken() {
+        tokens.incrementAndGet();
+        if (firstTokenAt.get() == 0 && firstTokenAt.compareAndSet(0, System.nanoTime())) {
+            Timer.builder("nexusvoice.chat.ttft")
+                    .description("流式生成首token延迟")
+                    .tag("model", model)
+                    .register(meterRegistry)
+                    .record(firstTokenAt.get() - startedAt, TimeUnit.NANOSECONDS);
+            firstTokenEvent.end();
+            if (firstTokenEvent.shouldCommit()) {
+                firstTokenEvent.model = model;
+                firstTokenEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * @param outputTokens 上游返回的输出token数，缺失时以流式分片数近似
+     */
+    void complete(Integer outputTokens, String outcome) {
+        if (startedAt == 0 || !finished.compareAndSet(0, 1)) {
+            return;
+        }
+        inFlightStreams.decrementAndGet();
+        long end = System.nanoTime();
+        Timer.builder("nexusvoice.chat.stream.duration")
+                .description("流式生成总时长")
+                .tag("model", model)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(end - startedAt, TimeUnit.NANOSECONDS);
+        long first = firstTokenAt.get();
+        if (first == 0 || end <= first) {
+            return;
+        }
+        int count = outputTokens != null ? outputTokens : tokens.get();
+        DistributionSummary.builder("nexusvoice.chat.tokens.per.second")
+                .description("首token之后的生成速率")
+                .tag("model", model)
+                .register(meterRegistry)
+                .record(count * 1e9 / (end - first));
+    }
+}
@@ -0,0 +1,331 @@
+package com.nexusvoice.infrastructure.ai.service.impl;
+
+import com.nexusvoice.domain.conversation.constant.MessageRole;
+import com.nexusvoice.enums.ErrorCodeEnum;
+import com.nexusvoice.exception.BizException;
+import com.nexusvoice.infrastructure.ai.model.ChatMessage;
+import com.nexusvoice.infrastructure.ai.model.ChatRequest;
+import com.nexusvoice.infrastructure.ai.model.ChatResponse;
+import com.nexusvoice.infrastructure.ai.model.StreamChatResponse;
+import com.nexusvoice.infrastructure.ai.service.AiChatService;
+import com.nexusvoice.infrastructure.config.EnhancedAiConfig;
+import com.nexusvoice.infrastructure.ratelimit.UsageQuotaService;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuard;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuardRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 合成AI聊天服务（synthetic profile）
+ * 不调用任何外部模型，按配置的首token延迟与输出速率流式返回确定性或语料采样的文本，并可注入错误与停顿。
+ * 经过与真实模型相同的上游保护和指标，用于在生产级并发下压测WebSocket、落库与TTS链路本身的容量。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Primary
+@Service
+@Profile(SyntheticAiChatService.PROFILE)
+public class SyntheticAiChatService implements AiChatService {
+
+    public static final String PROFILE = "synthetic";
+
+    private static final String MODEL_NAME = "synthetic";
+
+    private static final String[] BUILTIN_CORPUS = {
+            "好的，我来简单介绍一下。",
+            "虚拟线程适合大量阻塞I/O的场景，比如调用外部接口或者访问数据库。",
+            "它们由JVM调度，创建成本很低，可以为每个请求单独创建。",
+            "需要注意的是，在同步块中执行阻塞操作会固定载体线程，建议改用可重入锁。",
+            "**要点**：I/O密集用虚拟线程，CPU密集仍然使用平台线程池。",
+            "关于缓存，可以先在进程内使用Caffeine，命中率不够时再引入分布式缓存。",
+            "数据库连接池的大小应当与数据库能承受的并发相匹配，而不是越大越好！",
+            "流式输出时，首个token的延迟往往比总时长更影响体验。",
+            "语音合成可以按句切分并发进行，首段尽量短，以便尽早开始播放。",
+            "1. 先用压测找到瓶颈；2. 再针对性优化；3. 最后回归验证。",
+            "如果还有其他问题，欢迎继续问我？"
+    };
+
+    private final EnhancedAiConfig.Synthetic config;
+    private final List<String> corpus;
+    private final UpstreamGuard llmGuard;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+    private final UsageQuotaService usageQuotaService;
+    private final AtomicInteger inFlightStreams = new AtomicInteger();
+
+    public SyntheticAiChatService(EnhancedAiConfig enhancedAiConfig,
+                                  UpstreamGuardRegistry upstreamGuardRegistry,
+                                  MeterRegistry meterRegistry,
+                                  @Qualifier("virtualThreadExecutor") ExecutorService executor,
+                                  UsageQuotaService usageQuotaService) {
+        this.config = enhancedAiConfig.getSynthetic();
+        this.corpus = loadCorpus(config.getCorpusFile());
+        this.llmGuard = upstreamGuardRegistry.guard(UpstreamGuardRegistry.LLM);
+        this.meterRegistry = meterRegistry;
+        this.executor = executor;
+        this.usageQuotaService = usageQuotaService;
+        Gauge.builder("nexusvoice.chat.streams.inflight", inFlightStreams, AtomicInteger::get)
+                .description("进行中的流式生成数").register(meterRegistry);
+
+        log.warn("合成AI聊天服务已启用（不调用真实模型），模式：{}，首token：{}ms，速率：{} token/s，错误率：{}，停顿率：{}",
+                config.getMode(), config.getTtftMs(), config.getTokensPerSecond(), config.getErrorRate(), config.getStallRate());
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        long startTime = System.currentTimeMillis();
+        Plan plan = plan(request);
+        try {
+            llmGuard.execute(() -> {
+                pause(plan.ttftMs() + plan.tokens().size() * tokenIntervalNanos() / 1_000_000L
+                        + (plan.stallAt() >= 0 ? config.getStallMs() : 0));
+                if (plan.errorAt() >= 0) {
+                    throw BizException.of(ErrorCodeEnum.AI_REQUEST_FAILED, "合成模型注入错误");
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("合成聊天请求失败，用户ID：{}，原因：{}", request.getUserId(), e.getMessage());
+            return ChatResponse.error("AI聊天请求失败：" + e.getMessage());
+        }
+        String prompt = lastUserMessage(request);
+        ChatResponse.TokenUsage usage = ChatResponse.TokenUsage.builder()
+                .promptTokens(estimateTokenCount(prompt))
+                .completionTokens(plan.tokens().size())
+                .totalTokens(estimateTokenCount(prompt) + plan.tokens().size())
+                .build();
+        usageQuotaService.recordLlmTokens(request.getUserId(), usage.getTotalTokens());
+        return ChatResponse.success(plan.text(), MODEL_NAME, usage, System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public void streamChat(ChatRequest request, Consumer<StreamChatResponse> onNext,
+                           Consumer<Throwable> onError, Runnable onComplete) {
+        try {
+            Plan plan = plan(request);
+            UpstreamGuard.Permit permit = llmGuard.acquire();
+            String model = request.getModel() != null ? request.getModel() : MODEL_NAME;
+            String responseId = "synthetic_" + System.currentTimeMillis();
+            StreamTimer streamTimer = new StreamTimer(meterRegistry, inFlightStreams, model);
+
+            try {
+                onNext.accept(StreamChatResponse.start(responseId, model));
+            } catch (RuntimeException e) {
+                permit.cancel();
+                throw e;
+            }
+            streamTimer.start();
+            try {
+                executor.execute(() -> emit(request, plan, responseId, model, permit, streamTimer, onNext, onError, onComplete));
+            } catch (RuntimeException e) {
+                permit.failure(e);
+                streamTimer.complete(null, "failure");
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("启动合成流式聊天失败，用户ID：{}，对话ID：{}", request.getUserId(), request.getConversationId(), e);
+            onError.accept(e);
+        }
+    }
+
+    /**
+     * 按计划逐token推送：首token前等待，之后按固定间隔输出，在注入位置停顿或失败
+     */
+    private void emit(ChatRequest request, Plan plan, String responseId, String model, UpstreamGuard.Permit permit, StreamTimer streamTimer,
+                      Consumer<StreamChatResponse> onNext, Consumer<Throwable> onError, Runnable onComplete) {
+        try {
+            pause(plan.ttftMs());
+            long interval = tokenIntervalNanos();
+            long next = System.nanoTime();
+            List<String> tokens = plan.tokens();
+            for (int i = 0; i < tokens.size(); i++) {
+                if (i == plan.errorAt()) {
+                    throw BizException.of(ErrorCodeEnum.AI_REQUEST_FAILED, "合成模型注入错误（第" + i + "个token）");
+                }
+                if (i == plan.stallAt()) {
+                    pause(config.getStallMs());
+                    next = System.nanoTime();
+                }
+                permit.firstResponse();
+                streamTimer.onToken();
+                StreamChatResponse response = StreamChatResponse.content(tokens.get(i), i);
+                response.setId(responseId);
+                response.setModel(model);
+                onNext.accept(response);
+
+                next += interval;
+                long waitNanos = next - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+            }
+            if (plan.errorAt() == tokens.size()) {
+                throw BizException.of(ErrorCodeEnum.AI_REQUEST_FAILED, "合成模型注入错误（结束前）");
+            }
+            permit.success();
+            streamTimer.complete(tokens.size(), "success");
+            usageQuotaService.recordLlmTokens(request.getUserId(), estimateTokenCount(lastUserMessage(request)) + tokens.size());
+            onNext.accept(StreamChatResponse.end("stop"));
+            onComplete.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            permit.cancel();
+            streamTimer.complete(null, "failure");
+            onError.accept(e);
+        } catch (Exception e) {
+            permit.failure(e);
+            streamTimer.complete(null, "failure");
+            log.warn("合成流式聊天失败：{}", e.getMessage());
+            onError.accept(e);
+        }
+    }
+
+    /**
+     * 生成单次请求的计划。确定性模式下随机源由种子、最后一条用户消息与消息条数决定，
+     * 同一请求的文本、首token延迟和故障注入位置在每次运行中都相同。
+     */
+    private Plan plan(ChatRequest request) {
+        SplittableRandom random = isDeterministic()
+                ? new SplittableRandom(config.getSeed() * 31 + Objects.hash(lastUserMessage(request), messageCount(request)))
+                : new SplittableRandom();
+        String text = config.getFixedText() != null && !config.getFixedText().isBlank()
+                ? config.getFixedText()
+                : sample(random);
+        List<String> tokens = tokenize(text, random);
+        long ttftMs = logNormal(config.getTtftMs(), config.getTtftSigma(), random);
+        int errorAt = random.nextDouble() < config.getErrorRate() ? random.nextInt(tokens.size() + 1) : -1;
+        int stallAt = random.nextDouble() < config.getStallRate() && !tokens.isEmpty() ? random.nextInt(tokens.size()) : -1;
+        return new Plan(text, tokens, ttftMs, errorAt, stallAt);
+    }
+
+    private boolean isDeterministic() {
+        return "deterministic".equalsIgnoreCase(config.getMode());
+    }
+
+    private String sample(SplittableRandom random) {
+        StringBuilder sb = new StringBuilder(config.getReplyChars() + 64);
+        while (sb.length() < config.getReplyChars()) {
+            sb.append(corpus.get(random.nextInt(corpus.size())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按1~3个字符切分，接近中文模型流式输出的粒度
+     */
+    private static List<String> tokenize(String text, SplittableRandom random) {
+        List<String> tokens = new ArrayList<>(text.length() / 2 + 1);
+        int i = 0;
+        while (i < text.length()) {
+            int end = Math.min(text.length(), i + 1 + random.nextInt(3));
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end++;
+            }
+            tokens.add(text.substring(i, end));
+            i = end;
+        }
+        return tokens;
+    }
+
+    /**
+     * 对数正态采样：中位数为 median，sigma 控制长尾
+     */
+    private static long logNormal(long median, double sigma, SplittableRandom random) {
+        if (sigma <= 0) {
+            return median;
+        }
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        double z = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+        return Math.max(0, Math.round(median * Math.exp(sigma * z)));
+    }
+
+    private long tokenIntervalNanos() {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(0.001, config.getTokensPerSecond()));
+    }
+
+    private static void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private static String lastUserMessage(ChatRequest request) {
+        List<ChatMessage> messages = request.getMessages();
+        if (messages == null) {
+            return null;
+        }
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i).getRole() == MessageRole.USER) {
+                return messages.get(i).getContent();
+            }
+        }
+        return null;
+    }
+
+    private static int messageCount(ChatRequest request) {
+        return request.getMessages() != null ? request.getMessages().size() : 0;
+    }
+
+    private static List<String> loadCorpus(String corpusFile) {
+        if (corpusFile == null || corpusFile.isBlank()) {
+            return List.of(BUILTIN_CORPUS);
+        }
+        try {
+            List<String> lines = Files.readAllLines(Path.of(corpusFile), StandardCharsets.UTF_8).stream()
+                    .map(String::strip)
+                    .filter(line -> !line.isEmpty())
+                    .toList();
+            if (lines.isEmpty()) {
+                throw BizException.of(ErrorCodeEnum.AI_MODEL_CONFIG_ERROR, "合成模型语料文件为空：" + corpusFile);
+            }
+            log.info("已加载合成模型语料：{}，共{}段", corpusFile, lines.size());
+            return lines;
+        } catch (IOException e) {
+            throw BizException.of(ErrorCodeEnum.AI_MODEL_CONFIG_ERROR, "读取合成模型语料失败：" + corpusFile, e);
+        }
+    }
+
+    @Override
+    public String getModelName() {
+        return MODEL_NAME;
+    }
+
+    @Override
+    public boolean isModelAvailable() {
+        return true;
+    }
+
+    @Override
+    public int estimateTokenCount(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (int) Math.ceil(text.length() / 3.0);
+    }
+
+    /**
+     * 单次请求的生成计划：文本、token切分、首token延迟，以及注入错误/停顿的token位置（-1表示不注入）
+     */
+    private record Plan(String text, List<String> tokens, long ttftMs, int errorAt, int stallAt) {}
+}
@@ -62,50 +62,24 @@ public class SimpleWebSearchTool {
         try {
             log.info("AI代理调用网页搜索，查询：{}", query);
             String norm = normalize(query);
+            String summary;
             if (cacheEnabled && cache != null) {
-                String cached = cache.getIfPresent(norm);
-                if (cached != null) {
-                    log.info("网页搜索命中缓存，query={}，length={}", norm, cached.length());
-                    return cached;
+                // 不在Caffeine的compute中发起HTTP：那会阻塞同一分段的其他key并固定虚拟线程；
+                // 并发的相同查询由 CachingSearchRepository 合并，这里只做结果缓存，无结果时不写入
+                summary = cache.getIfPresent(norm);
+                if (summary == null) {
+                    summary = searchAndSummarize(query);
+                    if (summary != null) {
+                        cache.put(norm, summary);
+                    }
                 }
+            } else {
+                summary = searchAndSummarize(query);
             }
-
-            SearchResult result = searchRepository.searchWeb(query, maxResultsDefault, defaultLanguage);
-            
-            if (result.getItems() == null || result.getItems().isEmpty()) {
+            if (summary == null) {
                 return "抱歉，没有找到关于\"" + query + "\"的相关信息。";
             }
-            
-            StringBuilder summary = new StringBuilder();
-            summary.append("搜索\"").append(query).append("\"找到了以下信息：\n\n");
-            
-            int count = 1;
-            for (SearchResult.SearchItem item : result.getItems()) {
-                if (item.getTitle() != null && !item.getTitle().isEmpty()) {
-                    summary.append(count).append(". **").append(item.getTitle()).append("**\n");
-                }
-                if (item.getSnippet() != null && !item.getSnippet().isEmpty()) {
-                    summary.append(item.getSnippet());
-                }
-                if (item.getLink() != null && !item.getLink().isEmpty()) {
-                    summary.append("\n来源：").append(item.getLink());
-                }
-                summary.append("\n\n");
-                count++;
-                
-                // 限制返回内容长度避免token过多
-                if (summary.length() > 2000) {
-                    break;
-                }
-            }
-            
-            String finalResult = summary.toString();
-            log.info("网页搜索完成，返回结果长度：{}", finalResult.length());
-            if (cacheEnabled && cache != null) {
-                cache.put(norm, finalResult);
-            }
-            
-            return finalResult;
+            return summary;
             
         } catch (Exception e) {
             log.error("网页搜索工具执行异常", e);
@@ -113,6 +87,43 @@ public class SimpleWebSearchTool {
         }
     }
 
+    /**
+     * 调用搜索仓储并生成文本摘要，无结果时返回null
+     */
+    private String searchAndSummarize(String query) {
+        SearchResult result = searchRepository.searchWeb(query, maxResultsDefault, defaultLanguage);
+        if (result == null || result.getItems() == null || result.getItems().isEmpty()) {
+            return null;
+        }
+
+        StringBuilder summary = new StringBuilder();
+        summary.append("搜索\"").append(query).append("\"找到了以下信息：\n\n");
+        
+        int count = 1;
+        for (SearchResult.SearchItem item : result.getItems()) {
+            if (item.getTitle() != null && !item.getTitle().isEmpty()) {
+                summary.append(count).append(". **").append(item.getTitle()).append("**\n");
+            }
+            if (item.getSnippet() != null && !item.getSnippet().isEmpty()) {
+                summary.append(item.getSnippet());
+            }
+            if (item.getLink() != null && !item.getLink().isEmpty()) {
+                summary.append("\n来源：").append(item.getLink());
+            }
+            summary.append("\n\n");
+            count++;
+            
+            // 限制返回内容长度避免token过多
+            if (summary.length() > 2000) {
+                break;
+            }
+        }
+        
+        String finalResult = summary.toString();
+        log.info("网页搜索完成，返回结果长度：{}", finalResult.length());
+        return finalResult;
+    }
+
     private String normalize(String q) {
         if (q == null) return "";
         String t = q.trim().toLowerCase(Locale.ROOT);
@@ -0,0 +1,111 @@
+package com.nexusvoice.infrastructure.ai.tool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 联网搜索预取
+ * 在组装提示词之前就在虚拟线程上发起搜索，与数据库读写等阶段并行；
+ * 拼装提示词时按截止时间等待，超时则中断搜索线程（释放搜索上游名额）并继续生成。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Component
+public class WebSearchPrefetcher {
+
+    private final SimpleWebSearchTool searchTool;
+    private final ExecutorService executor;
+
+    @Value("${nexusvoice.ai.tools.enabled:true}")
+    private boolean toolsEnabled;
+
+    @Value("${nexusvoice.ai.tools.search.enabled:true}")
+    private boolean searchToolEnabled;
+
+    public WebSearchPrefetcher(SimpleWebSearchTool searchTool,
+                               @Qualifier("virtualThreadExecutor") ExecutorService executor) {
+        this.searchTool = searchTool;
+        this.executor = executor;
+    }
+
+    /**
+     * 按需发起搜索预取
+     *
+     * @param query           用户当前问题
+     * @param enableWebSearch 请求是否开启联网搜索
+     * @return 搜索摘要的Future（cancel(true)会中断进行中的搜索）；不需要搜索或无法提交时返回null
+     */
+    public Future<String> prefetch(String query, boolean enableWebSearch) {
+        if (!enableWebSearch || !toolsEnabled || !searchToolEnabled || !isTimeSensitive(query)) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            return executor.submit(() -> {
+                String summary = searchTool.searchWeb(query);
+                log.debug("搜索预取完成，耗时：{}ms", System.currentTimeMillis() - start);
+                return summary;
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("搜索预取提交失败，本轮不使用联网结果：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 在截止时间内等待搜索结果，超时或失败返回null（即不使用搜索增强）
+     */
+    public String await(Future<String> future, long deadlineMs) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(Math.max(0, deadlineMs), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.info("搜索预取超过截止时间{}ms，本轮不使用联网结果", deadlineMs);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("搜索预取失败，本轮不使用联网结果：{}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 简单启发式：仅当问题明显具有时效性/检索需求时触发联网
+     */
+    public static boolean isTimeSensitive(String query) {
+        if (query == null) return false;
+        String q = query.trim();
+        if (q.isEmpty()) return false;
+        String lower = q.toLowerCase();
+        // 中文/英文常见时效性关键词
+        String[] hints = new String[]{
+                "最新","今天","刚刚","现在","新闻","价格","涨跌","发布","更新","政策","实时","比赛","比分","天气","汇率","热点",
+                "today","latest","breaking","price","stock","score","who won","release","update","news","trend","weather","rate"
+        };
+        for (String h : hints) {
+            if (lower.contains(h)) return true;
+        }
+        // 含年份/日期的强时效场景（简单检测）
+        return lower.matches(".*\\b20\\d{2}\\b.*");
+    }
+}
@@ -0,0 +1,105 @@
+package com.nexusvoice.infrastructure.aspect;
+
+import com.nexusvoice.infrastructure.ai.model.ChatRequest;
+import com.nexusvoice.infrastructure.ai.model.ChatResponse;
+import com.nexusvoice.infrastructure.ai.model.StreamChatResponse;
+import com.nexusvoice.infrastructure.ai.scheduling.LlmScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 大模型调用调度切面
+ * 所有AiChatService实现的chat与streamChat都先向LlmScheduler申请名额：
+ * 同步调用在名额到手前阻塞（HTTP请求运行在虚拟线程上），流式调用在获得名额后才发起，
+ * 名额在同步调用返回或流式调用完成/出错时归还。
+ * 排队后才拿到名额的流式调用切换到虚拟线程发起，不占用归还名额的线程（可能是模型回调线程）或调度器的定期任务线程。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Aspect
+@Component
+public class LlmSchedulingAspect {
+
+    private final LlmScheduler llmScheduler;
+    private final ExecutorService virtualThreadExecutor;
+
+    public LlmSchedulingAspect(LlmScheduler llmScheduler,
+                               @Qualifier("virtualThreadExecutor") ExecutorService virtualThreadExecutor) {
+        this.llmScheduler = llmScheduler;
+        this.virtualThreadExecutor = virtualThreadExecutor;
+    }
+
+    @Around("execution(* com.nexusvoice.infrastructure.ai.service.AiChatService+.chat(..)) && args(request)")
+    public Object scheduleChat(ProceedingJoinPoint joinPoint, ChatRequest request) throws Throwable {
+        LlmScheduler.Slot slot;
+        try {
+            slot = llmScheduler.acquire(request.getUserId()).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("大模型调用未获得调度名额，用户ID：{}，原因：{}", request.getUserId(), cause.getMessage());
+            return ChatResponse.error(cause.getMessage());
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            slot.release();
+        }
+    }
+
+    @Around("execution(* com.nexusvoice.infrastructure.ai.service.AiChatService+.streamChat(..)) && args(request, onNext, onError, onComplete)")
+    public Object scheduleStreamChat(ProceedingJoinPoint joinPoint, ChatRequest request, Consumer<StreamChatResponse> onNext,
+                                     Consumer<Throwable> onError, Runnable onComplete) {
+        CompletableFuture<LlmScheduler.Slot> grant = llmScheduler.acquire(request.getUserId());
+        BiConsumer<LlmScheduler.Slot, Throwable> start = (slot, ex) -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                log.warn("流式大模型调用未获得调度名额，用户ID：{}，原因：{}", request.getUserId(), cause.getMessage());
+                onError.accept(cause);
+                return;
+            }
+            Consumer<Throwable> releasingOnError = error -> {
+                slot.release();
+                onError.accept(error);
+            };
+            Runnable releasingOnComplete = () -> {
+                slot.release();
+                onComplete.run();
+            };
+            try {
+                joinPoint.proceed(new Object[]{request, onNext, releasingOnError, releasingOnComplete});
+            } catch (Throwable e) {
+                slot.release();
+                onError.accept(e);
+            }
+        };
+        if (grant.isDone()) {
+            grant.whenComplete(start);
+            return null;
+        }
+        grant.whenComplete((slot, ex) -> {
+            try {
+                virtualThreadExecutor.execute(() -> start.accept(slot, ex));
+            } catch (RejectedExecutionException e) {
+                if (slot != null) {
+                    slot.release();
+                }
+                onError.accept(new CancellationException("应用正在停止"));
+            }
+        });
+        return null;
+    }
+}
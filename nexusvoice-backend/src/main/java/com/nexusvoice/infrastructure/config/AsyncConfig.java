@@ -0,0 +1,29 @@
+package com.nexusvoice.infrastructure.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 异步执行配置
+ * 提供共享的虚拟线程执行器，用于聊天流水线中IO密集型阶段的并行化
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * 虚拟线程执行器（每任务一个虚拟线程）
+     */
+    @Bean(name = "virtualThreadExecutor", destroyMethod = "close")
+    public ExecutorService virtualThreadExecutor() {
+        log.info("虚拟线程执行器初始化完成");
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("nv-vt-", 0).factory());
+    }
+}
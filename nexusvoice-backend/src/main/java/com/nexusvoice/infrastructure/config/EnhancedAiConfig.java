@@ -26,6 +26,11 @@ public class EnhancedAiConfig {
      * 模型配置
      */
     private Model model = new Model();
+
+    /**
+     * 合成模型配置（synthetic profile 下替代真实模型，用于容量测试）
+     */
+    private Synthetic synthetic = new Synthetic();
     
     @Data
     public static class Tools {
@@ -80,4 +85,62 @@ public class EnhancedAiConfig {
          */
         private int maxTokens = 4096;
     }
+
+    @Data
+    public static class Synthetic {
+        /**
+         * 文本模式：deterministic（按种子与提问确定性生成，节奏与故障注入同样可复现）、corpus（每次随机采样语料）
+         */
+        private String mode = "corpus";
+
+        /**
+         * 确定性模式的随机种子
+         */
+        private long seed = 42;
+
+        /**
+         * 固定回复文本（可选，配置后所有回复均为该文本）
+         */
+        private String fixedText;
+
+        /**
+         * 语料文件（可选，UTF-8，每行一段），未配置时使用内置语料
+         */
+        private String corpusFile;
+
+        /**
+         * 单次回复的目标字符数
+         */
+        private int replyChars = 300;
+
+        /**
+         * 首token延迟中位数（毫秒）
+         */
+        private long ttftMs = 400;
+
+        /**
+         * 首token延迟的对数正态sigma，0表示固定延迟
+         */
+        private double ttftSigma = 0.3;
+
+        /**
+         * 首token之后的输出速率（token/秒）
+         */
+        private double tokensPerSecond = 40;
+
+        /**
+         * 注入错误的概率（0~1），在回复中途随机位置失败
+         */
+        private double errorRate = 0;
+
+        /**
+         * 注入停顿的概率（0~1），在回复中途随机位置暂停 stallMs 后继续
+         */
+        private double stallRate = 0;
+
+        /**
+         * 单次停顿时长（毫秒）
+         */
+        private long stallMs = 30000;
+    }
 }
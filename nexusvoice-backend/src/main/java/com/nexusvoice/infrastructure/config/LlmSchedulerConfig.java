@@ -0,0 +1,94 @@
+package com.nexusvoice.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 大模型调用调度配置
+ * 层级名称与用户类型代码一致（USER、ADMIN，以及后续的付费层级）；未配置的层级按 default-tier 处理。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "nexusvoice.llm-scheduler")
+public class LlmSchedulerConfig {
+
+    /**
+     * 是否启用调度（关闭后调用直接透传）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本节点同时进行的大模型调用数上限（同步与流式合计）
+     */
+    private int maxConcurrency = 32;
+
+    /**
+     * 排队等待的最长时间（毫秒），超时以上游繁忙失败
+     */
+    private long maxWaitMs = 30000;
+
+    /**
+     * 等待超过该时间（毫秒）的请求优先于公平顺序调度，防止低权重用户饿死
+     */
+    private long starvationMs = 5000;
+
+    /**
+     * 未配置或无法识别的层级使用的层级名称
+     */
+    private String defaultTier = "USER";
+
+    /**
+     * 用户层级缓存时间（秒），层级变更后最多延迟这么久生效
+     */
+    private long tierCacheSeconds = 300;
+
+    /**
+     * 各层级的权重与预留名额
+     */
+    private Map<String, Tier> tiers = new HashMap<>();
+
+    public LlmSchedulerConfig() {
+        tiers.put("USER", new Tier(1, 0));
+        tiers.put("ADMIN", new Tier(4, 4));
+    }
+
+    /**
+     * 获取层级配置，未配置时返回默认层级
+     */
+    public Tier tierFor(String name) {
+        Tier tier = name != null ? tiers.get(name) : null;
+        if (tier != null) {
+            return tier;
+        }
+        tier = tiers.get(defaultTier);
+        return tier != null ? tier : new Tier(1, 0);
+    }
+
+    @Data
+    public static class Tier {
+        /**
+         * 公平调度权重：同时排队时，每个用户获得的调用份额与其层级权重成正比
+         */
+        private int weight = 1;
+
+        /**
+         * 为该层级预留的并发名额，其他层级不能占用
+         */
+        private int reserved = 0;
+
+        public Tier() {
+        }
+
+        public Tier(int weight, int reserved) {
+            this.weight = weight;
+            this.reserved = reserved;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.nexusvoice.infrastructure.config;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.nexusvoice.infrastructure.database.DbTimingInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,4 +38,12 @@ public class MyBatisPlusConfig {
         
         return interceptor;
     }
+
+    /**
+     * SQL耗时统计拦截器（由MyBatis-Plus自动装配注册到SqlSessionFactory）
+     */
+    @Bean
+    public DbTimingInterceptor dbTimingInterceptor(MeterRegistry meterRegistry) {
+        return new DbTimingInterceptor(meterRegistry);
+    }
 }
@@ -0,0 +1,93 @@
+package com.nexusvoice.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 用户级限流与用量配额配置
+ * 每个预算是按用户独立的令牌桶；未配置的预算不限流。配额按自然日计算，0表示不限。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "nexusvoice.rate-limit")
+public class RateLimitConfig {
+
+    /**
+     * 是否启用限流与配额（关闭后不限流，也不统计用量）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 管理员是否免于限流与配额检查
+     */
+    private boolean exemptAdmins = true;
+
+    /**
+     * 按名称配置的请求预算，如 chat、tts、image
+     */
+    private Map<String, Budget> budgets = new HashMap<>();
+
+    /**
+     * 每日用量配额
+     */
+    private Quota quota = new Quota();
+
+    public RateLimitConfig() {
+        budgets.put("chat", new Budget(6, 12));
+        budgets.put("tts", new Budget(20, 30));
+        budgets.put("image", new Budget(3, 5));
+    }
+
+    /**
+     * 获取指定预算，未配置时返回null
+     */
+    public Budget budgetFor(String name) {
+        return budgets.get(name);
+    }
+
+    @Data
+    public static class Budget {
+        /**
+         * 桶容量（允许的突发请求数）
+         */
+        private int capacity = 10;
+
+        /**
+         * 每分钟补充的请求数
+         */
+        private double perMinute = 20;
+
+        public Budget() {
+        }
+
+        public Budget(int capacity, double perMinute) {
+            this.capacity = capacity;
+            this.perMinute = perMinute;
+        }
+    }
+
+    @Data
+    public static class Quota {
+        /**
+         * 每日大模型令牌数上限
+         */
+        private long dailyLlmTokens = 200000;
+
+        /**
+         * 每日语音合成字数上限
+         */
+        private long dailyTtsChars = 50000;
+
+        /**
+         * 用量写回数据库的间隔（秒）
+         */
+        private int flushIntervalSeconds = 30;
+    }
+}
@@ -0,0 +1,118 @@
+package com.nexusvoice.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 上游服务弹性配置（熔断、自适应并发限制、舱壁）
+ * 未单独配置的上游使用 defaults 中的策略
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "nexusvoice.resilience")
+public class ResilienceConfig {
+
+    /**
+     * 是否启用弹性保护（关闭后所有调用直接透传，仅保留指标）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 默认策略
+     */
+    private Policy defaults = new Policy();
+
+    /**
+     * 按上游名称覆盖的策略，如 llm、tts、search.tavily、image
+     */
+    private Map<String, Policy> upstreams = new HashMap<>();
+
+    public ResilienceConfig() {
+        // 流式LLM整段耗时和图像生成本身就较长，内置更宽松的慢调用阈值，可被配置覆盖
+        Policy llm = new Policy();
+        llm.setSlowCallThresholdMs(60000);
+        upstreams.put("llm", llm);
+        Policy image = new Policy();
+        image.setMaxLimit(8);
+        image.setSlowCallThresholdMs(90000);
+        upstreams.put("image", image);
+    }
+
+    /**
+     * 获取指定上游的策略
+     */
+    public Policy policyFor(String upstream) {
+        Policy policy = upstreams.get(upstream);
+        return policy != null ? policy : defaults;
+    }
+
+    @Data
+    public static class Policy {
+        /**
+         * 初始并发上限
+         */
+        private int initialLimit = 8;
+
+        /**
+         * 并发上限下界
+         */
+        private int minLimit = 1;
+
+        /**
+         * 并发上限上界（舱壁容量）
+         */
+        private int maxLimit = 32;
+
+        /**
+         * 最多允许排队等待的调用数，超出直接拒绝
+         */
+        private int maxWaiting = 32;
+
+        /**
+         * 排队等待许可的最长时间（毫秒）
+         */
+        private long maxWaitMs = 2000;
+
+        /**
+         * 慢调用阈值（毫秒），超过视为拥塞信号并计入熔断失败；流式调用按首响应耗时计算
+         */
+        private long slowCallThresholdMs = 15000;
+
+        /**
+         * 拥塞时并发上限的乘性回退比例
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * 熔断统计窗口（最近N次调用）
+         */
+        private int windowSize = 20;
+
+        /**
+         * 窗口内最少调用次数，达到后才计算失败率
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * 失败率阈值（百分比）
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 熔断打开持续时间（毫秒）
+         */
+        private long openStateMs = 30000;
+
+        /**
+         * 半开状态允许的探测调用数
+         */
+        private int halfOpenProbes = 2;
+    }
+}
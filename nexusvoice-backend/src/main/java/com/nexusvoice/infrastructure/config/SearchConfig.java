@@ -1,20 +1,35 @@
 package com.nexusvoice.infrastructure.config;
 
+import com.nexusvoice.domain.tool.repository.SearchRepository;
+import com.nexusvoice.infrastructure.tool.repository.CachingSearchRepository;
+import com.nexusvoice.infrastructure.tool.repository.FederatedSearchRepository;
+import com.nexusvoice.infrastructure.tool.repository.SearchProvider;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
 
 /**
  * 搜索功能配置
@@ -68,6 +83,60 @@ public class SearchConfig {
         return restTemplate;
     }
 
+    /**
+     * 对外提供的主搜索仓储：在具体提供商外包装缓存装饰器
+     * 缓存TTL与宽限期可按提供商覆盖：nexusvoice.search.cache.providers.{provider}.ttl-seconds / stale-seconds
+     * 配置 nexusvoice.search.providers（逗号分隔）启用多个提供商时，组合为联邦搜索；
+     * 未配置时沿用 nexusvoice.search.provider 单一提供商
+     */
+    @Bean
+    @Primary
+    public SearchRepository searchRepository(List<SearchProvider> providers,
+                                             Environment environment,
+                                             MeterRegistry meterRegistry,
+                                             @Qualifier("virtualThreadExecutor") ExecutorService virtualThreadExecutor) {
+        Map<String, SearchProvider> byName = providers.stream()
+                .collect(Collectors.toMap(SearchProvider::getProviderName, Function.identity()));
+        String configured = environment.getProperty("nexusvoice.search.providers",
+                environment.getProperty("nexusvoice.search.provider", "duckduckgo"));
+
+        Map<String, SearchRepository> selected = new LinkedHashMap<>();
+        for (String name : Arrays.stream(configured.split(",")).map(String::trim).filter(n -> !n.isEmpty()).toList()) {
+            SearchProvider provider = byName.get(name);
+            if (provider == null) {
+                log.warn("未知的搜索提供商：{}，可选值：{}", name, byName.keySet());
+                continue;
+            }
+            selected.put(name, decorate(provider, environment, meterRegistry, virtualThreadExecutor));
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalStateException("未找到可用的搜索提供商，请检查 nexusvoice.search.provider(s) 配置");
+        }
+        if (selected.size() == 1) {
+            return selected.values().iterator().next();
+        }
+        int quorum = environment.getProperty("nexusvoice.search.federation.quorum", Integer.class, 1);
+        long deadlineMs = environment.getProperty("nexusvoice.search.federation.deadline-ms", Long.class, 3000L);
+        int defaultMaxResults = environment.getProperty("nexusvoice.search.default-max-results", Integer.class, 5);
+        return new FederatedSearchRepository(selected, quorum, deadlineMs, defaultMaxResults, virtualThreadExecutor);
+    }
+
+    private SearchRepository decorate(SearchProvider provider, Environment env,
+                                      MeterRegistry meterRegistry, ExecutorService executor) {
+        boolean cacheEnabled = env.getProperty("nexusvoice.search.cache.enabled", Boolean.class, true);
+        if (!cacheEnabled) {
+            log.info("搜索缓存未启用，提供商={}", provider.getProviderName());
+            return provider;
+        }
+        String prefix = "nexusvoice.search.cache.providers." + provider.getProviderName();
+        long defaultTtl = env.getProperty("nexusvoice.search.cache.ttl-seconds", Long.class, 300L);
+        long defaultStale = env.getProperty("nexusvoice.search.cache.stale-seconds", Long.class, 600L);
+        long ttl = env.getProperty(prefix + ".ttl-seconds", Long.class, defaultTtl);
+        long stale = env.getProperty(prefix + ".stale-seconds", Long.class, defaultStale);
+        long maxSize = env.getProperty("nexusvoice.search.cache.max-size", Long.class, 1000L);
+        return new CachingSearchRepository(provider, provider.getProviderName(), ttl, stale, maxSize, executor, meterRegistry);
+    }
+
     // 内部超时常量
     private static final class Timeouts {
         static final org.apache.hc.core5.util.Timeout CONNECT = org.apache.hc.core5.util.Timeout.ofSeconds(5);
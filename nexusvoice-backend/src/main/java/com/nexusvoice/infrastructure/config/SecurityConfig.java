@@ -4,8 +4,10 @@ import com.nexusvoice.infrastructure.security.JwtAccessDeniedHandler;
 import com.nexusvoice.infrastructure.security.JwtAuthenticationEntryPoint;
 import com.nexusvoice.infrastructure.security.JwtAuthenticationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -15,11 +17,13 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Spring Security配置类
@@ -41,8 +45,19 @@ public class SecurityConfig {
     @Autowired
     private JwtAccessDeniedHandler jwtAccessDeniedHandler;
 
+    /**
+     * 允许抓取Prometheus指标的来源地址（IP或CIDR）
+     */
+    @Value("${nexusvoice.management.prometheus-allowed-ips:127.0.0.1/32,::1/128}")
+    private String[] prometheusAllowedIps;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        List<IpAddressMatcher> prometheusScrapers = Arrays.stream(prometheusAllowedIps)
+                .map(String::trim)
+                .filter(ip -> !ip.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
         http
             // 禁用CSRF（使用JWT时不需要）
             .csrf(AbstractHttpConfigurer::disable)
@@ -70,8 +85,14 @@ public class SecurityConfig {
                     "/webjars/**",
                     "/druid/**",
                     "/ws/**",
+                    "/api/file/blob/**",
                     "/error"
                 ).permitAll()
+
+                // 指标只对白名单地址开放（管理端点另在独立端口上监听，见 management.server）
+                .requestMatchers("/actuator/prometheus").access((authentication, context) ->
+                        new AuthorizationDecision(prometheusScrapers.stream()
+                                .anyMatch(matcher -> matcher.matches(context.getRequest()))))
                 
                 // 需要认证的端点
                 .anyRequest().authenticated()
@@ -0,0 +1,70 @@
+package com.nexusvoice.infrastructure.config;
+
+import com.nexusvoice.infrastructure.storage.BlobStore;
+import com.nexusvoice.infrastructure.storage.LocalBlobStore;
+import com.nexusvoice.infrastructure.storage.QiniuBlobStore;
+import com.nexusvoice.infrastructure.storage.TieredBlobStore;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 对象存储配置
+ * type 可选：qiniu（默认）、local（仅本地磁盘，离线开发/压测）、tiered（本地优先，异步复制到七牛云）
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "nexusvoice.storage")
+public class StorageConfig {
+
+    /**
+     * 存储类型
+     */
+    private String type = "qiniu";
+
+    /**
+     * 本地存储配置
+     */
+    private Local local = new Local();
+
+    @Bean
+    public BlobStore blobStore(QiniuConfig qiniuConfig,
+                               @Qualifier("virtualThreadExecutor") ExecutorService virtualThreadExecutor) throws IOException {
+        BlobStore store = switch (type.trim().toLowerCase()) {
+            case "local" -> newLocalStore();
+            case "tiered" -> new TieredBlobStore(newLocalStore(), new QiniuBlobStore(qiniuConfig), virtualThreadExecutor);
+            case "qiniu" -> new QiniuBlobStore(qiniuConfig);
+            default -> throw new IllegalStateException("未知的存储类型：" + type + "，可选值：qiniu、local、tiered");
+        };
+        log.info("对象存储已初始化，类型：{}", store.getName());
+        return store;
+    }
+
+    private LocalBlobStore newLocalStore() throws IOException {
+        return new LocalBlobStore(Path.of(local.getRootDir()), local.getPublicBaseUrl());
+    }
+
+    @Data
+    public static class Local {
+        /**
+         * 本地存储根目录
+         */
+        private String rootDir = "./data/blobs";
+
+        /**
+         * 对外访问地址前缀，对应文件下发接口；跨域部署时配置为完整地址
+         */
+        private String publicBaseUrl = "/api/file/blob";
+    }
+}
@@ -1,12 +1,27 @@
     package com.nexusvoice.infrastructure.config;
 
+    import org.springframework.beans.factory.annotation.Qualifier;
+    import org.springframework.beans.factory.annotation.Value;
     import org.springframework.context.annotation.Configuration;
+    import org.springframework.core.task.support.TaskExecutorAdapter;
+    import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
     import org.springframework.web.servlet.config.annotation.CorsRegistry;
     import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+    import java.util.concurrent.ExecutorService;
+
     @Configuration
     public class WebConfig implements WebMvcConfigurer {
 
+        private final ExecutorService virtualThreadExecutor;
+        private final long asyncTimeoutSeconds;
+
+        public WebConfig(@Qualifier("virtualThreadExecutor") ExecutorService virtualThreadExecutor,
+                         @Value("${nexusvoice.web.async-timeout-seconds:300}") long asyncTimeoutSeconds) {
+            this.virtualThreadExecutor = virtualThreadExecutor;
+            this.asyncTimeoutSeconds = asyncTimeoutSeconds;
+        }
+
         @Override
         public void addCorsMappings(CorsRegistry registry) {
             registry.addMapping("/api/**")
@@ -16,4 +31,13 @@
                     .allowCredentials(true) 
                     .maxAge(3600); 
         }
-    }
\ No newline at end of file
+
+        /**
+         * 流式响应（StreamingResponseBody）在虚拟线程上写出，长时间阻塞等待上游音频不占用平台线程
+         */
+        @Override
+        public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+            configurer.setDefaultTimeout(asyncTimeoutSeconds * 1000L);
+        }
+    }
@@ -0,0 +1,92 @@
+package com.nexusvoice.infrastructure.database;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按调用链累计数据库耗时
+ * 一次聊天请求开始时 {@link #begin()}，此后当前线程执行的SQL耗时都累加到同一个 {@link Scope}；
+ * 关联不会被子线程继承（否则会沿线程池、HTTP客户端调度线程等泄漏到无关任务），
+ * 需要计入本轮的其他线程上的工作通过 {@link Scope#attach()} 显式关联。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public final class DbTimeRecorder {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private DbTimeRecorder() {}
+
+    /**
+     * 在当前线程开始一个新的统计范围
+     */
+    public static Scope begin() {
+        Scope scope = new Scope();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static void record(long nanos) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.nanos.add(nanos);
+            scope.statements.increment();
+        }
+    }
+
+    /**
+     * 线程关联句柄，关闭时不抛出受检异常
+     */
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * 一次请求的数据库耗时统计
+     */
+    public static final class Scope implements AutoCloseable {
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+
+        private Scope() {}
+
+        public long elapsedMs() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+        }
+
+        public long elapsedNanos() {
+            return nanos.sum();
+        }
+
+        public long statementCount() {
+            return statements.sum();
+        }
+
+        /**
+         * 在当前线程临时关联到本范围，关闭返回值即恢复原状态
+         */
+        public Binding attach() {
+            Scope previous = CURRENT.get();
+            CURRENT.set(this);
+            return () -> {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            };
+        }
+
+        /**
+         * 结束当前线程上的统计
+         */
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                CURRENT.remove();
+            }
+        }
+    }
+}
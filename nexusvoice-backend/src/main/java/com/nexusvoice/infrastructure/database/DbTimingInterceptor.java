@@ -0,0 +1,67 @@
+package com.nexusvoice.infrastructure.database;
+
+import com.nexusvoice.infrastructure.jfr.DbStatementEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL耗时拦截器
+ * 记录每条语句的执行耗时（按查询/更新区分），并累加到当前调用链的 {@link DbTimeRecorder} 范围中；
+ * JFR录制开启时同时产生 {@link DbStatementEvent}。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class DbTimingInterceptor implements Interceptor {
+
+    private final Timer queryTimer;
+    private final Timer updateTimer;
+
+    public DbTimingInterceptor(MeterRegistry meterRegistry) {
+        this.queryTimer = Timer.builder("nexusvoice.db.statement")
+                .description("SQL语句执行耗时").tag("type", "query").register(meterRegistry);
+        this.updateTimer = Timer.builder("nexusvoice.db.statement")
+                .description("SQL语句执行耗时").tag("type", "update").register(meterRegistry);
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        boolean update = "update".equals(invocation.getMethod().getName());
+        DbStatementEvent event = new DbStatementEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            (update ? updateTimer : queryTimer).record(elapsed, TimeUnit.NANOSECONDS);
+            DbTimeRecorder.record(elapsed);
+            event.end();
+            if (event.shouldCommit()) {
+                event.statement = ((MappedStatement) invocation.getArgs()[0]).getId();
+                event.type = update ? "update" : "query";
+                event.commit();
+            }
+        }
+    }
+}
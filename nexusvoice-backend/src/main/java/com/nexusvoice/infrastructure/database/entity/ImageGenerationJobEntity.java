@@ -0,0 +1,81 @@
+package com.nexusvoice.infrastructure.database.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.nexusvoice.domain.common.BaseEntity;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图像生成任务数据库实体
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("image_generation_jobs")
+public class ImageGenerationJobEntity extends BaseEntity {
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 请求参数哈希
+     */
+    @TableField("request_hash")
+    private String requestHash;
+
+    /**
+     * 图像生成模型
+     */
+    @TableField("model_name")
+    private String modelName;
+
+    /**
+     * 请求参数（JSON格式）
+     */
+    @TableField("request_params")
+    private String requestParams;
+
+    /**
+     * 任务状态
+     */
+    @TableField("status")
+    private String status;
+
+    /**
+     * 已执行次数
+     */
+    @TableField("attempts")
+    private Integer attempts;
+
+    /**
+     * 生成结果（JSON格式）
+     */
+    @TableField("result_payload")
+    private String resultPayload;
+
+    /**
+     * 失败原因
+     */
+    @TableField("error_message")
+    private String errorMessage;
+
+    /**
+     * 开始执行时间
+     */
+    @TableField("started_at")
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    @TableField("finished_at")
+    private LocalDateTime finishedAt;
+}
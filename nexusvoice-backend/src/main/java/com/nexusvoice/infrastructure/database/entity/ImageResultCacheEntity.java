@@ -0,0 +1,63 @@
+package com.nexusvoice.infrastructure.database.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.nexusvoice.domain.common.BaseEntity;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图像生成结果缓存数据库实体
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("image_result_cache")
+public class ImageResultCacheEntity extends BaseEntity {
+
+    /**
+     * 规范化请求的SHA-256
+     */
+    @TableField("cache_key")
+    private String cacheKey;
+
+    /**
+     * 图像生成模型
+     */
+    @TableField("model_name")
+    private String modelName;
+
+    /**
+     * 随机种子
+     */
+    @TableField("seed")
+    private Long seed;
+
+    /**
+     * CDN图像地址列表（JSON数组）
+     */
+    @TableField("image_urls")
+    private String imageUrls;
+
+    /**
+     * 图像尺寸
+     */
+    @TableField("image_size")
+    private String imageSize;
+
+    /**
+     * 命中次数
+     */
+    @TableField("hit_count")
+    private Integer hitCount;
+
+    /**
+     * 最后命中时间
+     */
+    @TableField("last_hit_at")
+    private LocalDateTime lastHitAt;
+}
@@ -0,0 +1,45 @@
+package com.nexusvoice.infrastructure.database.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.nexusvoice.domain.common.BaseEntity;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+
+/**
+ * 用户每日用量数据库实体
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("user_daily_usage")
+public class UserDailyUsageEntity extends BaseEntity {
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 统计日期
+     */
+    @TableField("usage_date")
+    private LocalDate usageDate;
+
+    /**
+     * 大模型令牌数
+     */
+    @TableField("llm_tokens")
+    private Long llmTokens;
+
+    /**
+     * 语音合成字数
+     */
+    @TableField("tts_chars")
+    private Long ttsChars;
+}
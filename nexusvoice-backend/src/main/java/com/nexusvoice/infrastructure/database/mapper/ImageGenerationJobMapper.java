@@ -0,0 +1,40 @@
+package com.nexusvoice.infrastructure.database.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.nexusvoice.infrastructure.database.entity.ImageGenerationJobEntity;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 图像生成任务数据库映射器
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Mapper
+public interface ImageGenerationJobMapper extends BaseMapper<ImageGenerationJobEntity> {
+
+    /**
+     * 统计用户未结束的任务数
+     */
+    @Select("SELECT COUNT(*) FROM image_generation_jobs WHERE user_id = #{userId} " +
+            "AND status IN ('QUEUED', 'RUNNING') AND deleted = 0")
+    Long countActiveByUserId(@Param("userId") Long userId);
+
+    /**
+     * 根据用户ID查找最近的任务
+     */
+    @Select("SELECT * FROM image_generation_jobs WHERE user_id = #{userId} AND deleted = 0 " +
+            "ORDER BY created_at DESC LIMIT #{limit}")
+    List<ImageGenerationJobEntity> findRecentByUserId(@Param("userId") Long userId, @Param("limit") Integer limit);
+
+    /**
+     * 查找所有未结束的任务，按创建时间先后
+     */
+    @Select("SELECT * FROM image_generation_jobs WHERE status IN ('QUEUED', 'RUNNING') AND deleted = 0 " +
+            "ORDER BY created_at ASC LIMIT #{limit}")
+    List<ImageGenerationJobEntity> findUnfinished(@Param("limit") Integer limit);
+}
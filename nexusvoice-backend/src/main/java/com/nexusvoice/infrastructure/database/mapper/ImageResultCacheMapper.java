@@ -0,0 +1,24 @@
+package com.nexusvoice.infrastructure.database.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.nexusvoice.infrastructure.database.entity.ImageResultCacheEntity;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 图像生成结果缓存数据库映射器
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Mapper
+public interface ImageResultCacheMapper extends BaseMapper<ImageResultCacheEntity> {
+
+    /**
+     * 累加命中计数
+     */
+    @Update("UPDATE image_result_cache SET hit_count = hit_count + #{hits}, last_hit_at = NOW() " +
+            "WHERE cache_key = #{cacheKey} AND deleted = 0")
+    void incrementHits(@Param("cacheKey") String cacheKey, @Param("hits") int hits);
+}
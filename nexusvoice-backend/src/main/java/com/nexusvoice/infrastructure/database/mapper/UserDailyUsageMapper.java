@@ -0,0 +1,28 @@
+package com.nexusvoice.infrastructure.database.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.nexusvoice.infrastructure.database.entity.UserDailyUsageEntity;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+
+/**
+ * 用户每日用量数据库映射器
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Mapper
+public interface UserDailyUsageMapper extends BaseMapper<UserDailyUsageEntity> {
+
+    /**
+     * 累加当日用量，记录不存在时插入
+     */
+    @Insert("INSERT INTO user_daily_usage (id, user_id, usage_date, llm_tokens, tts_chars) " +
+            "VALUES (#{id}, #{userId}, #{usageDate}, #{llmTokens}, #{ttsChars}) " +
+            "ON DUPLICATE KEY UPDATE llm_tokens = llm_tokens + VALUES(llm_tokens), tts_chars = tts_chars + VALUES(tts_chars)")
+    void upsertAdd(@Param("id") Long id, @Param("userId") Long userId, @Param("usageDate") LocalDate usageDate,
+                   @Param("llmTokens") long llmTokens, @Param("ttsChars") long ttsChars);
+}
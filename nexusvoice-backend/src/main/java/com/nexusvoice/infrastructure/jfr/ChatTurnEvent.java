@@ -0,0 +1,47 @@
+package com.nexusvoice.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR事件：单轮对话（开始于收到请求，结束于回复落库或出错）
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Name("nexusvoice.ChatTurn")
+@Label("Chat Turn")
+@Category({"NexusVoice", "Chat"})
+@Description("单轮对话的完整耗时")
+@StackTrace(false)
+public class ChatTurnEvent extends Event {
+
+    @Label("Channel")
+    @Description("请求通道：ws / http")
+    public String channel;
+
+    @Label("User ID")
+    public long userId;
+
+    @Label("Conversation ID")
+    public long conversationId;
+
+    @Label("Model")
+    public String model;
+
+    @Label("Time To First Token")
+    @Timespan(Timespan.MILLISECONDS)
+    public long ttft;
+
+    @Label("DB Time")
+    @Timespan(Timespan.MILLISECONDS)
+    public long dbTime;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,33 @@
+package com.nexusvoice.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR事件：一次MyBatis执行（查询或批量更新）
+ * 默认阈值1ms，可在录制配置中调低以查看全部语句。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Name("nexusvoice.DbStatement")
+@Label("DB Statement")
+@Category({"NexusVoice", "Database"})
+@Description("MyBatis执行一条映射语句")
+@Threshold("1 ms")
+@StackTrace(false)
+public class DbStatementEvent extends Event {
+
+    @Label("Statement")
+    @Description("Mapper语句ID")
+    public String statement;
+
+    @Label("Type")
+    @Description("query / update")
+    public String type;
+}
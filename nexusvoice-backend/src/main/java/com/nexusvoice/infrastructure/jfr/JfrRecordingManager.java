@@ -0,0 +1,190 @@
+package com.nexusvoice.infrastructure.jfr;
+
+import com.nexusvoice.enums.ErrorCodeEnum;
+import com.nexusvoice.exception.BizException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按需JFR录制管理
+ * 录制均有时长与大小上限，到时自动停止；同一时刻进行中的录制数量受限。
+ * 除JDK自带事件（含虚拟线程固定 jdk.VirtualThreadPinned）外，始终启用本应用的自定义事件。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Component
+public class JfrRecordingManager {
+
+    private static final List<Class<? extends jdk.jfr.Event>> APP_EVENTS = List.of(
+            ChatTurnEvent.class, UpstreamFirstTokenEvent.class, TtsSegmentSynthEvent.class,
+            UploadEvent.class, DbStatementEvent.class);
+
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+    private final int maxActive;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+
+    public JfrRecordingManager(@Value("${nexusvoice.jfr.max-active:1}") int maxActive,
+                               @Value("${nexusvoice.jfr.max-duration-seconds:600}") long maxDurationSeconds,
+                               @Value("${nexusvoice.jfr.max-size-mb:200}") long maxSizeMb) {
+        this.maxActive = Math.max(1, maxActive);
+        this.maxDuration = Duration.ofSeconds(Math.max(1, maxDurationSeconds));
+        this.maxSizeBytes = Math.max(1, maxSizeMb) * 1024 * 1024;
+    }
+
+    /**
+     * 录制信息
+     */
+    public record RecordingInfo(long id, String name, String state,
+                                Instant startTime, long durationSeconds, long sizeBytes) {
+    }
+
+    /**
+     * 开始录制
+     *
+     * @param durationSeconds 录制时长，超过上限按上限处理
+     * @param settings        JDK预置配置：default（开销约1%）或 profile（含更多采样，开销约2%）
+     */
+    public synchronized RecordingInfo start(long durationSeconds, String settings) {
+        long active = recordings.values().stream().filter(r -> r.getState() == RecordingState.RUNNING).count();
+        if (active >= maxActive) {
+            throw BizException.of(ErrorCodeEnum.TOO_MANY_REQUESTS, "已有进行中的JFR录制，请先停止");
+        }
+        String configName = settings == null || settings.isBlank() ? "profile" : settings.trim();
+        if (!"default".equals(configName) && !"profile".equals(configName)) {
+            throw BizException.of(ErrorCodeEnum.PARAM_ERROR, "settings仅支持default或profile");
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(configName);
+        } catch (IOException | ParseException e) {
+            throw BizException.of(ErrorCodeEnum.INTERNAL_SERVER_ERROR, "加载JFR配置失败：" + e.getMessage(), e);
+        }
+        Duration duration = durationSeconds > 0
+                ? Duration.ofSeconds(Math.min(durationSeconds, maxDuration.getSeconds()))
+                : maxDuration;
+
+        Recording recording = new Recording(configuration);
+        recording.setName("nexusvoice-" + configName + "-" + System.currentTimeMillis());
+        recording.setDuration(duration);
+        recording.setMaxSize(maxSizeBytes);
+        recording.setToDisk(true);
+        for (Class<? extends jdk.jfr.Event> event : APP_EVENTS) {
+            recording.enable(event);
+        }
+        recording.enable("jdk.VirtualThreadPinned").withStackTrace();
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        evictStoppedBeyondLimit();
+        log.info("JFR录制已开始，ID：{}，配置：{}，时长：{}s", recording.getId(), configName, duration.getSeconds());
+        return toInfo(recording);
+    }
+
+    /**
+     * 提前停止录制（数据保留可供下载）
+     */
+    public RecordingInfo stop(long id) {
+        Recording recording = require(id);
+        if (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED) {
+            recording.stop();
+            log.info("JFR录制已停止，ID：{}", id);
+        }
+        return toInfo(recording);
+    }
+
+    public List<RecordingInfo> list() {
+        return recordings.values().stream()
+                .sorted(Comparator.comparingLong(Recording::getId))
+                .map(JfrRecordingManager::toInfo)
+                .toList();
+    }
+
+    /**
+     * 将录制内容导出到临时文件（调用方负责删除）；录制进行中时导出截至当前的数据
+     */
+    public Path dump(long id) throws IOException {
+        Recording recording = require(id);
+        if (recording.getState() == RecordingState.NEW || recording.getState() == RecordingState.CLOSED) {
+            throw BizException.of(ErrorCodeEnum.DATA_NOT_FOUND, "录制尚无可下载的数据");
+        }
+        Path file = Files.createTempFile("nexusvoice-" + id + "-", ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * 删除录制并释放磁盘空间
+     */
+    public void delete(long id) {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            throw BizException.of(ErrorCodeEnum.DATA_NOT_FOUND, "JFR录制不存在：" + id);
+        }
+        recording.close();
+        log.info("JFR录制已删除，ID：{}", id);
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+    }
+
+    private Recording require(long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw BizException.of(ErrorCodeEnum.DATA_NOT_FOUND, "JFR录制不存在：" + id);
+        }
+        return recording;
+    }
+
+    /**
+     * 已停止的录制在被删除前一直保留数据；只保留最近的若干份，避免占满临时目录
+     */
+    private void evictStoppedBeyondLimit() {
+        List<Recording> stopped = recordings.values().stream()
+                .filter(r -> r.getState() == RecordingState.STOPPED)
+                .sorted(Comparator.comparingLong(Recording::getId))
+                .toList();
+        int excess = stopped.size() - maxActive * 2;
+        for (int i = 0; i < excess; i++) {
+            Recording old = stopped.get(i);
+            recordings.remove(old.getId());
+            old.close();
+        }
+    }
+
+    private static RecordingInfo toInfo(Recording recording) {
+        Duration duration = recording.getDuration();
+        return new RecordingInfo(
+                recording.getId(),
+                recording.getName(),
+                recording.getState().name(),
+                recording.getStartTime(),
+                duration != null ? duration.getSeconds() : 0,
+                recording.getSize());
+    }
+}
@@ -0,0 +1,43 @@
+package com.nexusvoice.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：单段TTS上游合成（不含调度排队）
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Name("nexusvoice.TtsSegmentSynth")
+@Label("TTS Segment Synthesis")
+@Category({"NexusVoice", "TTS"})
+@Description("单段文本的上游语音合成")
+@StackTrace(false)
+public class TtsSegmentSynthEvent extends Event {
+
+    @Label("Voice Type")
+    public String voiceType;
+
+    @Label("Encoding")
+    public String encoding;
+
+    @Label("Characters")
+    public int chars;
+
+    @Label("Audio Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Streaming")
+    @Description("分片到达即转发，而非合成完整音频")
+    public boolean streaming;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,31 @@
+package com.nexusvoice.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：写入对象存储
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Name("nexusvoice.Upload")
+@Label("Blob Upload")
+@Category({"NexusVoice", "Storage"})
+@Description("文件写入对象存储（去重命中时不产生该事件）")
+@StackTrace(false)
+public class UploadEvent extends Event {
+
+    @Label("File Key")
+    public String fileKey;
+
+    @Label("Content Type")
+    public String contentType;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,25 @@
+package com.nexusvoice.infrastructure.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：从发起流式生成到收到上游首个token
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Name("nexusvoice.UpstreamFirstToken")
+@Label("Upstream First Token")
+@Category({"NexusVoice", "Chat"})
+@Description("LLM流式生成的首token等待")
+@StackTrace(false)
+public class UpstreamFirstTokenEvent extends Event {
+
+    @Label("Model")
+    public String model;
+}
@@ -0,0 +1,171 @@
+package com.nexusvoice.infrastructure.metrics;
+
+import com.nexusvoice.infrastructure.jfr.ChatTurnEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 单轮对话的分阶段耗时
+ * 各阶段在哪个线程完成都可以记录；同名阶段多次记录时累加。
+ * 结束时可导出为有序Map返回给客户端，并按阶段汇总到 {@code nexusvoice.chat.turn.stage} 指标；
+ * JFR录制开启时，整轮对话同时作为一个 {@link ChatTurnEvent} 提交。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public final class TurnTiming {
+
+    public static final String CONVERSATION_LOAD = "conversationLoad";
+    public static final String ACCESS_CHECK = "accessCheck";
+    public static final String ROLE_LOAD = "roleLoad";
+    public static final String HISTORY_LOAD = "historyLoad";
+    public static final String SEARCH = "search";
+    public static final String PROMPT_BUILD = "promptBuild";
+    public static final String TTFT = "ttft";
+    public static final String GENERATION = "generation";
+    public static final String TTS_FIRST_SEGMENT = "ttsFirstSegment";
+    public static final String TTS = "tts";
+    public static final String PERSISTENCE = "persistence";
+    public static final String DB = "db";
+    public static final String TOTAL = "total";
+
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<String, Long> stages = new LinkedHashMap<>();
+    private final ChatTurnEvent event = new ChatTurnEvent();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile boolean success;
+
+    public TurnTiming() {
+        event.begin();
+    }
+
+    /**
+     * 记录本轮对话的归属，用于JFR事件
+     */
+    public void identify(Long userId, Long conversationId, String model) {
+        event.userId = userId != null ? userId : 0;
+        event.conversationId = conversationId != null ? conversationId : 0;
+        event.model = model;
+    }
+
+    /**
+     * 标记本轮对话成功完成
+     */
+    public void markSuccess() {
+        success = true;
+    }
+
+    /**
+     * 计时执行一个阶段
+     */
+    public <T> T time(String stage, Supplier<T> work) {
+        long start = System.currentTimeMillis();
+        try {
+            return work.get();
+        } finally {
+            add(stage, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 计时执行一个无返回值的阶段
+     */
+    public void run(String stage, Runnable work) {
+        long start = System.currentTimeMillis();
+        try {
+            work.run();
+        } finally {
+            add(stage, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 记录从 sinceMs 到现在的耗时
+     */
+    public void markSince(String stage, long sinceMs) {
+        add(stage, System.currentTimeMillis() - sinceMs);
+    }
+
+    /**
+     * 记录已知耗时；负数忽略
+     */
+    public synchronized void add(String stage, long elapsedMs) {
+        if (elapsedMs >= 0) {
+            stages.merge(stage, elapsedMs, Long::sum);
+        }
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long elapsedMs() {
+        return System.currentTimeMillis() - startedAt;
+    }
+
+    /**
+     * 导出当前各阶段耗时（含截至此刻的总耗时）
+     */
+    public synchronized Map<String, Long> snapshot() {
+        Map<String, Long> copy = new LinkedHashMap<>(stages);
+        copy.putIfAbsent(TOTAL, elapsedMs());
+        return copy;
+    }
+
+    /**
+     * 将各阶段耗时汇总到指标
+     *
+     * @param channel 请求通道（ws/http）
+     */
+    public void record(MeterRegistry meterRegistry, String channel) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        Map<String, Long> snapshot = snapshot();
+        snapshot.forEach((stage, ms) -> Timer.builder("nexusvoice.chat.turn.stage")
+                .description("单轮对话各阶段耗时")
+                .tag("channel", channel)
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(ms, TimeUnit.MILLISECONDS));
+        commitEvent(channel, snapshot);
+    }
+
+    /**
+     * 结束本轮但不计入阶段指标（出错中断的流式对话），只提交JFR事件
+     */
+    public void abandon(String channel) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        commitEvent(channel, snapshot());
+    }
+
+    /**
+     * 结束本轮：已标记成功的计入阶段指标，否则按 {@link #abandon(String)} 处理，避免失败请求拉低各阶段耗时分布
+     */
+    public void finish(MeterRegistry meterRegistry, String channel) {
+        if (success) {
+            record(meterRegistry, channel);
+        } else {
+            abandon(channel);
+        }
+    }
+
+    private void commitEvent(String channel, Map<String, Long> snapshot) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.channel = channel;
+            event.ttft = snapshot.getOrDefault(TTFT, 0L);
+            event.dbTime = snapshot.getOrDefault(DB, 0L);
+            event.success = success;
+            event.commit();
+        }
+    }
+}
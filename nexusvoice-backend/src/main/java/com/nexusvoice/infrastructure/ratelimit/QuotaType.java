@@ -0,0 +1,30 @@
+package com.nexusvoice.infrastructure.ratelimit;
+
+/**
+ * 每日用量配额类型
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public enum QuotaType {
+
+    /**
+     * 大模型令牌数
+     */
+    LLM_TOKENS("大模型令牌"),
+
+    /**
+     * 语音合成字数
+     */
+    TTS_CHARS("语音合成字数");
+
+    private final String description;
+
+    QuotaType(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,206 @@
+package com.nexusvoice.infrastructure.ratelimit;
+
+import com.nexusvoice.domain.user.repository.UserDailyUsageRepository;
+import com.nexusvoice.infrastructure.config.RateLimitConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户每日用量统计
+ * 用量在内存中按用户累加，定期把增量写回数据库；某用户当天首次使用时从数据库读取已有用量，
+ * 重启或多实例部署时配额仍按当天累计值计算（多实例间有一个写回周期的延迟）。
+ * 配额属于软限制：只在请求开始前检查是否仍有余量，进行中的请求用完后照常计入。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Component
+public class UsageQuotaService {
+
+    private final RateLimitConfig config;
+    private final UserDailyUsageRepository userDailyUsageRepository;
+    private final Map<Long, DailyUsage> usages = new ConcurrentHashMap<>();
+    // 跨天后被替换、尚有未写回增量的旧记录
+    private final Queue<DailyUsage> retired = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("nv-usage-flush").factory());
+
+    public UsageQuotaService(RateLimitConfig config, UserDailyUsageRepository userDailyUsageRepository) {
+        this.config = config;
+        this.userDailyUsageRepository = userDailyUsageRepository;
+    }
+
+    /**
+     * 构造完成后再启动定期写回，避免写回任务看到未初始化完的对象
+     */
+    @PostConstruct
+    public void startFlusher() {
+        long interval = Math.max(1, config.getQuota().getFlushIntervalSeconds());
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 计入大模型令牌用量
+     */
+    public void recordLlmTokens(Long userId, long tokens) {
+        if (!config.isEnabled() || userId == null || tokens <= 0) {
+            return;
+        }
+        DailyUsage usage = usageOf(userId);
+        usage.llmTokens.addAndGet(tokens);
+        usage.pendingLlmTokens.addAndGet(tokens);
+    }
+
+    /**
+     * 计入语音合成字数
+     */
+    public void recordTtsChars(Long userId, long chars) {
+        if (!config.isEnabled() || userId == null || chars <= 0) {
+            return;
+        }
+        DailyUsage usage = usageOf(userId);
+        usage.ttsChars.addAndGet(chars);
+        usage.pendingTtsChars.addAndGet(chars);
+    }
+
+    /**
+     * 当日剩余配额；未配置上限时返回Long.MAX_VALUE
+     */
+    public long remaining(Long userId, QuotaType type) {
+        long limit = limitOf(type);
+        if (limit <= 0 || userId == null) {
+            return Long.MAX_VALUE;
+        }
+        DailyUsage usage = usageOf(userId);
+        long used = type == QuotaType.LLM_TOKENS ? usage.llmTokens.get() : usage.ttsChars.get();
+        return Math.max(0, limit - used);
+    }
+
+    /**
+     * 距离配额重置（次日零点）的秒数
+     */
+    public long secondsUntilReset() {
+        LocalDateTime now = LocalDateTime.now();
+        return Math.max(1, Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toSeconds());
+    }
+
+    private long limitOf(QuotaType type) {
+        RateLimitConfig.Quota quota = config.getQuota();
+        return type == QuotaType.LLM_TOKENS ? quota.getDailyLlmTokens() : quota.getDailyTtsChars();
+    }
+
+    private DailyUsage usageOf(Long userId) {
+        LocalDate today = LocalDate.now();
+        DailyUsage current = usages.get(userId);
+        if (current != null && current.date.equals(today)) {
+            return current;
+        }
+        // 数据库读取放在compute之外，避免持有哈希桶锁期间做IO
+        DailyUsage loaded = load(userId, today);
+        return usages.compute(userId, (k, existing) -> {
+            if (existing != null && existing.date.equals(today)) {
+                return existing;
+            }
+            if (existing != null) {
+                retired.add(existing);
+            }
+            return loaded;
+        });
+    }
+
+    private DailyUsage load(Long userId, LocalDate date) {
+        DailyUsage usage = new DailyUsage(userId, date);
+        try {
+            userDailyUsageRepository.findByUserIdAndDate(userId, date).ifPresent(persisted -> {
+                usage.llmTokens.set(valueOf(persisted.getLlmTokens()));
+                usage.ttsChars.set(valueOf(persisted.getTtsChars()));
+            });
+        } catch (Exception e) {
+            log.warn("读取用户当日用量失败，按0计算，用户ID：{}，错误：{}", userId, e.getMessage());
+        }
+        return usage;
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * 把各用户的增量写回数据库，写入失败的增量保留到下一轮；顺带清理已跨天且无待写回增量的记录
+     */
+    void flush() {
+        DailyUsage old;
+        while ((old = retired.poll()) != null) {
+            write(old);
+        }
+        LocalDate today = LocalDate.now();
+        for (DailyUsage usage : usages.values()) {
+            write(usage);
+            if (!usage.date.equals(today) && !usage.hasPending()) {
+                usages.remove(usage.userId, usage);
+            }
+        }
+    }
+
+    private void write(DailyUsage usage) {
+        long llmTokens = usage.pendingLlmTokens.getAndSet(0);
+        long ttsChars = usage.pendingTtsChars.getAndSet(0);
+        if (llmTokens == 0 && ttsChars == 0) {
+            return;
+        }
+        try {
+            userDailyUsageRepository.addUsage(usage.userId, usage.date, llmTokens, ttsChars);
+        } catch (Exception e) {
+            usage.pendingLlmTokens.addAndGet(llmTokens);
+            usage.pendingTtsChars.addAndGet(ttsChars);
+            log.warn("写回用户用量失败，将在下次重试，用户ID：{}，错误：{}", usage.userId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 单个用户某一天的用量：累计值用于配额检查，待写回增量由定时任务清零
+     */
+    private static final class DailyUsage {
+        private final Long userId;
+        private final LocalDate date;
+        private final AtomicLong llmTokens = new AtomicLong();
+        private final AtomicLong ttsChars = new AtomicLong();
+        private final AtomicLong pendingLlmTokens = new AtomicLong();
+        private final AtomicLong pendingTtsChars = new AtomicLong();
+
+        DailyUsage(Long userId, LocalDate date) {
+            this.userId = userId;
+            this.date = date;
+        }
+
+        boolean hasPending() {
+            return pendingLlmTokens.get() != 0 || pendingTtsChars.get() != 0;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.nexusvoice.infrastructure.ratelimit;
+
+import com.nexusvoice.enums.ErrorCodeEnum;
+import com.nexusvoice.exception.RateLimitedException;
+import com.nexusvoice.infrastructure.config.RateLimitConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户级令牌桶限流
+ * 每个（预算，用户）一个桶，以GCRA形式实现：桶状态只有一个“理论到达时间”，
+ * 请求在其不超过 now + 容忍度 时放行并后移一个发放间隔，整个过程是对单个AtomicLong的CAS，无锁。
+ * 一次请求可以按成本消耗多个令牌（如批量生图按张数），此时后移 成本 × 发放间隔。
+ * 桶按预算分表存放（ConcurrentHashMap本身按哈希桶分段），已回满的桶与新建桶等价，定期清除以控制内存。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Component
+public class UserRateLimiter {
+
+    public static final String CHAT = "chat";
+    public static final String TTS = "tts";
+    public static final String IMAGE = "image";
+
+    /**
+     * 每放行这么多次请求清理一次已回满的桶
+     */
+    private static final int SWEEP_EVERY = 4096;
+
+    private final RateLimitConfig config;
+    private final UsageQuotaService usageQuotaService;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<Long, AtomicLong>> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong admitted = new AtomicLong();
+
+    public UserRateLimiter(RateLimitConfig config, UsageQuotaService usageQuotaService, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.usageQuotaService = usageQuotaService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 准入检查：先检查每日配额余量，再消耗一个请求令牌
+     *
+     * @param budget 预算名称
+     * @param userId 用户ID（为null时不限制）
+     * @param admin  是否管理员
+     * @param quotas 需要仍有余量的配额
+     * @throws RateLimitedException 配额用尽或请求过于频繁
+     */
+    public void admit(String budget, Long userId, boolean admin, QuotaType... quotas) {
+        admit(budget, userId, admin, 1, quotas);
+    }
+
+    /**
+     * 准入检查：先检查每日配额余量，再按成本消耗令牌
+     *
+     * @param budget 预算名称
+     * @param userId 用户ID（为null时不限制）
+     * @param admin  是否管理员
+     * @param cost   本次请求消耗的令牌数（小于1按1计，超过桶容量按桶容量计）
+     * @param quotas 需要仍有余量的配额
+     * @throws RateLimitedException 配额用尽或请求过于频繁
+     */
+    public void admit(String budget, Long userId, boolean admin, int cost, QuotaType... quotas) {
+        if (isExempt(userId, admin)) {
+            return;
+        }
+        for (QuotaType quota : quotas) {
+            if (usageQuotaService.remaining(userId, quota) <= 0) {
+                rejected(budget, "quota").increment();
+                log.info("用户当日{}配额已用尽，用户ID：{}，预算：{}", quota.getDescription(), userId, budget);
+                throw new RateLimitedException(ErrorCodeEnum.USER_QUOTA_EXCEEDED,
+                        "今日" + quota.getDescription() + "额度已用完，次日零点重置", usageQuotaService.secondsUntilReset());
+            }
+        }
+        long waitMs = tryAcquire(budget, userId, cost);
+        if (waitMs > 0) {
+            rejected(budget, "rate").increment();
+            long retryAfterSeconds = (waitMs + 999) / 1000;
+            log.info("用户请求过于频繁，用户ID：{}，预算：{}，建议等待：{}s", userId, budget, retryAfterSeconds);
+            throw new RateLimitedException(ErrorCodeEnum.TOO_MANY_REQUESTS,
+                    "请求过于频繁，请在" + retryAfterSeconds + "秒后重试", retryAfterSeconds);
+        }
+    }
+
+    /**
+     * 用户当日是否仍有指定配额余量（管理员免检时始终为true）
+     */
+    public boolean hasQuota(Long userId, boolean admin, QuotaType quota) {
+        return isExempt(userId, admin) || usageQuotaService.remaining(userId, quota) > 0;
+    }
+
+    private boolean isExempt(Long userId, boolean admin) {
+        return !config.isEnabled() || userId == null || (admin && config.isExemptAdmins());
+    }
+
+    /**
+     * 尝试消耗cost个令牌
+     * 成本超过桶容量时按桶容量计，否则这类请求永远无法放行
+     *
+     * @return 0表示放行，否则为所需令牌可用前需要等待的毫秒数
+     */
+    long tryAcquire(String budgetName, Long userId, int cost) {
+        RateLimitConfig.Budget budget = config.budgetFor(budgetName);
+        if (budget == null || budget.getPerMinute() <= 0) {
+            return 0;
+        }
+        int capacity = Math.max(1, budget.getCapacity());
+        int tokens = Math.min(Math.max(1, cost), capacity);
+        long intervalMs = Math.max(1, (long) (60_000 / budget.getPerMinute()));
+        long toleranceMs = intervalMs * (capacity - 1);
+        long extraMs = intervalMs * (tokens - 1);
+        Map<Long, AtomicLong> table = buckets.computeIfAbsent(budgetName, k -> new ConcurrentHashMap<>());
+        AtomicLong theoreticalArrival = table.computeIfAbsent(userId, k -> new AtomicLong());
+
+        long now = System.currentTimeMillis();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long start = Math.max(tat, now);
+            if (start + extraMs - now > toleranceMs) {
+                return start + extraMs - now - toleranceMs;
+            }
+            if (theoreticalArrival.compareAndSet(tat, start + intervalMs * tokens)) {
+                break;
+            }
+        }
+        if (admitted.incrementAndGet() % SWEEP_EVERY == 0) {
+            sweep(now);
+        }
+        return 0;
+    }
+
+    /**
+     * 清除已回满的桶；与并发请求竞争时最多多放行一次，可以接受
+     */
+    private void sweep(long now) {
+        int before = buckets.values().stream().mapToInt(Map::size).sum();
+        buckets.values().forEach(table -> table.values().removeIf(tat -> tat.get() <= now));
+        log.debug("清理已回满的限流桶：{} -> {}", before, buckets.values().stream().mapToInt(Map::size).sum());
+    }
+
+    private Counter rejected(String budget, String reason) {
+        return Counter.builder("nexusvoice.ratelimit.rejected")
+                .description("被用户级限流拒绝的请求数")
+                .tag("budget", budget)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,290 @@
+package com.nexusvoice.infrastructure.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nexusvoice.domain.image.model.ImageGenerationRequest;
+import com.nexusvoice.domain.image.model.ImageGenerationResult;
+import com.nexusvoice.domain.image.model.ImageResultCache;
+import com.nexusvoice.domain.image.repository.ImageGenerationRepository;
+import com.nexusvoice.domain.image.repository.ImageResultCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图像生成结果缓存装饰器
+ * 指定种子时请求结果是确定的：按完整的规范化请求（模型、提示词、负向提示词、尺寸、批量、步数、引导比例/CFG、种子、输入图像）
+ * 计算缓存键，先查本地缓存再查数据库，命中直接返回已转存的CDN地址；未命中时相同请求并发提交只会调用一次上游。
+ * 未指定种子的请求直接透传。命中次数在内存中累加，定期批量写回数据库。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Primary
+@Repository
+public class CachingImageGenerationRepository implements ImageGenerationRepository {
+
+    private final SiliconFlowImageGenerationRepositoryImpl delegate;
+    private final ImageResultCacheRepository imageResultCacheRepository;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Cache<String, ImageResultCache> localCache;
+    private final ConcurrentMap<String, CompletableFuture<ImageGenerationResult>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> pendingHits = new ConcurrentHashMap<>();
+    private final long hitFlushSeconds;
+    private ScheduledExecutorService hitFlusher;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter coalescedCounter;
+    private final Counter bypassCounter;
+
+    public CachingImageGenerationRepository(SiliconFlowImageGenerationRepositoryImpl delegate,
+                                            ImageResultCacheRepository imageResultCacheRepository,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${nexusvoice.image.cache.enabled:true}") boolean enabled,
+                                            @Value("${nexusvoice.image.cache.ttl-days:30}") long ttlDays,
+                                            @Value("${nexusvoice.image.cache.local-max-size:500}") long localMaxSize,
+                                            @Value("${nexusvoice.image.cache.hit-flush-seconds:30}") long hitFlushSeconds) {
+        this.delegate = delegate;
+        this.hitFlushSeconds = Math.max(1, hitFlushSeconds);
+        this.imageResultCacheRepository = imageResultCacheRepository;
+        this.enabled = enabled;
+        this.ttl = Duration.ofDays(Math.max(1, ttlDays));
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, localMaxSize))
+                .expireAfterWrite(Duration.ofHours(1))
+                .build();
+        this.hitCounter = counter(meterRegistry, "hit");
+        this.missCounter = counter(meterRegistry, "miss");
+        this.coalescedCounter = counter(meterRegistry, "coalesced");
+        this.bypassCounter = counter(meterRegistry, "bypass");
+        log.info("图像结果缓存{}，TTL={}天，本地容量={}", enabled ? "已启用" : "未启用", ttl.toDays(), localMaxSize);
+    }
+
+    @PostConstruct
+    public void start() {
+        hitFlusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("nv-image-cache-hits").factory());
+        hitFlusher.scheduleWithFixedDelay(this::flushHits, hitFlushSeconds, hitFlushSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (hitFlusher != null) {
+            hitFlusher.shutdownNow();
+        }
+        flushHits();
+    }
+
+    @Override
+    public ImageGenerationResult generateImage(ImageGenerationRequest request) {
+        if (!enabled || request.getSeed() == null) {
+            bypassCounter.increment();
+            return delegate.generateImage(request);
+        }
+
+        long start = System.currentTimeMillis();
+        String key = cacheKey(request);
+        Optional<ImageResultCache> cached = lookup(key);
+        if (cached.isPresent()) {
+            hitCounter.increment();
+            recordHit(key);
+            log.info("图像结果缓存命中，模型: {}, 种子: {}", request.getModel().getModelName(), request.getSeed());
+            return toResult(cached.get(), System.currentTimeMillis() - start);
+        }
+
+        CompletableFuture<ImageGenerationResult> created = new CompletableFuture<>();
+        CompletableFuture<ImageGenerationResult> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalescedCounter.increment();
+            log.info("相同图像生成请求正在进行，等待其结果，种子: {}", request.getSeed());
+            return copyOf(join(existing));
+        }
+
+        missCounter.increment();
+        try {
+            ImageGenerationResult result = delegate.generateImage(request);
+            if (result != null && result.isSuccess()) {
+                store(key, request, result);
+            }
+            created.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    @Override
+    public boolean isServiceAvailable() {
+        return delegate.isServiceAvailable();
+    }
+
+    @Override
+    public List<String> getSupportedModels() {
+        return delegate.getSupportedModels();
+    }
+
+    @Override
+    public boolean validateApiKey(String apiKey) {
+        return delegate.validateApiKey(apiKey);
+    }
+
+    private Optional<ImageResultCache> lookup(String key) {
+        ImageResultCache local = localCache.getIfPresent(key);
+        if (local != null) {
+            return Optional.of(local);
+        }
+        try {
+            Optional<ImageResultCache> stored = imageResultCacheRepository.findByCacheKey(
+                    key, LocalDateTime.now().minus(ttl));
+            stored.ifPresent(entry -> localCache.put(key, entry));
+            return stored;
+        } catch (Exception e) {
+            // 缓存不可用不影响生成
+            log.warn("查询图像结果缓存失败：{}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void store(String key, ImageGenerationRequest request, ImageGenerationResult result) {
+        ImageResultCache entry = new ImageResultCache();
+        entry.setCacheKey(key);
+        entry.setModelName(request.getModel().getModelName());
+        entry.setSeed(request.getSeed());
+        entry.setImageUrls(new ArrayList<>(result.getImageUrls()));
+        entry.setImageSize(result.getImageSize());
+        entry.setHitCount(0);
+        localCache.put(key, entry);
+        try {
+            imageResultCacheRepository.saveOrRefresh(entry);
+        } catch (Exception e) {
+            log.warn("写入图像结果缓存失败：{}", e.getMessage());
+        }
+    }
+
+    private void recordHit(String key) {
+        pendingHits.merge(key, 1, Integer::sum);
+    }
+
+    /**
+     * 把累加的命中次数写回数据库；remove与merge对同一键是原子的，写回期间的新命中计入下一轮
+     */
+    private void flushHits() {
+        for (String key : pendingHits.keySet()) {
+            Integer hits = pendingHits.remove(key);
+            if (hits == null) {
+                continue;
+            }
+            try {
+                imageResultCacheRepository.recordHits(key, hits);
+            } catch (Exception e) {
+                log.debug("记录图像结果缓存命中失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    private static ImageGenerationResult join(CompletableFuture<ImageGenerationResult> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    private static ImageGenerationResult toResult(ImageResultCache entry, long elapsedMs) {
+        ImageGenerationResult result = new ImageGenerationResult(new ArrayList<>(entry.getImageUrls()));
+        result.setUsedSeed(entry.getSeed());
+        result.setImageSize(entry.getImageSize());
+        result.setModelName(entry.getModelName());
+        result.setGenerationTime(elapsedMs);
+        return result;
+    }
+
+    /**
+     * 返回副本，避免等待同一结果的调用方互相修改图像列表
+     */
+    private static ImageGenerationResult copyOf(ImageGenerationResult source) {
+        if (source == null) {
+            return null;
+        }
+        ImageGenerationResult copy = new ImageGenerationResult(
+                source.getImageUrls() != null ? new ArrayList<>(source.getImageUrls()) : new ArrayList<>());
+        copy.setUsedSeed(source.getUsedSeed());
+        copy.setGenerationTime(source.getGenerationTime());
+        copy.setRawResponse(source.getRawResponse());
+        copy.setImageCount(source.getImageCount());
+        copy.setImageSize(source.getImageSize());
+        copy.setModelName(source.getModelName());
+        return copy;
+    }
+
+    /**
+     * 规范化请求的SHA-256：字段按固定顺序以分隔符拼接，提示词去除首尾空白，输入图像（可能是Base64）先单独摘要
+     */
+    static String cacheKey(ImageGenerationRequest request) {
+        StringBuilder sb = new StringBuilder(256);
+        append(sb, request.getModel() != null ? request.getModel().getModelName() : null);
+        append(sb, request.getPrompt() != null ? request.getPrompt().trim() : null);
+        append(sb, request.getNegativePrompt() != null ? request.getNegativePrompt().trim() : null);
+        append(sb, request.getImageSize() != null ? request.getImageSize().getSize() : null);
+        append(sb, request.getBatchSize());
+        append(sb, request.getNumInferenceSteps());
+        append(sb, request.getGuidanceScale());
+        append(sb, request.getCfg());
+        append(sb, request.getSeed());
+        append(sb, request.getInputImage() != null ? sha256(request.getInputImage()) : null);
+        append(sb, request.getInputImage2() != null ? sha256(request.getInputImage2()) : null);
+        append(sb, request.getInputImage3() != null ? sha256(request.getInputImage3()) : null);
+        return sha256(sb.toString());
+    }
+
+    private static void append(StringBuilder sb, Object value) {
+        String text = value == null ? "" : value.toString();
+        // 长度前缀，避免字段拼接产生歧义
+        sb.append(text.length()).append(':').append(text).append('|');
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("nexusvoice.image.cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -190,9 +190,9 @@ public class ConversationMessageRepositoryImpl implements ConversationMessageRep
     }
 
     /**
-     * 将领域对象转换为数据库实体
+     * 将领域对象转换为数据库实体（包级可见，供基准测试直接调用）
      */
-    private ConversationMessageEntity convertToEntity(ConversationMessage message) {
+    ConversationMessageEntity convertToEntity(ConversationMessage message) {
         ConversationMessageEntity entity = new ConversationMessageEntity();
         BeanUtils.copyProperties(message, entity);
         
@@ -206,7 +206,7 @@ public class ConversationMessageRepositoryImpl implements ConversationMessageRep
     /**
      * 将数据库实体转换为领域对象
      */
-    private ConversationMessage convertToDomain(ConversationMessageEntity entity) {
+    ConversationMessage convertToDomain(ConversationMessageEntity entity) {
         ConversationMessage message = new ConversationMessage();
         BeanUtils.copyProperties(entity, message);
         
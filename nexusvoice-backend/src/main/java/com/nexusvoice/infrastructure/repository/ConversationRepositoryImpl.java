@@ -170,9 +170,9 @@ public class ConversationRepositoryImpl implements ConversationRepository {
     }
 
     /**
-     * 将领域对象转换为数据库实体
+     * 将领域对象转换为数据库实体（包级可见，供基准测试直接调用）
      */
-    private ConversationEntity convertToEntity(Conversation conversation) {
+    ConversationEntity convertToEntity(Conversation conversation) {
         ConversationEntity entity = new ConversationEntity();
         BeanUtils.copyProperties(conversation, entity);
         
@@ -186,7 +186,7 @@ public class ConversationRepositoryImpl implements ConversationRepository {
     /**
      * 将数据库实体转换为领域对象
      */
-    private Conversation convertToDomain(ConversationEntity entity) {
+    Conversation convertToDomain(ConversationEntity entity) {
         Conversation conversation = new Conversation();
         BeanUtils.copyProperties(entity, conversation);
         
@@ -0,0 +1,127 @@
+package com.nexusvoice.infrastructure.repository;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.nexusvoice.domain.image.constant.ImageJobStatus;
+import com.nexusvoice.domain.image.model.ImageGenerationJob;
+import com.nexusvoice.domain.image.repository.ImageGenerationJobRepository;
+import com.nexusvoice.infrastructure.database.entity.ImageGenerationJobEntity;
+import com.nexusvoice.infrastructure.database.mapper.ImageGenerationJobMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 图像生成任务仓储实现类
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Repository
+public class ImageGenerationJobRepositoryImpl implements ImageGenerationJobRepository {
+
+    private final ImageGenerationJobMapper imageGenerationJobMapper;
+
+    public ImageGenerationJobRepositoryImpl(ImageGenerationJobMapper imageGenerationJobMapper) {
+        this.imageGenerationJobMapper = imageGenerationJobMapper;
+    }
+
+    @Override
+    public ImageGenerationJob save(ImageGenerationJob job) {
+        ImageGenerationJobEntity entity = convertToEntity(job);
+
+        if (entity.getId() == null) {
+            imageGenerationJobMapper.insert(entity);
+        } else {
+            imageGenerationJobMapper.updateById(entity);
+        }
+
+        // 回写数据库生成的ID和自动填充的时间字段
+        job.setId(entity.getId());
+        job.setCreatedAt(entity.getCreatedAt());
+        job.setUpdatedAt(entity.getUpdatedAt());
+        return job;
+    }
+
+    @Override
+    public Optional<ImageGenerationJob> findById(Long jobId) {
+        ImageGenerationJobEntity entity = imageGenerationJobMapper.selectById(jobId);
+        return entity != null ? Optional.of(convertToDomain(entity)) : Optional.empty();
+    }
+
+    @Override
+    public Optional<ImageGenerationJob> findByIdAndUserId(Long jobId, Long userId) {
+        LambdaQueryWrapper<ImageGenerationJobEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ImageGenerationJobEntity::getId, jobId)
+                    .eq(ImageGenerationJobEntity::getUserId, userId)
+                    .eq(ImageGenerationJobEntity::getDeleted, 0);
+
+        ImageGenerationJobEntity entity = imageGenerationJobMapper.selectOne(queryWrapper);
+        return entity != null ? Optional.of(convertToDomain(entity)) : Optional.empty();
+    }
+
+    @Override
+    public Optional<ImageGenerationJob> findLatestByUserIdAndHash(Long userId, String requestHash, LocalDateTime since) {
+        LambdaQueryWrapper<ImageGenerationJobEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ImageGenerationJobEntity::getUserId, userId)
+                    .eq(ImageGenerationJobEntity::getRequestHash, requestHash)
+                    .ge(ImageGenerationJobEntity::getCreatedAt, since)
+                    .eq(ImageGenerationJobEntity::getDeleted, 0)
+                    .orderByDesc(ImageGenerationJobEntity::getCreatedAt)
+                    .last("LIMIT 1");
+
+        ImageGenerationJobEntity entity = imageGenerationJobMapper.selectOne(queryWrapper);
+        return entity != null ? Optional.of(convertToDomain(entity)) : Optional.empty();
+    }
+
+    @Override
+    public long countActiveByUserId(Long userId) {
+        Long count = imageGenerationJobMapper.countActiveByUserId(userId);
+        return count != null ? count : 0L;
+    }
+
+    @Override
+    public List<ImageGenerationJob> findRecentByUserId(Long userId, Integer limit) {
+        return imageGenerationJobMapper.findRecentByUserId(userId, limit).stream()
+                .map(this::convertToDomain)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ImageGenerationJob> findUnfinished(Integer limit) {
+        return imageGenerationJobMapper.findUnfinished(limit).stream()
+                .map(this::convertToDomain)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 将领域对象转换为数据库实体
+     */
+    private ImageGenerationJobEntity convertToEntity(ImageGenerationJob job) {
+        ImageGenerationJobEntity entity = new ImageGenerationJobEntity();
+        BeanUtils.copyProperties(job, entity);
+
+        if (job.getStatus() != null) {
+            entity.setStatus(job.getStatus().name());
+        }
+
+        return entity;
+    }
+
+    /**
+     * 将数据库实体转换为领域对象
+     */
+    private ImageGenerationJob convertToDomain(ImageGenerationJobEntity entity) {
+        ImageGenerationJob job = new ImageGenerationJob();
+        BeanUtils.copyProperties(entity, job);
+
+        if (entity.getStatus() != null) {
+            job.setStatus(ImageJobStatus.valueOf(entity.getStatus()));
+        }
+
+        return job;
+    }
+}
@@ -0,0 +1,111 @@
+package com.nexusvoice.infrastructure.repository;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexusvoice.domain.image.model.ImageResultCache;
+import com.nexusvoice.domain.image.repository.ImageResultCacheRepository;
+import com.nexusvoice.infrastructure.database.entity.ImageResultCacheEntity;
+import com.nexusvoice.infrastructure.database.mapper.ImageResultCacheMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 图像生成结果缓存仓储实现类
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Repository
+public class ImageResultCacheRepositoryImpl implements ImageResultCacheRepository {
+
+    private static final TypeReference<List<String>> URL_LIST = new TypeReference<>() {
+    };
+
+    private final ImageResultCacheMapper imageResultCacheMapper;
+    private final ObjectMapper objectMapper;
+
+    public ImageResultCacheRepositoryImpl(ImageResultCacheMapper imageResultCacheMapper, ObjectMapper objectMapper) {
+        this.imageResultCacheMapper = imageResultCacheMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Optional<ImageResultCache> findByCacheKey(String cacheKey, LocalDateTime notBefore) {
+        LambdaQueryWrapper<ImageResultCacheEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(ImageResultCacheEntity::getCacheKey, cacheKey)
+                    .ge(ImageResultCacheEntity::getCreatedAt, notBefore)
+                    .eq(ImageResultCacheEntity::getDeleted, 0);
+
+        ImageResultCacheEntity entity = imageResultCacheMapper.selectOne(queryWrapper);
+        return entity != null ? Optional.ofNullable(convertToDomain(entity)) : Optional.empty();
+    }
+
+    @Override
+    public void saveOrRefresh(ImageResultCache entry) {
+        ImageResultCacheEntity entity = convertToEntity(entry);
+        try {
+            imageResultCacheMapper.insert(entity);
+        } catch (DuplicateKeyException e) {
+            // 已有同键条目：可能是其他实例刚写入，也可能是查询时已按TTL过滤掉的过期条目，
+            // 刷新结果与写入时间，使其重新进入有效期
+            LambdaUpdateWrapper<ImageResultCacheEntity> updateWrapper = new LambdaUpdateWrapper<>();
+            updateWrapper.eq(ImageResultCacheEntity::getCacheKey, entry.getCacheKey())
+                         .set(ImageResultCacheEntity::getImageUrls, entity.getImageUrls())
+                         .set(ImageResultCacheEntity::getImageSize, entity.getImageSize())
+                         .set(ImageResultCacheEntity::getHitCount, 0)
+                         .set(ImageResultCacheEntity::getLastHitAt, null)
+                         .set(ImageResultCacheEntity::getCreatedAt, LocalDateTime.now());
+            imageResultCacheMapper.update(null, updateWrapper);
+            log.debug("图像结果缓存已存在，已刷新，缓存键：{}", entry.getCacheKey());
+        }
+    }
+
+    @Override
+    public void recordHits(String cacheKey, int hits) {
+        if (hits > 0) {
+            imageResultCacheMapper.incrementHits(cacheKey, hits);
+        }
+    }
+
+    /**
+     * 将领域对象转换为数据库实体
+     */
+    private ImageResultCacheEntity convertToEntity(ImageResultCache entry) {
+        ImageResultCacheEntity entity = new ImageResultCacheEntity();
+        BeanUtils.copyProperties(entry, entity, "imageUrls");
+        try {
+            entity.setImageUrls(objectMapper.writeValueAsString(entry.getImageUrls()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("图像地址序列化失败", e);
+        }
+        if (entity.getHitCount() == null) {
+            entity.setHitCount(0);
+        }
+        return entity;
+    }
+
+    /**
+     * 将数据库实体转换为领域对象，结果无法解析时视为未命中
+     */
+    private ImageResultCache convertToDomain(ImageResultCacheEntity entity) {
+        ImageResultCache entry = new ImageResultCache();
+        BeanUtils.copyProperties(entity, entry, "imageUrls");
+        try {
+            entry.setImageUrls(objectMapper.readValue(entity.getImageUrls(), URL_LIST));
+        } catch (JsonProcessingException e) {
+            log.warn("图像结果缓存解析失败，缓存键：{}", entity.getCacheKey());
+            return null;
+        }
+        return entry;
+    }
+}
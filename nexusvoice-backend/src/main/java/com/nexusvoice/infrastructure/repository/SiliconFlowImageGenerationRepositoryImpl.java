@@ -9,22 +9,30 @@ import com.nexusvoice.domain.image.repository.ImageGenerationRepository;
 import com.nexusvoice.enums.ErrorCodeEnum;
 import com.nexusvoice.enums.FileTypeEnum;
 import com.nexusvoice.exception.BizException;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuardRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.Resource;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 硅基流动图像生成仓储实现
@@ -46,6 +54,16 @@ public class SiliconFlowImageGenerationRepositoryImpl implements ImageGeneration
     @Resource 
     private FileUploadService fileUploadService;
     
+    @Resource
+    private UpstreamGuardRegistry upstreamGuardRegistry;
+    
+    @Resource
+    @Qualifier("virtualThreadExecutor")
+    private ExecutorService virtualThreadExecutor;
+    
+    @Resource
+    private MeterRegistry meterRegistry;
+    
     @Value("${nexusvoice.image.siliconflow.base-url:https://api.siliconflow.cn/v1}")
     private String baseUrl;
     
@@ -55,6 +73,9 @@ public class SiliconFlowImageGenerationRepositoryImpl implements ImageGeneration
     @Value("${nexusvoice.image.enabled:true}")
     private Boolean imageServiceEnabled;
     
+    @Value("${nexusvoice.image.upload-timeout-seconds:60}")
+    private long uploadTimeoutSeconds;
+    
     private static final String IMAGES_GENERATIONS_ENDPOINT = "/images/generations";
     
     @Override
@@ -71,6 +92,8 @@ public class SiliconFlowImageGenerationRepositoryImpl implements ImageGeneration
                 request.getModel().getModelName(), request.getPrompt());
         
         long startTime = System.currentTimeMillis();
+        String modelName = request.getModel().getModelName();
+        String outcome = "failure";
         
         try {
             // 构建请求体
@@ -87,8 +110,9 @@ public class SiliconFlowImageGenerationRepositoryImpl implements ImageGeneration
             String url = baseUrl + IMAGES_GENERATIONS_ENDPOINT;
             log.debug("调用硅基流动API: {} 请求体: {}", url, requestBody);
             
-            ResponseEntity<String> response = restTemplate.exchange(
-                url, HttpMethod.POST, httpEntity, String.class);
+            // 熔断打开或并发已满时快速失败（UpstreamRejectedException属于BizException，直接透出）
+            ResponseEntity<String> response = upstreamGuardRegistry.guard(UpstreamGuardRegistry.IMAGE)
+                .execute(() -> restTemplate.exchange(url, HttpMethod.POST, httpEntity, String.class));
             
             long generationTime = System.currentTimeMillis() - startTime;
             
@@ -103,8 +127,15 @@ public class SiliconFlowImageGenerationRepositoryImpl implements ImageGeneration
             ImageGenerationResult result = parseResponse(response.getBody(), request, generationTime);
             
             // 下载图像并上传到七牛云
+            long uploadStart = System.nanoTime();
             List<String> cdnUrls = uploadImagesToCdn(result.getImageUrls());
             result.setImageUrls(cdnUrls);
+            Timer.builder("nexusvoice.image.upload")
+                    .description("生成图像转存CDN耗时")
+                    .tag("model", modelName)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - uploadStart, TimeUnit.NANOSECONDS);
+            outcome = "success";
             
             log.info("图像生成成功，耗时: {}ms, 生成数量: {}, 种子: {}", 
                     result.getGenerationTime(), result.getImageCount(), result.getUsedSeed());
@@ -117,6 +148,13 @@ public class SiliconFlowImageGenerationRepositoryImpl implements ImageGeneration
             log.error("图像生成过程中发生异常", e);
             throw BizException.of(ErrorCodeEnum.IMAGE_GENERATION_FAILED, 
                                  "图像生成失败: " + e.getMessage(), e);
+        } finally {
+            Timer.builder("nexusvoice.image.generation")
+                    .description("图像生成总耗时（含转存）")
+                    .tag("model", modelName)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.currentTimeMillis() - startTime, TimeUnit.MILLISECONDS);
         }
     }
     
@@ -251,101 +289,101 @@ public class SiliconFlowImageGenerationRepositoryImpl implements ImageGeneration
     
     /**
      * 上传图像到七牛云CDN
+     * 同一批次的图像并行转存；每张图像从上游HTTP响应流直接写入七牛（分块上传），不在堆上缓存整张图片。
+     * 下载复用连接池，连接/读取超时由连接池配置控制，整批另有总超时；
+     * 按完成顺序收取结果，任意一张失败或超时即取消（中断）其余转存，结果仍按原顺序返回。
      */
     private List<String> uploadImagesToCdn(List<String> originalUrls) {
         if (originalUrls == null || originalUrls.isEmpty()) {
             return new ArrayList<>();
         }
         
-        List<String> cdnUrls = new ArrayList<>();
-        
+        CompletionService<String> completion = new ExecutorCompletionService<>(virtualThreadExecutor);
+        List<Future<String>> futures = new ArrayList<>(originalUrls.size());
         for (int i = 0; i < originalUrls.size(); i++) {
             String originalUrl = originalUrls.get(i);
-            try {
-                log.debug("下载并上传第{}张图像到CDN: {}", i + 1, originalUrl);
-                
-                // 下载图像
-                MultipartFile imageFile = downloadImageAsMultipartFile(originalUrl, i);
-                
-                // 上传到七牛云
-                String cdnUrl = fileUploadService.upload(imageFile, FileTypeEnum.IMAGE);
-                cdnUrls.add(cdnUrl);
-                
-                log.info("第{}张图像上传CDN成功: {}", i + 1, cdnUrl);
-                
-            } catch (Exception e) {
-                log.error("上传第{}张图像到CDN失败: {}", i + 1, originalUrl, e);
-                throw BizException.of(ErrorCodeEnum.FILE_UPLOAD_FAILED, 
-                                     "图像上传CDN失败: " + e.getMessage());
-            }
+            int index = i;
+            futures.add(completion.submit(() -> transferImageToCdn(originalUrl, index)));
         }
         
-        return cdnUrls;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(uploadTimeoutSeconds);
+        String[] cdnUrls = new String[futures.size()];
+        try {
+            for (int done = 0; done < futures.size(); done++) {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                Future<String> finished = completion.poll(remaining, TimeUnit.NANOSECONDS);
+                if (finished == null) {
+                    throw new TimeoutException();
+                }
+                cdnUrls[futures.indexOf(finished)] = finished.get();
+            }
+            return new ArrayList<>(Arrays.asList(cdnUrls));
+        } catch (TimeoutException e) {
+            cancelAll(futures);
+            log.error("图像上传CDN超时，超时时间: {}s, 图像数量: {}", uploadTimeoutSeconds, originalUrls.size());
+            throw BizException.of(ErrorCodeEnum.FILE_UPLOAD_FAILED, "图像上传CDN超时", e);
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw BizException.of(ErrorCodeEnum.FILE_UPLOAD_FAILED, "图像上传CDN失败: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            throw BizException.of(ErrorCodeEnum.FILE_UPLOAD_FAILED, "图像上传CDN被中断", e);
+        }
     }
     
     /**
-     * 下载图像并转换为MultipartFile
+     * 下载单张图像并流式上传到七牛云
      */
-    private MultipartFile downloadImageAsMultipartFile(String imageUrl, int index) throws IOException {
-        java.net.URI uri = java.net.URI.create(imageUrl);
-        try (InputStream inputStream = uri.toURL().openStream()) {
-            byte[] imageData = inputStream.readAllBytes();
-            
-            // 从URL推断文件格式
-            final String fileName;
-            final String contentType;
-            
-            if (imageUrl.toLowerCase().contains(".jpg") || imageUrl.toLowerCase().contains(".jpeg")) {
-                fileName = String.format("generated_image_%d_%d.jpg", 
-                                        System.currentTimeMillis(), index);
-                contentType = "image/jpeg";
-            } else {
-                fileName = String.format("generated_image_%d_%d.png", 
-                                        System.currentTimeMillis(), index);
-                contentType = "image/png";
-            }
-            
-            return new MultipartFile() {
-                @Override
-                public String getName() {
-                    return "image";
-                }
-                
-                @Override
-                public String getOriginalFilename() {
-                    return fileName;
-                }
-                
-                @Override
-                public String getContentType() {
-                    return contentType;
-                }
-                
-                @Override
-                public boolean isEmpty() {
-                    return imageData.length == 0;
-                }
-                
-                @Override
-                public long getSize() {
-                    return imageData.length;
-                }
-                
-                @Override
-                public byte[] getBytes() {
-                    return imageData;
-                }
-                
-                @Override
-                public InputStream getInputStream() {
-                    return new ByteArrayInputStream(imageData);
-                }
-                
-                @Override
-                public void transferTo(java.io.File dest) throws IOException {
-                    throw new UnsupportedOperationException("不支持transferTo操作");
+    private String transferImageToCdn(String imageUrl, int index) {
+        log.debug("下载并上传第{}张图像到CDN: {}", index + 1, imageUrl);
+        try {
+            String cdnUrl = restTemplate.execute(java.net.URI.create(imageUrl), HttpMethod.GET, null, response -> {
+                MediaType mediaType = response.getHeaders().getContentType();
+                String suffix = resolveImageSuffix(mediaType, imageUrl);
+                String contentType = mediaType != null ? mediaType.toString() : (".jpg".equals(suffix) ? "image/jpeg" : "image/png");
+                try (InputStream body = response.getBody()) {
+                    return fileUploadService.upload(body, suffix, contentType, FileTypeEnum.IMAGE);
                 }
-            };
+            });
+            log.info("第{}张图像上传CDN成功: {}", index + 1, cdnUrl);
+            return cdnUrl;
+        } catch (Exception e) {
+            log.error("上传第{}张图像到CDN失败: {}", index + 1, imageUrl, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * 根据响应Content-Type推断文件后缀，缺失时从URL推断
+     */
+    private static String resolveImageSuffix(MediaType mediaType, String imageUrl) {
+        if (mediaType != null && "image".equals(mediaType.getType())) {
+            String subtype = mediaType.getSubtype().toLowerCase();
+            if (subtype.equals("jpeg") || subtype.equals("jpg")) {
+                return ".jpg";
+            }
+            if (subtype.equals("webp")) {
+                return ".webp";
+            }
+            if (subtype.equals("png")) {
+                return ".png";
+            }
+        }
+        String lower = imageUrl.toLowerCase();
+        if (lower.contains(".jpg") || lower.contains(".jpeg")) {
+            return ".jpg";
+        }
+        if (lower.contains(".webp")) {
+            return ".webp";
+        }
+        return ".png";
+    }
+    
+    private static void cancelAll(List<Future<String>> futures) {
+        for (Future<String> future : futures) {
+            future.cancel(true);
         }
     }
 }
@@ -0,0 +1,54 @@
+package com.nexusvoice.infrastructure.repository;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.nexusvoice.domain.user.model.UserDailyUsage;
+import com.nexusvoice.domain.user.repository.UserDailyUsageRepository;
+import com.nexusvoice.infrastructure.database.entity.UserDailyUsageEntity;
+import com.nexusvoice.infrastructure.database.mapper.UserDailyUsageMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * 用户每日用量仓储实现类
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Repository
+public class UserDailyUsageRepositoryImpl implements UserDailyUsageRepository {
+
+    private final UserDailyUsageMapper userDailyUsageMapper;
+
+    public UserDailyUsageRepositoryImpl(UserDailyUsageMapper userDailyUsageMapper) {
+        this.userDailyUsageMapper = userDailyUsageMapper;
+    }
+
+    @Override
+    public Optional<UserDailyUsage> findByUserIdAndDate(Long userId, LocalDate usageDate) {
+        LambdaQueryWrapper<UserDailyUsageEntity> queryWrapper = new LambdaQueryWrapper<>();
+        queryWrapper.eq(UserDailyUsageEntity::getUserId, userId)
+                    .eq(UserDailyUsageEntity::getUsageDate, usageDate)
+                    .eq(UserDailyUsageEntity::getDeleted, 0);
+
+        UserDailyUsageEntity entity = userDailyUsageMapper.selectOne(queryWrapper);
+        return Optional.ofNullable(entity).map(this::convertToDomain);
+    }
+
+    @Override
+    public void addUsage(Long userId, LocalDate usageDate, long llmTokens, long ttsChars) {
+        userDailyUsageMapper.upsertAdd(IdWorker.getId(), userId, usageDate, llmTokens, ttsChars);
+    }
+
+    /**
+     * 将数据库实体转换为领域对象
+     */
+    private UserDailyUsage convertToDomain(UserDailyUsageEntity entity) {
+        UserDailyUsage usage = new UserDailyUsage();
+        BeanUtils.copyProperties(entity, usage);
+        return usage;
+    }
+}
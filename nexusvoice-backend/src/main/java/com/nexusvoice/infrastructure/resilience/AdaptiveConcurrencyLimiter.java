@@ -0,0 +1,137 @@
+package com.nexusvoice.infrastructure.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD自适应并发限制器
+ * 调用成功且延迟正常时加性增加上限（每轮约+1），失败或慢调用时乘性回退；
+ * 同时作为舱壁：排队数和等待时间都有上限，超出立即拒绝。
+ * 使用ReentrantLock而非synchronized，避免虚拟线程在等待时被钉住载体线程。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxWaiting;
+    private final long slowCallThresholdNanos;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxWaiting,
+                                      long slowCallThresholdMs, double backoffRatio) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.maxWaiting = Math.max(0, maxWaiting);
+        this.slowCallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowCallThresholdMs);
+        this.backoffRatio = Math.min(0.99, Math.max(0.1, backoffRatio));
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * 获取一个并发许可
+     *
+     * @param maxWaitMs 最长等待时间
+     * @return 是否获取成功；排队已满或等待超时返回false
+     */
+    public boolean tryAcquire(long maxWaitMs) throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (waiting >= maxWaiting || maxWaitMs <= 0) {
+                return false;
+            }
+            waiting++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还许可并根据调用结果调整上限
+     *
+     * @param latencyNanos 调用耗时
+     * @param congested    是否为拥塞信号（失败、超时）
+     */
+    public void release(long latencyNanos, boolean congested) {
+        lock.lock();
+        try {
+            inFlight = Math.max(0, inFlight - 1);
+            if (congested || latencyNanos > slowCallThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlight + 1 >= (int) limit / 2) {
+                // 只有在上限被实际用到一半以上时才增长，避免空闲期上限无意义膨胀
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还未实际发起调用的许可，不影响上限
+     */
+    public void cancel() {
+        lock.lock();
+        try {
+            inFlight = Math.max(0, inFlight - 1);
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.nexusvoice.infrastructure.resilience;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于计数滑动窗口的熔断器
+ * CLOSED：正常放行，窗口内失败率超过阈值后转为OPEN；
+ * OPEN：直接拒绝，持续openStateMs后转为HALF_OPEN；
+ * HALF_OPEN：放行有限个探测调用，全部成功则CLOSED，任一失败重新OPEN。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED(0), HALF_OPEN(1), OPEN(2);
+
+        private final int code;
+
+        State(int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+    }
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openStateMs;
+    private final int halfOpenProbes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] window;
+    private int windowCount;
+    private int windowPos;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold,
+                          long openStateMs, int halfOpenProbes) {
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = Math.max(1, Math.min(100, failureRateThreshold));
+        this.openStateMs = Math.max(0, openStateMs);
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    /**
+     * 申请调用许可
+     */
+    public boolean tryAcquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() - openedAt < openStateMs) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesIssued = 0;
+                probesSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesIssued >= halfOpenProbes) {
+                    return false;
+                }
+                probesIssued++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录调用成功
+     */
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                probesSucceeded++;
+                if (probesSucceeded >= halfOpenProbes) {
+                    transitionToClosed();
+                }
+                return;
+            }
+            record(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录调用失败
+     */
+    public void onFailure() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                transitionToOpen();
+                return;
+            }
+            record(true);
+            if (state == State.CLOSED && windowCount >= minimumCalls
+                    && windowFailures * 100 >= failureRateThreshold * windowCount) {
+                transitionToOpen();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还未实际使用的半开探测名额
+     */
+    public void releasePermission() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && probesIssued > 0) {
+                probesIssued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前状态（OPEN超时后视为HALF_OPEN）
+     */
+    public State getState() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openStateMs) {
+                return State.HALF_OPEN;
+            }
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowPos]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowPos] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowPos = (windowPos + 1) % window.length;
+    }
+
+    private void transitionToOpen() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void transitionToClosed() {
+        state = State.CLOSED;
+        windowCount = 0;
+        windowPos = 0;
+        windowFailures = 0;
+    }
+}
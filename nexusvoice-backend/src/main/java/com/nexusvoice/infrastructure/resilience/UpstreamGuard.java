@@ -0,0 +1,237 @@
+package com.nexusvoice.infrastructure.resilience;
+
+import com.nexusvoice.enums.ErrorCodeEnum;
+import com.nexusvoice.exception.UpstreamRejectedException;
+import com.nexusvoice.infrastructure.config.ResilienceConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个上游服务的弹性保护：熔断器 + AIMD并发限制（舱壁）+ 指标
+ * 同步调用使用 {@link #execute(UpstreamCall)}；流式等跨回调场景使用 {@link #acquire()} 持有许可，
+ * 在完成或出错时调用 {@link Permit#success()} / {@link Permit#failure(Throwable)}；
+ * 流式调用收到首个响应时调用 {@link Permit#firstResponse()}，慢调用按首响应耗时判定。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+public class UpstreamGuard {
+
+    /**
+     * 可抛出受检异常的上游调用
+     */
+    @FunctionalInterface
+    public interface UpstreamCall<T> {
+        T call() throws Exception;
+    }
+
+    private final String name;
+    private final boolean enabled;
+    private final ResilienceConfig.Policy policy;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Timer acquireWaitTimer;
+    private final Counter rejectedOpenCounter;
+    private final Counter rejectedBusyCounter;
+
+    public UpstreamGuard(String name, boolean enabled, ResilienceConfig.Policy policy, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.enabled = enabled;
+        this.policy = policy;
+        this.limiter = new AdaptiveConcurrencyLimiter(policy.getInitialLimit(), policy.getMinLimit(),
+                policy.getMaxLimit(), policy.getMaxWaiting(), policy.getSlowCallThresholdMs(), policy.getBackoffRatio());
+        this.circuitBreaker = new CircuitBreaker(policy.getWindowSize(), policy.getMinimumCalls(),
+                policy.getFailureRateThreshold(), policy.getOpenStateMs(), policy.getHalfOpenProbes());
+
+        Gauge.builder("nexusvoice.upstream.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("upstream", name).description("上游自适应并发上限").register(meterRegistry);
+        Gauge.builder("nexusvoice.upstream.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("upstream", name).description("上游在途调用数").register(meterRegistry);
+        Gauge.builder("nexusvoice.upstream.waiting", limiter, AdaptiveConcurrencyLimiter::getWaiting)
+                .tag("upstream", name).description("等待上游许可的调用数").register(meterRegistry);
+        Gauge.builder("nexusvoice.upstream.circuit.state", circuitBreaker, cb -> cb.getState().getCode())
+                .tag("upstream", name).description("熔断状态：0关闭 1半开 2打开").register(meterRegistry);
+        this.successTimer = Timer.builder("nexusvoice.upstream.calls")
+                .tag("upstream", name).tag("outcome", "success").register(meterRegistry);
+        this.failureTimer = Timer.builder("nexusvoice.upstream.calls")
+                .tag("upstream", name).tag("outcome", "failure").register(meterRegistry);
+        this.acquireWaitTimer = Timer.builder("nexusvoice.upstream.acquire.wait")
+                .tag("upstream", name).description("等待上游并发许可的时长").register(meterRegistry);
+        this.rejectedOpenCounter = Counter.builder("nexusvoice.upstream.rejected")
+                .tag("upstream", name).tag("reason", "circuit_open").register(meterRegistry);
+        this.rejectedBusyCounter = Counter.builder("nexusvoice.upstream.rejected")
+                .tag("upstream", name).tag("reason", "overloaded").register(meterRegistry);
+    }
+
+    /**
+     * 在保护下执行一次同步调用
+     */
+    public <T> T execute(UpstreamCall<T> call) throws Exception {
+        Permit permit = acquire();
+        try {
+            T result = call.call();
+            permit.success();
+            return result;
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // 调用方主动放弃（如检索截止时间到达后取消），不代表上游不健康
+                permit.cancel();
+            } else {
+                permit.failure(e);
+            }
+            throw e;
+        } catch (Error e) {
+            permit.failure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取调用许可，熔断打开或并发已满时立即抛出 {@link UpstreamRejectedException}
+     */
+    public Permit acquire() {
+        if (!enabled) {
+            return new Permit(false);
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            rejectedOpenCounter.increment();
+            throw new UpstreamRejectedException(ErrorCodeEnum.UPSTREAM_CIRCUIT_OPEN, name);
+        }
+        boolean acquired;
+        long waitStart = System.nanoTime();
+        try {
+            acquired = limiter.tryAcquire(policy.getMaxWaitMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        acquireWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            circuitBreaker.releasePermission();
+            rejectedBusyCounter.increment();
+            throw new UpstreamRejectedException(ErrorCodeEnum.UPSTREAM_OVERLOADED, name);
+        }
+        return new Permit(true);
+    }
+
+    /**
+     * 熔断是否处于打开状态，调用方可据此提前降级（如跳过TTS只返回文本）
+     */
+    public boolean isOpen() {
+        return enabled && circuitBreaker.getState() == CircuitBreaker.State.OPEN;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getLimit() {
+        return limiter.getLimit();
+    }
+
+    public int getInFlight() {
+        return limiter.getInFlight();
+    }
+
+    /**
+     * 客户端错误（4xx，429除外）说明请求本身有问题，不代表上游不健康
+     */
+    private static boolean isUpstreamFault(Throwable t) {
+        if (t instanceof HttpClientErrorException ce) {
+            return ce.getStatusCode().value() == 429;
+        }
+        return true;
+    }
+
+    /**
+     * 一次调用许可，结果只会被记录一次
+     */
+    public class Permit {
+        private final boolean guarded;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile long firstResponseNanos;
+
+        private Permit(boolean guarded) {
+            this.guarded = guarded;
+        }
+
+        /**
+         * 流式调用收到首个响应：整体时长随回答长度变化，成功结束时改按首响应耗时判定慢调用
+         */
+        public void firstResponse() {
+            if (firstResponseNanos == 0) {
+                firstResponseNanos = Math.max(1, System.nanoTime() - startNanos);
+            }
+        }
+
+        public void success() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            long latency = System.nanoTime() - startNanos;
+            successTimer.record(latency, TimeUnit.NANOSECONDS);
+            if (guarded) {
+                long judged = firstResponseNanos > 0 ? firstResponseNanos : latency;
+                limiter.release(judged, false);
+                if (judged > TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallThresholdMs())) {
+                    circuitBreaker.onFailure();
+                } else {
+                    circuitBreaker.onSuccess();
+                }
+            }
+        }
+
+        public void failure(Throwable t) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            long latency = System.nanoTime() - startNanos;
+            failureTimer.record(latency, TimeUnit.NANOSECONDS);
+            if (guarded) {
+                boolean fault = isUpstreamFault(t);
+                limiter.release(latency, fault);
+                if (fault) {
+                    circuitBreaker.onFailure();
+                } else {
+                    circuitBreaker.onSuccess();
+                }
+                if (fault && circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                    log.warn("上游服务熔断已打开，upstream={}，最近错误：{}", name, t != null ? t.getMessage() : null);
+                }
+            }
+        }
+
+        /**
+         * 许可未被使用（例如调用前即发现参数错误），归还且不影响统计
+         */
+        public void cancel() {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            if (guarded) {
+                limiter.cancel();
+                circuitBreaker.releasePermission();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.nexusvoice.infrastructure.resilience;
+
+import com.nexusvoice.infrastructure.config.ResilienceConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 上游弹性保护注册表，按上游名称懒加载并共享 {@link UpstreamGuard}
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Component
+public class UpstreamGuardRegistry {
+
+    public static final String LLM = "llm";
+    public static final String TTS = "tts";
+    public static final String SEARCH_TAVILY = "search.tavily";
+    public static final String SEARCH_DUCKDUCKGO = "search.duckduckgo";
+    public static final String IMAGE = "image";
+
+    private final ResilienceConfig resilienceConfig;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, UpstreamGuard> guards = new ConcurrentHashMap<>();
+
+    public UpstreamGuardRegistry(ResilienceConfig resilienceConfig, MeterRegistry meterRegistry) {
+        this.resilienceConfig = resilienceConfig;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 获取指定上游的保护器
+     */
+    public UpstreamGuard guard(String upstream) {
+        return guards.computeIfAbsent(upstream, name -> {
+            ResilienceConfig.Policy policy = resilienceConfig.policyFor(name);
+            log.info("初始化上游弹性保护，upstream={}，enabled={}，limit={}~{}，熔断阈值={}%",
+                    name, resilienceConfig.isEnabled(), policy.getMinLimit(), policy.getMaxLimit(),
+                    policy.getFailureRateThreshold());
+            return new UpstreamGuard(name, resilienceConfig.isEnabled(), policy, meterRegistry);
+        });
+    }
+
+    /**
+     * 已创建的全部保护器
+     */
+    public Collection<UpstreamGuard> all() {
+        return Collections.unmodifiableCollection(guards.values());
+    }
+}
@@ -0,0 +1,49 @@
+package com.nexusvoice.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * 对象存储抽象
+ * 上层只关心对象键与访问URL，具体写入七牛云、本地磁盘或分层存储由配置 nexusvoice.storage.type 决定
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public interface BlobStore {
+
+    /**
+     * 写入对象
+     *
+     * @param key         对象键，如 audio/xxx.mp3
+     * @param inputStream 输入流（由调用方负责关闭）
+     * @param contentType MIME类型，可为空
+     * @return 对象访问URL
+     * @throws IOException IO异常
+     */
+    String put(String key, InputStream inputStream, String contentType) throws IOException;
+
+    /**
+     * 对象是否已存在（用于内容寻址上传去重；查询失败时返回false，由调用方重新写入）
+     */
+    boolean exists(String key);
+
+    /**
+     * 对象访问URL
+     */
+    String urlFor(String key);
+
+    /**
+     * 对象在本地磁盘上的路径（仅本地/分层存储可用，用于零拷贝下发）
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * 存储名称，用于日志
+     */
+    String getName();
+}
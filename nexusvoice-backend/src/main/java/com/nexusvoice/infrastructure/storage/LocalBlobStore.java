@@ -0,0 +1,103 @@
+package com.nexusvoice.infrastructure.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * 本地磁盘对象存储
+ * 通过NIO通道以固定大小缓冲写入临时文件后原子重命名，读取由文件下发接口使用 sendfile/transferTo 零拷贝完成。
+ * 适用于离线开发、压测音频链路，或作为分层存储的第一层。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+public class LocalBlobStore implements BlobStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path rootDir;
+    private final String publicBaseUrl;
+
+    public LocalBlobStore(Path rootDir, String publicBaseUrl) throws IOException {
+        this.rootDir = rootDir.toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/")
+                ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1) : publicBaseUrl;
+        Files.createDirectories(this.rootDir);
+        log.info("本地对象存储目录：{}，访问地址前缀：{}", this.rootDir, this.publicBaseUrl);
+    }
+
+    @Override
+    public String put(String key, InputStream inputStream, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try (ReadableByteChannel source = Channels.newChannel(inputStream);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (source.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return urlFor(key);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return localPath(key).isPresent();
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return publicBaseUrl + "/" + key;
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        try {
+            Path path = resolve(key);
+            return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    /**
+     * 解析对象键对应的文件路径，拒绝越出根目录的键
+     */
+    Path resolve(String key) {
+        if (key == null || key.isBlank() || key.startsWith("/") || key.contains("\\")) {
+            throw new IllegalArgumentException("非法的对象键：" + key);
+        }
+        Path path = rootDir.resolve(key).normalize();
+        if (!path.startsWith(rootDir) || path.equals(rootDir) || path.getFileName().toString().startsWith(".")) {
+            throw new IllegalArgumentException("非法的对象键：" + key);
+        }
+        return path;
+    }
+}
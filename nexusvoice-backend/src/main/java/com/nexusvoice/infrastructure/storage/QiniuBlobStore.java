@@ -0,0 +1,74 @@
+package com.nexusvoice.infrastructure.storage;
+
+import com.nexusvoice.infrastructure.config.QiniuConfig;
+import com.qiniu.common.QiniuException;
+import com.qiniu.common.Zone;
+import com.qiniu.http.Response;
+import com.qiniu.storage.BucketManager;
+import com.qiniu.storage.Configuration;
+import com.qiniu.storage.UploadManager;
+import com.qiniu.util.Auth;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 七牛云对象存储
+ * SDK按固定大小分块读取输入流上传，内存占用与文件大小无关
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+public class QiniuBlobStore implements BlobStore {
+
+    private final QiniuConfig qiniuConfig;
+    private final UploadManager uploadManager;
+    private final BucketManager bucketManager;
+    private final Auth auth;
+
+    public QiniuBlobStore(QiniuConfig qiniuConfig) {
+        this.qiniuConfig = qiniuConfig;
+        // 复用上传客户端，减少初始化开销
+        Configuration cfg = new Configuration(Zone.autoZone());
+        this.uploadManager = new UploadManager(cfg);
+        this.auth = Auth.create(qiniuConfig.getAccessKey(), qiniuConfig.getSecretKey());
+        this.bucketManager = new BucketManager(auth, cfg);
+    }
+
+    @Override
+    public String put(String key, InputStream inputStream, String contentType) throws IOException {
+        String upToken = auth.uploadToken(qiniuConfig.getBucket());
+        Response response = uploadManager.put(inputStream, key, upToken, null, contentType);
+        if (!response.isOK()) {
+            log.error("文件上传失败，响应：{}", response.toString());
+            throw new IOException("文件上传失败：" + response.toString());
+        }
+        return urlFor(key);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        try {
+            bucketManager.stat(qiniuConfig.getBucket(), key);
+            return true;
+        } catch (QiniuException e) {
+            // 612：文件不存在
+            if (e.code() != 612) {
+                log.warn("查询七牛云文件信息失败，key：{}，错误：{}", key, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return qiniuConfig.getDomain() + "/" + key;
+    }
+
+    @Override
+    public String getName() {
+        return "qiniu";
+    }
+}
@@ -0,0 +1,77 @@
+package com.nexusvoice.infrastructure.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 分层对象存储
+ * 先同步写入本地磁盘并立即返回本地访问地址，再在后台异步复制到远端（七牛云）；
+ * 复制失败只记录日志，本地副本仍可正常访问。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+public class TieredBlobStore implements BlobStore {
+
+    private final LocalBlobStore local;
+    private final BlobStore remote;
+    private final Executor replicationExecutor;
+
+    public TieredBlobStore(LocalBlobStore local, BlobStore remote, Executor replicationExecutor) {
+        this.local = local;
+        this.remote = remote;
+        this.replicationExecutor = replicationExecutor;
+    }
+
+    @Override
+    public String put(String key, InputStream inputStream, String contentType) throws IOException {
+        String url = local.put(key, inputStream, contentType);
+        try {
+            replicationExecutor.execute(() -> replicate(key, contentType));
+        } catch (RejectedExecutionException e) {
+            log.warn("对象异步复制提交失败，key：{}，错误：{}", key, e.getMessage());
+        }
+        return url;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return local.exists(key);
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return local.urlFor(key);
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return local.localPath(key);
+    }
+
+    @Override
+    public String getName() {
+        return "tiered(local+" + remote.getName() + ")";
+    }
+
+    private void replicate(String key, String contentType) {
+        Optional<Path> path = local.localPath(key);
+        if (path.isEmpty()) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(path.get())) {
+            remote.put(key, in, contentType);
+            log.debug("对象已复制到{}，key：{}", remote.getName(), key);
+        } catch (Exception e) {
+            log.warn("对象复制到{}失败，key：{}，错误：{}", remote.getName(), key, e.getMessage());
+        }
+    }
+}
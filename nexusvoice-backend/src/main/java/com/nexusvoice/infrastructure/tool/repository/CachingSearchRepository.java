@@ -0,0 +1,220 @@
+package com.nexusvoice.infrastructure.tool.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nexusvoice.domain.tool.model.SearchResult;
+import com.nexusvoice.domain.tool.repository.SearchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 搜索结果缓存装饰器
+ * - 单飞（single-flight）：相同查询同一时刻只会有一个上游请求，其余调用方等待同一结果
+ * - 过期后重新验证（stale-while-revalidate）：TTL过期但仍在宽限窗口内时立即返回旧结果，并在后台刷新
+ * - TTL按提供商配置；空结果（包括上游失败时的空结果）不缓存
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+public class CachingSearchRepository implements SearchRepository {
+
+    private final SearchRepository delegate;
+    private final String providerName;
+    private final long ttlMs;
+    private final Cache<String, CachedResult> cache;
+    private final ConcurrentMap<String, CompletableFuture<SearchResult>> inFlight = new ConcurrentHashMap<>();
+    private final Executor refreshExecutor;
+
+    private final Counter hitCounter;
+    private final Counter staleCounter;
+    private final Counter missCounter;
+    private final Counter coalescedCounter;
+    private final Timer hitTimer;
+    private final Timer staleTimer;
+    private final Timer missTimer;
+    private final Timer upstreamTimer;
+
+    public CachingSearchRepository(SearchRepository delegate, String providerName, long ttlSeconds, long staleSeconds,
+                                   long maxSize, Executor refreshExecutor, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.providerName = providerName;
+        this.ttlMs = Math.max(1, ttlSeconds) * 1000L;
+        this.refreshExecutor = refreshExecutor;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(100, maxSize))
+                .expireAfterWrite(Duration.ofMillis(ttlMs + Math.max(0, staleSeconds) * 1000L))
+                .build();
+        this.hitCounter = counter(meterRegistry, "hit");
+        this.staleCounter = counter(meterRegistry, "stale");
+        this.missCounter = counter(meterRegistry, "miss");
+        this.coalescedCounter = counter(meterRegistry, "coalesced");
+        this.hitTimer = latencyTimer(meterRegistry, "hit");
+        this.staleTimer = latencyTimer(meterRegistry, "stale");
+        this.missTimer = latencyTimer(meterRegistry, "miss");
+        this.upstreamTimer = Timer.builder("nexusvoice.search.upstream")
+                .description("搜索提供商调用耗时")
+                .tag("provider", providerName)
+                .register(meterRegistry);
+        Counter hits = hitCounter;
+        Counter stale = staleCounter;
+        Counter misses = missCounter;
+        Gauge.builder("nexusvoice.search.cache.hit.ratio", () -> hitRatio(hits, stale, misses))
+                .description("搜索缓存命中率（含宽限期内的旧结果）")
+                .tag("provider", providerName)
+                .register(meterRegistry);
+        log.info("搜索缓存已启用，提供商={}，TTL={}s，宽限={}s，容量={}", providerName, ttlSeconds, staleSeconds, maxSize);
+    }
+
+    @Override
+    public SearchResult searchWeb(String query, Integer maxResults, String language) {
+        return lookup("web", query, maxResults, language, () -> delegate.searchWeb(query, maxResults, language));
+    }
+
+    @Override
+    public SearchResult searchNews(String query, Integer maxResults, String language) {
+        return lookup("news", query, maxResults, language, () -> delegate.searchNews(query, maxResults, language));
+    }
+
+    public String getProviderName() {
+        return providerName;
+    }
+
+    private SearchResult lookup(String kind, String query, Integer maxResults, String language,
+                                Supplier<SearchResult> loader) {
+        if (query == null || query.trim().isEmpty()) {
+            return loader.get();
+        }
+        String key = kind + "|" + normalize(query) + "|" + maxResults + "|" + (language != null ? language : "");
+        long start = System.nanoTime();
+
+        CachedResult cached = cache.getIfPresent(key);
+        if (cached != null) {
+            if (System.currentTimeMillis() - cached.fetchedAt < ttlMs) {
+                hitCounter.increment();
+                hitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } else {
+                // 已过期但在宽限期内：先返回旧结果，后台单飞刷新
+                staleCounter.increment();
+                refreshInBackground(key, loader);
+                staleTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return copyOf(cached.result);
+        }
+
+        missCounter.increment();
+        try {
+            return copyOf(load(key, loader).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        } finally {
+            missTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 未命中：当前线程作为领头者直接加载，其他相同查询复用其Future
+     */
+    private CompletableFuture<SearchResult> load(String key, Supplier<SearchResult> loader) {
+        CompletableFuture<SearchResult> created = new CompletableFuture<>();
+        CompletableFuture<SearchResult> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return existing;
+        }
+        runLoad(key, loader, created);
+        return created;
+    }
+
+    private void refreshInBackground(String key, Supplier<SearchResult> loader) {
+        CompletableFuture<SearchResult> created = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, created) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> runLoad(key, loader, created));
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+    }
+
+    private void runLoad(String key, Supplier<SearchResult> loader, CompletableFuture<SearchResult> target) {
+        try {
+            // 失败的调用同样计入耗时
+            SearchResult result = upstreamTimer.record(loader);
+            if (result != null && result.getItems() != null && !result.getItems().isEmpty()) {
+                cache.put(key, new CachedResult(result, System.currentTimeMillis()));
+            }
+            target.complete(result);
+        } catch (Throwable t) {
+            log.warn("搜索加载失败，提供商={}，错误：{}", providerName, t.getMessage());
+            target.completeExceptionally(t);
+        } finally {
+            inFlight.remove(key, target);
+        }
+    }
+
+    private Timer latencyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("nexusvoice.search.latency")
+                .description("搜索调用耗时（含缓存）")
+                .tag("provider", providerName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static double hitRatio(Counter hit, Counter stale, Counter miss) {
+        double hits = hit.count() + stale.count();
+        double total = hits + miss.count();
+        return total > 0 ? hits / total : 0;
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("nexusvoice.search.cache")
+                .tag("provider", providerName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 返回浅拷贝，避免调用方修改缓存中的列表
+     */
+    private static SearchResult copyOf(SearchResult r) {
+        if (r == null) {
+            return null;
+        }
+        return SearchResult.builder()
+                .query(r.getQuery())
+                .items(r.getItems() != null ? new ArrayList<>(r.getItems()) : new ArrayList<>())
+                .searchTimeMs(r.getSearchTimeMs())
+                .totalCount(r.getTotalCount())
+                .source(r.getSource())
+                .build();
+    }
+
+    private static String normalize(String q) {
+        String t = q.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        // 常见全角标点标准化（与SimpleWebSearchTool一致）
+        return t.replace('，', ',').replace('。', '.').replace('：', ':').replace('；', ';');
+    }
+
+    private record CachedResult(SearchResult result, long fetchedAt) {
+    }
+}
@@ -3,11 +3,12 @@ package com.nexusvoice.infrastructure.tool.repository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nexusvoice.domain.tool.model.SearchResult;
-import com.nexusvoice.domain.tool.repository.SearchRepository;
+import com.nexusvoice.exception.UpstreamRejectedException;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuard;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuardRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -29,19 +30,26 @@ import java.util.List;
  */
 @Slf4j
 @Repository
-@ConditionalOnProperty(name = "nexusvoice.search.provider", havingValue = "duckduckgo", matchIfMissing = true)
-public class DuckDuckGoSearchRepositoryImpl implements SearchRepository {
+public class DuckDuckGoSearchRepositoryImpl implements SearchProvider {
     
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final UpstreamGuard upstreamGuard;
     
     @Value("${nexusvoice.search.duckduckgo.baseUrl:https://api.duckduckgo.com/}")
     private String baseUrl;
     
     public DuckDuckGoSearchRepositoryImpl(@Qualifier("searchRestTemplate") RestTemplate restTemplate, 
-                                         ObjectMapper objectMapper) {
+                                         ObjectMapper objectMapper,
+                                          UpstreamGuardRegistry upstreamGuardRegistry) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
+        this.upstreamGuard = upstreamGuardRegistry.guard(UpstreamGuardRegistry.SEARCH_DUCKDUCKGO);
+    }
+    
+    @Override
+    public String getProviderName() {
+        return "duckduckgo";
     }
     
     @Override
@@ -70,7 +78,7 @@ public class DuckDuckGoSearchRepositoryImpl implements SearchRepository {
             headers.set("Accept", "application/json");
             
             HttpEntity<String> entity = new HttpEntity<>(headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+            ResponseEntity<String> response = upstreamGuard.execute(() -> restTemplate.exchange(url, HttpMethod.GET, entity, String.class));
             
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return parseSearchResponse(response.getBody(), trimmedQuery, finalMaxResults, startTime);
@@ -82,6 +90,9 @@ public class DuckDuckGoSearchRepositoryImpl implements SearchRepository {
         } catch (IllegalArgumentException e) {
             log.error("搜索参数无效，查询：{}", trimmedQuery, e);
             return createEmptyResult(trimmedQuery, startTime);
+        } catch (UpstreamRejectedException e) {
+            log.warn("DuckDuckGo搜索被弹性保护拒绝，查询：{}，原因：{}", trimmedQuery, e.getMessage());
+            return createEmptyResult(trimmedQuery, startTime);
         } catch (Exception e) {
             log.error("DuckDuckGo搜索异常，查询：{}", trimmedQuery, e);
             return createEmptyResult(trimmedQuery, startTime);
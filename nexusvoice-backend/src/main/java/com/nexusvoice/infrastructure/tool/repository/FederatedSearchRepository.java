@@ -0,0 +1,195 @@
+package com.nexusvoice.infrastructure.tool.repository;
+
+import com.nexusvoice.domain.tool.model.SearchResult;
+import com.nexusvoice.domain.tool.repository.SearchRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 多提供商联邦搜索
+ * 并行查询全部提供商，达到法定数量（quorum）的有效结果或到达截止时间即返回；
+ * 结果按规范化URL去重，多家命中同一链接时取最高分并给予少量加权，最后按相关度重排。
+ * 未及时返回的提供商请求不会被取消，其结果仍会写入各自的缓存供后续查询使用。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+public class FederatedSearchRepository implements SearchRepository {
+
+    /**
+     * 同一链接每多一家提供商命中的加权
+     */
+    private static final double CONSENSUS_BONUS = 0.1;
+
+    private final Map<String, SearchRepository> providers;
+    private final int quorum;
+    private final long deadlineMs;
+    private final int defaultMaxResults;
+    private final Executor executor;
+
+    /**
+     * @param providers 提供商名称到（已装饰缓存的）仓储的有序映射
+     */
+    public FederatedSearchRepository(Map<String, SearchRepository> providers, int quorum, long deadlineMs,
+                                     int defaultMaxResults, Executor executor) {
+        this.providers = new LinkedHashMap<>(providers);
+        this.quorum = Math.max(1, Math.min(quorum, providers.size()));
+        this.deadlineMs = Math.max(100, deadlineMs);
+        this.defaultMaxResults = Math.max(1, defaultMaxResults);
+        this.executor = executor;
+        log.info("联邦搜索已启用，提供商={}，quorum={}，截止时间={}ms", this.providers.keySet(), this.quorum, this.deadlineMs);
+    }
+
+    @Override
+    public SearchResult searchWeb(String query, Integer maxResults, String language) {
+        return federate(query, maxResults, repo -> repo.searchWeb(query, maxResults, language));
+    }
+
+    @Override
+    public SearchResult searchNews(String query, Integer maxResults, String language) {
+        return federate(query, maxResults, repo -> repo.searchNews(query, maxResults, language));
+    }
+
+    private SearchResult federate(String query, Integer maxResults, Function<SearchRepository, SearchResult> call) {
+        long start = System.currentTimeMillis();
+        CompletableFuture<Void> quorumReached = new CompletableFuture<>();
+        AtomicInteger good = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        int total = providers.size();
+
+        Map<String, CompletableFuture<SearchResult>> futures = new LinkedHashMap<>();
+        providers.forEach((name, repo) -> {
+            CompletableFuture<SearchResult> f = CompletableFuture.supplyAsync(() -> call.apply(repo), executor);
+            f.whenComplete((r, ex) -> {
+                if (ex == null && r != null && r.getItems() != null && !r.getItems().isEmpty()) {
+                    if (good.incrementAndGet() >= quorum) {
+                        quorumReached.complete(null);
+                    }
+                }
+                if (finished.incrementAndGet() >= total) {
+                    quorumReached.complete(null);
+                }
+            });
+            futures.put(name, f);
+        });
+
+        try {
+            quorumReached.get(deadlineMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.info("联邦搜索达到截止时间{}ms，有效结果数={}，查询：{}", deadlineMs, good.get(), query);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // quorumReached 只会正常完成
+        }
+
+        List<String> used = new ArrayList<>();
+        Map<String, SearchResult.SearchItem> merged = new LinkedHashMap<>();
+        Map<String, Integer> hits = new LinkedHashMap<>();
+        futures.forEach((name, f) -> {
+            if (!f.isDone() || f.isCompletedExceptionally()) {
+                return;
+            }
+            SearchResult r = f.join();
+            if (r == null || r.getItems() == null || r.getItems().isEmpty()) {
+                return;
+            }
+            used.add(name);
+            for (SearchResult.SearchItem item : r.getItems()) {
+                String key = dedupKey(item);
+                hits.merge(key, 1, Integer::sum);
+                merged.merge(key, item, FederatedSearchRepository::preferHigherScore);
+            }
+        });
+
+        int limit = (maxResults != null && maxResults > 0) ? maxResults : defaultMaxResults;
+        List<SearchResult.SearchItem> ranked = new ArrayList<>(merged.size());
+        merged.forEach((key, item) -> {
+            int extra = hits.getOrDefault(key, 1) - 1;
+            double score = score(item) + extra * CONSENSUS_BONUS;
+            ranked.add(SearchResult.SearchItem.builder()
+                    .title(item.getTitle())
+                    .link(item.getLink())
+                    .snippet(item.getSnippet())
+                    .publishTime(item.getPublishTime())
+                    .relevanceScore(score)
+                    .build());
+        });
+        ranked.sort(Comparator.comparingDouble(FederatedSearchRepository::score).reversed());
+        List<SearchResult.SearchItem> items = ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+
+        return SearchResult.builder()
+                .query(query)
+                .items(items)
+                .searchTimeMs(System.currentTimeMillis() - start)
+                .totalCount(items.size())
+                .source("Federated(" + String.join(",", used) + ")")
+                .build();
+    }
+
+    private static SearchResult.SearchItem preferHigherScore(SearchResult.SearchItem a, SearchResult.SearchItem b) {
+        return score(b) > score(a) ? b : a;
+    }
+
+    private static double score(SearchResult.SearchItem item) {
+        return item.getRelevanceScore() != null ? item.getRelevanceScore() : 0.0;
+    }
+
+    /**
+     * 去重键：有链接时使用规范化URL，否则（如AI直接答案）使用标题
+     */
+    private static String dedupKey(SearchResult.SearchItem item) {
+        String link = item.getLink();
+        if (link == null || link.isBlank()) {
+            return "title:" + (item.getTitle() != null ? item.getTitle().trim().toLowerCase(Locale.ROOT) : "");
+        }
+        return "url:" + normalizeUrl(link);
+    }
+
+    /**
+     * 规范化URL：忽略协议、www前缀、片段、跟踪参数和末尾斜杠
+     */
+    static String normalizeUrl(String link) {
+        String trimmed = link.trim();
+        try {
+            URI uri = URI.create(trimmed);
+            String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : "";
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            }
+            String path = uri.getRawPath() != null ? uri.getRawPath() : "";
+            while (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            String query = uri.getRawQuery();
+            StringBuilder kept = new StringBuilder();
+            if (query != null) {
+                for (String pair : query.split("&")) {
+                    String name = pair.split("=", 2)[0].toLowerCase(Locale.ROOT);
+                    if (name.startsWith("utm_") || name.equals("spm") || name.equals("from") || name.isEmpty()) {
+                        continue;
+                    }
+                    kept.append(kept.length() == 0 ? "?" : "&").append(pair);
+                }
+            }
+            return host + path + kept;
+        } catch (IllegalArgumentException e) {
+            return trimmed.toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.nexusvoice.infrastructure.tool.repository;
+
+import com.nexusvoice.domain.tool.repository.SearchRepository;
+
+/**
+ * 具体搜索服务提供商
+ * 各提供商实现此接口，由 {@link com.nexusvoice.infrastructure.config.SearchConfig} 统一装配缓存等装饰器后
+ * 作为主 {@link SearchRepository} 对外提供
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public interface SearchProvider extends SearchRepository {
+
+    /**
+     * 提供商名称，与 nexusvoice.search.provider(s) 配置值一致
+     */
+    String getProviderName();
+}
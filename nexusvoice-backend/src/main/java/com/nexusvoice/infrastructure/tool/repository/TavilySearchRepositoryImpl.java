@@ -3,11 +3,12 @@ package com.nexusvoice.infrastructure.tool.repository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nexusvoice.domain.tool.model.SearchResult;
-import com.nexusvoice.domain.tool.repository.SearchRepository;
+import com.nexusvoice.exception.UpstreamRejectedException;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuard;
+import com.nexusvoice.infrastructure.resilience.UpstreamGuardRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -29,16 +30,16 @@ import java.util.Map;
  */
 @Slf4j
 @Repository
-@ConditionalOnProperty(name = "nexusvoice.search.provider", havingValue = "tavily")
-public class TavilySearchRepositoryImpl implements SearchRepository {
+public class TavilySearchRepositoryImpl implements SearchProvider {
     
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final UpstreamGuard upstreamGuard;
     
     @Value("${nexusvoice.search.tavily.base-url:https://api.tavily.com}")
     private String baseUrl;
     
-    @Value("${nexusvoice.search.tavily.api-key}")
+    @Value("${nexusvoice.search.tavily.api-key:}")
     private String apiKey;
     
     @Value("${nexusvoice.search.tavily.max-results:5}")
@@ -57,9 +58,16 @@ public class TavilySearchRepositoryImpl implements SearchRepository {
     private Boolean defaultIncludeImages;
     
     public TavilySearchRepositoryImpl(@Qualifier("searchRestTemplate") RestTemplate restTemplate, 
-                                     ObjectMapper objectMapper) {
+                                     ObjectMapper objectMapper,
+                                      UpstreamGuardRegistry upstreamGuardRegistry) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
+        this.upstreamGuard = upstreamGuardRegistry.guard(UpstreamGuardRegistry.SEARCH_TAVILY);
+    }
+    
+    @Override
+    public String getProviderName() {
+        return "tavily";
     }
     
     @Override
@@ -119,7 +127,7 @@ public class TavilySearchRepositoryImpl implements SearchRepository {
             headers.set("Authorization", "Bearer " + apiKey);
             
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
+            ResponseEntity<String> response = upstreamGuard.execute(() -> restTemplate.exchange(url, HttpMethod.POST, entity, String.class));
             
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return parseSearchResponse(response.getBody(), trimmedQuery, startTime);
@@ -128,6 +136,9 @@ public class TavilySearchRepositoryImpl implements SearchRepository {
                 return createEmptyResult(trimmedQuery, startTime);
             }
             
+        } catch (UpstreamRejectedException e) {
+            log.warn("Tavily搜索被弹性保护拒绝，查询：{}，原因：{}", trimmedQuery, e.getMessage());
+            return createEmptyResult(trimmedQuery, startTime);
         } catch (Exception e) {
             log.error("Tavily搜索异常，查询：{}", trimmedQuery, e);
             return createEmptyResult(trimmedQuery, startTime);
@@ -0,0 +1,237 @@
+package com.nexusvoice.infrastructure.trace;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 流式生成时序录制（默认关闭）
+ * 录制每次流式生成的逐token到达时间与匿名化后的增量文本，以及分段TTS的合成耗时，
+ * 按天写入 JSON Lines 文件，供离线回放工具调优分段阈值与TTS调度。
+ * 匿名化只保留字符类别与标点、空白、Markdown符号，不记录用户、会话等标识。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Component
+public class StreamTraceRecorder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    /**
+     * 单次生成最多录制的token数，超出部分丢弃
+     */
+    private static final int MAX_TOKENS = 8192;
+
+    private final boolean enabled;
+    private final Path dir;
+    private final double sampleRate;
+    private final ReentrantLock lock = new ReentrantLock();
+    private Writer writer;
+    private LocalDate writerDate;
+
+    public StreamTraceRecorder(@Value("${nexusvoice.trace.enabled:false}") boolean enabled,
+                               @Value("${nexusvoice.trace.dir:./data/traces}") String dir,
+                               @Value("${nexusvoice.trace.sample-rate:1.0}") double sampleRate) {
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.sampleRate = sampleRate;
+        if (enabled) {
+            log.info("流式时序录制已开启，目录：{}，采样率：{}", this.dir.toAbsolutePath(), sampleRate);
+        }
+    }
+
+    /**
+     * 开始录制一次流式生成；未开启或未被采样时返回空操作实例
+     */
+    public TokenTrace startStream(String model) {
+        if (!enabled || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return TokenTrace.NOOP;
+        }
+        return new TokenTrace(this, model);
+    }
+
+    /**
+     * 记录一次分段TTS合成
+     *
+     * @param voiceType 音色
+     * @param chars     合成文本字数
+     * @param latencyMs 合成耗时（毫秒）
+     * @param success   是否得到音频
+     */
+    public void recordTts(String voiceType, int chars, long latencyMs, boolean success) {
+        if (!enabled) {
+            return;
+        }
+        StringWriter out = new StringWriter(96);
+        try (JsonGenerator gen = JSON.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("type", "tts");
+            gen.writeNumberField("at", System.currentTimeMillis());
+            gen.writeStringField("voice", voiceType);
+            gen.writeNumberField("chars", chars);
+            gen.writeNumberField("latencyMs", latencyMs);
+            gen.writeBooleanField("ok", success);
+            gen.writeEndObject();
+        } catch (IOException e) {
+            log.warn("生成TTS时序记录失败：{}", e.getMessage());
+            return;
+        }
+        append(out.toString());
+    }
+
+    private void writeStream(TokenTrace trace, String outcome) {
+        StringWriter out = new StringWriter(trace.deltas.size() * 16 + 128);
+        try (JsonGenerator gen = JSON.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("type", "stream");
+            gen.writeNumberField("at", trace.startedAtMs);
+            gen.writeStringField("model", trace.model);
+            gen.writeStringField("outcome", outcome);
+            gen.writeArrayFieldStart("tokens");
+            for (int i = 0; i < trace.deltas.size(); i++) {
+                gen.writeStartArray();
+                gen.writeNumber(trace.offsetsMs[i]);
+                gen.writeString(trace.deltas.get(i));
+                gen.writeEndArray();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        } catch (IOException e) {
+            log.warn("生成流式时序记录失败：{}", e.getMessage());
+            return;
+        }
+        append(out.toString());
+    }
+
+    private void append(String line) {
+        lock.lock();
+        try {
+            LocalDate today = LocalDate.now();
+            if (writer == null || !today.equals(writerDate)) {
+                closeWriter();
+                Files.createDirectories(dir);
+                writer = Files.newBufferedWriter(dir.resolve("stream-trace-" + FILE_DATE.format(today) + ".jsonl"),
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                writerDate = today;
+            }
+            writer.write(line);
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("写入流式时序记录失败：{}", e.getMessage());
+            closeWriter();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+            }
+            writer = null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            closeWriter();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 匿名化：汉字替换为“字”，其他字母替换为x/X，数字替换为0，标点、空白与Markdown符号保持不变，
+     * 保留分段切点与TTS清洗所依赖的文本形态
+     */
+    public static String anonymize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        text.codePoints().forEach(cp -> {
+            if (Character.UnicodeScript.of(cp) == Character.UnicodeScript.HAN) {
+                sb.append('字');
+            } else if (Character.isLetter(cp)) {
+                sb.append(Character.isUpperCase(cp) ? 'X' : 'x');
+            } else if (Character.isDigit(cp)) {
+                sb.append('0');
+            } else {
+                sb.appendCodePoint(cp);
+            }
+        });
+        return sb.toString();
+    }
+
+    /**
+     * 单次流式生成的录制句柄；token回调在同一线程内顺序调用
+     */
+    public static class TokenTrace {
+
+        static final TokenTrace NOOP = new TokenTrace(null, null);
+
+        private final StreamTraceRecorder recorder;
+        private final String model;
+        private final long startedAtMs = System.currentTimeMillis();
+        private final long startedAtNanos = System.nanoTime();
+        private final List<String> deltas = new ArrayList<>();
+        private long[] offsetsMs = new long[64];
+        private volatile boolean finished;
+
+        private TokenTrace(StreamTraceRecorder recorder, String model) {
+            this.recorder = recorder;
+            this.model = model != null ? model : "default";
+        }
+
+        public void onToken(String delta) {
+            if (recorder == null || finished || deltas.size() >= MAX_TOKENS) {
+                return;
+            }
+            int i = deltas.size();
+            if (i == offsetsMs.length) {
+                offsetsMs = Arrays.copyOf(offsetsMs, i * 2);
+            }
+            offsetsMs[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAtNanos);
+            deltas.add(anonymize(delta));
+        }
+
+        /**
+         * 结束录制并写出；重复调用只写一次
+         */
+        public void finish(String outcome) {
+            if (recorder == null || finished) {
+                return;
+            }
+            finished = true;
+            if (!deltas.isEmpty()) {
+                recorder.writeStream(this, outcome);
+            }
+        }
+    }
+}
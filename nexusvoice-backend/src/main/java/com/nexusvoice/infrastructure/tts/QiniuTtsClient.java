@@ -0,0 +1,457 @@
+package com.nexusvoice.infrastructure.tts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.nexusvoice.exception.TTSException;
+import com.nexusvoice.utils.AudioChunkBuffer;
+import com.nexusvoice.utils.TtsFrameDecoder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * 七牛云TTS异步客户端
+ * 基于JDK的 java.net.http.WebSocket：所有连接共享同一个HttpClient（即同一个选择器线程），
+ * 回调在虚拟线程执行器上运行，合成过程中没有任何线程为单个请求阻塞等待。
+ * 音频分片以 {@link Flow.Publisher} 形式提供，订阅方的需求直接映射为WebSocket的帧请求，实现端到端背压。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Component
+public class QiniuTtsClient {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final String token;
+    private final long timeoutMs;
+
+    public QiniuTtsClient(@Qualifier("virtualThreadExecutor") ExecutorService executor,
+                          @Value("${nexusvoice.tts.endpoint:wss://openai.qiniu.com/v1/voice/tts}") String endpoint,
+                          @Value("${nexusvoice.tts.token}") String token,
+                          @Value("${nexusvoice.tts.timeout-seconds:30}") int timeoutSeconds) {
+        this.httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+        this.endpoint = URI.create(endpoint);
+        this.token = token;
+        this.timeoutMs = Math.max(1, timeoutSeconds) * 1000L;
+    }
+
+    /**
+     * 合成音频分片流
+     * 每次订阅建立一条新的WebSocket连接；取消订阅会中止连接。
+     */
+    public Flow.Publisher<byte[]> stream(String text, String voiceType, String encoding, double speedRatio) {
+        return subscriber -> new TtsSubscription(subscriber, null, text, voiceType, encoding, speedRatio).open();
+    }
+
+    /**
+     * 合成音频，分片到达即回调（回调在客户端执行器上串行调用，应尽快返回）
+     *
+     * @return 全部分片送达后完成；取消该Future会中止连接
+     */
+    public CompletableFuture<Void> stream(String text, String voiceType, String encoding, double speedRatio,
+                                          Consumer<byte[]> onChunk) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        stream(text, voiceType, encoding, speedRatio).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                result.whenComplete((v, ex) -> {
+                    if (ex != null) {
+                        subscription.cancel();
+                    }
+                });
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(byte[] item) {
+                onChunk.accept(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(null);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 合成完整音频
+     * Base64音频直接解码进复合缓冲区，不产生逐帧数组；调用方用完后须关闭返回的缓冲区以归还分块。
+     * 失败、超时或取消时缓冲区由订阅在停止写入后自行关闭。
+     */
+    public CompletableFuture<AudioChunkBuffer> synthesize(String text, String voiceType, String encoding,
+                                                          double speedRatio) {
+        AudioChunkBuffer buffer = new AudioChunkBuffer();
+        CompletableFuture<AudioChunkBuffer> result = new CompletableFuture<>();
+        new TtsSubscription(new Flow.Subscriber<byte[]>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                result.whenComplete((v, ex) -> {
+                    if (ex != null) {
+                        subscription.cancel();
+                    }
+                });
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(byte[] item) {
+                // 收集模式下音频写入缓冲区，不会逐帧回调
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                result.complete(buffer);
+            }
+        }, buffer, text, voiceType, encoding, speedRatio).open();
+        return result;
+    }
+
+    /**
+     * 参数校验，返回错误信息；合法时返回null
+     */
+    private static String validate(String text, String encoding, double speedRatio) {
+        if (text == null || text.trim().isEmpty() || text.length() > 10000) {
+            return "文本内容无效：文本不能为空且长度不能超过10000字符";
+        }
+        if (encoding == null || !(encoding.equalsIgnoreCase("mp3") || encoding.equalsIgnoreCase("wav")
+                || encoding.equalsIgnoreCase("pcm"))) {
+            return "编码格式无效：" + encoding;
+        }
+        if (speedRatio < 0.5 || speedRatio > 2.0) {
+            return "语速比例无效：必须在0.5-2.0之间";
+        }
+        return null;
+    }
+
+    private static String cleanText(String text) {
+        return text.replaceAll("[\\p{Cntrl}&&[^\\r\\n\\t]]", "").trim();
+    }
+
+    private static String requestJson(String text, String voiceType, String encoding, double speedRatio) {
+        ObjectNode root = MAPPER.createObjectNode();
+        ObjectNode audio = root.putObject("audio");
+        audio.put("voice_type", voiceType);
+        audio.put("encoding", encoding);
+        audio.put("speed_ratio", speedRatio);
+        root.putObject("request").put("text", text);
+        return root.toString();
+    }
+
+    /**
+     * 单次合成：WebSocket监听器与Flow订阅合二为一。
+     * 只在下游有需求且没有待到达的帧时才向连接请求下一帧；不含音频的帧不消耗需求。
+     * 指定 collector 时音频直接解码写入该缓冲区，不再逐帧回调 onNext；
+     * 写入与终止在同一把锁下互斥，失败或取消后由订阅关闭 collector，保证归还分块时没有线程仍在写入。
+     */
+    private final class TtsSubscription implements Flow.Subscription, WebSocket.Listener {
+
+        private final Flow.Subscriber<? super byte[]> subscriber;
+        private final AudioChunkBuffer collector;
+        private final String text;
+        private final String voiceType;
+        private final String encoding;
+        private final double speedRatio;
+        private final TtsFrameDecoder.AudioSink audioSink = this::onAudio;
+        /** 合成超时计时；订阅终止时完成它以撤销计时任务 */
+        private final CompletableFuture<Void> deadline = new CompletableFuture<>();
+
+        /** 分片到达的文本帧在此拼接，跨帧复用 */
+        private char[] textFrame = new char[0];
+        private int textFrameLength;
+        private WebSocket webSocket;
+        private long demand;
+        private boolean frameRequested;
+        private boolean terminated;
+
+        TtsSubscription(Flow.Subscriber<? super byte[]> subscriber, AudioChunkBuffer collector, String text,
+                        String voiceType, String encoding, double speedRatio) {
+            this.subscriber = subscriber;
+            this.collector = collector;
+            this.text = text;
+            this.voiceType = voiceType;
+            this.encoding = encoding;
+            this.speedRatio = speedRatio;
+        }
+
+        void open() {
+            subscriber.onSubscribe(this);
+            if (isTerminated()) {
+                return;
+            }
+            String invalid = validate(text, encoding, speedRatio);
+            if (invalid != null) {
+                fail(new TTSException(invalid));
+                return;
+            }
+            httpClient.newWebSocketBuilder()
+                    .header("Authorization", "Bearer " + token)
+                    .header("VoiceType", voiceType)
+                    .connectTimeout(CONNECT_TIMEOUT)
+                    .buildAsync(endpoint, this)
+                    .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .whenComplete((ws, ex) -> {
+                        if (ex != null) {
+                            fail(new TTSException("WebSocket连接失败：" + rootMessage(ex), ex));
+                        }
+                    });
+            deadline.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((v, ex) -> {
+                if (ex instanceof TimeoutException) {
+                    fail(new TTSException("TTS合成超时", ex));
+                }
+            });
+        }
+
+        // ===== Flow.Subscription =====
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("request必须为正数"));
+                return;
+            }
+            synchronized (this) {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            pull();
+        }
+
+        @Override
+        public void cancel() {
+            WebSocket ws;
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                terminated = true;
+                ws = webSocket;
+            }
+            release();
+            if (ws != null) {
+                ws.abort();
+            }
+        }
+
+        // ===== WebSocket.Listener =====
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            synchronized (this) {
+                this.webSocket = webSocket;
+            }
+            if (isTerminated()) {
+                webSocket.abort();
+                return;
+            }
+            byte[] payload = requestJson(cleanText(text), voiceType, encoding, speedRatio).getBytes(StandardCharsets.UTF_8);
+            // 与原有客户端一致，以二进制帧发送请求
+            webSocket.sendBinary(ByteBuffer.wrap(payload), true)
+                    .whenComplete((ws, ex) -> {
+                        if (ex != null) {
+                            fail(new TTSException("TTS请求发送失败：" + rootMessage(ex), ex));
+                        }
+                    });
+            pull();
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            synchronized (this) {
+                frameRequested = false;
+            }
+            if (!last) {
+                appendText(data);
+                requestFrame(webSocket);
+                return null;
+            }
+            try {
+                int sequence;
+                if (textFrameLength == 0 && data instanceof CharBuffer buf && buf.hasArray()) {
+                    // 单帧消息：直接在底层数组上解析，不做拼接复制
+                    sequence = TtsFrameDecoder.decode(buf.array(), buf.arrayOffset() + buf.position(),
+                            buf.remaining(), audioSink);
+                } else {
+                    appendText(data);
+                    sequence = TtsFrameDecoder.decode(textFrame, 0, textFrameLength, audioSink);
+                }
+                textFrameLength = 0;
+                if (sequence < 0) {
+                    complete(webSocket);
+                    return null;
+                }
+            } catch (Exception e) {
+                fail(new TTSException("TTS响应解析失败：" + e.getMessage(), e));
+                webSocket.abort();
+                return null;
+            }
+            pull();
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            // 当前协议通过JSON文本帧返回Base64音频，二进制帧忽略
+            synchronized (this) {
+                frameRequested = false;
+            }
+            pull();
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            fail(new TTSException("TTS连接在合成结束前关闭：code=" + statusCode + ", reason=" + reason));
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            fail(new TTSException("TTS连接错误：" + rootMessage(error), error));
+        }
+
+        // ===== 内部 =====
+
+        private void onAudio(char[] base64, int offset, int length) {
+            if (collector != null) {
+                // 终止（超时、取消）可能发生在其他线程，写入期间持锁，避免缓冲区被关闭后继续写入
+                synchronized (this) {
+                    if (!terminated) {
+                        collector.appendBase64(base64, offset, length);
+                    }
+                }
+                return;
+            }
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            }
+            subscriber.onNext(TtsFrameDecoder.decodeBase64(base64, offset, length));
+        }
+
+        private void appendText(CharSequence data) {
+            int len = data.length();
+            if (textFrameLength + len > textFrame.length) {
+                textFrame = Arrays.copyOf(textFrame, Math.max(textFrameLength + len, textFrame.length * 2));
+            }
+            if (data instanceof CharBuffer buf) {
+                buf.duplicate().get(textFrame, textFrameLength, len);
+            } else {
+                for (int i = 0; i < len; i++) {
+                    textFrame[textFrameLength + i] = data.charAt(i);
+                }
+            }
+            textFrameLength += len;
+        }
+
+        private void pull() {
+            WebSocket ws;
+            synchronized (this) {
+                if (terminated || webSocket == null || frameRequested || demand <= 0) {
+                    return;
+                }
+                ws = webSocket;
+            }
+            requestFrame(ws);
+        }
+
+        private void requestFrame(WebSocket ws) {
+            synchronized (this) {
+                frameRequested = true;
+            }
+            ws.request(1);
+        }
+
+        private synchronized boolean isTerminated() {
+            return terminated;
+        }
+
+        private void complete(WebSocket ws) {
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                terminated = true;
+            }
+            deadline.complete(null);
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "").whenComplete((w, ex) -> ws.abort());
+            subscriber.onComplete();
+        }
+
+        private void fail(Throwable error) {
+            WebSocket ws;
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                terminated = true;
+                ws = webSocket;
+            }
+            release();
+            if (ws != null) {
+                ws.abort();
+            }
+            log.debug("TTS合成失败：{}", error.getMessage());
+            subscriber.onError(error);
+        }
+
+        /**
+         * 非正常终止后撤销超时计时并归还收集缓冲区；terminated 已置位，此后不会再有写入
+         */
+        private void release() {
+            deadline.complete(null);
+            if (collector != null) {
+                synchronized (this) {
+                    collector.close();
+                }
+            }
+        }
+    }
+
+    private static String rootMessage(Throwable t) {
+        Throwable cur = t;
+        while (cur.getCause() != null && cur.getCause() != cur) {
+            cur = cur.getCause();
+        }
+        return cur.getMessage() != null ? cur.getMessage() : cur.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,87 @@
+package com.nexusvoice.interfaces.api.admin;
+
+import com.nexusvoice.annotation.RequireAdmin;
+import com.nexusvoice.common.Result;
+import com.nexusvoice.infrastructure.jfr.JfrRecordingManager;
+import com.nexusvoice.infrastructure.jfr.JfrRecordingManager.RecordingInfo;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 管理员JFR录制控制器
+ * 按需开启有时长与大小上限的JFR录制，录制结束（或进行中）可下载 .jfr 文件用 JMC 分析。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Tag(name = "管理员-JFR录制", description = "按需JFR录制的开启、停止与下载")
+@RestController
+@RequestMapping("/api/admin/jfr")
+@RequireAdmin
+public class AdminJfrController {
+
+    @Autowired
+    private JfrRecordingManager jfrRecordingManager;
+
+    @Operation(summary = "开始录制", description = "时长超过配置上限时按上限处理；同时进行的录制数量受限")
+    @PostMapping("/recordings")
+    public Result<RecordingInfo> start(
+            @Parameter(description = "录制时长（秒），缺省为上限") @RequestParam(defaultValue = "0") long durationSeconds,
+            @Parameter(description = "JDK预置配置：default 或 profile") @RequestParam(defaultValue = "profile") String settings) {
+        return Result.success("JFR录制已开始", jfrRecordingManager.start(durationSeconds, settings));
+    }
+
+    @Operation(summary = "停止录制", description = "提前结束录制，数据保留可供下载")
+    @PostMapping("/recordings/{id}/stop")
+    public Result<RecordingInfo> stop(@PathVariable long id) {
+        return Result.success("JFR录制已停止", jfrRecordingManager.stop(id));
+    }
+
+    @Operation(summary = "录制列表")
+    @GetMapping("/recordings")
+    public Result<List<RecordingInfo>> list() {
+        return Result.success("获取JFR录制列表成功", jfrRecordingManager.list());
+    }
+
+    @Operation(summary = "下载录制", description = "进行中的录制导出截至当前的数据")
+    @GetMapping("/recordings/{id}/download")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable long id) throws IOException {
+        Path file = jfrRecordingManager.dump(id);
+        long size = Files.size(file);
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("nexusvoice-" + id + ".jfr").build().toString())
+                .body(body);
+    }
+
+    @Operation(summary = "删除录制", description = "关闭录制并释放磁盘空间")
+    @DeleteMapping("/recordings/{id}")
+    public Result<Void> delete(@PathVariable long id) {
+        jfrRecordingManager.delete(id);
+        return Result.success("JFR录制已删除");
+    }
+}
@@ -1,6 +1,7 @@
 package com.nexusvoice.interfaces.api.conversation;
 
 import cn.hutool.core.collection.ListUtil;
+import com.nexusvoice.annotation.RateLimit;
 import com.nexusvoice.annotation.RequireAuth;
 import com.nexusvoice.application.conversation.dto.ChatRequestDto;
 import com.nexusvoice.application.conversation.dto.ChatResponseDto;
@@ -11,6 +12,8 @@ import com.nexusvoice.application.conversation.dto.ConversationMessageWithRoleDt
 import com.nexusvoice.application.conversation.service.ConversationApplicationService;
 import com.nexusvoice.application.tts.dto.TTSResponseDTO;
 import com.nexusvoice.common.Result;
+import com.nexusvoice.infrastructure.ratelimit.QuotaType;
+import com.nexusvoice.infrastructure.ratelimit.UserRateLimiter;
 import com.nexusvoice.utils.SecurityUtils;
 import com.nexusvoice.utils.JwtUtils;
 import com.qiniu.util.StringUtils;
@@ -63,6 +66,7 @@ public class ConversationController {
 
     @PostMapping("/chat")
     @RequireAuth
+    @RateLimit(value = UserRateLimiter.CHAT, quotas = QuotaType.LLM_TOKENS)
     @Operation(summary = "发送聊天消息", description = "向AI发送消息并获取回复，支持新建对话或在现有对话中继续。可通过enableWebSearch参数控制是否启用联网搜索功能（默认为false），可通过enableAudio参数控制是否生成回复音频（默认为false）")
     public Result<ChatResponseDto> chat(@Valid @RequestBody ChatRequestDto request) {
         // 获取用户ID
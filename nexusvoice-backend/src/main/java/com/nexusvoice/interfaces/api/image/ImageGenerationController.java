@@ -1,9 +1,16 @@
 package com.nexusvoice.interfaces.api.image;
 
+import com.nexusvoice.annotation.RateLimit;
+import com.nexusvoice.application.image.dto.ImageGenerationJobDTO;
 import com.nexusvoice.application.image.dto.ImageGenerationRequestDTO;
 import com.nexusvoice.application.image.dto.ImageGenerationResponseDTO;
+import com.nexusvoice.application.image.service.ImageGenerationJobService;
 import com.nexusvoice.application.image.service.ImageGenerationService;
 import com.nexusvoice.common.Result;
+import com.nexusvoice.enums.ErrorCodeEnum;
+import com.nexusvoice.exception.BizException;
+import com.nexusvoice.infrastructure.ratelimit.UserRateLimiter;
+import com.nexusvoice.utils.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -36,12 +43,16 @@ public class ImageGenerationController {
     @Resource
     private ImageGenerationService imageGenerationService;
 
+    @Resource
+    private ImageGenerationJobService imageGenerationJobService;
+
     @Operation(summary = "生成图像", description = "根据提示词使用AI模型生成图像")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "图像生成成功"),
         @ApiResponse(responseCode = "400", description = "请求参数错误"),
         @ApiResponse(responseCode = "500", description = "图像生成失败")
     })
+    @RateLimit(value = UserRateLimiter.IMAGE, cost = "#requestDTO.batchSize")
     @PostMapping(value = "/generate", produces = MediaType.APPLICATION_JSON_VALUE)
     public Result<ImageGenerationResponseDTO> generateImage(
             @Parameter(description = "图像生成请求", required = true)
@@ -77,6 +88,7 @@ public class ImageGenerationController {
         @ApiResponse(responseCode = "400", description = "请求参数错误"),
         @ApiResponse(responseCode = "500", description = "批量图像生成失败")
     })
+    @RateLimit(value = UserRateLimiter.IMAGE, cost = "#requestDTO.batchSize")
     @PostMapping(value = "/generate/batch", produces = MediaType.APPLICATION_JSON_VALUE)
     public Result<ImageGenerationResponseDTO> generateImageBatch(
             @Parameter(description = "批量图像生成请求", required = true)
@@ -106,6 +118,50 @@ public class ImageGenerationController {
         }
     }
 
+    @Operation(summary = "提交异步图像生成任务", description = "立即返回任务ID，生成完成后可轮询任务状态或通过WebSocket接收IMAGE_JOB通知")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "任务提交成功（相同请求可能返回已有任务）"),
+        @ApiResponse(responseCode = "400", description = "请求参数错误"),
+        @ApiResponse(responseCode = "500", description = "进行中任务过多或队列已满")
+    })
+    @RateLimit(value = UserRateLimiter.IMAGE, cost = "#requestDTO.batchSize")
+    @PostMapping(value = "/jobs", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Result<ImageGenerationJobDTO> submitJob(
+            @Parameter(description = "图像生成请求", required = true)
+            @Valid @RequestBody ImageGenerationRequestDTO requestDTO) {
+        Long userId = SecurityUtils.getCurrentUserId()
+                .orElseThrow(() -> BizException.of(ErrorCodeEnum.UNAUTHORIZED, "未登录"));
+
+        log.info("收到异步图像生成请求，用户ID: {}, 模型: {}", userId, requestDTO.getModel());
+        return Result.success(imageGenerationJobService.submit(userId, requestDTO));
+    }
+
+    @Operation(summary = "查询图像生成任务", description = "查询异步图像生成任务的状态与结果")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "查询成功"),
+        @ApiResponse(responseCode = "404", description = "任务不存在")
+    })
+    @GetMapping(value = "/jobs/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Result<ImageGenerationJobDTO> getJob(
+            @Parameter(description = "任务ID", required = true)
+            @PathVariable Long jobId) {
+        Long userId = SecurityUtils.getCurrentUserId()
+                .orElseThrow(() -> BizException.of(ErrorCodeEnum.UNAUTHORIZED, "未登录"));
+
+        return Result.success(imageGenerationJobService.getJob(userId, jobId));
+    }
+
+    @Operation(summary = "最近的图像生成任务", description = "查询当前用户最近提交的异步图像生成任务")
+    @GetMapping(value = "/jobs", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Result<List<ImageGenerationJobDTO>> listJobs(
+            @Parameter(description = "返回数量，默认20，最大100")
+            @RequestParam(required = false) Integer limit) {
+        Long userId = SecurityUtils.getCurrentUserId()
+                .orElseThrow(() -> BizException.of(ErrorCodeEnum.UNAUTHORIZED, "未登录"));
+
+        return Result.success(imageGenerationJobService.listRecentJobs(userId, limit));
+    }
+
     @Operation(summary = "获取支持的模型", description = "获取图像生成服务支持的所有模型列表")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "获取模型列表成功"),
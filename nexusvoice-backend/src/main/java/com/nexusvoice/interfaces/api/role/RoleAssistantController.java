@@ -1,5 +1,6 @@
 package com.nexusvoice.interfaces.api.role;
 
+import com.nexusvoice.annotation.RateLimit;
 import com.nexusvoice.annotation.RequireUser;
 import com.nexusvoice.application.role.dto.RoleAssistantConfirmRequest;
 import com.nexusvoice.application.role.dto.RoleBriefDto;
@@ -8,6 +9,8 @@ import com.nexusvoice.application.role.dto.RoleDTO;
 import com.nexusvoice.application.role.dto.RoleResearchApplyRequest;
 import com.nexusvoice.application.role.service.RoleAssistantService;
 import com.nexusvoice.common.Result;
+import com.nexusvoice.infrastructure.ratelimit.QuotaType;
+import com.nexusvoice.infrastructure.ratelimit.UserRateLimiter;
 import com.nexusvoice.utils.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -44,6 +47,7 @@ public class RoleAssistantController {
 
     @PostMapping("/research/apply")
     @RequireUser
+    @RateLimit(value = UserRateLimiter.CHAT, quotas = QuotaType.LLM_TOKENS)
     @Operation(summary = "应用深研任务并更新草稿", description = "根据用户编辑的任务（查询集合）执行深研，只更新角色草稿，不创建角色")
     public Result<RoleBriefDto> applyResearch(@jakarta.validation.Valid @RequestBody RoleResearchApplyRequest request) {
         Long userId = SecurityUtils.getCurrentUserId().get();
@@ -53,6 +57,7 @@ public class RoleAssistantController {
 
     @PostMapping("/brief")
     @RequireUser
+    @RateLimit(value = UserRateLimiter.CHAT, quotas = QuotaType.LLM_TOKENS)
     @Operation(summary = "从对话生成角色草稿", description = "读取对话上下文，生成可预览的角色草稿（快速模式，支持按需联网）")
     public Result<RoleBriefDto> generateBrief(
             @Parameter(description = "对话ID", required = true) @RequestParam("conversationId") @NotNull Long conversationId,
@@ -65,6 +70,7 @@ public class RoleAssistantController {
 
     @PostMapping("/confirm")
     @RequireUser
+    @RateLimit(value = UserRateLimiter.CHAT, quotas = QuotaType.LLM_TOKENS)
     @Operation(summary = "确认创建私人角色", description = "使用最近一次草稿直接创建私人角色；可选开启深研增强，可自定义头像URL")
     public Result<RoleDTO> confirmCreate(@jakarta.validation.Valid @RequestBody RoleAssistantConfirmRequest request) {
         Long userId = SecurityUtils.getCurrentUserId().get();
@@ -1,17 +1,28 @@
 package com.nexusvoice.interfaces.api.tts;
 
+import com.nexusvoice.annotation.RateLimit;
 import com.nexusvoice.application.tts.dto.TTSRequestDTO;
 import com.nexusvoice.application.tts.dto.TTSResponseDTO;
 import com.nexusvoice.application.tts.service.TTSService;
+import com.nexusvoice.application.tts.service.TtsPriority;
 import com.nexusvoice.common.Result;
 import com.nexusvoice.enums.ErrorCodeEnum;
 import com.nexusvoice.exception.TTSException;
+import com.nexusvoice.infrastructure.ratelimit.QuotaType;
+import com.nexusvoice.infrastructure.ratelimit.UserRateLimiter;
+import com.nexusvoice.utils.SecurityUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
 
 /**
  * TTS文本转语音控制器
@@ -35,6 +46,7 @@ public class TTSController {
      * @return 包含音频数据的响应结果
      */
     @PostMapping("/text-to-speech")
+    @RateLimit(value = UserRateLimiter.TTS, quotas = QuotaType.TTS_CHARS)
     @Operation(summary = "文本转语音", description = "将输入的文本转换为语音音频，返回Base64编码的音频数据")
     public Result<TTSResponseDTO> textToSpeech(@Valid @RequestBody TTSRequestDTO requestDTO) {
         try {
@@ -43,7 +55,8 @@ public class TTSController {
                     requestDTO.getVoiceType(), 
                     requestDTO.getEncoding());
 
-            TTSResponseDTO responseDTO = ttsApplicationService.textToSpeech(requestDTO);
+            TtsPriority priority = TtsPriority.of(SecurityUtils.getCurrentUserId().orElse(null));
+            TTSResponseDTO responseDTO = ttsApplicationService.textToSpeech(requestDTO, priority);
             
             log.info("TTS处理成功，音频大小: {} 字节", responseDTO.getAudioSize());
             return Result.success("文本转语音成功", responseDTO);
@@ -57,6 +70,45 @@ public class TTSController {
         }
     }
 
+    /**
+     * 文本转语音（合并流式输出）
+     * 以分块传输编码返回单个音频流：上游音频分片到达即写出，分段顺序由服务端保证，首字节约一个TTS往返即可送达。
+     * 写出在虚拟线程上进行（见WebConfig）；参数校验在提交响应之前完成，开始输出后出现的错误只能通过中断连接体现。
+     *
+     * @param requestDTO TTS请求参数（仅支持mp3/pcm）
+     * @return 音频流
+     */
+    @PostMapping("/text-to-speech/stream")
+    @RateLimit(value = UserRateLimiter.TTS, quotas = QuotaType.TTS_CHARS)
+    @Operation(summary = "文本转语音（流式）", description = "长文本分段并发合成，音频分片到达即按顺序写出为单个音频流（分块传输）")
+    public ResponseEntity<?> textToSpeechStream(@Valid @RequestBody TTSRequestDTO requestDTO) {
+        try {
+            ttsApplicationService.validateMergedRequest(requestDTO);
+        } catch (TTSException e) {
+            return ResponseEntity.badRequest()
+                    .body(Result.error(ErrorCodeEnum.TTS_SERVICE_ERROR, "TTS处理失败: " + e.getMessage()));
+        }
+        log.info("收到TTS流式请求，文本长度: {}, 语音类型: {}, 编码格式: {}",
+                requestDTO.getText().length(), requestDTO.getVoiceType(), requestDTO.getEncoding());
+
+        String encoding = requestDTO.getEncoding() != null ? requestDTO.getEncoding() : "mp3";
+        // 写出在异步线程上进行，用户身份需在此处先取出
+        TtsPriority priority = TtsPriority.of(SecurityUtils.getCurrentUserId().orElse(null));
+        StreamingResponseBody body = out -> {
+            try {
+                long size = ttsApplicationService.streamMergedAudio(requestDTO, priority, out);
+                log.info("TTS流式输出完成，音频大小: {} 字节", size);
+            } catch (TTSException e) {
+                log.error("TTS流式输出失败: {}", e.getMessage(), e);
+                throw new IOException("TTS处理失败: " + e.getMessage(), e);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TTSService.mergedContentType(encoding)))
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .body(body);
+    }
+
     /**
      * 获取支持的语音类型列表
      * 
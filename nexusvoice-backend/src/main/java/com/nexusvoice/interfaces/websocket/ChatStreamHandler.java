@@ -1,11 +1,16 @@
 package com.nexusvoice.interfaces.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nexusvoice.application.conversation.assembler.ConversationAssembler;
 import com.nexusvoice.application.conversation.dto.ChatRequestDto;
+import com.nexusvoice.application.image.dto.ImageGenerationJobDTO;
+import com.nexusvoice.application.image.event.ImageGenerationJobFinishedEvent;
 import com.nexusvoice.application.conversation.service.ConversationApplicationService;
 import com.nexusvoice.application.tts.dto.TTSRequestDTO;
 import com.nexusvoice.application.tts.dto.TTSResponseDTO;
 import com.nexusvoice.application.tts.service.TTSService;
+import com.nexusvoice.application.tts.service.TtsLatencyTracker;
+import com.nexusvoice.application.tts.service.TtsPriority;
 import com.nexusvoice.application.role.service.RoleApplicationService;
 import com.nexusvoice.domain.conversation.model.Conversation;
 import com.nexusvoice.domain.conversation.model.ConversationMessage;
@@ -17,26 +22,41 @@ import com.nexusvoice.infrastructure.ai.model.ChatMessage;
 import com.nexusvoice.infrastructure.ai.model.ChatRequest;
 import com.nexusvoice.infrastructure.ai.model.StreamChatResponse;
 import com.nexusvoice.infrastructure.ai.service.AiChatService;
+import com.nexusvoice.infrastructure.ai.tool.WebSearchPrefetcher;
+import com.nexusvoice.infrastructure.database.DbTimeRecorder;
+import com.nexusvoice.infrastructure.metrics.TurnTiming;
+import com.nexusvoice.infrastructure.ratelimit.QuotaType;
+import com.nexusvoice.infrastructure.ratelimit.UserRateLimiter;
 import com.nexusvoice.enums.ErrorCodeEnum;
 import com.nexusvoice.exception.BizException;
+import com.nexusvoice.exception.RateLimitedException;
+import com.nexusvoice.exception.TTSException;
+import com.nexusvoice.domain.user.constant.UserType;
 import com.nexusvoice.domain.config.repository.SystemConfigRepository;
 import com.nexusvoice.domain.config.model.SystemConfig;
-import com.nexusvoice.utils.MarkdownTextUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
 
 /**
  * 流式聊天WebSocket处理器
@@ -55,14 +75,24 @@ public class ChatStreamHandler implements WebSocketHandler {
     private final ConversationMessageRepository conversationMessageRepository;
     private final RoleApplicationService roleApplicationService;
     private final TTSService ttsService;
+    private final TtsLatencyTracker ttsLatencyTracker;
+    private final UserRateLimiter userRateLimiter;
+    private final StreamAdmissionController streamAdmissionController;
+    private final SegmentAggregator.Synthesizer segmentSynthesizer;
     private final SystemConfigRepository systemConfigRepository;
     private final ObjectMapper objectMapper;
+    private final WebSearchPrefetcher webSearchPrefetcher;
+    private final ExecutorService virtualThreadExecutor;
+    private final MeterRegistry meterRegistry;
+    private final boolean exposeTiming;
+    private final Timer firstAudioTimer;
+    private final Timer turnDbTimer;
     
     // 存储会话信息
     private final Map<String, WebSocketSession> activeSessions = new ConcurrentHashMap<>();
     // 单flight保护：同一Session同一时间仅处理一个请求
     private final ConcurrentMap<String, Boolean> streamingSessions = new ConcurrentHashMap<>();
-    
+
     public ChatStreamHandler(AiChatService aiChatService,
                            ConversationApplicationService conversationApplicationService,
                            ConversationRepository conversationRepository,
@@ -70,8 +100,15 @@ public class ChatStreamHandler implements WebSocketHandler {
                            ConversationMessageRepository conversationMessageRepository,
                            RoleApplicationService roleApplicationService,
                            TTSService ttsService,
+                           TtsLatencyTracker ttsLatencyTracker,
+                           UserRateLimiter userRateLimiter,
+                           StreamAdmissionController streamAdmissionController,
                            SystemConfigRepository systemConfigRepository,
-                           ObjectMapper objectMapper) {
+                           ObjectMapper objectMapper,
+                           WebSearchPrefetcher webSearchPrefetcher,
+                           @Qualifier("virtualThreadExecutor") ExecutorService virtualThreadExecutor,
+                           MeterRegistry meterRegistry,
+                           @Value("${nexusvoice.chat.expose-timing:false}") boolean exposeTiming) {
         this.aiChatService = aiChatService;
         this.conversationApplicationService = conversationApplicationService;
         this.conversationRepository = conversationRepository;
@@ -79,8 +116,34 @@ public class ChatStreamHandler implements WebSocketHandler {
         this.conversationMessageRepository = conversationMessageRepository;
         this.roleApplicationService = roleApplicationService;
         this.ttsService = ttsService;
+        this.ttsLatencyTracker = ttsLatencyTracker;
+        this.userRateLimiter = userRateLimiter;
+        this.streamAdmissionController = streamAdmissionController;
+        this.segmentSynthesizer = new SegmentAggregator.Synthesizer() {
+            @Override
+            public boolean isAvailable() {
+                return ttsService.isAvailable();
+            }
+
+            @Override
+            public String synthesize(String voiceType, String text, TtsPriority priority) throws Exception {
+                return synthesizeSegment(voiceType, text, priority);
+            }
+        };
         this.systemConfigRepository = systemConfigRepository;
         this.objectMapper = objectMapper;
+        this.webSearchPrefetcher = webSearchPrefetcher;
+        this.virtualThreadExecutor = virtualThreadExecutor;
+        this.meterRegistry = meterRegistry;
+        this.exposeTiming = exposeTiming;
+        Gauge.builder("nexusvoice.ws.sessions.active", activeSessions, Map::size)
+                .description("在线WebSocket会话数").register(meterRegistry);
+        Gauge.builder("nexusvoice.ws.streams.inflight", streamingSessions, Map::size)
+                .description("正在生成回复的WebSocket会话数（单flight开启时）").register(meterRegistry);
+        this.firstAudioTimer = Timer.builder("nexusvoice.tts.first_audio")
+                .description("从收到请求到首段音频可播放的时长").register(meterRegistry);
+        this.turnDbTimer = Timer.builder("nexusvoice.chat.turn.db")
+                .description("单轮对话的数据库累计耗时").tag("channel", "ws").register(meterRegistry);
     }
 
     @Override
@@ -121,7 +184,7 @@ public class ChatStreamHandler implements WebSocketHandler {
                 return;
             }
 
-            // 单flight保护（由system_config控制开关）
+            // 单flight保护（由system_config控制开关）；先于限流检查，被拒绝的重复请求不消耗令牌
             boolean singleFlightEnabled = getBooleanConfig("websocket.single_flight.enabled", true);
             if (singleFlightEnabled) {
                 Boolean prev = streamingSessions.putIfAbsent(sessionId, Boolean.TRUE);
@@ -130,9 +193,27 @@ public class ChatStreamHandler implements WebSocketHandler {
                     return;
                 }
             }
+
+            // 用户级限流与每日配额：被拒绝时返回带retryAfterSeconds的ERROR
+            boolean admin = isAdminSession(session);
+            try {
+                userRateLimiter.admit(UserRateLimiter.CHAT, userId, admin, QuotaType.LLM_TOKENS);
+            } catch (RateLimitedException e) {
+                if (singleFlightEnabled) {
+                    streamingSessions.remove(sessionId);
+                }
+                sendMessage(session, StreamChatResponse.error(e.getMessage(), e.getRetryAfterSeconds()));
+                return;
+            }
+            if (Boolean.TRUE.equals(requestDto.getEnableAudio()) && !userRateLimiter.hasQuota(userId, admin, QuotaType.TTS_CHARS)) {
+                log.info("用户当日语音合成配额已用尽，本轮降级为纯文本，用户ID：{}", userId);
+                requestDto.setEnableAudio(false);
+            }
             
-            // 处理流式聊天
-            handleStreamChat(session, requestDto, userId, singleFlightEnabled);
+            // 节点级准入：生成数达到上限时排队并推送QUEUED，队列已满或等待超时则返回ERROR
+            streamAdmissionController.acquire(sessionId,
+                            (position, etaMs) -> sendMessage(session, StreamChatResponse.queued(position, etaMs)))
+                    .whenComplete((permit, ex) -> onAdmission(session, requestDto, userId, singleFlightEnabled, permit, ex));
             
         } catch (Exception e) {
             log.error("处理WebSocket消息失败，会话ID：{}", sessionId, e);
@@ -154,52 +235,142 @@ public class ChatStreamHandler implements WebSocketHandler {
         activeSessions.remove(sessionId);
         // 清理单flight标记，避免异常断开导致残留
         streamingSessions.remove(sessionId);
+        streamAdmissionController.cancel(sessionId);
         
         log.info("WebSocket连接关闭，会话ID：{}，状态：{}", sessionId, closeStatus);
     }
 
+    /**
+     * 异步图像生成任务结束后，推送给该用户的所有在线会话
+     */
+    @EventListener
+    public void onImageGenerationJobFinished(ImageGenerationJobFinishedEvent event) {
+        ImageGenerationJobDTO job = event.job();
+        List<String> imageUrls = job.getResult() != null ? job.getResult().getImageUrls() : null;
+        StreamChatResponse notice = StreamChatResponse.imageJob(
+                job.getJobId(), job.getStatus(), imageUrls, job.getModel(), job.getErrorMessage());
+        int delivered = 0;
+        for (WebSocketSession session : activeSessions.values()) {
+            if (event.userId().equals(getUserIdFromSession(session))) {
+                sendMessage(session, notice);
+                delivered++;
+            }
+        }
+        log.debug("图像生成任务结束通知已推送，任务ID：{}，会话数：{}", job.getJobId(), delivered);
+    }
+
     @Override
     public boolean supportsPartialMessages() {
         return false;
     }
 
+    /**
+     * 准入结果处理：获得名额后开始本轮对话；被拒绝时返回带retryAfterSeconds的ERROR
+     */
+    private void onAdmission(WebSocketSession session, ChatRequestDto requestDto, Long userId, boolean singleFlightEnabled,
+                             StreamAdmissionController.Permit permit, Throwable error) {
+        String sessionId = session.getId();
+        if (error != null || !session.isOpen()) {
+            if (permit != null) {
+                permit.release();
+            }
+            if (singleFlightEnabled) {
+                streamingSessions.remove(sessionId);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RateLimitedException e) {
+                sendMessage(session, StreamChatResponse.error(e.getMessage(), e.getRetryAfterSeconds()));
+            }
+            return;
+        }
+        handleStreamChat(session, requestDto, userId, singleFlightEnabled, permit);
+    }
+
     /**
      * 处理流式聊天
+     * 准入名额在生成结束或失败时归还，分段TTS收尾与落库不占用名额。
      */
-    private void handleStreamChat(WebSocketSession session, ChatRequestDto requestDto, Long userId, boolean singleFlightEnabled) {
+    private void handleStreamChat(WebSocketSession session, ChatRequestDto requestDto, Long userId, boolean singleFlightEnabled,
+                                  StreamAdmissionController.Permit permit) {
+        DbTimeRecorder.Scope dbScope = DbTimeRecorder.begin();
+        TurnTiming timing = new TurnTiming();
         try {
-            long startTime = System.currentTimeMillis();
+            long startTime = timing.getStartedAt();
             String sessionId = session.getId();
-            // 1. 获取或创建对话
-            Conversation conversation = getOrCreateConversation(requestDto, userId);
-            
-            // 2. 验证权限和限制
-            conversationDomainService.validateConversationAccess(conversation.getId(), userId);
-            conversationDomainService.checkMessageCountLimit(conversation.getId(), 100);
-            conversationDomainService.checkTokenLimit(conversation.getId(), 50000);
-
-            // 2.1 解析角色（与HTTP一致）
-            Role role = null;
-            Long effectiveRoleId = requestDto.getRoleId() != null ? requestDto.getRoleId() : conversation.getRoleId();
-            if (effectiveRoleId != null) {
-                try {
-                    role = roleApplicationService.getRoleForChat(effectiveRoleId, userId);
-                    log.info("WS使用角色进行聊天，角色ID：{}，角色名称：{}", role.getId(), role.getName());
-                } catch (Exception e) {
-                    log.warn("WS获取角色信息失败，角色ID：{}，用户ID：{}，错误：{}", effectiveRoleId, userId, e.getMessage());
+            // 0. 联网搜索只依赖用户问题，最先在虚拟线程上发起，与后续数据库阶段并行
+            boolean enableWebSearch = requestDto.getEnableWebSearch() != null && requestDto.getEnableWebSearch();
+            Future<String> searchFuture = webSearchPrefetcher.prefetch(requestDto.getMessage(), enableWebSearch);
+
+            Conversation conversation;
+            ChatRequest aiRequest;
+            Role role;
+            try {
+                // 1. 获取或创建对话
+                Conversation conv = timing.time(TurnTiming.CONVERSATION_LOAD, () -> getOrCreateConversation(requestDto, userId));
+
+                // 2. 角色与历史加载不依赖校验结果，先并行发起（关联到本轮的数据库耗时统计）
+                Long effectiveRoleId = requestDto.getRoleId() != null ? requestDto.getRoleId() : conv.getRoleId();
+                CompletableFuture<Role> roleFuture = effectiveRoleId == null
+                        ? CompletableFuture.completedFuture(null)
+                        : CompletableFuture.supplyAsync(() -> {
+                            DbTimeRecorder.Binding dbBinding = dbScope.attach();
+                            try {
+                                return timing.time(TurnTiming.ROLE_LOAD, () -> loadRole(effectiveRoleId, userId));
+                            } finally {
+                                dbBinding.close();
+                            }
+                        }, virtualThreadExecutor);
+                CompletableFuture<List<ConversationMessage>> historyFuture = CompletableFuture.supplyAsync(() -> {
+                    DbTimeRecorder.Binding dbBinding = dbScope.attach();
+                    try {
+                        return timing.time(TurnTiming.HISTORY_LOAD, () -> conversationDomainService.getConversationHistory(conv.getId()));
+                    } finally {
+                        dbBinding.close();
+                    }
+                }, virtualThreadExecutor);
+
+                // 3. 验证权限和限制（失败则直接抛出，并行任务结果丢弃）
+                timing.run(TurnTiming.ACCESS_CHECK, () -> {
+                    conversationDomainService.validateConversationAccess(conv.getId(), userId);
+                    conversationDomainService.checkMessageCountLimit(conv.getId(), 100);
+                    conversationDomainService.checkTokenLimit(conv.getId(), 50000);
+                });
+
+                // 4. 保存用户消息（与角色、历史、搜索并行）
+                ConversationMessage userMessage = ConversationMessage.createUserMessage(
+                        conv.getId(),
+                        requestDto.getMessage(),
+                        null
+                );
+                ConversationMessage savedUserMessage = timing.time(TurnTiming.PERSISTENCE,
+                        () -> conversationDomainService.addMessageToConversation(conv.getId(), userMessage));
+
+                // 5. 汇合：历史可能早于用户消息落库读取，缺失时补上本轮用户消息
+                role = joinStage(roleFuture);
+                List<ConversationMessage> history = new ArrayList<>(joinStage(historyFuture));
+                boolean containsCurrent = savedUserMessage.getId() != null
+                        && history.stream().anyMatch(m -> savedUserMessage.getId().equals(m.getId()));
+                if (!containsCurrent) {
+                    history.add(savedUserMessage);
+                }
+
+                // 6. 按截止时间等待搜索结果，超时则本轮不使用联网增强
+                int searchDeadlineMs = getIntConfig("websocket.search.deadline_ms", 2000, 0, 10000);
+                long remaining = searchDeadlineMs - (System.currentTimeMillis() - startTime);
+                String searchContext = timing.time(TurnTiming.SEARCH, () -> webSearchPrefetcher.await(searchFuture, remaining));
+
+                // 7. 构建AI请求
+                final Role loadedRole = role;
+                aiRequest = timing.time(TurnTiming.PROMPT_BUILD,
+                        () -> buildStreamAiRequest(conv, requestDto, loadedRole, history, searchContext));
+                conversation = conv;
+                timing.identify(userId, conv.getId(), aiRequest.getModel());
+            } catch (RuntimeException e) {
+                if (searchFuture != null) {
+                    searchFuture.cancel(true);
                 }
+                throw e;
             }
-            
-            // 3. 保存用户消息
-            ConversationMessage userMessage = ConversationMessage.createUserMessage(
-                    conversation.getId(), 
-                    requestDto.getMessage(),
-                    null
-            );
-            conversationDomainService.addMessageToConversation(conversation.getId(), userMessage);
-            
-            // 4. 构建AI请求
-            ChatRequest aiRequest = buildStreamAiRequest(conversation, requestDto, role);
             // 注意：lambda中引用的本地变量需要是final或有效final，这里固定一份快照供后续lambda使用
             final Role roleSnapshot = role;
             
@@ -220,17 +391,27 @@ public class ChatStreamHandler implements WebSocketHandler {
             final int minChars = getIntConfig("websocket.tts.segment.min_chars", 160, 60, 600);
             final int maxChars = getIntConfig("websocket.tts.segment.max_chars", 220, 80, 800);
             final int firstGateMs = getIntConfig("websocket.tts.first_gate_ms", 1500, 200, 5000);
-            final int ttsMaxConcurrency = getIntConfig("websocket.tts.max_concurrency", 2, 1, 8);
             final int heartbeatMs = getIntConfig("websocket.stream.heartbeat.ms", 5000, 1000, 60000);
             final boolean lateUpdateEnabled = getBooleanConfig("websocket.tts.update_on_late_audio", true);
+            // 自适应分段：按实时生成速率与TTS延迟决定首段切点，后续分段逐步增大
+            final boolean adaptiveSegmentation = getBooleanConfig("websocket.tts.segment.adaptive", true);
+            final int firstFloorChars = getIntConfig("websocket.tts.segment.first_floor_chars", 12, 4, 200);
+            final int growthPercent = getIntConfig("websocket.tts.segment.growth_percent", 200, 100, 400);
+            final int playbackCharsPerSec = getIntConfig("websocket.tts.playback_chars_per_sec", 4, 1, 20);
+            final TtsPriority turnPriority = new TtsPriority(userId, 0, 0, session::isOpen);
 
             // 分段器，仅在启用分段TTS时创建
+            final SegmentAggregator.Settings segmentSettings = new SegmentAggregator.Settings(firstMinChars, minChars, maxChars, firstGateMs, heartbeatMs, lateUpdateEnabled,
+                    adaptiveSegmentation ? new SegmentAggregator.AdaptivePolicy(firstFloorChars, growthPercent) : null, playbackCharsPerSec);
             final SegmentAggregator aggregator = segmentedTtsEnabled
-                    ? new SegmentAggregator(ttsGroupId, selectedVoiceType, modelName, firstMinChars, minChars, maxChars, firstGateMs, ttsMaxConcurrency, heartbeatMs, lateUpdateEnabled,
+                    ? new SegmentAggregator(ttsGroupId, selectedVoiceType, modelName, segmentSettings, turnPriority, startTime,
                     (segText) -> responseContent.append(segText),
-                    (resp) -> sendMessage(session, resp))
+                    (resp) -> sendMessage(session, resp),
+                    segmentSynthesizer, ttsLatencyTracker, virtualThreadExecutor, SegmentAggregator.Timeline.SYSTEM, firstAudioTimer)
                     : null;
 
+            final long generationStart = System.currentTimeMillis();
+            final boolean[] firstTokenSeen = {false};
             aiChatService.streamChat(aiRequest,
                     // onNext - 处理流式数据
                     (streamResponse) -> {
@@ -246,6 +427,10 @@ public class ChatStreamHandler implements WebSocketHandler {
                             }
                             if (streamResponse.getType() == StreamChatResponse.StreamMessageType.CONTENT && streamResponse.getDelta() != null) {
                                 String delta = streamResponse.getDelta();
+                                if (!firstTokenSeen[0]) {
+                                    firstTokenSeen[0] = true;
+                                    timing.markSince(TurnTiming.TTFT, generationStart);
+                                }
                                 if (segmentedTtsEnabled && aggregator != null) {
                                     aggregator.onDelta(delta);
                                 } else {
@@ -259,14 +444,18 @@ public class ChatStreamHandler implements WebSocketHandler {
                     },
                     // onError - 处理错误
                     (error) -> {
+                        permit.release();
                         log.error("流式聊天出错，对话ID：{}", conversation.getId(), error);
                         sendErrorMessage(session, "AI响应出错：" + error.getMessage());
+                        timing.abandon("ws");
                         if (singleFlightEnabled) {
                             streamingSessions.remove(sessionId);
                         }
                     },
                     // onComplete - 完成处理
                     () -> {
+                        permit.release();
+                        timing.markSince(TurnTiming.GENERATION, generationStart);
                         try {
                             CompletableFuture<Void> segmentsDone;
                             if (segmentedTtsEnabled && aggregator != null) {
@@ -277,11 +466,13 @@ public class ChatStreamHandler implements WebSocketHandler {
 
                             // 等待分段全部发送完成后再落库并发送END
                             segmentsDone.whenComplete((v, ex) -> {
+                                DbTimeRecorder.Binding dbBinding = dbScope.attach();
                                 try {
                                     if (ex != null) {
                                         log.warn("分段TTS完成阶段出现异常：{}", ex.getMessage());
                                     }
                                     if (responseContent.length() > 0) {
+                                        long persistStart = System.currentTimeMillis();
                                         ConversationMessage aiMessage = ConversationMessage.createAssistantMessage(
                                                 conversation.getId(),
                                                 responseContent.toString(),
@@ -303,6 +494,7 @@ public class ChatStreamHandler implements WebSocketHandler {
                                                 log.warn("WS自动更新会话标题失败，对话ID：{}，错误：{}", conversation.getId(), titleEx.getMessage());
                                             }
                                         }
+                                        timing.markSince(TurnTiming.PERSISTENCE, persistStart);
 
                                         // 统一发送END，附带元数据
                                         StreamChatResponse endResp = StreamChatResponse.end("stop");
@@ -313,19 +505,32 @@ public class ChatStreamHandler implements WebSocketHandler {
                                         if (segmentedTtsEnabled) {
                                             endResp.setTtsGroupId(ttsGroupId);
                                             endResp.setTtsChunked(true);
+                                            endResp.setTimeToFirstAudioMs(aggregator != null ? aggregator.getTimeToFirstAudioMs() : null);
+                                            if (endResp.getTimeToFirstAudioMs() != null) {
+                                                timing.add(TurnTiming.TTS_FIRST_SEGMENT, endResp.getTimeToFirstAudioMs());
+                                            }
+                                        }
+                                        timing.add(TurnTiming.DB, dbScope.elapsedMs());
+                                        if (exposeTiming) {
+                                            endResp.setTimings(timing.snapshot());
                                         }
                                         sendMessage(session, endResp);
+                                        timing.markSuccess();
                                     }
                                 } catch (Exception ee) {
                                     log.error("保存AI回复消息失败", ee);
                                 } finally {
+                                    turnDbTimer.record(dbScope.elapsedNanos(), TimeUnit.NANOSECONDS);
+                                    timing.finish(meterRegistry, "ws");
                                     if (singleFlightEnabled) {
                                         streamingSessions.remove(sessionId);
                                     }
+                                    dbBinding.close();
                                 }
                             });
                         } catch (Exception e) {
                             log.error("流式完成阶段处理失败", e);
+                            timing.abandon("ws");
                             if (singleFlightEnabled) {
                                 streamingSessions.remove(sessionId);
                             }
@@ -334,17 +539,24 @@ public class ChatStreamHandler implements WebSocketHandler {
             );
             
         } catch (BizException e) {
+            permit.release();
             log.error("流式聊天业务异常，用户ID：{}", userId, e);
             sendErrorMessage(session, e.getMessage());
+            timing.abandon("ws");
             if (singleFlightEnabled) {
                 streamingSessions.remove(session.getId());
             }
         } catch (Exception e) {
+            permit.release();
             log.error("流式聊天系统异常，用户ID：{}", userId, e);
             sendErrorMessage(session, "系统繁忙，请稍后重试");
+            timing.abandon("ws");
             if (singleFlightEnabled) {
                 streamingSessions.remove(session.getId());
             }
+        } finally {
+            // 只解除本线程的关联，完成回调通过attach重新关联后仍计入本轮
+            dbScope.close();
         }
     }
 
@@ -374,226 +586,16 @@ public class ChatStreamHandler implements WebSocketHandler {
     }
 
     /**
-     * 分段聚合器：按阈值切分文本、并发TTS并按序发送TTS_SEGMENT
+     * 合成单个分段（纯合成耗时由TTSService计入延迟模型与时序录制）
      */
-    private class SegmentAggregator {
-        private final String groupId;
-        private final String voiceType;
-        private final String model;
-        private final int firstMinChars;
-        private final int minChars;
-        private final int maxChars;
-        private final int firstGateMs;
-        private final int heartbeatMs;
-        private final boolean lateUpdate;
-        private final Semaphore permits;
-        private final Consumer<String> appendTotal;
-        private final Consumer<StreamChatResponse> sender;
-
-        private final StringBuilder buf = new StringBuilder();
-        private final Map<Integer, String> segText = new ConcurrentHashMap<>();
-        private final Map<Integer, String> segAudio = new ConcurrentHashMap<>();
-        private final Map<Integer, Boolean> audioDelivered = new ConcurrentHashMap<>();
-        private volatile int nextIndex = 0;
-        private volatile int produced = 0;
-        private volatile boolean finished = false;
-        private final CompletableFuture<Void> done = new CompletableFuture<>();
-        private volatile boolean heartbeatRunning = false;
-        private CompletableFuture<?> heartbeatTask;
-
-        SegmentAggregator(String groupId, String voiceType, String model, int firstMinChars, int minChars, int maxChars, int firstGateMs, int concurrency, int heartbeatMs, boolean lateUpdate,
-                          Consumer<String> appendTotal, Consumer<StreamChatResponse> sender) {
-            this.groupId = groupId;
-            this.voiceType = voiceType;
-            this.model = model;
-            this.firstMinChars = firstMinChars;
-            this.minChars = minChars;
-            this.maxChars = maxChars;
-            this.firstGateMs = firstGateMs;
-            this.heartbeatMs = heartbeatMs;
-            this.lateUpdate = lateUpdate;
-            this.permits = new Semaphore(concurrency);
-            this.appendTotal = appendTotal;
-            this.sender = sender;
-        }
-
-        void onDelta(String delta) {
-            if (delta == null || delta.isEmpty()) return;
-            synchronized (buf) {
-                buf.append(delta);
-                tryCut();
-            }
-        }
-
-        CompletableFuture<Void> finish() {
-            synchronized (buf) {
-                if (buf.length() > 0) {
-                    String text = buf.toString();
-                    buf.setLength(0);
-                    scheduleSegment(text, produced++);
-                }
-                finished = true;
-            }
-            // 尝试在完成后刷新
-            flush();
-            return done;
-        }
-
-        private void tryCut() {
-            while (true) {
-                int need = (produced == 0) ? firstMinChars : minChars;
-                if (buf.length() < need) return;
-                int cut = findCutIndex(buf, need, maxChars);
-                if (cut <= 0) return;
-                String text = buf.substring(0, cut);
-                buf.delete(0, cut);
-                scheduleSegment(text, produced++);
-            }
-        }
-
-        private void scheduleSegment(String text, int index) {
-            segText.put(index, text);
-            appendTotal.accept(text);
-            if (index == 0) {
-                startHeartbeat();
-                // 首段fallback：超过firstGateMs仍未获取音频，先释放文本段
-                CompletableFuture.delayedExecutor(firstGateMs, TimeUnit.MILLISECONDS).execute(() -> {
-                    if (!segAudio.containsKey(0)) {
-                        segAudio.put(0, null);
-                        flush();
-                    }
-                });
-            }
-
-            CompletableFuture.runAsync(() -> {
-                boolean acquired = false;
-                try {
-                    permits.acquire();
-                    acquired = true;
-                    String cleaned = MarkdownTextUtils.cleanForTTS(text);
-                    TTSRequestDTO ttsReq = new TTSRequestDTO();
-                    ttsReq.setText(cleaned);
-                    ttsReq.setVoiceType(voiceType);
-                    ttsReq.setEncoding("mp3");
-                    ttsReq.setSpeedRatio(1.0);
-                    TTSResponseDTO res = ttsService.textToSpeech(ttsReq);
-                    String url = (res != null) ? res.getAudioData() : null;
-                    segAudio.put(index, url);
-                    // 若此前已经发送过该段文本且未带音频，则补发音频更新
-                    maybeSendLateUpdate(index, url);
-                } catch (Exception e) {
-                    log.warn("分段TTS失败：index={}，错误：{}", index, e.getMessage());
-                    segAudio.put(index, null);
-                } finally {
-                    if (acquired) permits.release();
-                    flush();
-                }
-            });
-        }
-
-        private void flush() {
-            // 首段同步门：只有当 index=0 有音频（或超时）才发
-            if (nextIndex == 0 && produced > 0 && !segAudio.containsKey(0)) {
-                return;
-            }
-            while (segText.containsKey(nextIndex)) {
-                // 对于非首段，允许音频为空（失败也发文本）
-                if (nextIndex == 0 && !segAudio.containsKey(0)) break;
-                String text = segText.remove(nextIndex);
-                String audio = segAudio.getOrDefault(nextIndex, null);
-                StreamChatResponse seg = StreamChatResponse.ttsSegment(groupId, nextIndex, text, audio, model);
-                try {
-                    sender.accept(seg);
-                } catch (Exception e) {
-                    log.warn("发送TTS_SEGMENT失败：index={}，错误：{}", nextIndex, e.getMessage());
-                }
-                audioDelivered.put(nextIndex, audio != null);
-                nextIndex++;
-            }
-            // 如果已完成且全部发送，标记done
-            if (finished && nextIndex >= produced) {
-                done.complete(null);
-                stopHeartbeat();
-            }
-            if (nextIndex > 0) {
-                stopHeartbeat();
-            }
-        }
-
-        private void maybeSendLateUpdate(int index, String audioUrl) {
-            if (!lateUpdate) return;
-            if (audioUrl == null) return;
-            // 已经发出过该段，并且之前未带音频
-            Boolean delivered = audioDelivered.get(index);
-            if (index < nextIndex && (delivered == null || !delivered)) {
-                try {
-                    StreamChatResponse upd = StreamChatResponse.ttsSegmentUpdate(groupId, index, audioUrl, model);
-                    sender.accept(upd);
-                    audioDelivered.put(index, true);
-                } catch (Exception e) {
-                    log.warn("发送TTS_SEGMENT_UPDATE失败：index={}，错误：{}", index, e.getMessage());
-                }
-            }
-        }
-
-        private void startHeartbeat() {
-            if (heartbeatRunning) return;
-            heartbeatRunning = true;
-            heartbeatTask = CompletableFuture.runAsync(() -> {
-                while (heartbeatRunning) {
-                    try {
-                        sender.accept(StreamChatResponse.heartbeat());
-                    } catch (Exception ignore) {}
-                    try {
-                        Thread.sleep(heartbeatMs);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-            });
-        }
-
-        private void stopHeartbeat() {
-            heartbeatRunning = false;
-            heartbeatTask = null;
-        }
-
-        private int findCutIndex(StringBuilder sb, int minChars, int maxChars) {
-            int len = sb.length();
-            if (len < minChars) return -1;
-            int limit = Math.min(len, maxChars);
-            // 优先：句末标点/换行
-            int idx = lastIndexOfAny(sb, new char[]{'。','！','？','!','?','\n','\r'}, limit);
-            if (idx >= minChars) return idx;
-            // 次选：逗号、顿号
-            idx = lastIndexOfAny(sb, new char[]{'，','、',','}, limit);
-            if (idx >= minChars) return idx;
-            // 空格
-            idx = lastIndexOf(sb, ' ', limit - 1);
-            if (idx >= minChars) return idx;
-            // 硬切
-            return limit;
-        }
-
-        private int lastIndexOfAny(CharSequence s, char[] chars, int endExclusive) {
-            int bound = Math.min(endExclusive, s.length());
-            for (int i = bound - 1; i >= 0; i--) {
-                char c = s.charAt(i);
-                for (char target : chars) {
-                    if (c == target) return i + 1;
-                }
-            }
-            return -1;
-        }
-
-        private int lastIndexOf(CharSequence s, char ch, int fromInclusive) {
-            int i = Math.min(fromInclusive, s.length() - 1);
-            for (; i >= 0; i--) {
-                if (s.charAt(i) == ch) return i + 1;
-            }
-            return -1;
-        }
+    private String synthesizeSegment(String voiceType, String text, TtsPriority priority) throws TTSException {
+        TTSRequestDTO ttsReq = new TTSRequestDTO();
+        ttsReq.setText(text);
+        ttsReq.setVoiceType(voiceType);
+        ttsReq.setEncoding("mp3");
+        ttsReq.setSpeedRatio(1.0);
+        TTSResponseDTO res = ttsService.textToSpeech(ttsReq, priority);
+        return res != null ? res.getAudioData() : null;
     }
 
     /**
@@ -658,6 +660,16 @@ public class ChatStreamHandler implements WebSocketHandler {
         return roles != null ? roles.toString() : "ROLE_USER";
     }
 
+    /**
+     * 会话用户是否为管理员
+     */
+    private boolean isAdminSession(WebSocketSession session) {
+        String adminRole = "ROLE_" + UserType.ADMIN.getCode();
+        return Arrays.stream(getUserRolesFromSession(session).split(","))
+                .map(String::trim)
+                .anyMatch(adminRole::equals);
+    }
+
     /**
      * 获取或创建对话
      */
@@ -674,14 +686,42 @@ public class ChatStreamHandler implements WebSocketHandler {
         }
     }
 
+    /**
+     * 加载聊天角色，失败时降级为无角色（与HTTP一致）
+     */
+    private Role loadRole(Long roleId, Long userId) {
+        try {
+            Role role = roleApplicationService.getRoleForChat(roleId, userId);
+            log.info("WS使用角色进行聊天，角色ID：{}，角色名称：{}", role.getId(), role.getName());
+            return role;
+        } catch (Exception e) {
+            log.warn("WS获取角色信息失败，角色ID：{}，用户ID：{}，错误：{}", roleId, userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 等待并行阶段结果，解包CompletionException以保留原始业务异常
+     */
+    private <T> T joinStage(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
     /**
      * 构建流式AI请求
+     *
+     * @param history       已加载的对话历史（包含本轮用户消息）
+     * @param searchContext 预取的联网搜索摘要，可为空
      */
-    private ChatRequest buildStreamAiRequest(Conversation conversation, ChatRequestDto requestDto, Role role) {
-        // 获取对话历史（限制数量）
-        List<ConversationMessage> history = conversationApplicationService.getConversationHistoryForInternal(
-                conversation.getId(), conversation.getUserId());
-        
+    private ChatRequest buildStreamAiRequest(Conversation conversation, ChatRequestDto requestDto, Role role,
+                                             List<ConversationMessage> history, String searchContext) {
         List<ChatMessage> messages = new ArrayList<>();
         
         // 添加系统消息（与HTTP对齐：优先请求systemPrompt，其次会话，最后默认；并拼接角色人设）
@@ -691,7 +731,7 @@ public class ChatStreamHandler implements WebSocketHandler {
         }
         
         // 动态裁剪历史：与HTTP路径一致，基于简单token预算从尾部选择，最多20条
-        addTrimmedHistory(messages, history, systemPrompt);
+        ConversationAssembler.addTrimmedHistory(messages, history, systemPrompt, aiChatService::estimateTokenCount);
 
         // 与HTTP语义对齐：联网搜索仅按请求开关控制，默认false
         boolean enableWebSearch = requestDto.getEnableWebSearch() != null ? requestDto.getEnableWebSearch() : false;
@@ -705,47 +745,12 @@ public class ChatStreamHandler implements WebSocketHandler {
                 .userId(conversation.getUserId())
                 .conversationId(conversation.getId())
                 .enableWebSearch(enableWebSearch)
+                .searchContext(searchContext)
+                // WS路径已自行处理搜索（预取或判定无需搜索），模型服务不再同步搜索
+                .searchPrefetched(true)
                 .build();
     }
 
-    /**
-     * 根据简单 token 预算从尾部选择历史消息，避免上下文过长
-     * 逻辑与HTTP同步：预算约2500 tokens（不含输出），最多20条历史
-     */
-    private void addTrimmedHistory(List<ChatMessage> target, List<ConversationMessage> history, String systemPrompt) {
-        if (history == null || history.isEmpty()) return;
-        int budget = 2500; // 粗略预算
-        int used = 0;
-        if (systemPrompt != null && !systemPrompt.isEmpty()) {
-            used += aiChatService.estimateTokenCount(systemPrompt);
-        }
-
-        List<ConversationMessage> buffer = new ArrayList<>();
-        for (int i = history.size() - 1; i >= 0 && buffer.size() < 20; i--) {
-            ConversationMessage msg = history.get(i);
-            String content = msg.getContent();
-            if (content == null || content.isEmpty()) continue;
-            int t = aiChatService.estimateTokenCount(content);
-            if (used + t > budget) break;
-            used += t;
-            buffer.add(msg);
-        }
-        // 正序追加到目标
-        for (int i = buffer.size() - 1; i >= 0; i--) {
-            ConversationMessage msg = buffer.get(i);
-            switch (msg.getRole()) {
-                case USER:
-                    target.add(ChatMessage.user(msg.getContent()));
-                    break;
-                case ASSISTANT:
-                    target.add(ChatMessage.assistant(msg.getContent()));
-                    break;
-                default:
-                    break;
-            }
-        }
-    }
-
     /**
      * 构建系统提示词，集成角色信息（与HTTP一致）
      */
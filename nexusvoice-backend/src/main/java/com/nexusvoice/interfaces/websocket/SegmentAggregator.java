@@ -0,0 +1,446 @@
+package com.nexusvoice.interfaces.websocket;
+
+import com.nexusvoice.application.tts.service.TtsLatencyTracker;
+import com.nexusvoice.application.tts.service.TtsPriority;
+import com.nexusvoice.infrastructure.ai.model.StreamChatResponse;
+import com.nexusvoice.utils.MarkdownTextUtils;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 分段聚合器：按阈值切分文本、并发TTS并按序发送TTS_SEGMENT
+ * 启用自适应分段时，首段在最早的自然断点处切出，只要下一段在首段播放完之前能够生成并合成完毕；
+ * 后续分段按比例增大以摊薄每次TTS调用的固定开销。
+ * 合成与时间线由调用方注入，离线回放工具可以用录制的token时序和TTS延迟驱动同一套逻辑。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+class SegmentAggregator {
+
+    static final char[] SENTENCE_ENDS = {'。', '！', '？', '!', '?', '\n', '\r'};
+    static final char[] CLAUSE_ENDS = {'，', '、', ','};
+    /**
+     * 分段无音频（超时、失败或TTS不可用）的占位值；ConcurrentHashMap 不接受 null
+     */
+    private static final String NO_AUDIO = "";
+
+    /**
+     * 分段参数
+     *
+     * @param firstMinChars       首段字数上限（固定分段时为首段最少字数）
+     * @param minChars            后续分段最少字数
+     * @param maxChars            单段最大字数
+     * @param firstGateMs         首段等待音频的最长时间，超时先发文本
+     * @param heartbeatMs         首段发出前的心跳间隔
+     * @param lateUpdate          音频迟到时是否补发TTS_SEGMENT_UPDATE
+     * @param adaptive            自适应分段参数，为null时使用固定阈值
+     * @param playbackCharsPerSec 播放语速（字/秒），用于估算播放时长与调度截止时间
+     */
+    record Settings(int firstMinChars, int minChars, int maxChars, int firstGateMs, int heartbeatMs, boolean lateUpdate,
+                    AdaptivePolicy adaptive, int playbackCharsPerSec) {
+    }
+
+    /**
+     * 自适应分段参数
+     *
+     * @param firstFloorChars 首段最少字数
+     * @param growthPercent   后续分段相对上一段的增长比例（百分比）
+     */
+    record AdaptivePolicy(int firstFloorChars, int growthPercent) {
+    }
+
+    /**
+     * 分段语音合成
+     */
+    interface Synthesizer {
+
+        /**
+         * TTS上游当前是否可用，不可用时分段直接以纯文本下发
+         */
+        boolean isAvailable();
+
+        /**
+         * 合成已清洗的分段文本，返回音频地址（失败时返回null或抛出异常）
+         */
+        String synthesize(String voiceType, String text, TtsPriority priority) throws Exception;
+    }
+
+    /**
+     * 时间线：线上使用系统时钟，离线回放时可按倍速缩放
+     */
+    interface Timeline {
+
+        Timeline SYSTEM = new Timeline() {
+            @Override
+            public long now() {
+                return System.currentTimeMillis();
+            }
+
+            @Override
+            public Executor delayed(long delayMs) {
+                return CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS);
+            }
+
+            @Override
+            public void sleep(long millis) throws InterruptedException {
+                Thread.sleep(millis);
+            }
+        };
+
+        long now();
+
+        Executor delayed(long delayMs);
+
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    private final String groupId;
+    private final String voiceType;
+    private final String model;
+    private final int firstMinChars;
+    private final int minChars;
+    private final int maxChars;
+    private final int firstGateMs;
+    private final int heartbeatMs;
+    private final boolean lateUpdate;
+    private final AdaptivePolicy adaptive;
+    private final int playbackCharsPerSec;
+    private final TtsPriority turnPriority;
+    private final long turnStartMs;
+    private final Consumer<String> appendTotal;
+    private final Consumer<StreamChatResponse> sender;
+    private final Synthesizer synthesizer;
+    private final TtsLatencyTracker ttsLatencyTracker;
+    private final Executor executor;
+    private final Timeline timeline;
+    private final Timer firstAudioTimer;
+
+    private final StringBuilder buf = new StringBuilder();
+    private final Map<Integer, String> segText = new ConcurrentHashMap<>();
+    private final Map<Integer, String> segAudio = new ConcurrentHashMap<>();
+    private final Map<Integer, Boolean> audioDelivered = new ConcurrentHashMap<>();
+    private volatile int nextIndex = 0;
+    private volatile int produced = 0;
+    private volatile boolean finished = false;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private volatile boolean heartbeatRunning = false;
+    private CompletableFuture<?> heartbeatTask;
+    private long firstDeltaAt = -1;
+    private int receivedChars = 0;
+    private int lastSegmentChars = 0;
+    private volatile long firstAudioAt = -1;
+    // 下一个分段预计开始播放的时间点，用作TTS调度截止时间
+    private long playbackCursorAt = -1;
+
+    SegmentAggregator(String groupId, String voiceType, String model, Settings settings, TtsPriority turnPriority, long turnStartMs,
+                      Consumer<String> appendTotal, Consumer<StreamChatResponse> sender,
+                      Synthesizer synthesizer, TtsLatencyTracker ttsLatencyTracker, Executor executor, Timeline timeline,
+                      Timer firstAudioTimer) {
+        this.groupId = groupId;
+        this.voiceType = voiceType;
+        this.model = model;
+        this.firstMinChars = settings.firstMinChars();
+        this.minChars = settings.minChars();
+        this.maxChars = settings.maxChars();
+        this.firstGateMs = settings.firstGateMs();
+        this.heartbeatMs = settings.heartbeatMs();
+        this.lateUpdate = settings.lateUpdate();
+        this.adaptive = settings.adaptive();
+        this.playbackCharsPerSec = settings.playbackCharsPerSec();
+        this.turnPriority = turnPriority;
+        this.turnStartMs = turnStartMs;
+        this.appendTotal = appendTotal;
+        this.sender = sender;
+        this.synthesizer = synthesizer;
+        this.ttsLatencyTracker = ttsLatencyTracker;
+        this.executor = executor;
+        this.timeline = timeline;
+        this.firstAudioTimer = firstAudioTimer;
+    }
+
+    void onDelta(String delta) {
+        if (delta == null || delta.isEmpty()) return;
+        synchronized (buf) {
+            if (firstDeltaAt < 0) {
+                firstDeltaAt = timeline.now();
+            }
+            receivedChars += delta.length();
+            buf.append(delta);
+            tryCut();
+        }
+    }
+
+    /**
+     * 本轮首个带音频的分段送出时距请求开始的毫秒数；尚无音频时为null
+     */
+    Long getTimeToFirstAudioMs() {
+        long at = firstAudioAt;
+        return at < 0 ? null : at - turnStartMs;
+    }
+
+    CompletableFuture<Void> finish() {
+        synchronized (buf) {
+            if (buf.length() > 0) {
+                String text = buf.toString();
+                buf.setLength(0);
+                scheduleSegment(text, produced++);
+            }
+            finished = true;
+        }
+        // 尝试在完成后刷新
+        flush();
+        return done;
+    }
+
+    private void tryCut() {
+        while (true) {
+            int cut;
+            if (adaptive != null) {
+                cut = produced == 0 ? adaptiveFirstCut() : adaptiveNextCut();
+            } else {
+                int need = (produced == 0) ? firstMinChars : minChars;
+                if (buf.length() < need) return;
+                cut = findCutIndex(buf, need, maxChars);
+            }
+            if (cut <= 0) return;
+            String text = buf.substring(0, cut);
+            buf.delete(0, cut);
+            lastSegmentChars = cut;
+            scheduleSegment(text, produced++);
+        }
+    }
+
+    /**
+     * 首段切点：从最早的自然断点开始，找到第一个满足“下一段生成+合成耗时 ≤ 本段合成+播放耗时”的位置。
+     * 生成速率尚无法估计（首个token后不足200ms）时继续等待；累计达到首段上限仍不满足时退回固定切分。
+     */
+    private int adaptiveFirstCut() {
+        int len = buf.length();
+        int cap = Math.min(firstMinChars, maxChars);
+        if (len < adaptive.firstFloorChars()) return -1;
+        long elapsedMs = timeline.now() - firstDeltaAt;
+        if (elapsedMs >= 200) {
+            double charsPerMs = (double) receivedChars / elapsedMs;
+            double playbackCharsPerMs = playbackCharsPerSec / 1000.0;
+            int bound = Math.min(len, cap);
+            for (int i = adaptive.firstFloorChars(); i <= bound; i++) {
+                if (!isNaturalBoundary(buf.charAt(i - 1))) continue;
+                int next = nextSegmentChars(i);
+                double nextReadyMs = next / charsPerMs + ttsLatencyTracker.predictMs(voiceType, next);
+                double playbackEndMs = ttsLatencyTracker.predictMs(voiceType, i) + i / playbackCharsPerMs;
+                if (nextReadyMs <= playbackEndMs) {
+                    return i;
+                }
+            }
+        }
+        return len >= cap ? findCutIndex(buf, adaptive.firstFloorChars(), cap) : -1;
+    }
+
+    /**
+     * 后续分段：目标长度按上一段增长，优先在句末切分，达到最大长度时再退回逗号/空格/硬切
+     */
+    private int adaptiveNextCut() {
+        int target = nextSegmentChars(lastSegmentChars);
+        int len = buf.length();
+        if (len < target) return -1;
+        int idx = lastIndexOfAny(buf, SENTENCE_ENDS, Math.min(len, maxChars));
+        if (idx >= target) return idx;
+        return len >= maxChars ? findCutIndex(buf, target, maxChars) : -1;
+    }
+
+    private int nextSegmentChars(int previous) {
+        int grown = (int) ((long) previous * adaptive.growthPercent() / 100);
+        return Math.min(maxChars, Math.max(adaptive.firstFloorChars(), grown));
+    }
+
+    private boolean isNaturalBoundary(char c) {
+        for (char b : SENTENCE_ENDS) {
+            if (c == b) return true;
+        }
+        for (char b : CLAUSE_ENDS) {
+            if (c == b) return true;
+        }
+        return false;
+    }
+
+    private void scheduleSegment(String text, int index) {
+        segText.put(index, text);
+        appendTotal.accept(text);
+        // TTS上游已熔断：不再排队等待超时，直接以纯文本分段下发
+        if (!synthesizer.isAvailable()) {
+            segAudio.put(index, NO_AUDIO);
+            flush();
+            return;
+        }
+        if (index == 0) {
+            startHeartbeat();
+            // 首段fallback：超过firstGateMs仍未获取音频，先释放文本段
+            timeline.delayed(firstGateMs).execute(() -> {
+                if (segAudio.putIfAbsent(0, NO_AUDIO) == null) {
+                    flush();
+                }
+            });
+        }
+
+        // 截止时间：首段为首段门限，之后每段顺延上一段的预计播放时长
+        long now = timeline.now();
+        long deadlineAt = index == 0 ? now + firstGateMs : Math.max(playbackCursorAt, now);
+        playbackCursorAt = deadlineAt + text.length() * 1000L / playbackCharsPerSec;
+        TtsPriority priority = new TtsPriority(turnPriority.userId(), index, deadlineAt, turnPriority.stillNeeded());
+
+        try {
+            CompletableFuture.runAsync(() -> synthesizeSegment(text, index, priority), executor);
+        } catch (RejectedExecutionException e) {
+            // 执行器已停止：与熔断一致按纯文本下发，保证轮次能够结束
+            segAudio.putIfAbsent(index, NO_AUDIO);
+            flush();
+        }
+    }
+
+    private void synthesizeSegment(String text, int index, TtsPriority priority) {
+        try {
+            // 合成耗时由合成方（TTSService）在上游调用层面计入延迟模型，这里的耗时含排队与上传，不计入
+            String cleaned = MarkdownTextUtils.cleanForTTS(text);
+            String url = synthesizer.synthesize(voiceType, cleaned, priority);
+            segAudio.put(index, url != null ? url : NO_AUDIO);
+            // 若此前已经发送过该段文本且未带音频，则补发音频更新
+            maybeSendLateUpdate(index, url);
+        } catch (Exception e) {
+            log.warn("分段TTS失败：index={}，错误：{}", index, e.getMessage());
+            segAudio.putIfAbsent(index, NO_AUDIO);
+        } finally {
+            flush();
+        }
+    }
+
+    private void flush() {
+        // 首段同步门：只有当 index=0 有音频（或超时）才发
+        if (nextIndex == 0 && produced > 0 && !segAudio.containsKey(0)) {
+            return;
+        }
+        while (segText.containsKey(nextIndex)) {
+            // 对于非首段，允许音频为空（失败也发文本）
+            if (nextIndex == 0 && !segAudio.containsKey(0)) break;
+            String text = segText.remove(nextIndex);
+            String audio = segAudio.get(nextIndex);
+            if (NO_AUDIO.equals(audio)) {
+                audio = null;
+            }
+            StreamChatResponse seg = StreamChatResponse.ttsSegment(groupId, nextIndex, text, audio, model);
+            try {
+                sender.accept(seg);
+            } catch (Exception e) {
+                log.warn("发送TTS_SEGMENT失败：index={}，错误：{}", nextIndex, e.getMessage());
+            }
+            audioDelivered.put(nextIndex, audio != null);
+            if (audio != null) {
+                markFirstAudio();
+            }
+            nextIndex++;
+        }
+        // 如果已完成且全部发送，标记done
+        if (finished && nextIndex >= produced) {
+            done.complete(null);
+            stopHeartbeat();
+        }
+        if (nextIndex > 0) {
+            stopHeartbeat();
+        }
+    }
+
+    private void maybeSendLateUpdate(int index, String audioUrl) {
+        if (!lateUpdate) return;
+        if (audioUrl == null) return;
+        // 已经发出过该段，并且之前未带音频
+        Boolean delivered = audioDelivered.get(index);
+        if (index < nextIndex && (delivered == null || !delivered)) {
+            try {
+                StreamChatResponse upd = StreamChatResponse.ttsSegmentUpdate(groupId, index, audioUrl, model);
+                sender.accept(upd);
+                audioDelivered.put(index, true);
+                markFirstAudio();
+            } catch (Exception e) {
+                log.warn("发送TTS_SEGMENT_UPDATE失败：index={}，错误：{}", index, e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void markFirstAudio() {
+        if (firstAudioAt < 0) {
+            firstAudioAt = timeline.now();
+            firstAudioTimer.record(firstAudioAt - turnStartMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void startHeartbeat() {
+        if (heartbeatRunning) return;
+        heartbeatRunning = true;
+        heartbeatTask = CompletableFuture.runAsync(() -> {
+            while (heartbeatRunning) {
+                try {
+                    sender.accept(StreamChatResponse.heartbeat());
+                } catch (Exception ignore) {}
+                try {
+                    timeline.sleep(heartbeatMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        });
+    }
+
+    private void stopHeartbeat() {
+        heartbeatRunning = false;
+        heartbeatTask = null;
+    }
+
+    /**
+     * 在 [minChars, maxChars] 内寻找切点：句末标点 > 逗号/顿号 > 空格 > 硬切；不足 minChars 返回-1
+     */
+    static int findCutIndex(StringBuilder sb, int minChars, int maxChars) {
+        int len = sb.length();
+        if (len < minChars) return -1;
+        int limit = Math.min(len, maxChars);
+        // 优先：句末标点/换行
+        int idx = lastIndexOfAny(sb, SENTENCE_ENDS, limit);
+        if (idx >= minChars) return idx;
+        // 次选：逗号、顿号
+        idx = lastIndexOfAny(sb, CLAUSE_ENDS, limit);
+        if (idx >= minChars) return idx;
+        // 空格
+        idx = lastIndexOf(sb, ' ', limit - 1);
+        if (idx >= minChars) return idx;
+        // 硬切
+        return limit;
+    }
+
+    static int lastIndexOfAny(CharSequence s, char[] chars, int endExclusive) {
+        int bound = Math.min(endExclusive, s.length());
+        for (int i = bound - 1; i >= 0; i--) {
+            char c = s.charAt(i);
+            for (char target : chars) {
+                if (c == target) return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(CharSequence s, char ch, int fromInclusive) {
+        int i = Math.min(fromInclusive, s.length() - 1);
+        for (; i >= 0; i--) {
+            if (s.charAt(i) == ch) return i + 1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,369 @@
+package com.nexusvoice.interfaces.websocket;
+
+import com.nexusvoice.enums.ErrorCodeEnum;
+import com.nexusvoice.exception.RateLimitedException;
+import com.nexusvoice.infrastructure.config.LlmSchedulerConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 流式对话准入控制（节点级）
+ * 同时进行的流式生成数达到上限后，新请求按到达顺序排队，并定期收到排队位置与预计等待时间；
+ * 队列已满、预计等待超过上限或排队超时的请求直接拒绝，而不是让所有在途请求一起变慢。
+ * 名额在生成结束（或失败）时释放，分段TTS与落库不占用名额。
+ * 并发上限不超过大模型调度器的静态并发上限，这只是上界：调度器的名额同时供同步调用（HTTP聊天、角色助手）使用，
+ * 且会随上游自适应上限收缩，已放行的生成仍可能在调度器里短暂排队（此时不推送QUEUED）。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+@Slf4j
+@Component
+public class StreamAdmissionController {
+
+    /**
+     * 尚无完成样本时使用的单次生成时长估计
+     */
+    private static final long INITIAL_HOLD_MS = 10_000;
+
+    /**
+     * 生成时长滑动平均的权重
+     */
+    private static final double HOLD_EWMA_ALPHA = 0.1;
+
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMs;
+    private final long updateIntervalMs;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService ticker =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("nv-stream-admission").factory());
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+    private int active;
+    private double avgHoldMs = INITIAL_HOLD_MS;
+    private boolean holdSampled;
+
+    private final Counter rejectedFullCounter;
+    private final Counter rejectedTimeoutCounter;
+    private final Timer queueWaitTimer;
+
+    public StreamAdmissionController(@Qualifier("virtualThreadExecutor") ExecutorService executor,
+                                     MeterRegistry meterRegistry,
+                                     LlmSchedulerConfig llmSchedulerConfig,
+                                     @Value("${nexusvoice.chat.admission.enabled:true}") boolean enabled,
+                                     @Value("${nexusvoice.chat.admission.max-concurrent:0}") int maxConcurrent,
+                                     @Value("${nexusvoice.chat.admission.max-queue:128}") int maxQueue,
+                                     @Value("${nexusvoice.chat.admission.max-wait-ms:15000}") long maxWaitMs,
+                                     @Value("${nexusvoice.chat.admission.update-interval-ms:1000}") long updateIntervalMs) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxConcurrent = resolveMaxConcurrent(maxConcurrent, llmSchedulerConfig);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+        this.updateIntervalMs = Math.max(100, updateIntervalMs);
+        this.rejectedFullCounter = Counter.builder("nexusvoice.ws.admission.rejected")
+                .description("被准入控制拒绝的流式对话请求数").tag("reason", "full").register(meterRegistry);
+        this.rejectedTimeoutCounter = Counter.builder("nexusvoice.ws.admission.rejected")
+                .description("被准入控制拒绝的流式对话请求数").tag("reason", "timeout").register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("nexusvoice.ws.admission.queue.wait")
+                .description("流式对话请求排队等待时长（仅最终获得名额的请求）").register(meterRegistry);
+    }
+
+    /**
+     * 未配置（0）时与大模型调度器的并发上限一致；配置值超过调度器上限时按调度器上限计
+     */
+    private static int resolveMaxConcurrent(int configured, LlmSchedulerConfig llmSchedulerConfig) {
+        int schedulerLimit = Math.max(1, llmSchedulerConfig.getMaxConcurrency());
+        if (configured <= 0) {
+            return schedulerLimit;
+        }
+        if (llmSchedulerConfig.isEnabled() && configured > schedulerLimit) {
+            log.warn("流式对话准入并发上限（{}）大于大模型调度并发上限（{}），按后者生效", configured, schedulerLimit);
+            return schedulerLimit;
+        }
+        return configured;
+    }
+
+    /**
+     * 构造完成后再注册指标、启动定期任务，避免它们看到未初始化完的对象
+     */
+    @PostConstruct
+    public void start() {
+        Gauge.builder("nexusvoice.ws.admission.active", this, StreamAdmissionController::activeCount)
+                .description("占用准入名额的流式生成数").register(meterRegistry);
+        Gauge.builder("nexusvoice.ws.admission.queued", this, StreamAdmissionController::queuedCount)
+                .description("排队等待准入的流式对话请求数").register(meterRegistry);
+
+        ticker.scheduleWithFixedDelay(this::tick, updateIntervalMs, updateIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("流式对话准入控制初始化完成，启用={}，并发上限={}，队列上限={}，最长等待={}ms",
+                enabled, this.maxConcurrent, this.maxQueue, this.maxWaitMs);
+    }
+
+    /**
+     * 申请一个流式生成名额
+     * 有空闲名额时返回已完成的Future；否则进入队列，排队期间通过listener推送位置变化，
+     * 获得名额后在虚拟线程上完成Future。被拒绝时以RateLimitedException完成，会话关闭被取消时以CancellationException完成。
+     *
+     * @param sessionId WebSocket会话ID（会话关闭时据此移出队列）
+     * @param listener  排队位置通知
+     * @return 准入许可，使用完毕须调用 {@link Permit#release()}
+     */
+    public CompletableFuture<Permit> acquire(String sessionId, QueueListener listener) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(new Permit(null));
+        }
+        Ticket ticket;
+        int position;
+        long etaMs;
+        lock.lock();
+        try {
+            if (active < maxConcurrent && queue.isEmpty()) {
+                active++;
+                return CompletableFuture.completedFuture(new Permit(this));
+            }
+            position = queue.size() + 1;
+            etaMs = estimateWaitMs(position);
+            if (queue.size() >= maxQueue || (holdSampled && etaMs > maxWaitMs)) {
+                ticket = null;
+            } else {
+                ticket = new Ticket(sessionId, listener, System.nanoTime());
+                ticket.notifiedPosition = position;
+                queue.addLast(ticket);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (ticket == null) {
+            rejectedFullCounter.increment();
+            log.warn("流式对话排队已满，拒绝请求，会话ID：{}，预计等待：{}ms", sessionId, etaMs);
+            return CompletableFuture.failedFuture(new RateLimitedException(ErrorCodeEnum.WEBSOCKET_STREAM_OVERLOADED,
+                    "当前对话人数较多，请稍后重试", retryAfterSeconds()));
+        }
+        log.info("流式对话进入排队，会话ID：{}，位置：{}，预计等待：{}ms", sessionId, position, etaMs);
+        notifyQueued(ticket, position, etaMs);
+        return ticket.future;
+    }
+
+    /**
+     * 会话关闭时移出其排队中的请求
+     */
+    public void cancel(String sessionId) {
+        List<Ticket> removed = new ArrayList<>();
+        lock.lock();
+        try {
+            queue.removeIf(t -> {
+                if (t.sessionId.equals(sessionId)) {
+                    removed.add(t);
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            lock.unlock();
+        }
+        for (Ticket t : removed) {
+            t.future.completeExceptionally(new CancellationException("会话已关闭"));
+        }
+    }
+
+    /**
+     * 归还名额并按到达顺序放行排队中的请求
+     */
+    private void release(long holdMs) {
+        List<Ticket> toAdmit = new ArrayList<>();
+        lock.lock();
+        try {
+            active--;
+            avgHoldMs = holdSampled ? avgHoldMs + HOLD_EWMA_ALPHA * (holdMs - avgHoldMs) : holdMs;
+            holdSampled = true;
+            while (active < maxConcurrent && !queue.isEmpty()) {
+                active++;
+                toAdmit.add(queue.pollFirst());
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Ticket ticket : toAdmit) {
+            admit(ticket);
+        }
+    }
+
+    private void admit(Ticket ticket) {
+        queueWaitTimer.record(System.nanoTime() - ticket.enqueuedAt, TimeUnit.NANOSECONDS);
+        Permit permit = new Permit(this);
+        try {
+            // 后续处理包含数据库读写，不占用归还名额的线程（可能是模型回调线程）
+            executor.execute(() -> {
+                if (!ticket.future.complete(permit)) {
+                    permit.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permit.release();
+            ticket.future.completeExceptionally(new CancellationException("应用正在停止"));
+        }
+    }
+
+    /**
+     * 定期任务：移出等待超时的请求，向位置发生变化的请求推送最新排队信息
+     */
+    private void tick() {
+        List<Ticket> expired = new ArrayList<>();
+        List<QueueUpdate> updates = new ArrayList<>();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            if (queue.isEmpty()) {
+                return;
+            }
+            Iterator<Ticket> it = queue.iterator();
+            int position = 0;
+            while (it.hasNext()) {
+                Ticket t = it.next();
+                if (now - t.enqueuedAt > TimeUnit.MILLISECONDS.toNanos(maxWaitMs)) {
+                    it.remove();
+                    expired.add(t);
+                    continue;
+                }
+                position++;
+                if (position != t.notifiedPosition) {
+                    t.notifiedPosition = position;
+                    updates.add(new QueueUpdate(t, position, estimateWaitMs(position)));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Ticket t : expired) {
+            rejectedTimeoutCounter.increment();
+            log.warn("流式对话排队超时，会话ID：{}", t.sessionId);
+            t.future.completeExceptionally(new RateLimitedException(ErrorCodeEnum.WEBSOCKET_STREAM_OVERLOADED,
+                    "排队等待超时，请稍后重试", retryAfterSeconds()));
+        }
+        for (QueueUpdate update : updates) {
+            notifyQueued(update.ticket(), update.position(), update.etaMs());
+        }
+    }
+
+    private void notifyQueued(Ticket ticket, int position, long etaMs) {
+        try {
+            ticket.listener.onQueued(position, etaMs);
+        } catch (RuntimeException e) {
+            log.warn("推送排队位置失败，会话ID：{}，错误：{}", ticket.sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * 在持有锁时调用：排在第position位的请求预计还需等待的时间
+     */
+    private long estimateWaitMs(int position) {
+        return Math.round(position * avgHoldMs / maxConcurrent);
+    }
+
+    private long retryAfterSeconds() {
+        lock.lock();
+        try {
+            return (long) Math.ceil(avgHoldMs / 1000);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double activeCount() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double queuedCount() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * 排队位置通知
+     */
+    @FunctionalInterface
+    public interface QueueListener {
+        /**
+         * @param position 当前排队位置（从1开始）
+         * @param etaMs    预计等待时间（毫秒）
+         */
+        void onQueued(int position, long etaMs);
+    }
+
+    /**
+     * 准入许可；release幂等，可以在生成结束与各个错误分支中重复调用
+     */
+    public static final class Permit {
+        private final StreamAdmissionController owner;
+        private final long grantedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(StreamAdmissionController owner) {
+            this.owner = owner;
+        }
+
+        public void release() {
+            if (owner != null && released.compareAndSet(false, true)) {
+                owner.release(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - grantedAt));
+            }
+        }
+    }
+
+    private record QueueUpdate(Ticket ticket, int position, long etaMs) {
+    }
+
+    private static final class Ticket {
+        final String sessionId;
+        final QueueListener listener;
+        final long enqueuedAt;
+        final CompletableFuture<Permit> future = new CompletableFuture<>();
+        int notifiedPosition;
+
+        Ticket(String sessionId, QueueListener listener, long enqueuedAt) {
+            this.sessionId = sessionId;
+            this.listener = listener;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.nexusvoice.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 复合音频缓冲区：由固定大小的池化分块组成，追加时不搬移已有数据，读取时按分块顺序流式输出。
+ * Base64音频可直接解码写入分块，省去中间数组；用完后 {@link #close()} 将分块归还池中。
+ * 非线程安全，写入与读取应由同一调用链顺序进行。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public final class AudioChunkBuffer implements AutoCloseable {
+
+    private static final int SEGMENT_SIZE = 16 * 1024;
+    private static final int MAX_POOLED = 256;
+    private static final ConcurrentLinkedQueue<byte[]> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    private final List<byte[]> segments = new ArrayList<>();
+    private int size;
+    private boolean closed;
+
+    /**
+     * 已写入字节数
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 追加字节
+     */
+    public void write(byte[] src, int offset, int length) {
+        ensureOpen();
+        while (length > 0) {
+            byte[] segment = writableSegment();
+            int pos = size % SEGMENT_SIZE;
+            int n = Math.min(length, SEGMENT_SIZE - pos);
+            System.arraycopy(src, offset, segment, pos, n);
+            size += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * 将Base64字符直接解码追加到分块中；只有跨分块边界的一个4字符组会经过临时数组
+     */
+    public void appendBase64(char[] src, int offset, int length) {
+        ensureOpen();
+        int end = offset + length;
+        while (end > offset && src[end - 1] == '=') {
+            end--;
+        }
+        byte[] straddle = null;
+        int i = offset;
+        while (i < end) {
+            byte[] segment = writableSegment();
+            int pos = size % SEGMENT_SIZE;
+            int quads = Math.min((end - i) / 4, (SEGMENT_SIZE - pos) / 3);
+            if (quads > 0) {
+                size += TtsFrameDecoder.decodeBase64(src, i, quads * 4, segment, pos);
+                i += quads * 4;
+                continue;
+            }
+            // 剩余不足一个完整组，或当前分块放不下一个完整组
+            int n = Math.min(4, end - i);
+            if (straddle == null) {
+                straddle = new byte[3];
+            }
+            int decoded = TtsFrameDecoder.decodeBase64(src, i, n, straddle, 0);
+            write(straddle, 0, decoded);
+            i += n;
+        }
+    }
+
+    /**
+     * 按顺序写出全部内容
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        ensureOpen();
+        int remaining = size;
+        for (byte[] segment : segments) {
+            int n = Math.min(remaining, SEGMENT_SIZE);
+            out.write(segment, 0, n);
+            remaining -= n;
+        }
+    }
+
+    /**
+     * 复制为连续数组（仅在调用方确实需要 byte[] 时使用）
+     */
+    public byte[] toByteArray() {
+        ensureOpen();
+        byte[] out = new byte[size];
+        int copied = 0;
+        for (byte[] segment : segments) {
+            int n = Math.min(size - copied, SEGMENT_SIZE);
+            System.arraycopy(segment, 0, out, copied, n);
+            copied += n;
+        }
+        return out;
+    }
+
+    /**
+     * 按分块顺序读取的输入流，不复制数据
+     */
+    public InputStream newInputStream() {
+        ensureOpen();
+        return new InputStream() {
+            private int position;
+
+            @Override
+            public int read() {
+                if (position >= size) {
+                    return -1;
+                }
+                int b = segments.get(position / SEGMENT_SIZE)[position % SEGMENT_SIZE] & 0xFF;
+                position++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (position >= size) {
+                    return -1;
+                }
+                int pos = position % SEGMENT_SIZE;
+                int n = Math.min(len, Math.min(SEGMENT_SIZE - pos, size - position));
+                System.arraycopy(segments.get(position / SEGMENT_SIZE), pos, b, off, n);
+                position += n;
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return size - position;
+            }
+        };
+    }
+
+    /**
+     * 归还分块；之后不可再读写
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (byte[] segment : segments) {
+            if (POOLED.incrementAndGet() <= MAX_POOLED) {
+                POOL.offer(segment);
+            } else {
+                POOLED.decrementAndGet();
+            }
+        }
+        segments.clear();
+        size = 0;
+    }
+
+    private byte[] writableSegment() {
+        if (size < segments.size() * SEGMENT_SIZE) {
+            return segments.get(segments.size() - 1);
+        }
+        byte[] segment = POOL.poll();
+        if (segment != null) {
+            POOLED.decrementAndGet();
+        } else {
+            segment = new byte[SEGMENT_SIZE];
+        }
+        segments.add(segment);
+        return segment;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("AudioChunkBuffer已关闭");
+        }
+    }
+}
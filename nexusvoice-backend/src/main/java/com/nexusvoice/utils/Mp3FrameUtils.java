@@ -0,0 +1,165 @@
+package com.nexusvoice.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MP3拼接工具：去除分段音频中会打断连续播放的元数据，使多段MP3帧可以直接顺序拼接为一个流。
+ * - ID3v2标签（文件头 "ID3"）与ID3v1标签（文件尾128字节 "TAG"）
+ * - 非首段的 Xing/Info/VBRI 帧：其中记录的是单段的帧数与时长，拼接后会让播放器误判总时长
+ */
+public final class Mp3FrameUtils {
+
+    private static final int ID3V1_LENGTH = 128;
+    private static final int ID3V2_HEADER_LENGTH = 10;
+    private static final int VBR_HEADER_SCAN = 64;
+    private static final byte[] XING = "Xing".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] INFO = "Info".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] VBRI = "VBRI".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final int[] BITRATES_V1_L3 = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 0};
+    private static final int[] BITRATES_V2_L3 = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160, 0};
+    private static final int[][] SAMPLE_RATES = {
+            {11025, 12000, 8000, 0},  // MPEG 2.5
+            {0, 0, 0, 0},             // 保留
+            {22050, 24000, 16000, 0}, // MPEG 2
+            {44100, 48000, 32000, 0}  // MPEG 1
+    };
+
+    private Mp3FrameUtils() {}
+
+    /**
+     * 计算用于拼接的有效区间
+     *
+     * @param data      单段MP3数据
+     * @param firstPart 是否为首段（首段保留VBR头帧）
+     * @return [offset, length]
+     */
+    public static int[] concatRange(byte[] data, boolean firstPart) {
+        int start = Math.min(headSkip(data, firstPart), data.length);
+        int end = contentEnd(data, start);
+        return new int[]{start, Math.max(0, end - start)};
+    }
+
+    /**
+     * 分段开头需要跳过的字节数（ID3v2标签，非首段再加VBR头帧），data为完整分段
+     */
+    public static int headSkip(byte[] data, boolean firstPart) {
+        return headSkip(data, firstPart, true);
+    }
+
+    /**
+     * 流式场景：data为分段开头已到达的字节，足以确定跳过长度时返回该长度，否则返回-1，调用方需攒入后续分片再试。
+     * 首段只需ID3v2标签头；非首段还需标签之后的首帧头与其中可能存在的VBR标记。
+     * 返回值可能大于data长度（标签长于已到达的数据），调用方需在后续分片中继续跳过。
+     */
+    public static int headSkipIfKnown(byte[] data, boolean firstPart) {
+        return headSkip(data, firstPart, false);
+    }
+
+    private static int headSkip(byte[] data, boolean firstPart, boolean complete) {
+        if (!complete && data.length < ID3V2_HEADER_LENGTH && maybeId3v2(data)) {
+            return -1;
+        }
+        int start = skipId3v2(data);
+        if (firstPart) {
+            return start;
+        }
+        if (start >= data.length) {
+            return complete ? start : -1;
+        }
+        int frameLength = frameLength(data, start, data.length);
+        if (frameLength <= 0) {
+            // 帧头不完整时无法判断，完整帧头不合法时不再跳过
+            return !complete && data.length - start < 4 ? -1 : start;
+        }
+        int frameEnd = start + frameLength;
+        if (!complete && data.length < Math.min(frameEnd, start + VBR_HEADER_SCAN)) {
+            return -1;
+        }
+        if (isVbrHeaderFrame(data, start, Math.min(frameEnd, data.length))) {
+            start += frameLength;
+        }
+        return start;
+    }
+
+    /**
+     * 去除末尾ID3v1标签后的结束位置
+     *
+     * @param data 分段数据（流式场景下为最后一个分片）
+     * @param from 有效数据起点
+     */
+    public static int contentEnd(byte[] data, int from) {
+        int end = data.length;
+        if (end - from >= ID3V1_LENGTH
+                && data[end - ID3V1_LENGTH] == 'T' && data[end - ID3V1_LENGTH + 1] == 'A' && data[end - ID3V1_LENGTH + 2] == 'G') {
+            end -= ID3V1_LENGTH;
+        }
+        return end;
+    }
+
+    /**
+     * 不足10字节的开头是否可能是ID3v2标签头
+     */
+    private static boolean maybeId3v2(byte[] data) {
+        byte[] id3 = {'I', 'D', '3'};
+        for (int i = 0; i < Math.min(data.length, id3.length); i++) {
+            if (data[i] != id3[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipId3v2(byte[] data) {
+        if (data.length < ID3V2_HEADER_LENGTH || data[0] != 'I' || data[1] != 'D' || data[2] != '3') {
+            return 0;
+        }
+        // 标签大小为4字节synchsafe整数（每字节7位），不含10字节头；footer标志位表示另有10字节尾
+        int size = ((data[6] & 0x7F) << 21) | ((data[7] & 0x7F) << 14) | ((data[8] & 0x7F) << 7) | (data[9] & 0x7F);
+        boolean footer = (data[5] & 0x10) != 0;
+        return 10 + size + (footer ? 10 : 0);
+    }
+
+    /**
+     * 解析Layer III帧头并返回帧长度，非法帧头返回-1
+     */
+    static int frameLength(byte[] data, int offset, int end) {
+        if (end - offset < 4 || (data[offset] & 0xFF) != 0xFF || (data[offset + 1] & 0xE0) != 0xE0) {
+            return -1;
+        }
+        int version = (data[offset + 1] >> 3) & 0x03;
+        int layer = (data[offset + 1] >> 1) & 0x03;
+        int bitrateIndex = (data[offset + 2] >> 4) & 0x0F;
+        int sampleRateIndex = (data[offset + 2] >> 2) & 0x03;
+        int padding = (data[offset + 2] >> 1) & 0x01;
+        if (version == 1 || layer != 1) {
+            return -1;
+        }
+        int bitrate = (version == 3 ? BITRATES_V1_L3 : BITRATES_V2_L3)[bitrateIndex];
+        int sampleRate = SAMPLE_RATES[version][sampleRateIndex];
+        if (bitrate == 0 || sampleRate == 0) {
+            return -1;
+        }
+        int coefficient = version == 3 ? 144000 : 72000;
+        return coefficient * bitrate / sampleRate + padding;
+    }
+
+    private static boolean isVbrHeaderFrame(byte[] data, int frameStart, int frameEnd) {
+        int scanEnd = Math.min(frameEnd, frameStart + VBR_HEADER_SCAN) - 4;
+        for (int i = frameStart + 4; i <= scanEnd; i++) {
+            if (matches(data, i, XING) || matches(data, i, INFO) || matches(data, i, VBRI)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(byte[] data, int offset, byte[] tag) {
+        for (int j = 0; j < tag.length; j++) {
+            if (data[offset + j] != tag[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
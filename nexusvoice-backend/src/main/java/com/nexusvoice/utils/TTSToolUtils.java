@@ -10,18 +10,18 @@ import org.java_websocket.handshake.ServerHandshake;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.file.Files;
 import java.nio.ByteBuffer;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * @Author AJ
@@ -37,6 +37,7 @@ public class TTSToolUtils {
     private static final String DEFAULT_ENCODING = "mp3";
     private static final double DEFAULT_SPEED = 1.0;
     private static final int READ_TIMEOUT_MS = 60_000; // 60 seconds
+    private static final int CONNECT_TIMEOUT_SECONDS = 5;
 
     private final String token;
     private final String host;
@@ -44,19 +45,22 @@ public class TTSToolUtils {
     private final String defaultVoiceType;
     private final String defaultEncoding;
     private final double defaultSpeed;
+    private final long readTimeoutMs;
 
     private TTSToolUtils(String token,
                        String host,
                        String path,
                        String defaultVoiceType,
                        String defaultEncoding,
-                       double defaultSpeed) {
+                       double defaultSpeed,
+                       long readTimeoutMs) {
         this.token = token;
         this.host = host;
         this.path = path;
         this.defaultVoiceType = defaultVoiceType;
         this.defaultEncoding = defaultEncoding;
         this.defaultSpeed = defaultSpeed;
+        this.readTimeoutMs = readTimeoutMs;
     }
 
     /**
@@ -69,7 +73,8 @@ public class TTSToolUtils {
                 DEFAULT_PATH,
                 DEFAULT_VOICE,
                 DEFAULT_ENCODING,
-                DEFAULT_SPEED
+                DEFAULT_SPEED,
+                READ_TIMEOUT_MS
         );
     }
 
@@ -80,13 +85,25 @@ public class TTSToolUtils {
                                                 String defaultVoiceType,
                                                 String defaultEncoding,
                                                 double defaultSpeed) {
+        return createWithDefaults(token, defaultVoiceType, defaultEncoding, defaultSpeed, READ_TIMEOUT_MS);
+    }
+
+    /**
+     * 使用自定义的默认配置和读取超时创建工具类
+     */
+    public static TTSToolUtils createWithDefaults(String token,
+                                                String defaultVoiceType,
+                                                String defaultEncoding,
+                                                double defaultSpeed,
+                                                long readTimeoutMs) {
         return new TTSToolUtils(
                 token,
                 DEFAULT_HOST,
                 DEFAULT_PATH,
                 defaultVoiceType,
                 defaultEncoding,
-                defaultSpeed
+                defaultSpeed,
+                readTimeoutMs > 0 ? readTimeoutMs : READ_TIMEOUT_MS
         );
     }
 
@@ -101,6 +118,28 @@ public class TTSToolUtils {
      * 文本转音频（自定义配置）
      */
     public byte[] textToAudioBytes(String text, String voiceType, String encoding, double speedRatio) throws TTSException {
+        CollectingWebSocketClient client = runSession(text, voiceType, encoding, speedRatio, null);
+        // 返回音频字节
+        return client.getAudioBytes();
+    }
+
+    /**
+     * 文本转音频（流式）
+     * 上游每返回一个音频分片即回调一次（在WebSocket读线程中调用，回调应尽快返回），不在内存中累积整段音频。
+     *
+     * @param onChunk 分片回调
+     * @throws TTSException 合成失败、超时或连接在结束标记之前断开
+     */
+    public void textToAudioStream(String text, String voiceType, String encoding, double speedRatio,
+                                  Consumer<byte[]> onChunk) throws TTSException {
+        CollectingWebSocketClient client = runSession(text, voiceType, encoding, speedRatio, onChunk);
+        if (!client.isCompleted()) {
+            throw new TTSException("TTS合成未正常结束");
+        }
+    }
+
+    private CollectingWebSocketClient runSession(String text, String voiceType, String encoding, double speedRatio,
+                                                 Consumer<byte[]> onChunk) throws TTSException {
         // 参数校验
         if (!isValidText(text)) {
             throw new TTSException("文本内容无效：文本不能为空且长度不能超过10000字符");
@@ -115,6 +154,7 @@ public class TTSToolUtils {
         String cleanedText = cleanText(text);
         TTSRequestModel request = createTTSRequest(cleanedText, voiceType, encoding, speedRatio);
 
+        CollectingWebSocketClient client = null;
         try {
             // 构建 WebSocket 连接信息
             URI uri = new URI("wss", host, path, null);
@@ -124,10 +164,10 @@ public class TTSToolUtils {
             headers.put("VoiceType", voiceType);
 
             // 创建收集音频字节的 WebSocket 客户端
-            CollectingWebSocketClient client = new CollectingWebSocketClient(uri, headers);
+            client = new CollectingWebSocketClient(uri, headers, onChunk);
 
             // 连接：阻塞等待握手完成，提升并发稳定性
-            boolean connected = client.connectBlocking(5, TimeUnit.SECONDS);
+            boolean connected = client.connectBlocking(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
             if (!connected || !client.isOpen()) {
                 throw new TTSException("WebSocket连接失败");
             }
@@ -136,15 +176,21 @@ public class TTSToolUtils {
             client.sendTTSRequest(request);
 
             // 等待完成（读取超时）
-            boolean finished = client.waitForCompletion(READ_TIMEOUT_MS);
+            boolean finished = client.waitForCompletion(readTimeoutMs);
             if (!finished) {
+                client.close();
                 throw new TTSException("TTS合成超时");
             }
-
-            // 返回音频字节
-            return client.getAudioBytes();
+            return client;
         } catch (TTSException e) {
             throw e;
+        } catch (InterruptedException e) {
+            // 调用方取消（如流式输出的客户端已断开）：主动关闭连接，避免上游继续合成
+            Thread.currentThread().interrupt();
+            if (client != null) {
+                client.close();
+            }
+            throw new TTSException("TTS合成被取消", e);
         } catch (Exception e) {
             throw new TTSException("TTS处理失败：" + e.getMessage(), e);
         }
@@ -204,17 +250,21 @@ public class TTSToolUtils {
         });
     }
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     /**
-     * 内部 WebSocket 客户端：收集服务端分片音频并合并为字节数组
+     * 内部 WebSocket 客户端：收集服务端分片音频并合并为字节数组；指定分片回调时改为逐片转发
+     * 响应帧用 {@link TtsFrameDecoder} 流式解析，音频直接解码进复合缓冲区
      */
     static class CollectingWebSocketClient extends WebSocketClient {
-        private final ObjectMapper mapper = new ObjectMapper();
-        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final AudioChunkBuffer buffer = new AudioChunkBuffer();
         private final CountDownLatch done = new CountDownLatch(1);
+        private final Consumer<byte[]> onChunk;
         private volatile boolean completed = false;
 
-        CollectingWebSocketClient(URI serverUri, Map<String, String> headers) {
+        CollectingWebSocketClient(URI serverUri, Map<String, String> headers, Consumer<byte[]> onChunk) {
             super(serverUri, headers);
+            this.onChunk = onChunk;
         }
 
         @Override
@@ -225,12 +275,14 @@ public class TTSToolUtils {
         @Override
         public void onMessage(String message) {
             try {
-                TTSResponseModel resp = mapper.readValue(message, TTSResponseModel.class);
-                if (resp.getData() != null && !resp.getData().isEmpty()) {
-                    byte[] chunk = Base64.getDecoder().decode(resp.getData());
-                    buffer.write(chunk);
-                }
-                if (resp.getSequence() < 0) {
+                int sequence = TtsFrameDecoder.decode(message, (chars, offset, length) -> {
+                    if (onChunk != null) {
+                        onChunk.accept(TtsFrameDecoder.decodeBase64(chars, offset, length));
+                    } else {
+                        buffer.appendBase64(chars, offset, length);
+                    }
+                });
+                if (sequence < 0) {
                     completed = true;
                     done.countDown();
                     close();
@@ -262,7 +314,7 @@ public class TTSToolUtils {
         }
 
         void sendTTSRequest(TTSRequestModel req) throws Exception {
-            String json = mapper.writeValueAsString(req);
+            String json = MAPPER.writeValueAsString(req);
             send(json.getBytes()); // 以二进制帧发送，与现有TTSService保持一致
         }
 
@@ -271,7 +323,15 @@ public class TTSToolUtils {
         }
 
         byte[] getAudioBytes() {
-            return buffer.toByteArray();
+            try {
+                return buffer.toByteArray();
+            } finally {
+                buffer.close();
+            }
+        }
+
+        boolean isCompleted() {
+            return completed;
         }
     }
 
@@ -335,38 +395,10 @@ public class TTSToolUtils {
         public String text;
     }
 
-    static class TTSResponseModel {
-        @JsonProperty("reqid")
-        private String reqid;
-
-        @JsonProperty("operation")
-        private String operation;
-
-        @JsonProperty("sequence")
-        private int sequence;
-
-        @JsonProperty("data")
-        private String data;
-
-        @JsonProperty("addition")
-        private AdditionModel addition;
-
-        public String getReqid() { return reqid; }
-        public String getOperation() { return operation; }
-        public int getSequence() { return sequence; }
-        public String getData() { return data; }
-        public AdditionModel getAddition() { return addition; }
-    }
-
-    static class AdditionModel {
-        @JsonProperty("duration")
-        public String duration;
-    }
-
     /**
      * 自定义的MultipartFile实现，用于包装字节数组
      */
-    static class ByteArrayMultipartFile implements MultipartFile {
+    public static class ByteArrayMultipartFile implements MultipartFile {
         private final String name;
         private final String originalFilename;
         private final String contentType;
@@ -419,4 +451,71 @@ public class TTSToolUtils {
             throw new UnsupportedOperationException("transferTo not supported for ByteArrayMultipartFile");
         }
     }
+
+    /**
+     * 以复合缓冲区为内容的MultipartFile，读取时按分块流式输出，不拼接为整块数组
+     */
+    public static class ChunkBufferMultipartFile implements MultipartFile {
+        private final String name;
+        private final String originalFilename;
+        private final String contentType;
+        private final AudioChunkBuffer content;
+
+        public ChunkBufferMultipartFile(String name, String originalFilename, String contentType,
+                                        AudioChunkBuffer content) {
+            this.name = name;
+            this.originalFilename = originalFilename;
+            this.contentType = contentType;
+            this.content = content;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return originalFilename;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return content.isEmpty();
+        }
+
+        @Override
+        public long getSize() {
+            return content.size();
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return content.toByteArray();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return content.newInputStream();
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException, IllegalStateException {
+            try (var out = Files.newOutputStream(dest.toPath())) {
+                content.writeTo(out);
+            }
+        }
+
+        /**
+         * 归还缓冲区分块
+         */
+        public void release() {
+            content.close();
+        }
+    }
 }
@@ -0,0 +1,145 @@
+package com.nexusvoice.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * TTS响应帧解码：用共享的JsonFactory流式读取 sequence 与 data 字段，不构建对象树也不生成中间字符串。
+ * data 的Base64字符以借用方式交给回调（仅在回调期间有效），由调用方直接解码到目标缓冲区。
+ *
+ * @author NexusVoice
+ * @since 2025-09-29
+ */
+public final class TtsFrameDecoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private TtsFrameDecoder() {}
+
+    /**
+     * 音频数据回调
+     */
+    @FunctionalInterface
+    public interface AudioSink {
+        /**
+         * @param base64 Base64字符（借用，回调返回后失效）
+         */
+        void audio(char[] base64, int offset, int length);
+    }
+
+    /**
+     * 解码一帧
+     *
+     * @return 帧的 sequence（缺省为0，负数表示合成结束）
+     */
+    public static int decode(char[] frame, int offset, int length, AudioSink sink) throws IOException {
+        try (JsonParser parser = JSON.createParser(frame, offset, length)) {
+            return decode(parser, sink);
+        }
+    }
+
+    /**
+     * 解码一帧（字符串输入）
+     */
+    public static int decode(String frame, AudioSink sink) throws IOException {
+        try (JsonParser parser = JSON.createParser(frame)) {
+            return decode(parser, sink);
+        }
+    }
+
+    private static int decode(JsonParser parser, AudioSink sink) throws IOException {
+        int sequence = 0;
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("TTS响应不是JSON对象");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("sequence".equals(name) && value == JsonToken.VALUE_NUMBER_INT) {
+                sequence = parser.getIntValue();
+            } else if ("data".equals(name) && value == JsonToken.VALUE_STRING) {
+                int len = parser.getTextLength();
+                if (len > 0) {
+                    sink.audio(parser.getTextCharacters(), parser.getTextOffset(), len);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Base64解码后的字节数
+     */
+    public static int decodedLength(char[] src, int offset, int length) {
+        int pad = 0;
+        if (length > 0 && src[offset + length - 1] == '=') pad++;
+        if (length > 1 && src[offset + length - 2] == '=') pad++;
+        int quads = length / 4;
+        int rem = length % 4;
+        return quads * 3 - pad + (rem == 2 ? 1 : rem == 3 ? 2 : 0);
+    }
+
+    /**
+     * 解码为恰好大小的新数组
+     */
+    public static byte[] decodeBase64(char[] src, int offset, int length) {
+        byte[] out = new byte[decodedLength(src, offset, length)];
+        decodeBase64(src, offset, length, out, 0);
+        return out;
+    }
+
+    /**
+     * 将Base64字符解码写入目标数组（标准字母表，允许末尾填充或省略填充）
+     *
+     * @return 写入的字节数
+     */
+    public static int decodeBase64(char[] src, int offset, int length, byte[] dst, int dstOffset) {
+        int end = offset + length;
+        while (end > offset && src[end - 1] == '=') {
+            end--;
+        }
+        int d = dstOffset;
+        int i = offset;
+        for (; i + 4 <= end; i += 4) {
+            int bits = (value(src[i]) << 18) | (value(src[i + 1]) << 12) | (value(src[i + 2]) << 6) | value(src[i + 3]);
+            dst[d++] = (byte) (bits >> 16);
+            dst[d++] = (byte) (bits >> 8);
+            dst[d++] = (byte) bits;
+        }
+        int rem = end - i;
+        if (rem == 2) {
+            int bits = (value(src[i]) << 18) | (value(src[i + 1]) << 12);
+            dst[d++] = (byte) (bits >> 16);
+        } else if (rem == 3) {
+            int bits = (value(src[i]) << 18) | (value(src[i + 1]) << 12) | (value(src[i + 2]) << 6);
+            dst[d++] = (byte) (bits >> 16);
+            dst[d++] = (byte) (bits >> 8);
+        } else if (rem == 1) {
+            throw new IllegalArgumentException("Base64长度非法");
+        }
+        return d - dstOffset;
+    }
+
+    private static int value(char c) {
+        int v = c < 128 ? DECODE[c] : -1;
+        if (v < 0) {
+            throw new IllegalArgumentException("非法的Base64字符: " + c);
+        }
+        return v;
+    }
+}
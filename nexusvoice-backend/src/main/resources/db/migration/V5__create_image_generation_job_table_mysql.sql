@@ -0,0 +1,42 @@
+-- 创建图像生成任务表 (MySQL版本)
+-- 版本: V5
+-- 描述: 异步图像生成任务，持久化任务状态，支持重试、去重与服务重启后恢复
+-- 作者: NexusVoice
+-- 日期: 2025-09-29
+
+CREATE TABLE image_generation_jobs (
+    -- 主键ID，使用BIGINT存储雪花ID
+    id BIGINT NOT NULL PRIMARY KEY,
+
+    -- 基本信息
+    user_id BIGINT NOT NULL COMMENT '提交任务的用户ID',
+    request_hash CHAR(64) NOT NULL COMMENT '请求参数哈希（SHA-256），用于去重',
+    model_name VARCHAR(100) NOT NULL COMMENT '图像生成模型',
+    request_params JSON NOT NULL COMMENT '图像生成请求参数 (JSON格式)',
+
+    -- 任务状态
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED' COMMENT '任务状态 (QUEUED-排队中, RUNNING-执行中, SUCCEEDED-成功, FAILED-失败)',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已执行次数（含重试）',
+    result_payload JSON COMMENT '生成结果 (JSON格式)',
+    error_message VARCHAR(1000) COMMENT '失败原因',
+
+    -- 时间字段
+    started_at DATETIME COMMENT '开始执行时间',
+    finished_at DATETIME COMMENT '结束时间',
+
+    -- 基础字段（继承自BaseEntity）
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    deleted INT NOT NULL DEFAULT 0 COMMENT '逻辑删除标识 (0-未删除, 1-已删除)',
+
+    -- 约束
+    CONSTRAINT chk_image_job_status CHECK (status IN ('QUEUED', 'RUNNING', 'SUCCEEDED', 'FAILED')),
+    CONSTRAINT chk_image_job_deleted CHECK (deleted IN (0, 1)),
+    CONSTRAINT fk_image_job_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图像生成任务表';
+
+-- 创建索引
+CREATE INDEX idx_image_job_user_status ON image_generation_jobs (user_id, status);
+CREATE INDEX idx_image_job_user_hash ON image_generation_jobs (user_id, request_hash, created_at);
+CREATE INDEX idx_image_job_status ON image_generation_jobs (status);
+CREATE INDEX idx_image_job_created_at ON image_generation_jobs (created_at);
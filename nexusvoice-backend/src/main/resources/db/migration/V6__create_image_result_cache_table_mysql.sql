@@ -0,0 +1,33 @@
+-- 创建图像生成结果缓存表 (MySQL版本)
+-- 版本: V6
+-- 描述: 指定种子的图像生成请求结果确定，按规范化请求缓存CDN地址，避免重复调用上游
+-- 作者: NexusVoice
+-- 日期: 2025-09-29
+
+CREATE TABLE image_result_cache (
+    -- 主键ID，使用BIGINT存储雪花ID
+    id BIGINT NOT NULL PRIMARY KEY,
+
+    -- 缓存键与关键参数
+    cache_key CHAR(64) NOT NULL COMMENT '规范化请求的SHA-256',
+    model_name VARCHAR(100) NOT NULL COMMENT '图像生成模型',
+    seed BIGINT NOT NULL COMMENT '随机种子',
+
+    -- 缓存结果
+    image_urls JSON NOT NULL COMMENT 'CDN图像地址列表 (JSON数组)',
+    image_size VARCHAR(20) COMMENT '图像尺寸',
+    hit_count INT NOT NULL DEFAULT 0 COMMENT '命中次数',
+    last_hit_at DATETIME COMMENT '最后命中时间',
+
+    -- 基础字段（继承自BaseEntity）
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    deleted INT NOT NULL DEFAULT 0 COMMENT '逻辑删除标识 (0-未删除, 1-已删除)',
+
+    -- 约束
+    CONSTRAINT chk_image_cache_deleted CHECK (deleted IN (0, 1))
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图像生成结果缓存表';
+
+-- 创建索引
+CREATE UNIQUE INDEX uk_image_cache_key ON image_result_cache (cache_key, deleted);
+CREATE INDEX idx_image_cache_created_at ON image_result_cache (created_at);
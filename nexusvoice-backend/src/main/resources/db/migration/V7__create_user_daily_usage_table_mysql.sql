@@ -0,0 +1,30 @@
+-- 创建用户每日用量表 (MySQL版本)
+-- 版本: V7
+-- 描述: 按用户、按自然日累计大模型令牌数与语音合成字数，用于每日配额检查；由服务端定期累加写入
+-- 作者: NexusVoice
+-- 日期: 2025-09-29
+
+CREATE TABLE user_daily_usage (
+    -- 主键ID，使用BIGINT存储雪花ID
+    id BIGINT NOT NULL PRIMARY KEY,
+
+    -- 用户与日期
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    usage_date DATE NOT NULL COMMENT '统计日期',
+
+    -- 用量
+    llm_tokens BIGINT NOT NULL DEFAULT 0 COMMENT '大模型令牌数',
+    tts_chars BIGINT NOT NULL DEFAULT 0 COMMENT '语音合成字数',
+
+    -- 基础字段（继承自BaseEntity）
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    deleted INT NOT NULL DEFAULT 0 COMMENT '逻辑删除标识 (0-未删除, 1-已删除)',
+
+    -- 约束
+    CONSTRAINT chk_user_daily_usage_deleted CHECK (deleted IN (0, 1))
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户每日用量表';
+
+-- 创建索引
+CREATE UNIQUE INDEX uk_user_daily_usage ON user_daily_usage (user_id, usage_date, deleted);
+CREATE INDEX idx_user_daily_usage_date ON user_daily_usage (usage_date);